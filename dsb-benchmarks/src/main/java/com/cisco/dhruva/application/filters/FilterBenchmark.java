@@ -0,0 +1,169 @@
+package com.cisco.dhruva.application.filters;
+
+import com.cisco.dhruva.application.CallingAppConfigurationProperty;
+import com.cisco.dhruva.application.calltype.CallTypeEnum;
+import com.cisco.dhruva.application.exceptions.FilterTreeException;
+import com.cisco.dsb.common.context.ExecutionContext;
+import com.cisco.dsb.common.util.SpringApplicationContext;
+import com.cisco.dsb.proxy.messaging.ProxySIPRequest;
+import com.cisco.dsb.trunk.util.SipParamConstants;
+import gov.nist.javax.sip.message.SIPRequest;
+import gov.nist.javax.sip.parser.StringMsgParser;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.support.GenericApplicationContext;
+
+/**
+ * Call type classification of INVITEs, through the compiled {@link FilterTable} against the walk
+ * of the filter tree it replaced, which kept the filter results in a map per request. The INVITEs
+ * are a mix of 40% dial-in PSTN, 10% dial-in B2B, 40% dial-out WxC and 10% dial-out B2B.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FilterBenchmark {
+  private static final int REQUESTS = 100;
+
+  private GenericApplicationContext context;
+  private RootNode rootNode;
+  private FilterTable filterTable;
+  private final ProxySIPRequest[] requests = new ProxySIPRequest[REQUESTS];
+  private int next;
+
+  @Setup
+  public void setup() throws ParseException, FilterTreeException {
+    CallingAppConfigurationProperty configurationProperty = new CallingAppConfigurationProperty();
+    configurationProperty.setNetworkPSTN("net_sp");
+    configurationProperty.setNetworkB2B("net_b2b");
+    configurationProperty.setNetworkCallingCore("net_cc");
+
+    NetworkPSTN networkPSTN = new NetworkPSTN();
+    networkPSTN.setConfigurationProperty(configurationProperty);
+    NetworkB2B networkB2B = new NetworkB2B();
+    networkB2B.setConfigurationProperty(configurationProperty);
+    NetworkWxC networkWxC = new NetworkWxC();
+    networkWxC.setConfigurationProperty(configurationProperty);
+    CallTypeDialInTagOrMidDialogDialIn dialIn = new CallTypeDialInTagOrMidDialogDialIn();
+    dialIn.setConfigurationProperty(configurationProperty);
+    CallTypeDialOutTagOrMidDialogDialOut dialOut = new CallTypeDialOutTagOrMidDialogDialOut();
+    dialOut.setConfigurationProperty(configurationProperty);
+    FilterFactory filterFactory = new FilterFactory();
+    filterFactory.setNetworkPSTN(networkPSTN);
+    filterFactory.setNetworkB2B(networkB2B);
+    filterFactory.setNetworkWxC(networkWxC);
+    filterFactory.setCallTypeDialInTagOrMidDialogDialIn(dialIn);
+    filterFactory.setCallTypeDialOutTagOrMidDialogDialOut(dialOut);
+
+    // the tree gets its nodes from the FilterFactory bean
+    context = new GenericApplicationContext();
+    context.registerBean(FilterFactory.class, () -> filterFactory);
+    context.refresh();
+    new SpringApplicationContext().setApplicationContext(context);
+
+    rootNode = (RootNode) filterFactory.getFilterNode(FilterId.Id.ROOT);
+    for (CallTypeEnum callType : CallTypeEnum.values()) {
+      rootNode.insertCallType(callType);
+    }
+    filterTable = FilterTable.compile(rootNode);
+
+    for (int i = 0; i < REQUESTS; i++) {
+      int mix = i % 10;
+      if (mix < 4) {
+        requests[i] = invite(i, "net_sp", SipParamConstants.DIAL_IN_TAG);
+      } else if (mix < 5) {
+        requests[i] = invite(i, "net_b2b", SipParamConstants.DIAL_IN_TAG);
+      } else if (mix < 9) {
+        requests[i] = invite(i, "net_cc", SipParamConstants.DIAL_OUT_TAG);
+      } else {
+        requests[i] = invite(i, "net_b2b", SipParamConstants.DIAL_OUT_TAG);
+      }
+    }
+  }
+
+  @TearDown
+  public void tearDown() {
+    context.close();
+  }
+
+  private static ProxySIPRequest invite(int call, String network, String callTypeTag)
+      throws ParseException {
+    String message =
+        "INVITE sip:+14085550100@test.webex.com;"
+            + SipParamConstants.CALLTYPE
+            + "="
+            + callTypeTag
+            + " SIP/2.0\r\n"
+            + "Via: SIP/2.0/UDP 10.0.0.1:5060;branch=z9hG4bK-"
+            + call
+            + "\r\n"
+            + "From: <sip:+14085550199@10.0.0.1>;tag="
+            + call
+            + "\r\n"
+            + "To: <sip:+14085550100@test.webex.com>\r\n"
+            + "Call-ID: call-"
+            + call
+            + "@10.0.0.1\r\n"
+            + "CSeq: 1 INVITE\r\n"
+            + "Max-Forwards: 70\r\n"
+            + "Content-Length: 0\r\n\r\n";
+    SIPRequest request =
+        (SIPRequest)
+            new StringMsgParser()
+                .parseSIPMessage(message.getBytes(StandardCharsets.UTF_8), true, false, null);
+    ProxySIPRequest proxySIPRequest =
+        new ProxySIPRequest(new ExecutionContext(), null, request, null);
+    proxySIPRequest.setNetwork(network);
+    return proxySIPRequest;
+  }
+
+  private ProxySIPRequest nextRequest() {
+    next = next == REQUESTS - 1 ? 0 : next + 1;
+    return requests[next];
+  }
+
+  @Benchmark
+  public CallTypeEnum filterTable() {
+    return filterTable.getCallType(nextRequest());
+  }
+
+  /** The tree walk before the table, results of filters cached per request in a map. */
+  @Benchmark
+  public CallTypeEnum treeWalk() {
+    return treeWalk(rootNode, nextRequest(), new HashMap<>());
+  }
+
+  private static CallTypeEnum treeWalk(
+      FilterNode node, ProxySIPRequest proxySIPRequest, Map<FilterId, Boolean> cache) {
+    if (!(node instanceof RootNode)) {
+      boolean result =
+          cache.computeIfAbsent(node.getFilterId(), id -> node.filter().test(proxySIPRequest));
+      if (!result) {
+        return null;
+      }
+    }
+    for (FilterNode child : node.children) {
+      CallTypeEnum callType = treeWalk(child, proxySIPRequest, cache);
+      if (callType != null) {
+        return callType;
+      }
+    }
+    return node.getLeafCallType();
+  }
+}
@@ -0,0 +1,92 @@
+package com.cisco.dhruva.normalisation;
+
+import com.cisco.dhruva.normalisation.rules.AddOpnDpnRule;
+import com.cisco.dhruva.normalisation.rules.RemoveOpnDpnCallTypeRule;
+import com.cisco.dsb.common.context.ExecutionContext;
+import com.cisco.dsb.proxy.messaging.ProxySIPRequest;
+import gov.nist.javax.sip.message.SIPRequest;
+import gov.nist.javax.sip.parser.StringMsgParser;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.jeasy.rules.api.Rules;
+import org.jeasy.rules.core.DefaultRulesEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Requests normalised per second by the opn/dpn rules, fired three ways: rules and engine built
+ * through {@link RuleEngineHelper} for each request, rules and engine built once with easy-rules
+ * proxying the annotated rules, and a {@link RuleSession}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RuleSessionBenchmark {
+
+  private List<Object> ruleObjects;
+  private Rules rules;
+  private DefaultRulesEngine rulesEngine;
+  private RuleSession session;
+  private Map<String, Object> facts;
+
+  @Setup
+  public void setup() throws ParseException {
+    ruleObjects = Arrays.asList(new AddOpnDpnRule("dpn", "opn"), new RemoveOpnDpnCallTypeRule());
+    rules = RuleEngineHelper.getNormRules.apply(ruleObjects);
+    rulesEngine = RuleEngineHelper.getSimpleDefaultRuleEngine.apply(null, null, null);
+    session = new RuleSession(ruleObjects);
+
+    String invite =
+        "INVITE sip:+14085550100@test.webex.com;calltype=DialIn SIP/2.0\r\n"
+            + "Via: SIP/2.0/UDP 10.0.0.1:5060;branch=z9hG4bK-1\r\n"
+            + "From: <sip:+14085550199@10.0.0.1>;tag=1\r\n"
+            + "To: <sip:+14085550100@test.webex.com>\r\n"
+            + "Call-ID: call-1@10.0.0.1\r\n"
+            + "CSeq: 1 INVITE\r\n"
+            + "Max-Forwards: 70\r\n"
+            + "Content-Length: 0\r\n\r\n";
+    SIPRequest request =
+        (SIPRequest)
+            new StringMsgParser()
+                .parseSIPMessage(invite.getBytes(StandardCharsets.UTF_8), true, false, null);
+    // the rules add then remove the same params, so the request stays the same across fires
+    facts =
+        Collections.singletonMap(
+            "proxyRequest", new ProxySIPRequest(new ExecutionContext(), null, request, null));
+  }
+
+  @Benchmark
+  public void buildPerRequest() {
+    RuleEngineHelper.getSimpleDefaultRuleEngine
+        .apply(null, null, null)
+        .fire(
+            RuleEngineHelper.getNormRules.apply(ruleObjects),
+            RuleEngineHelper.getFacts.apply(facts));
+  }
+
+  @Benchmark
+  public void builtOnce() {
+    rulesEngine.fire(rules, RuleEngineHelper.getFacts.apply(facts));
+  }
+
+  @Benchmark
+  public void session() {
+    session.fire(facts);
+  }
+}
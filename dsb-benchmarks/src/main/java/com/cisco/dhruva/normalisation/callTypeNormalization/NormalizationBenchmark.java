@@ -0,0 +1,193 @@
+package com.cisco.dhruva.normalisation.callTypeNormalization;
+
+import com.cisco.dhruva.normalisation.callTypeNormalization.NormalizeUtil.HeaderToNormalize;
+import com.cisco.dsb.common.sip.util.EndPoint;
+import com.cisco.dsb.common.sip.util.SipConstants;
+import com.cisco.dsb.common.transport.Transport;
+import com.cisco.dsb.trunk.util.SipParamConstants;
+import gov.nist.javax.sip.address.SipUri;
+import gov.nist.javax.sip.header.HeaderFactoryImpl;
+import gov.nist.javax.sip.header.SIPHeader;
+import gov.nist.javax.sip.message.SIPMessage;
+import gov.nist.javax.sip.message.SIPRequest;
+import gov.nist.javax.sip.parser.StringMsgParser;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Per message cost of a dial-out normalization: request URI pointed at the end point, headers
+ * removed, request URI params added and the IP of the identity headers replaced with the remote
+ * one. A {@link NormalizationPlan} built once against the list based normalization with a regex
+ * per header it replaced, kept here as {@link ListNormalization}. Both normalize a clone of the
+ * INVITE, {@link #cloneOnly} is the share of the clone.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NormalizationBenchmark {
+
+  private static final String INVITE =
+      "INVITE sip:+14085550100@10.1.1.1:5060;user=phone SIP/2.0\r\n"
+          + "Via: SIP/2.0/UDP 10.0.0.1:5060;branch=z9hG4bK-1\r\n"
+          + "From: <sip:+14085550199@10.0.0.1>;tag=1\r\n"
+          + "To: <sip:+14085550100@10.1.1.1>\r\n"
+          + "Call-ID: call-1@10.0.0.1\r\n"
+          + "CSeq: 1 INVITE\r\n"
+          + "Max-Forwards: 70\r\n"
+          + "Contact: <sip:+14085550199@10.0.0.1:5060>\r\n"
+          + "P-Asserted-Identity: <sip:+14085550199@10.0.0.1;user=phone>\r\n"
+          + "Remote-Party-ID: <sip:+14085550199@10.0.0.1>;party=calling;screen=yes\r\n"
+          + "Diversion: <sip:+14085550111@10.0.0.1>;reason=unconditional\r\n"
+          + "Diversion: <sip:+14085550122@10.0.0.1>;reason=no-answer\r\n"
+          + "X-BroadWorks-Correlation-Info: 9a7b6c5d-1234\r\n"
+          + "X-BroadWorks-DNC: network-address=\"sip:+14085550100@10.1.1.1\"\r\n"
+          + "Content-Length: 0\r\n\r\n";
+
+  private final List<String> headersToRemove =
+      Arrays.asList(SipConstants.X_BROAD_WORKS_CORRELATION_INFO, SipConstants.X_BROAD_WORKS_DNC);
+  private final List<String[]> paramsToAdd =
+      Arrays.asList(
+          new String[] {
+            SipConstants.REQUEST_URI, SipParamConstants.X_CISCO_DPN, SipParamConstants.DPN_OUT
+          },
+          new String[] {
+            SipConstants.REQUEST_URI, SipParamConstants.X_CISCO_OPN, SipParamConstants.OPN_OUT
+          });
+  private final List<HeaderToNormalize> headersToReplaceWithRemoteIP =
+      Arrays.asList(
+          new HeaderToNormalize(SipConstants.TO, false),
+          new HeaderToNormalize(SipConstants.P_ASSERTED_IDENTITY, false),
+          new HeaderToNormalize(SipConstants.REMOTE_PARTY_ID, false),
+          new HeaderToNormalize(SipConstants.DIVERSION, true));
+  private final EndPoint endPoint = new EndPoint("net_sp", "1.2.3.4", 5070, Transport.UDP);
+
+  private SIPRequest invite;
+  private NormalizationPlan plan;
+
+  @Setup
+  public void setup() throws ParseException {
+    invite =
+        (SIPRequest)
+            new StringMsgParser()
+                .parseSIPMessage(INVITE.getBytes(StandardCharsets.UTF_8), true, false, null);
+    plan =
+        NormalizationPlan.builder()
+            .setHeadersToRemove(headersToRemove)
+            .setParamsToAdd(paramsToAdd)
+            .setHeadersToReplaceWithRemoteIP(headersToReplaceWithRemoteIP)
+            .build();
+  }
+
+  @Benchmark
+  public SIPRequest cloneOnly() {
+    return (SIPRequest) invite.clone();
+  }
+
+  @Benchmark
+  public SIPRequest plan() {
+    SIPRequest request = (SIPRequest) invite.clone();
+    plan.normalize(request, null, endPoint);
+    return request;
+  }
+
+  @Benchmark
+  public SIPRequest lists() throws ParseException {
+    SIPRequest request = (SIPRequest) invite.clone();
+    ListNormalization.normalize(
+        request, endPoint, headersToRemove, paramsToAdd, headersToReplaceWithRemoteIP);
+    return request;
+  }
+
+  /** The parts of the normalization before plans that this benchmark runs. */
+  static final class ListNormalization {
+    private static final String IPADDRESS_PATTERN =
+        "(?:(?:25[0-5]|2[0-4][0-9]|[01]?[0-9][0-9]?)\\.){3}"
+            + "(?:25[0-5]|2[0-4][0-9]|[01]?[0-9][0-9]?)";
+    private static final HeaderFactoryImpl headerFactory = new HeaderFactoryImpl();
+
+    private ListNormalization() {}
+
+    static void normalize(
+        SIPRequest request,
+        EndPoint endPoint,
+        List<String> headersToRemove,
+        List<String[]> paramsToAdd,
+        List<HeaderToNormalize> headersToReplaceWithRemoteIP)
+        throws ParseException {
+      SipUri rUri = (SipUri) request.getRequestURI();
+      rUri.setHost(endPoint.getHost());
+      rUri.setPort(endPoint.getPort());
+      headersToRemove.stream().forEach(request::removeHeader);
+      for (String[] headerInfo : paramsToAdd) {
+        if (headerInfo[0].equals("requestUri")) {
+          ((SipUri) request.getRequestURI()).setParameter(headerInfo[1], headerInfo[2]);
+        } else if (headerInfo[0].equals("To")) {
+          request.getTo().setParameter(headerInfo[1], headerInfo[2]);
+        } else if (headerInfo[0].equals("From")) {
+          request.getFrom().setParameter(headerInfo[1], headerInfo[2]);
+        }
+      }
+      replaceIPInHeader(request, headersToReplaceWithRemoteIP, endPoint.getHost());
+    }
+
+    private static void replaceIPInHeader(
+        SIPMessage message, List<HeaderToNormalize> headerList, String ipAddress)
+        throws ParseException {
+      for (HeaderToNormalize headerForIPReplacement : headerList) {
+        if (!headerForIPReplacement.updateAllHeaderOccurrences) {
+          SIPHeader header = (SIPHeader) message.getHeader(headerForIPReplacement.header);
+          if (header == null) {
+            continue;
+          }
+          header = getHeaderWithReplacedIP(header, ipAddress);
+          if (header != null) {
+            message.setHeader(header);
+          }
+        } else {
+          List<SIPHeader> newHeaderList = new ArrayList<>();
+          ListIterator<SIPHeader> headers = message.getHeaders(headerForIPReplacement.header);
+          while (headers.hasNext()) {
+            SIPHeader header = getHeaderWithReplacedIP(headers.next(), ipAddress);
+            if (header != null) {
+              newHeaderList.add(header);
+            }
+          }
+          message.removeHeader(headerForIPReplacement.header);
+          message.setHeaders(newHeaderList);
+        }
+      }
+    }
+
+    private static SIPHeader getHeaderWithReplacedIP(SIPHeader sipHeader, String ipAddress)
+        throws ParseException {
+      String headerName = sipHeader.getName();
+      String headerValue = sipHeader.toString().split(headerName + ": ")[1];
+      Matcher matcher = Pattern.compile(IPADDRESS_PATTERN).matcher(headerValue);
+      if (!matcher.find()) {
+        return null;
+      }
+      headerValue = headerValue.replace(matcher.group(), ipAddress);
+      return (SIPHeader) headerFactory.createHeader(headerName, headerValue);
+    }
+  }
+}
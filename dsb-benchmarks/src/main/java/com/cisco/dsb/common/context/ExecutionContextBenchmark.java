@@ -0,0 +1,77 @@
+package com.cisco.dsb.common.context;
+
+import com.cisco.dsb.common.util.DeepCopy;
+import java.io.NotSerializableException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of copying an {@link ExecutionContext}: the copy on write {@link ExecutionContext#copy()},
+ * alone and followed by the first write, against the serialization copy of every value it
+ * replaced.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExecutionContextBenchmark {
+
+  @Param({"4", "16", "64"})
+  private int entries;
+
+  private ExecutionContext context;
+
+  @Setup
+  public void setup() {
+    context = new ExecutionContext();
+    for (int i = 0; i < entries; i++) {
+      // the kinds of values the proxy keeps in the context
+      switch (i % 3) {
+        case 0:
+          context.set("key-" + i, "value-" + i);
+          break;
+        case 1:
+          context.set("key-" + i, Boolean.TRUE);
+          break;
+        default:
+          context.set("key-" + i, i);
+      }
+    }
+  }
+
+  @Benchmark
+  public ExecutionContext copy() {
+    return context.copy();
+  }
+
+  @Benchmark
+  public ExecutionContext copyAndWrite() {
+    ExecutionContext copy = context.copy();
+    copy.set("key-0", "changed");
+    return copy;
+  }
+
+  /** The copy before it was copy on write: every value through a serialization round trip. */
+  @Benchmark
+  public ExecutionContext serializationCopy() throws NotSerializableException {
+    ExecutionContext copy = new ExecutionContext();
+    for (Map.Entry<String, Object> entry : context.entrySet()) {
+      Object copyValue = DeepCopy.copy(entry.getValue());
+      copy.set(entry.getKey(), copyValue != null ? copyValue : entry.getValue());
+    }
+    return copy;
+  }
+}
@@ -0,0 +1,171 @@
+package com.cisco.dsb.common.executor;
+
+import com.codahale.metrics.MetricRegistry;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.env.StandardEnvironment;
+
+/**
+ * Proxy processor executors under a paced load of calls of 3 events (e.g. INVITE, 200, ACK), each
+ * blocking for 1ms like a DNS lookup or a bounded elastic hop would.
+ *
+ * <p>{@link #call} samples the latency of one more call on top of the load, for the p99. {@link
+ * #load} reports the events of the load completed and rejected per second.
+ */
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProxyProcessorBenchmark {
+  private static final int EVENTS_PER_CALL = 3;
+  private static final long EVENT_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+  @Param({"PROXY_PROCESSOR", "PROXY_PROCESSOR_VIRTUAL", "PROXY_PROCESSOR_BOUNDED"})
+  private ExecutorType executorType;
+
+  @Param({"1000", "5000", "10000"})
+  private int cps;
+
+  private DhruvaExecutorService dhruvaExecutorService;
+  private ExecutorService executor;
+  private Thread pacer;
+  private volatile boolean running;
+  private final AtomicLong completed = new AtomicLong();
+  private final AtomicLong rejected = new AtomicLong();
+  private final AtomicLong calls = new AtomicLong();
+
+  @Setup(Level.Trial)
+  public void setup() {
+    dhruvaExecutorService =
+        new DhruvaExecutorService(
+            "bench", new StandardEnvironment(), new MetricRegistry(), 0, false);
+    switch (executorType) {
+      case PROXY_PROCESSOR_VIRTUAL:
+        dhruvaExecutorService.startSerialStripeExecutorService(executorType);
+        break;
+      case PROXY_PROCESSOR_BOUNDED:
+        dhruvaExecutorService.startBoundedStripedExecutorService(executorType);
+        break;
+      default:
+        dhruvaExecutorService.startMonitoredStripedExecutorService(executorType);
+    }
+    executor = dhruvaExecutorService.getExecutorThreadPool(executorType);
+
+    running = true;
+    pacer = new Thread(this::pace, "bench-pacer");
+    pacer.setDaemon(true);
+    pacer.start();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws InterruptedException {
+    running = false;
+    pacer.join();
+    executor.shutdownNow();
+  }
+
+  // open loop: calls are started on schedule whether or not the executor keeps up
+  private void pace() {
+    long intervalNanos = TimeUnit.SECONDS.toNanos(1) / cps;
+    long due = System.nanoTime();
+    while (running) {
+      due += intervalNanos;
+      long wait;
+      while ((wait = due - System.nanoTime()) > 0) {
+        if (wait > 100_000) {
+          LockSupport.parkNanos(wait - 50_000);
+        } else {
+          Thread.onSpinWait();
+        }
+      }
+      submitCall("load-" + calls.incrementAndGet(), null);
+    }
+  }
+
+  private void submitCall(String callId, CountDownLatch done) {
+    for (int event = 0; event < EVENTS_PER_CALL; event++) {
+      try {
+        executor.execute(
+            new BaseHandler() {
+              @Override
+              public void executeRun() {
+                LockSupport.parkNanos(EVENT_NANOS);
+                completed.incrementAndGet();
+                if (done != null) {
+                  done.countDown();
+                }
+              }
+
+              @Override
+              public String getCallId() {
+                return callId;
+              }
+            });
+      } catch (RejectedExecutionException e) {
+        rejected.incrementAndGet();
+        if (done != null) {
+          done.countDown();
+        }
+      }
+    }
+  }
+
+  /** Time from the first event of a call being submitted to the last one being processed. */
+  @Benchmark
+  @BenchmarkMode(Mode.SampleTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public void call() throws InterruptedException {
+    CountDownLatch done = new CountDownLatch(EVENTS_PER_CALL);
+    submitCall("probe-" + calls.incrementAndGet(), done);
+    done.await();
+  }
+
+  /** Events of the load processed and rejected, reported per second next to the calls sampled. */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.OPERATIONS)
+  public static class LoadEvents {
+    public long completedEvents;
+    public long rejectedEvents;
+    private long completedBefore;
+    private long rejectedBefore;
+
+    @Setup(Level.Iteration)
+    public void reset(ProxyProcessorBenchmark benchmark) {
+      completedEvents = 0;
+      rejectedEvents = 0;
+      completedBefore = benchmark.completed.get();
+      rejectedBefore = benchmark.rejected.get();
+    }
+
+    private void update(ProxyProcessorBenchmark benchmark) {
+      completedEvents = benchmark.completed.get() - completedBefore;
+      rejectedEvents = benchmark.rejected.get() - rejectedBefore;
+    }
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.Throughput)
+  @OutputTimeUnit(TimeUnit.SECONDS)
+  public void load(LoadEvents loadEvents) throws InterruptedException {
+    Thread.sleep(10);
+    loadEvents.update(this);
+  }
+}
@@ -0,0 +1,98 @@
+package com.cisco.dsb.common.loadbalancer;
+
+import com.cisco.dsb.common.servergroup.ServerGroup;
+import com.cisco.dsb.common.servergroup.ServerGroupElement;
+import com.cisco.dsb.common.transport.Transport;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Selection cost of {@link LBType#CONSISTENT_HASH} against the modulo hash of {@link
+ * LBType#MS_ID}, per call and per element count. Key movement on membership changes is asserted by
+ * RendezvousHashTest, not timed here.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LoadBalancerBenchmark {
+  private static final int KEYS = 1024;
+
+  @Param({"5", "20", "100"})
+  private int elements;
+
+  @Param({"MS_ID", "CONSISTENT_HASH"})
+  private LBType lbType;
+
+  private ServerGroup serverGroup;
+  private List<ServerGroupElement> elementList;
+  private final String[] keys = new String[KEYS];
+  private int next;
+
+  @Setup
+  public void setup() {
+    elementList = new ArrayList<>();
+    for (int i = 0; i < elements; i++) {
+      elementList.add(
+          ServerGroupElement.builder()
+              .setIpAddress("10.1." + i / 256 + "." + i % 256)
+              .setPort(5060)
+              .setTransport(Transport.UDP)
+              .setPriority(10)
+              .setWeight(100)
+              .build());
+    }
+    serverGroup = ServerGroup.builder().setElements(elementList).setLbType(lbType).build();
+    for (int i = 0; i < KEYS; i++) {
+      keys[i] = "call-" + i + "@10.0.0.1";
+    }
+  }
+
+  private String nextKey() {
+    next = (next + 1) & (KEYS - 1);
+    return keys[next];
+  }
+
+  /** First pick of a call, LoadBalancer creation included as on the proxy path. */
+  @Benchmark
+  public LBElement firstSelection() {
+    LoadBalancer loadBalancer = LoadBalancer.of(serverGroup);
+    loadBalancer.setKey(nextKey());
+    return loadBalancer.getNextElement();
+  }
+
+  /** Failing over through every element of a call. */
+  @Benchmark
+  public void failoverThroughAll(Blackhole blackhole) {
+    LoadBalancer loadBalancer = LoadBalancer.of(serverGroup);
+    loadBalancer.setKey(nextKey());
+    // stops at the last element, asking past it logs a warning
+    for (int i = 0; i < elements; i++) {
+      blackhole.consume(loadBalancer.getNextElement());
+    }
+  }
+
+  /** The hash functions alone, without the LoadBalancer around them. */
+  @Benchmark
+  public Object hashOnly() {
+    String key = nextKey();
+    return lbType == LBType.CONSISTENT_HASH
+        ? RendezvousHash.select(key, elementList)
+        : elementList.get(HashAlgorithm.selectIndex(key, elementList.size()));
+  }
+}
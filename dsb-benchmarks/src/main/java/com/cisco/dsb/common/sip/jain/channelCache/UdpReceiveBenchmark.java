@@ -0,0 +1,109 @@
+package com.cisco.dsb.common.sip.jain.channelCache;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Datagrams received per millisecond on loopback, as {@link DsbSipUdpMessageProcessor} receives
+ * them, a buffer of the maximum message size and a packet allocated per datagram, against {@link
+ * DsbSipUdpChannelMessageProcessor}, a direct buffer reused and only the datagram copied out. Each
+ * invocation sends an INVITE and receives it, the send is the same for both. Run with -t for more
+ * receivers and -prof gc for the allocation per datagram.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class UdpReceiveBenchmark {
+
+  // the maximum message size of the stack's UDP processor
+  private static final int MAX_MESSAGE_SIZE = 8 * 1024;
+
+  private static final String INVITE =
+      "INVITE sip:+14085550100@10.1.1.1:5060;user=phone SIP/2.0\r\n"
+          + "Via: SIP/2.0/UDP 127.0.0.1:5060;branch=z9hG4bK-1\r\n"
+          + "From: <sip:+14085550199@127.0.0.1>;tag=1\r\n"
+          + "To: <sip:+14085550100@10.1.1.1>\r\n"
+          + "Call-ID: call-1@127.0.0.1\r\n"
+          + "CSeq: 1 INVITE\r\n"
+          + "Max-Forwards: 70\r\n"
+          + "Contact: <sip:+14085550199@127.0.0.1:5060>\r\n"
+          + "P-Asserted-Identity: <sip:+14085550199@127.0.0.1;user=phone>\r\n"
+          + "Content-Length: 0\r\n\r\n";
+
+  private DatagramChannel sender;
+  private ByteBuffer invite;
+  private DatagramSocket socket;
+  private InetSocketAddress socketAddress;
+  private DatagramChannel channel;
+  private InetSocketAddress channelAddress;
+  private ByteBuffer buffer;
+
+  @Setup
+  public void setup() throws IOException {
+    InetAddress loopback = InetAddress.getLoopbackAddress();
+    sender = DatagramChannel.open().bind(new InetSocketAddress(loopback, 0));
+    byte[] message = INVITE.getBytes(StandardCharsets.UTF_8);
+    invite = ByteBuffer.allocateDirect(message.length);
+    invite.put(message).flip();
+
+    socket = new DatagramSocket(new InetSocketAddress(loopback, 0));
+    socketAddress = (InetSocketAddress) socket.getLocalSocketAddress();
+    channel = DatagramChannel.open().bind(new InetSocketAddress(loopback, 0));
+    channelAddress = (InetSocketAddress) channel.getLocalAddress();
+    buffer = ByteBuffer.allocateDirect(MAX_MESSAGE_SIZE);
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    sender.close();
+    socket.close();
+    channel.close();
+  }
+
+  private void send(InetSocketAddress target) throws IOException {
+    invite.rewind();
+    sender.send(invite, target);
+  }
+
+  @Benchmark
+  public DatagramPacket socket() throws IOException {
+    send(socketAddress);
+    byte[] message = new byte[MAX_MESSAGE_SIZE];
+    DatagramPacket packet = new DatagramPacket(message, MAX_MESSAGE_SIZE);
+    socket.receive(packet);
+    return packet;
+  }
+
+  @Benchmark
+  public DatagramPacket channel() throws IOException {
+    send(channelAddress);
+    buffer.clear();
+    InetSocketAddress source = (InetSocketAddress) channel.receive(buffer);
+    buffer.flip();
+    int length = buffer.remaining();
+    byte[] message = new byte[length];
+    buffer.get(message);
+    return new DatagramPacket(message, length, source);
+  }
+}
@@ -0,0 +1,97 @@
+package com.cisco.dsb.proxy;
+
+import com.cisco.dsb.common.config.sip.CommonConfigurationProperties;
+import com.cisco.dsb.common.executor.DhruvaExecutorService;
+import com.cisco.dsb.common.executor.ExecutorType;
+import com.cisco.dsb.common.service.SipServerLocatorService;
+import com.cisco.dsb.common.util.SpringApplicationContext;
+import com.codahale.metrics.MetricRegistry;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.core.env.StandardEnvironment;
+
+/**
+ * Dependencies of a request resolved from the application context, as the handlers, client
+ * transactions and call types did, against taking them from the {@link ProxyRuntime}. Three
+ * lookups per request: the service handling it, the client timer for its branch and a service
+ * used for its metrics. Run with -prof gc for the allocation per request.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ProxyRuntimeBenchmark {
+
+  // other beans of the context, a calling app has a few hundred
+  @Param({"50", "500"})
+  private int beans;
+
+  private GenericApplicationContext context;
+  private ProxyRuntime runtime;
+
+  /** Stand-in for the other beans of an application. */
+  public static final class OtherBean {}
+
+  @Setup
+  public void setup() {
+    DhruvaExecutorService dhruvaExecutorService =
+        new DhruvaExecutorService(
+            "bench", new StandardEnvironment(), new MetricRegistry(), 0, false);
+    dhruvaExecutorService.startTimerService(ExecutorType.PROXY_CLIENT_TIMEOUT);
+    SipServerLocatorService locatorService =
+        new SipServerLocatorService(new CommonConfigurationProperties(), dhruvaExecutorService);
+    runtime =
+        new ProxyRuntime(
+            dhruvaExecutorService, null, locatorService, new ProxyConfigurationProperties());
+
+    context = new GenericApplicationContext();
+    for (int i = 0; i < beans; i++) {
+      context.registerBean("other" + i, OtherBean.class, OtherBean::new);
+    }
+    context.registerBean(DhruvaExecutorService.class, () -> dhruvaExecutorService);
+    context.registerBean(SipServerLocatorService.class, () -> locatorService);
+    context.registerBean(ProxyRuntime.class, () -> runtime);
+    context.refresh();
+    new SpringApplicationContext().setApplicationContext(context);
+  }
+
+  @TearDown
+  public void tearDown() {
+    context.close();
+    runtime.getDhruvaExecutorService().getTimer(ExecutorType.PROXY_CLIENT_TIMEOUT).stop();
+  }
+
+  @Benchmark
+  public void beanLookups(Blackhole blackhole) {
+    ApplicationContext appContext = SpringApplicationContext.getAppContext();
+    blackhole.consume(appContext.getBean(ProxyRuntime.class));
+    blackhole.consume(
+        appContext
+            .getBean(DhruvaExecutorService.class)
+            .getTimer(ExecutorType.PROXY_CLIENT_TIMEOUT));
+    blackhole.consume(appContext.getBean(SipServerLocatorService.class));
+  }
+
+  @Benchmark
+  public void runtime(Blackhole blackhole) {
+    blackhole.consume(runtime);
+    blackhole.consume(runtime.getProxyClientTimer());
+    blackhole.consume(runtime.getLocatorService());
+  }
+}
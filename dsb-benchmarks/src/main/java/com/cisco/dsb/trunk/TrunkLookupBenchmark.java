@@ -0,0 +1,88 @@
+package com.cisco.dsb.trunk;
+
+import com.cisco.dsb.trunk.trunks.AbstractTrunk;
+import com.cisco.dsb.trunk.trunks.Egress;
+import com.cisco.dsb.trunk.trunks.Ingress;
+import com.cisco.dsb.trunk.trunks.PSTNTrunk;
+import com.cisco.dsb.trunk.util.SipParamConstants;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Egress resolution of a PSTN trunk from the dtg of a dial-out INVITE, through the dtg index
+ * against the scan of every trunk's selector it replaced. The dtgs asked for cycle through all the
+ * trunks, in another case than configured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TrunkLookupBenchmark {
+
+  @Param({"10", "100", "1000"})
+  private int trunks;
+
+  private Map<String, PSTNTrunk> pstnTrunkMap;
+  private Map<String, PSTNTrunk> pstnTrunkDtgMap;
+  private String[] dtgs;
+  private int next;
+
+  @Setup
+  public void setup() {
+    pstnTrunkMap = new HashMap<>();
+    dtgs = new String[trunks];
+    for (int i = 0; i < trunks; i++) {
+      Egress egress = new Egress();
+      egress.setSelector(Collections.singletonMap(SipParamConstants.DTG, "CcpFusion" + i));
+      pstnTrunkMap.put("pstn" + i, new PSTNTrunk("pstn" + i, new Ingress(), egress, false));
+      dtgs[i] = "ccpfusion" + i;
+    }
+    pstnTrunkDtgMap = TrunkConfigurationProperties.indexByDtg(pstnTrunkMap);
+  }
+
+  private String nextDtg() {
+    next = next == trunks - 1 ? 0 : next + 1;
+    return dtgs[next];
+  }
+
+  @Benchmark
+  public AbstractTrunk index() {
+    return pstnTrunkDtgMap.get(nextDtg().toLowerCase(Locale.ROOT));
+  }
+
+  /** The lookup before the index: every trunk's dtg compared ignoring case. */
+  @Benchmark
+  public AbstractTrunk scan() {
+    String key = nextDtg();
+    for (Map.Entry<String, PSTNTrunk> map : pstnTrunkMap.entrySet()) {
+      Map<String, String> selector = map.getValue().getEgress().getSelector();
+      if (selector == null || selector.isEmpty()) {
+        return null;
+      }
+      String dtgValue = selector.get(SipParamConstants.DTG);
+      if (dtgValue == null) {
+        return null;
+      }
+      if (dtgValue.equalsIgnoreCase(key)) {
+        return map.getValue();
+      }
+    }
+    return null;
+  }
+}
@@ -7,7 +7,6 @@ import com.cisco.dsb.common.maintanence.Maintenance;
 import com.cisco.dsb.common.metric.SipMetricsContext;
 import com.cisco.dsb.common.normalization.Normalization;
 import com.cisco.dsb.common.service.MetricService;
-import com.cisco.dsb.common.util.SpringApplicationContext;
 import com.cisco.dsb.common.util.TriFunction;
 import com.cisco.dsb.proxy.ProxyState;
 import com.cisco.dsb.proxy.messaging.ProxySIPRequest;
@@ -47,11 +46,8 @@ public interface CallType {
 
   Maintenance getMaintenance();
 
-  static MetricService getMetricService() {
-    return SpringApplicationContext.getAppContext() == null
-        ? null
-        : SpringApplicationContext.getAppContext().getBean(MetricService.class);
-  }
+  /** @return metric service the call type was created with, null if metrics are not emitted */
+  MetricService getMetricService();
 
   default void processRequest(ProxySIPRequest proxySIPRequest) {
     TrunkManager trunkManager = getTrunkManager();
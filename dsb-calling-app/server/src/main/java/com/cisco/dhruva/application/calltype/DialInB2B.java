@@ -7,6 +7,7 @@ import com.cisco.dhruva.application.errormapping.Mappings;
 import com.cisco.dhruva.normalisation.callTypeNormalization.DialInB2BToCallingCoreNorm;
 import com.cisco.dsb.common.maintanence.Maintenance;
 import com.cisco.dsb.common.normalization.Normalization;
+import com.cisco.dsb.common.service.MetricService;
 import com.cisco.dsb.proxy.messaging.ProxySIPRequest;
 import com.cisco.dsb.trunk.TrunkManager;
 import com.cisco.dsb.trunk.trunks.TrunkType;
@@ -26,6 +27,7 @@ public class DialInB2B implements CallType {
   private TrunkManager trunkManager;
   private CallingAppConfigurationProperty configurationProperty;
   private Normalization normalization;
+  private final MetricService metricService;
   @Getter private static final String callTypeNameStr = "dialInB2B";
   @Getter @Setter private CallTypeConfig callTypeConfig;
   @Getter @Setter private ErrorMappingPolicy errorMappingPolicy;
@@ -35,10 +37,12 @@ public class DialInB2B implements CallType {
   public DialInB2B(
       TrunkManager trunkManager,
       CallingAppConfigurationProperty configurationProperty,
-      DialInB2BToCallingCoreNorm dialInB2BToCallingCoreNorm) {
+      DialInB2BToCallingCoreNorm dialInB2BToCallingCoreNorm,
+      MetricService metricService) {
     this.trunkManager = trunkManager;
     this.configurationProperty = configurationProperty;
     this.normalization = dialInB2BToCallingCoreNorm;
+    this.metricService = metricService;
   }
 
   @Override
@@ -67,6 +71,11 @@ public class DialInB2B implements CallType {
     return trunkManager;
   }
 
+  @Override
+  public MetricService getMetricService() {
+    return metricService;
+  }
+
   public Normalization getNormalization() {
     return normalization;
   }
@@ -7,6 +7,7 @@ import com.cisco.dhruva.application.errormapping.Mappings;
 import com.cisco.dhruva.normalisation.callTypeNormalization.DialInPSTNToB2BNorm;
 import com.cisco.dsb.common.maintanence.Maintenance;
 import com.cisco.dsb.common.normalization.Normalization;
+import com.cisco.dsb.common.service.MetricService;
 import com.cisco.dsb.proxy.messaging.ProxySIPRequest;
 import com.cisco.dsb.trunk.TrunkManager;
 import com.cisco.dsb.trunk.trunks.TrunkType;
@@ -27,6 +28,7 @@ public class DialInPSTN implements CallType {
   private TrunkManager trunkManager;
   private CallingAppConfigurationProperty configurationProperty;
   private Normalization normalization;
+  private final MetricService metricService;
   @Getter private static final String callTypeNameStr = "dialInPSTN";
   @Getter @Setter private CallTypeConfig callTypeConfig;
   @Getter @Setter private ErrorMappingPolicy errorMappingPolicy;
@@ -36,10 +38,12 @@ public class DialInPSTN implements CallType {
   public DialInPSTN(
       TrunkManager trunkManager,
       CallingAppConfigurationProperty callingAppConfigurationProperty,
-      DialInPSTNToB2BNorm dialInPSTNToB2BNorm) {
+      DialInPSTNToB2BNorm dialInPSTNToB2BNorm,
+      MetricService metricService) {
     this.trunkManager = trunkManager;
     this.configurationProperty = callingAppConfigurationProperty;
     this.normalization = dialInPSTNToB2BNorm;
+    this.metricService = metricService;
   }
 
   @Override
@@ -67,6 +71,11 @@ public class DialInPSTN implements CallType {
     return trunkManager;
   }
 
+  @Override
+  public MetricService getMetricService() {
+    return metricService;
+  }
+
   @Override
   public Normalization getNormalization() {
     return normalization;
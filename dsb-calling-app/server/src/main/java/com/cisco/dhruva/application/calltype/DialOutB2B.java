@@ -7,6 +7,7 @@ import com.cisco.dhruva.application.errormapping.Mappings;
 import com.cisco.dhruva.normalisation.callTypeNormalization.DialOutB2BToPSTNNorm;
 import com.cisco.dsb.common.maintanence.Maintenance;
 import com.cisco.dsb.common.normalization.Normalization;
+import com.cisco.dsb.common.service.MetricService;
 import com.cisco.dsb.proxy.messaging.ProxySIPRequest;
 import com.cisco.dsb.trunk.TrunkManager;
 import com.cisco.dsb.trunk.trunks.TrunkType;
@@ -29,6 +30,7 @@ public class DialOutB2B implements CallType {
   private TrunkManager trunkManager;
   private static final String DTG = "dtg";
   private Normalization normalization;
+  private final MetricService metricService;
   @Getter private static final String callTypeNameStr = "dialOutB2B";
   @Getter @Setter private CallTypeConfig callTypeConfig;
   @Getter @Setter private ErrorMappingPolicy errorMappingPolicy;
@@ -38,10 +40,12 @@ public class DialOutB2B implements CallType {
   public DialOutB2B(
       TrunkManager trunkManager,
       CallingAppConfigurationProperty configurationProperty,
-      DialOutB2BToPSTNNorm dialOutB2BToPSTNNorm) {
+      DialOutB2BToPSTNNorm dialOutB2BToPSTNNorm,
+      MetricService metricService) {
     this.trunkManager = trunkManager;
     this.configurationProperty = configurationProperty;
     this.normalization = dialOutB2BToPSTNNorm;
+    this.metricService = metricService;
   }
 
   private String getDtg(ProxySIPRequest proxySIPRequest) {
@@ -76,6 +80,11 @@ public class DialOutB2B implements CallType {
     return trunkManager;
   }
 
+  @Override
+  public MetricService getMetricService() {
+    return metricService;
+  }
+
   @Override
   public Normalization getNormalization() {
     return normalization;
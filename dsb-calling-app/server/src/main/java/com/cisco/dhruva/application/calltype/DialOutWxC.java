@@ -7,6 +7,7 @@ import com.cisco.dhruva.application.errormapping.Mappings;
 import com.cisco.dhruva.normalisation.callTypeNormalization.DialOutWXCToB2BNorm;
 import com.cisco.dsb.common.maintanence.Maintenance;
 import com.cisco.dsb.common.normalization.Normalization;
+import com.cisco.dsb.common.service.MetricService;
 import com.cisco.dsb.proxy.messaging.ProxySIPRequest;
 import com.cisco.dsb.trunk.TrunkManager;
 import com.cisco.dsb.trunk.trunks.TrunkType;
@@ -27,6 +28,7 @@ public class DialOutWxC implements CallType {
   private final CallingAppConfigurationProperty configurationProperty;
   private TrunkManager trunkManager;
   private Normalization normalization;
+  private final MetricService metricService;
 
   @Getter private static final String callTypeNameStr = "dialOutWxC";
   @Getter @Setter private CallTypeConfig callTypeConfig;
@@ -37,10 +39,12 @@ public class DialOutWxC implements CallType {
   public DialOutWxC(
       TrunkManager trunkManager,
       CallingAppConfigurationProperty configurationProperty,
-      DialOutWXCToB2BNorm dialOutWXCToB2BNorm) {
+      DialOutWXCToB2BNorm dialOutWXCToB2BNorm,
+      MetricService metricService) {
     this.trunkManager = trunkManager;
     this.configurationProperty = configurationProperty;
     this.normalization = dialOutWXCToB2BNorm;
+    this.metricService = metricService;
   }
 
   @Override
@@ -69,6 +73,11 @@ public class DialOutWxC implements CallType {
     return trunkManager;
   }
 
+  @Override
+  public MetricService getMetricService() {
+    return metricService;
+  }
+
   @Override
   public Normalization getNormalization() {
     return normalization;
@@ -17,6 +17,8 @@ public class Filter {
   private CallTypeFactory callTypeFactory;
   private RootNode rootNode;
   private FilterFactory filterFactory;
+  // tree compiled for lookups, rebuilt whenever call types are registered
+  private volatile FilterTable filterTable = FilterTable.compile(null);
 
   @Autowired
   public Filter(CallTypeFactory callTypeFactory, FilterFactory filterFactory) {
@@ -29,10 +31,11 @@ public class Filter {
     for (CallTypeEnum calltype : callTypes) {
       rootNode.insertCallType(calltype);
     }
+    filterTable = FilterTable.compile(rootNode);
   }
 
   public CallType filter(final ProxySIPRequest proxySIPRequest) throws InvalidCallTypeException {
-    CallTypeEnum callType = rootNode.getCallType(proxySIPRequest);
+    CallTypeEnum callType = filterTable.getCallType(proxySIPRequest);
     logger.info("CallType: {}, CallId: {}", callType, proxySIPRequest.getCallId());
     if (callType == null) throw new InvalidCallTypeException();
     return callTypeFactory.getCallType(callType);
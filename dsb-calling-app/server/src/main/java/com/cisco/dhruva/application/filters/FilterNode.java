@@ -51,22 +51,9 @@ public abstract class FilterNode {
 
   public abstract Predicate<ProxySIPRequest> filter();
 
-  public CallTypeEnum getCallType(ProxySIPRequest proxySIPRequest) {
-    Boolean result;
-    // calculate the result of current Node
-    if (!isRoot) {
-      HashMap cache = proxySIPRequest.getCache();
-      result = (Boolean) cache.computeIfAbsent(filterId, o -> filter().test(proxySIPRequest));
-      if (!result) return null;
-    }
-    // if result = true iterate children
-    CallTypeEnum calltype;
-    for (FilterNode child : children) {
-      calltype = child.getCallType(proxySIPRequest);
-      if (calltype != null) return calltype;
-    }
-    // no matching calltype in children, return calltype of current node
-    return this.callType;
+  /** @return call type of this node, only set on leaves */
+  CallTypeEnum getLeafCallType() {
+    return callType;
   }
 
   int insert(List<FilterId> filterIds, CallTypeEnum callType) throws FilterTreeException {
@@ -0,0 +1,105 @@
+package com.cisco.dhruva.application.filters;
+
+import com.cisco.dhruva.application.calltype.CallTypeEnum;
+import com.cisco.dsb.proxy.messaging.ProxySIPRequest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * The filter tree flattened into a table, built once the call types are registered. Nodes are laid
+ * out depth first, each with the index past its subtree, so finding the call type is a scan that
+ * skips a subtree whenever its filter does not match. Filters shared by several branches are tested
+ * once per request, their results kept in bit masks indexed by filter id, and the predicates are
+ * created once here rather than per request.
+ */
+final class FilterTable {
+
+  static {
+    // a filter id is a bit of the long masks in getCallType
+    if (FilterId.Id.values().length > Long.SIZE) {
+      throw new IllegalStateException(
+          "FilterTable supports up to " + Long.SIZE + " filter ids, FilterId.Id has more");
+    }
+  }
+
+  private static final FilterTable EMPTY = new FilterTable(new ArrayList<>(), null);
+
+  // per node, in depth first order
+  private final int[] filterIds;
+  private final int[] subtreeEnds;
+  private final CallTypeEnum[] callTypes;
+  // per filter id
+  private final Predicate<ProxySIPRequest>[] predicates;
+  // call type of the root, only set when it has no children
+  private final CallTypeEnum rootCallType;
+
+  @SuppressWarnings("unchecked")
+  private FilterTable(List<FilterNode> nodes, CallTypeEnum rootCallType) {
+    int size = nodes.size();
+    this.filterIds = new int[size];
+    this.subtreeEnds = new int[size];
+    this.callTypes = new CallTypeEnum[size];
+    this.predicates = new Predicate[FilterId.Id.values().length];
+    this.rootCallType = rootCallType;
+    for (int i = 0; i < size; i++) {
+      FilterNode node = nodes.get(i);
+      int filterId = node.getFilterId().id.ordinal();
+      filterIds[i] = filterId;
+      callTypes[i] = node.getLeafCallType();
+      if (predicates[filterId] == null) {
+        predicates[filterId] = node.filter();
+      }
+    }
+  }
+
+  static FilterTable compile(FilterNode root) {
+    if (root == null) {
+      return EMPTY;
+    }
+    List<FilterNode> nodes = new ArrayList<>();
+    List<Integer> ends = new ArrayList<>();
+    for (FilterNode child : root.children) {
+      flatten(child, nodes, ends);
+    }
+    FilterTable table = new FilterTable(nodes, root.getLeafCallType());
+    for (int i = 0; i < ends.size(); i++) {
+      table.subtreeEnds[i] = ends.get(i);
+    }
+    return table;
+  }
+
+  private static void flatten(FilterNode node, List<FilterNode> nodes, List<Integer> ends) {
+    int index = nodes.size();
+    nodes.add(node);
+    ends.add(-1);
+    for (FilterNode child : node.children) {
+      flatten(child, nodes, ends);
+    }
+    ends.set(index, nodes.size());
+  }
+
+  /** @return call type of the first leaf whose filters, and those of its parents, all match */
+  CallTypeEnum getCallType(ProxySIPRequest proxySIPRequest) {
+    long tested = 0;
+    long matched = 0;
+    int i = 0;
+    while (i < filterIds.length) {
+      long bit = 1L << filterIds[i];
+      if ((tested & bit) == 0) {
+        tested |= bit;
+        if (predicates[filterIds[i]].test(proxySIPRequest)) {
+          matched |= bit;
+        }
+      }
+      if ((matched & bit) == 0) {
+        i = subtreeEnds[i];
+      } else if (callTypes[i] != null) {
+        return callTypes[i];
+      } else {
+        i++;
+      }
+    }
+    return rootCallType;
+  }
+}
@@ -0,0 +1,279 @@
+package com.cisco.dhruva.normalisation;
+
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import lombok.CustomLog;
+import org.jeasy.rules.annotation.Action;
+import org.jeasy.rules.annotation.Condition;
+import org.jeasy.rules.annotation.Fact;
+import org.jeasy.rules.annotation.Priority;
+import org.jeasy.rules.api.Facts;
+import org.jeasy.rules.api.Rule;
+
+/**
+ * A rule written as an annotated object (@Rule, @Condition, @Action, @Fact), bound once to method
+ * handles. Registering such an object with easy-rules wraps it in a proxy that looks up its
+ * annotated methods and calls them reflectively every time the rule is evaluated, here that is
+ * done once when the rule is compiled.
+ */
+@CustomLog
+public final class CompiledRule implements Rule {
+
+  private static final MethodType INVOKER_TYPE =
+      MethodType.methodType(Object.class, Object[].class);
+
+  private final String name;
+  private final String description;
+  private final int priority;
+  private final Invoker condition;
+  private final Invoker[] actions;
+
+  private CompiledRule(
+      String name, String description, int priority, Invoker condition, Invoker[] actions) {
+    this.name = name;
+    this.description = description;
+    this.priority = priority;
+    this.condition = condition;
+    this.actions = actions;
+  }
+
+  /** @return the rule as is if it already is one, else the annotated object compiled to a rule */
+  public static Rule compile(Object rule) {
+    if (rule instanceof Rule) {
+      return (Rule) rule;
+    }
+    Class<?> type = rule.getClass();
+    org.jeasy.rules.annotation.Rule definition =
+        type.getAnnotation(org.jeasy.rules.annotation.Rule.class);
+    if (definition == null) {
+      throw new IllegalArgumentException(type.getName() + " is not annotated with @Rule");
+    }
+    Invoker condition = null;
+    List<Method> actionMethods = new ArrayList<>();
+    Method priorityMethod = null;
+    for (Method method : type.getMethods()) {
+      if (method.isAnnotationPresent(Condition.class)) {
+        if (condition != null || method.getReturnType() != boolean.class) {
+          throw new IllegalArgumentException(
+              type.getName() + " must have a single @Condition method returning boolean");
+        }
+        condition = Invoker.of(rule, method);
+      } else if (method.isAnnotationPresent(Action.class)) {
+        actionMethods.add(method);
+      } else if (method.isAnnotationPresent(Priority.class)) {
+        priorityMethod = method;
+      }
+    }
+    if (condition == null || actionMethods.isEmpty()) {
+      throw new IllegalArgumentException(
+          type.getName() + " must have a @Condition method and at least one @Action method");
+    }
+    actionMethods.sort(
+        Comparator.comparingInt(method -> method.getAnnotation(Action.class).order()));
+    Invoker[] actions = new Invoker[actionMethods.size()];
+    for (int i = 0; i < actions.length; i++) {
+      actions[i] = Invoker.of(rule, actionMethods.get(i));
+    }
+    return new CompiledRule(
+        getName(type, definition),
+        getDescription(definition, condition, actionMethods),
+        getPriority(rule, definition, priorityMethod),
+        condition,
+        actions);
+  }
+
+  // defaults as easy-rules does, so that unnamed rules of the same priority stay distinct in Rules
+  private static String getName(Class<?> type, org.jeasy.rules.annotation.Rule definition) {
+    return definition.name().equals(Rule.DEFAULT_NAME) ? type.getSimpleName() : definition.name();
+  }
+
+  private static String getDescription(
+      org.jeasy.rules.annotation.Rule definition, Invoker condition, List<Method> actionMethods) {
+    if (!definition.description().equals(Rule.DEFAULT_DESCRIPTION)) {
+      return definition.description();
+    }
+    StringBuilder description =
+        new StringBuilder("when ").append(condition.methodName).append(" then ");
+    for (int i = 0; i < actionMethods.size(); i++) {
+      if (i > 0) {
+        description.append(',');
+      }
+      description.append(actionMethods.get(i).getName());
+    }
+    return description.toString();
+  }
+
+  private static int getPriority(
+      Object rule, org.jeasy.rules.annotation.Rule definition, Method priorityMethod) {
+    if (priorityMethod == null) {
+      return definition.priority();
+    }
+    if (priorityMethod.getReturnType() != int.class || priorityMethod.getParameterCount() != 0) {
+      throw new IllegalArgumentException(
+          rule.getClass().getName() + " @Priority method must return int and take no parameters");
+    }
+    try {
+      return (int) priorityMethod.invoke(rule);
+    } catch (ReflectiveOperationException e) {
+      throw new IllegalArgumentException("Unable to get the priority of " + definition.name(), e);
+    }
+  }
+
+  @Override
+  public String getName() {
+    return name;
+  }
+
+  @Override
+  public String getDescription() {
+    return description;
+  }
+
+  @Override
+  public int getPriority() {
+    return priority;
+  }
+
+  @Override
+  public boolean evaluate(Facts facts) {
+    Object[] args = condition.arguments(facts);
+    if (args == null) {
+      return false;
+    }
+    try {
+      return (boolean) condition.invoke(args);
+    } catch (RuntimeException | Error e) {
+      throw e;
+    } catch (Throwable e) {
+      throw new RuntimeException("Error evaluating the condition of rule " + name, e);
+    }
+  }
+
+  @Override
+  public void execute(Facts facts) throws Exception {
+    for (Invoker action : actions) {
+      Object[] args = action.arguments(facts);
+      if (args == null) {
+        throw new IllegalStateException("Facts missing to execute the action of rule " + name);
+      }
+      try {
+        action.invoke(args);
+      } catch (Exception | Error e) {
+        throw e;
+      } catch (Throwable e) {
+        throw new RuntimeException("Error executing the action of rule " + name, e);
+      }
+    }
+  }
+
+  @Override
+  public int compareTo(Rule rule) {
+    if (priority != rule.getPriority()) {
+      return Integer.compare(priority, rule.getPriority());
+    }
+    return name.compareTo(rule.getName());
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (!(o instanceof Rule)) {
+      return false;
+    }
+    Rule rule = (Rule) o;
+    return priority == rule.getPriority()
+        && name.equals(rule.getName())
+        && Objects.equals(description, rule.getDescription());
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(name, description, priority);
+  }
+
+  @Override
+  public String toString() {
+    return name;
+  }
+
+  /** A condition or action method bound to its rule, with where each of its arguments comes from */
+  private static final class Invoker {
+    // fact name of each parameter, null for the parameter taking all the facts
+    private final String methodName;
+    private final String[] factNames;
+    private final MethodHandle handle;
+
+    private Invoker(String methodName, String[] factNames, MethodHandle handle) {
+      this.methodName = methodName;
+      this.factNames = factNames;
+      this.handle = handle;
+    }
+
+    private static Invoker of(Object rule, Method method) {
+      if (!Modifier.isPublic(method.getDeclaringClass().getModifiers())) {
+        throw new IllegalArgumentException(
+            "Rule " + method.getDeclaringClass().getName() + " must be public");
+      }
+      Class<?>[] parameterTypes = method.getParameterTypes();
+      Annotation[][] parameterAnnotations = method.getParameterAnnotations();
+      String[] factNames = new String[parameterTypes.length];
+      boolean factsParameter = false;
+      for (int i = 0; i < parameterTypes.length; i++) {
+        for (Annotation annotation : parameterAnnotations[i]) {
+          if (annotation instanceof Fact) {
+            factNames[i] = ((Fact) annotation).value();
+          }
+        }
+        if (factNames[i] == null) {
+          if (factsParameter || !Facts.class.isAssignableFrom(parameterTypes[i])) {
+            throw new IllegalArgumentException(
+                "Parameters of " + method + " must be @Fact annotated, except one of type Facts");
+          }
+          factsParameter = true;
+        }
+      }
+      try {
+        MethodHandle handle =
+            MethodHandles.publicLookup()
+                .unreflect(method)
+                .bindTo(rule)
+                .asSpreader(Object[].class, parameterTypes.length)
+                .asType(INVOKER_TYPE);
+        return new Invoker(method.getName(), factNames, handle);
+      } catch (IllegalAccessException e) {
+        throw new IllegalArgumentException("Unable to bind " + method, e);
+      }
+    }
+
+    /** @return arguments taken from the facts, null if a fact is missing */
+    private Object[] arguments(Facts facts) {
+      Object[] args = new Object[factNames.length];
+      for (int i = 0; i < args.length; i++) {
+        if (factNames[i] == null) {
+          args[i] = facts;
+        } else {
+          args[i] = facts.get(factNames[i]);
+          if (args[i] == null) {
+            logger.debug("Fact {} missing", factNames[i]);
+            return null;
+          }
+        }
+      }
+      return args;
+    }
+
+    private Object invoke(Object[] args) throws Throwable {
+      return (Object) handle.invokeExact(args);
+    }
+  }
+}
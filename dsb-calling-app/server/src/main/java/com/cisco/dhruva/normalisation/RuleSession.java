@@ -0,0 +1,65 @@
+package com.cisco.dhruva.normalisation;
+
+import java.util.List;
+import java.util.Map;
+import lombok.Getter;
+import org.jeasy.rules.api.Facts;
+import org.jeasy.rules.api.RuleListener;
+import org.jeasy.rules.api.Rules;
+import org.jeasy.rules.api.RulesEngineListener;
+import org.jeasy.rules.api.RulesEngineParameters;
+import org.jeasy.rules.core.DefaultRulesEngine;
+
+/**
+ * A set of rules and the engine firing them, built once (for instance per call type) and fired for
+ * each request. Annotated rules are compiled to method handles when the session is built, and the
+ * facts passed to the engine are reused by each thread, so firing the rules only costs the
+ * conditions and actions themselves. Listeners are shared by all the threads firing the session.
+ */
+public class RuleSession {
+
+  @Getter private final Rules rules;
+  @Getter private final DefaultRulesEngine rulesEngine;
+  private final ThreadLocal<Facts> facts = ThreadLocal.withInitial(Facts::new);
+
+  public RuleSession(List<Object> rules) {
+    this(rules, null, null, null);
+  }
+
+  public RuleSession(
+      List<Object> rules,
+      RulesEngineParameters params,
+      RuleListener ruleListener,
+      RulesEngineListener rulesEngineListener) {
+    this.rules = new Rules();
+    rules.forEach(rule -> this.rules.register(CompiledRule.compile(rule)));
+    this.rulesEngine =
+        RuleEngineHelper.getSimpleDefaultRuleEngine.apply(
+            params, ruleListener, rulesEngineListener);
+  }
+
+  /** Fires the rules against a single fact */
+  public void fire(String name, Object value) {
+    Facts threadFacts = facts.get();
+    threadFacts.put(name, value);
+    try {
+      rulesEngine.fire(rules, threadFacts);
+    } finally {
+      threadFacts.clear();
+    }
+  }
+
+  /**
+   * Fires the rules against the given facts. They are only held while the rules are fired, along
+   * with any fact the actions added, so that nothing of a request outlives it
+   */
+  public void fire(Map<String, Object> inputs) {
+    Facts threadFacts = facts.get();
+    inputs.forEach(threadFacts::put);
+    try {
+      rulesEngine.fire(rules, threadFacts);
+    } finally {
+      threadFacts.clear();
+    }
+  }
+}
@@ -1,8 +1,5 @@
 package com.cisco.dhruva.normalisation.callTypeNormalization;
 
-import static com.cisco.dhruva.normalisation.callTypeNormalization.NormalizeUtil.normalize;
-import static com.cisco.dhruva.normalisation.callTypeNormalization.NormalizeUtil.replaceIPInHeader;
-
 import com.cisco.dhruva.application.CallingAppConfigurationProperty;
 import com.cisco.dhruva.normalisation.callTypeNormalization.NormalizeUtil.HeaderToNormalize;
 import com.cisco.dsb.common.sip.stack.dto.DhruvaNetwork;
@@ -50,6 +47,18 @@ public class DialInB2BToCallingCoreNorm extends Normalization {
           new String[] {SipConstants.REQUEST_URI, SipParamConstants.X_CISCO_OPN},
           new String[] {SipConstants.REQUEST_URI, SipParamConstants.X_CISCO_DPN},
           new String[] {SipConstants.REQUEST_URI, SipParamConstants.CALLTYPE});
+  private final NormalizationPlan ingressPlan =
+      NormalizationPlan.builder().setParamsToRemove(paramsToRemove).build();
+  private final NormalizationPlan egressPrePlan =
+      NormalizationPlan.builder()
+          .setHeadersToRemove(headersToRemove)
+          .setHeadersToReplaceWithOwnIP(headersToReplaceWithOwnIP)
+          .build();
+  private final NormalizationPlan egressPostPlan =
+      NormalizationPlan.builder()
+          .setHeadersToReplaceWithRemoteIP(headersToReplaceWithRemoteIP)
+          .build();
+
   private Consumer<ProxySIPRequest> ingressNormConsumer =
       proxySIPRequest -> {
         if (logger.isDebugEnabled()) {
@@ -60,7 +69,7 @@ public class DialInB2BToCallingCoreNorm extends Normalization {
                       paramsToRemove[0],
                       paramsToRemove[1]));
         }
-        normalize(proxySIPRequest.getRequest(), null, paramsToRemove);
+        ingressPlan.normalize(proxySIPRequest.getRequest(), null, null);
       };
   private Consumer<ProxySIPRequest> egressPreNormConsumer =
       proxySIPRequest -> {
@@ -80,11 +89,7 @@ public class DialInB2BToCallingCoreNorm extends Normalization {
                       paramsToRemove[0],
                       paramsToRemove[1]));
         }
-        normalize(
-            proxySIPRequest.getRequest(),
-            outgoingNetwork,
-            headersToReplaceWithOwnIP,
-            headersToRemove);
+        egressPrePlan.normalize(proxySIPRequest.getRequest(), outgoingNetwork, null);
       };
 
   private BiConsumer<TrunkCookie, EndPoint> egressPostNormConsumer =
@@ -99,7 +104,7 @@ public class DialInB2BToCallingCoreNorm extends Normalization {
                       headerForIPReplacement.header));
         }
         SIPRequest request = cookie.getClonedRequest().getRequest();
-        normalize(request, endPoint, headersToReplaceWithRemoteIP);
+        egressPostPlan.normalize(request, null, endPoint);
       };
 
   private Consumer<ProxySIPRequest> egressMidCallPostNormConsumer =
@@ -112,8 +117,7 @@ public class DialInB2BToCallingCoreNorm extends Normalization {
                       headerForIPReplacement.header));
         }
         SipUri rUri = ((SipUri) proxySIPRequest.getRequest().getRequestURI());
-        replaceIPInHeader(
-            proxySIPRequest.getRequest(), headersToReplaceWithRemoteIP, rUri.getHost());
+        egressPostPlan.replaceRemoteIP(proxySIPRequest.getRequest(), rUri.getHost());
       };
 
   @Override
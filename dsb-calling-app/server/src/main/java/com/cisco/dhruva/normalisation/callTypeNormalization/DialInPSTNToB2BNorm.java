@@ -1,7 +1,6 @@
 package com.cisco.dhruva.normalisation.callTypeNormalization;
 
 import static com.cisco.dhruva.normalisation.callTypeNormalization.NormalizeUtil.normalize;
-import static com.cisco.dhruva.normalisation.callTypeNormalization.NormalizeUtil.normalizeResponse;
 
 import com.cisco.dhruva.normalisation.callTypeNormalization.NormalizeUtil.HeaderToNormalize;
 import com.cisco.dsb.common.sip.util.EndPoint;
@@ -44,6 +43,14 @@ public class DialInPSTNToB2BNorm extends Normalization {
       Arrays.asList(SipConstants.X_BROAD_WORKS_CORRELATION_INFO, SipConstants.X_BROAD_WORKS_DNC);
   List<HeaderToNormalize> headersToReplaceWithRemoteIPInResponse =
       Collections.singletonList(new HeaderToNormalize(SipConstants.FROM, false));
+  private final NormalizationPlan egressPrePlan =
+      NormalizationPlan.builder().setParamsToAdd(paramsToAdd).build();
+  private final NormalizationPlan responsePlan =
+      NormalizationPlan.builder()
+          .setHeadersToReplaceWithOwnIP(headersToReplaceWithOwnIPInResponse)
+          .setHeadersToReplaceWithRemoteIP(headersToReplaceWithRemoteIPInResponse)
+          .setHeadersToRemove(headersToRemoveInResponse)
+          .build();
 
   private Consumer<ProxySIPRequest> ingressNormConsumer = ProxySIPRequest -> {};
 
@@ -57,7 +64,7 @@ public class DialInPSTNToB2BNorm extends Normalization {
                       paramsToAdd[0],
                       paramsToAdd[1]));
         }
-        normalize(proxySIPRequest.getRequest(), paramsToAdd, null);
+        egressPrePlan.normalize(proxySIPRequest.getRequest(), null, null);
       };
 
   private BiConsumer<TrunkCookie, EndPoint> egressPostNormConsumer =
@@ -85,11 +92,7 @@ public class DialInPSTNToB2BNorm extends Normalization {
               "DialInPSTNToB2B Response Normalization:  headersToRemove: {}",
               headersToRemoveInResponse);
         }
-        normalizeResponse(
-            proxySIPResponse,
-            headersToReplaceWithOwnIPInResponse,
-            headersToReplaceWithRemoteIPInResponse,
-            headersToRemoveInResponse);
+        responsePlan.normalizeResponse(proxySIPResponse);
       };
 
   @Override
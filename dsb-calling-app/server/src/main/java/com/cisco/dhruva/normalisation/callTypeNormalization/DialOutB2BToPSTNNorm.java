@@ -1,8 +1,5 @@
 package com.cisco.dhruva.normalisation.callTypeNormalization;
 
-import static com.cisco.dhruva.normalisation.callTypeNormalization.NormalizeUtil.normalize;
-import static com.cisco.dhruva.normalisation.callTypeNormalization.NormalizeUtil.replaceIPInHeader;
-
 import com.cisco.dhruva.application.CallingAppConfigurationProperty;
 import com.cisco.dhruva.normalisation.callTypeNormalization.NormalizeUtil.HeaderToNormalize;
 import com.cisco.dsb.common.sip.stack.dto.DhruvaNetwork;
@@ -54,6 +51,18 @@ public class DialOutB2BToPSTNNorm extends Normalization {
       Collections.singletonList(new HeaderToNormalize(SipConstants.TO, false));
   List<String> headersToRemove =
       Arrays.asList(SipConstants.X_BROAD_WORKS_CORRELATION_INFO, SipConstants.X_BROAD_WORKS_DNC);
+  private final NormalizationPlan ingressPlan =
+      NormalizationPlan.builder().setParamsToRemove(paramsToRemoveIngress).build();
+  private final NormalizationPlan egressPrePlan =
+      NormalizationPlan.builder()
+          .setHeadersToRemove(headersToRemove)
+          .setParamsToRemove(paramsToRemovePreEgress)
+          .setHeadersToReplaceWithOwnIP(headersToReplaceWithOwnIP)
+          .build();
+  private final NormalizationPlan egressPostPlan =
+      NormalizationPlan.builder()
+          .setHeadersToReplaceWithRemoteIP(headersToReplaceWithRemoteIP)
+          .build();
 
   private Consumer<ProxySIPRequest> ingressNormConsumer =
       proxySIPRequest -> {
@@ -65,7 +74,7 @@ public class DialOutB2BToPSTNNorm extends Normalization {
                       paramsToRemove[0],
                       paramsToRemove[1]));
         }
-        normalize(proxySIPRequest.getRequest(), null, paramsToRemoveIngress);
+        ingressPlan.normalize(proxySIPRequest.getRequest(), null, null);
       };
 
   private Consumer<ProxySIPRequest> egressPreNormConsumer =
@@ -80,11 +89,6 @@ public class DialOutB2BToPSTNNorm extends Normalization {
                       "DialOutB2BToPSTN egress-pre-normalization: headersToReplaceWithOwnIP: {}",
                       headerForIPReplacement.header));
         }
-        normalize(
-            proxySIPRequest.getRequest(),
-            outgoingNetwork,
-            headersToReplaceWithOwnIP,
-            headersToRemove);
         if (logger.isDebugEnabled()) {
           paramsToRemovePreEgress.forEach(
               paramsToRemove ->
@@ -93,7 +97,7 @@ public class DialOutB2BToPSTNNorm extends Normalization {
                       paramsToRemove[0],
                       paramsToRemove[1]));
         }
-        normalize(proxySIPRequest.getRequest(), null, paramsToRemovePreEgress);
+        egressPrePlan.normalize(proxySIPRequest.getRequest(), outgoingNetwork, null);
       };
 
   private BiConsumer<TrunkCookie, EndPoint> egressPostNormConsumer =
@@ -107,7 +111,7 @@ public class DialOutB2BToPSTNNorm extends Normalization {
                       headerForIPReplacement.header));
         }
         SIPRequest request = cookie.getClonedRequest().getRequest();
-        normalize(request, endPoint, headersToReplaceWithRemoteIP);
+        egressPostPlan.normalize(request, null, endPoint);
       };
 
   private Consumer<ProxySIPRequest> egressMidCallPostNormConsumer =
@@ -120,8 +124,7 @@ public class DialOutB2BToPSTNNorm extends Normalization {
                       headerForIPReplacement.header));
         }
         SipUri rUri = ((SipUri) proxySIPRequest.getRequest().getRequestURI());
-        replaceIPInHeader(
-            proxySIPRequest.getRequest(), headersToReplaceWithRemoteIP, rUri.getHost());
+        egressPostPlan.replaceRemoteIP(proxySIPRequest.getRequest(), rUri.getHost());
       };
 
   @Override
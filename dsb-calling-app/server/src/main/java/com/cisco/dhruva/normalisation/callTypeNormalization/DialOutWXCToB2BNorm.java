@@ -1,7 +1,6 @@
 package com.cisco.dhruva.normalisation.callTypeNormalization;
 
 import static com.cisco.dhruva.normalisation.callTypeNormalization.NormalizeUtil.normalize;
-import static com.cisco.dhruva.normalisation.callTypeNormalization.NormalizeUtil.normalizeResponse;
 
 import com.cisco.dhruva.normalisation.callTypeNormalization.NormalizeUtil.HeaderToNormalize;
 import com.cisco.dsb.common.sip.util.EndPoint;
@@ -44,6 +43,14 @@ public class DialOutWXCToB2BNorm extends Normalization {
       Collections.singletonList(new HeaderToNormalize(SipConstants.FROM, false));
   List<String> headersToRemoveInResponse =
       Arrays.asList(SipConstants.SERVER, SipConstants.USER_AGENT);
+  private final NormalizationPlan egressPrePlan =
+      NormalizationPlan.builder().setParamsToAdd(paramsToAdd).build();
+  private final NormalizationPlan responsePlan =
+      NormalizationPlan.builder()
+          .setHeadersToReplaceWithOwnIP(headersToReplaceWithOwnIPInResponse)
+          .setHeadersToReplaceWithRemoteIP(headersToReplaceWithRemoteIPInResponse)
+          .setHeadersToRemove(headersToRemoveInResponse)
+          .build();
 
   private Consumer<ProxySIPRequest> ingressNormConsumer = proxySIPRequest -> {};
   private Consumer<ProxySIPRequest> egressPreNormConsumer =
@@ -56,7 +63,7 @@ public class DialOutWXCToB2BNorm extends Normalization {
                       paramsToAdd[0],
                       paramsToAdd[1]));
         }
-        normalize(proxySIPRequest.getRequest(), paramsToAdd, null);
+        egressPrePlan.normalize(proxySIPRequest.getRequest(), null, null);
       };
 
   private BiConsumer<TrunkCookie, EndPoint> egressPostNormConsumer =
@@ -84,11 +91,7 @@ public class DialOutWXCToB2BNorm extends Normalization {
               "DialOutWxcToB2B Response Normalization:  headersToRemove: {}",
               headersToRemoveInResponse);
         }
-        normalizeResponse(
-            proxySIPResponse,
-            headersToReplaceWithOwnIPInResponse,
-            headersToReplaceWithRemoteIPInResponse,
-            headersToRemoveInResponse);
+        responsePlan.normalizeResponse(proxySIPResponse);
       };
 
   @Override
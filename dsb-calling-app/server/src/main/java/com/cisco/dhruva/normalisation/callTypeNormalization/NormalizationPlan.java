@@ -0,0 +1,364 @@
+package com.cisco.dhruva.normalisation.callTypeNormalization;
+
+import com.cisco.dhruva.normalisation.callTypeNormalization.NormalizeUtil.HeaderToNormalize;
+import com.cisco.dsb.common.sip.stack.dto.DhruvaNetwork;
+import com.cisco.dsb.common.sip.util.EndPoint;
+import com.cisco.dsb.common.sip.util.SipConstants;
+import com.cisco.dsb.proxy.messaging.ProxySIPResponse;
+import com.cisco.dsb.proxy.sip.ProxyCookieImpl;
+import gov.nist.javax.sip.address.SipUri;
+import gov.nist.javax.sip.header.HeaderFactoryImpl;
+import gov.nist.javax.sip.header.SIPHeader;
+import gov.nist.javax.sip.message.SIPMessage;
+import gov.nist.javax.sip.message.SIPRequest;
+import gov.nist.javax.sip.message.SIPResponse;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ListIterator;
+import lombok.Builder;
+import lombok.CustomLog;
+
+/**
+ * The header operations of a normalization step, compiled once when the call type normalization is
+ * created. Param operations are validated and resolved to the header they apply to up front, so
+ * applying the plan to a message runs the operations in a fixed order without checking or parsing
+ * the configuration again: request URI host, headers to remove, params to remove, params to add,
+ * then the IP replacements.
+ */
+@CustomLog
+public final class NormalizationPlan {
+
+  private static final HeaderFactoryImpl headerFactory = new HeaderFactoryImpl();
+  private static final int OCTET_ALTERNATIVES = 6;
+
+  private final String[] headersToRemove;
+  private final HeaderParam[] paramsToRemove;
+  private final HeaderParam[] paramsToAdd;
+  private final HeaderToNormalize[] headersToReplaceWithOwnIP;
+  private final HeaderToNormalize[] headersToReplaceWithRemoteIP;
+
+  @Builder(setterPrefix = "set")
+  private NormalizationPlan(
+      List<String> headersToRemove,
+      List<String[]> paramsToRemove,
+      List<String[]> paramsToAdd,
+      List<HeaderToNormalize> headersToReplaceWithOwnIP,
+      List<HeaderToNormalize> headersToReplaceWithRemoteIP) {
+    this.headersToRemove =
+        headersToRemove == null ? new String[0] : headersToRemove.toArray(new String[0]);
+    this.paramsToRemove = compileParams(paramsToRemove, 2);
+    this.paramsToAdd = compileParams(paramsToAdd, 3);
+    this.headersToReplaceWithOwnIP = toArray(headersToReplaceWithOwnIP);
+    this.headersToReplaceWithRemoteIP = toArray(headersToReplaceWithRemoteIP);
+  }
+
+  private static HeaderToNormalize[] toArray(List<HeaderToNormalize> headers) {
+    return headers == null ? new HeaderToNormalize[0] : headers.toArray(new HeaderToNormalize[0]);
+  }
+
+  // Currently params are only added to or removed from requestUri, To and From Header
+  private static HeaderParam[] compileParams(List<String[]> params, int length) {
+    if (params == null) {
+      return new HeaderParam[0];
+    }
+    List<HeaderParam> compiled = new ArrayList<>(params.size());
+    for (String[] headerInfo : params) {
+      if (headerInfo.length != length) {
+        logger.error("Error adding normalization for header params {}", (Object) headerInfo);
+        continue;
+      }
+      HeaderParam.Target target;
+      switch (headerInfo[0]) {
+        case SipConstants.REQUEST_URI:
+          target = HeaderParam.Target.REQUEST_URI;
+          break;
+        case SipConstants.TO:
+          target = HeaderParam.Target.TO;
+          break;
+        case SipConstants.FROM:
+          target = HeaderParam.Target.FROM;
+          break;
+        default:
+          logger.error(
+              "Header params norm not added for {}. Currently available only for To, From and RUri",
+              headerInfo[0]);
+          continue;
+      }
+      compiled.add(new HeaderParam(target, headerInfo[1], length == 3 ? headerInfo[2] : null));
+    }
+    return compiled.toArray(new HeaderParam[0]);
+  }
+
+  /**
+   * Normalizes a request
+   *
+   * @param outgoingNetwork network whose IP replaces the one in the headers to carry our own IP
+   * @param endPoint if not null, the request URI is pointed at it and its host replaces the IP in
+   *     the headers to carry the remote IP
+   */
+  public void normalize(SIPRequest request, DhruvaNetwork outgoingNetwork, EndPoint endPoint) {
+    String remoteIPAddress = null;
+    try {
+      if (endPoint != null) {
+        remoteIPAddress = endPoint.getHost();
+        if (remoteIPAddress != null) {
+          SipUri rUri = (SipUri) request.getRequestURI();
+          rUri.setHost(remoteIPAddress);
+          rUri.setPort(endPoint.getPort());
+        }
+      }
+      for (String header : headersToRemove) {
+        request.removeHeader(header);
+      }
+      for (HeaderParam param : paramsToRemove) {
+        param.remove(request);
+      }
+      for (HeaderParam param : paramsToAdd) {
+        param.add(request);
+      }
+      if (headersToReplaceWithOwnIP.length > 0) {
+        if (outgoingNetwork != null) {
+          replaceIPInHeaders(
+              request,
+              headersToReplaceWithOwnIP,
+              outgoingNetwork.getListenPoint().getHostIPAddress());
+        } else {
+          logger.error("Outgoing network is null. Cannot set own IP");
+        }
+      }
+      if (headersToReplaceWithRemoteIP.length > 0) {
+        replaceIPInHeaders(request, headersToReplaceWithRemoteIP, remoteIPAddress);
+      }
+    } catch (ParseException | RuntimeException e) {
+      logger.error("Unable to perform normalization.", e);
+    }
+  }
+
+  /**
+   * Normalizes a response with the IP of the network the request came in on as our own IP, and the
+   * host of the topmost Via as the remote IP
+   */
+  public void normalizeResponse(ProxySIPResponse proxySIPResponse) {
+    SIPResponse response = proxySIPResponse.getResponse();
+    if (headersToReplaceWithOwnIP.length > 0) {
+      DhruvaNetwork responseOutgoingNetwork =
+          ((ProxyCookieImpl) proxySIPResponse.getCookie()).getRequestIncomingNetwork();
+      replaceIPInHeaders(
+          response,
+          headersToReplaceWithOwnIP,
+          responseOutgoingNetwork.getListenPoint().getHostIPAddress());
+    }
+    if (headersToReplaceWithRemoteIP.length > 0) {
+      replaceIPInHeaders(
+          response, headersToReplaceWithRemoteIP, response.getTopmostViaHeader().getHost());
+    }
+    for (String header : headersToRemove) {
+      response.removeHeader(header);
+    }
+  }
+
+  /** Replaces the IP in the headers to carry the remote IP with the given one */
+  public void replaceRemoteIP(SIPMessage message, String ipAddress) {
+    replaceIPInHeaders(message, headersToReplaceWithRemoteIP, ipAddress);
+  }
+
+  static void replaceIPInHeaders(
+      SIPMessage message, HeaderToNormalize[] headers, String ipAddress) {
+    if (ipAddress == null) {
+      logger.error(
+          "IP address cannot be determined. IP Address normalization cannot be performed.");
+      return;
+    }
+    for (HeaderToNormalize header : headers) {
+      replaceIPInHeader(message, header, ipAddress);
+    }
+  }
+
+  private static void replaceIPInHeader(
+      SIPMessage message, HeaderToNormalize headerForIPReplacement, String ipAddress) {
+    if (!headerForIPReplacement.updateAllHeaderOccurrences) {
+      SIPHeader header = (SIPHeader) message.getHeader(headerForIPReplacement.header);
+      if (header == null) {
+        logger.debug(
+            "Header {} not present in message. Skippig Normalization.",
+            headerForIPReplacement.header);
+        return;
+      }
+      try {
+        header = getHeaderWithReplacedIP(header, ipAddress);
+        if (header != null) {
+          message.setHeader(header);
+        } else {
+          logger.error("No IP found to replace in header: {}", headerForIPReplacement.header);
+        }
+      } catch (ParseException e) {
+        logger.error(
+            "Error while replacingIPHeader normalization in {}: {}",
+            headerForIPReplacement.header,
+            e);
+      }
+      return;
+    }
+    List<SIPHeader> newHeaderList = new ArrayList<>();
+    ListIterator<SIPHeader> headers = message.getHeaders(headerForIPReplacement.header);
+    while (headers.hasNext()) {
+      SIPHeader header = headers.next();
+      try {
+        header = getHeaderWithReplacedIP(header, ipAddress);
+        if (header != null) {
+          newHeaderList.add(header);
+        }
+      } catch (ParseException e) {
+        logger.error(
+            "Error while replacingIPHeader normalization in {}: {}",
+            headerForIPReplacement.header,
+            e);
+      }
+    }
+    message.removeHeader(headerForIPReplacement.header);
+    message.setHeaders(newHeaderList);
+  }
+
+  private static SIPHeader getHeaderWithReplacedIP(SIPHeader sipHeader, String ipAddress)
+      throws ParseException {
+    String headerValue = sipHeader.encodeBody();
+    String ipToReplace = findIPv4Address(headerValue);
+    if (ipToReplace == null) {
+      return null;
+    }
+    headerValue = headerValue.replace(ipToReplace, ipAddress);
+    return (SIPHeader) headerFactory.createHeader(sipHeader.getName(), headerValue);
+  }
+
+  /**
+   * Finds the first dotted IPv4 address in a string, matching what the pattern {@code
+   * ((25[0-5]|2[0-4][0-9]|[01]?[0-9][0-9]?)\.){3}(25[0-5]|2[0-4][0-9]|[01]?[0-9][0-9]?)} would find
+   * without running a regex over every header
+   *
+   * @return the address, null if there is none
+   */
+  static String findIPv4Address(String value) {
+    for (int start = 0; start < value.length(); start++) {
+      int end = matchOctets(value, start, 4);
+      if (end != -1) {
+        return value.substring(start, end);
+      }
+    }
+    return null;
+  }
+
+  // tries the lengths an octet may take at pos in the order the pattern does, backtracking into
+  // shorter ones if the rest does not match
+  private static int matchOctets(String value, int pos, int octets) {
+    for (int alternative = 0; alternative < OCTET_ALTERNATIVES; alternative++) {
+      int length = octetLength(value, pos, alternative);
+      if (length == 0) {
+        continue;
+      }
+      int end = pos + length;
+      if (octets == 1) {
+        return end;
+      }
+      if (end < value.length() && value.charAt(end) == '.') {
+        int rest = matchOctets(value, end + 1, octets - 1);
+        if (rest != -1) {
+          return rest;
+        }
+      }
+    }
+    return -1;
+  }
+
+  // length of 25[0-5], 2[0-4][0-9], [01][0-9][0-9], [01][0-9], [0-9][0-9] or [0-9] at pos, 0 if
+  // the alternative does not match there
+  private static int octetLength(String value, int pos, int alternative) {
+    if (!isDigit(value, pos)) {
+      return 0;
+    }
+    char first = value.charAt(pos);
+    boolean second = isDigit(value, pos + 1);
+    boolean third = second && isDigit(value, pos + 2);
+    switch (alternative) {
+      case 0:
+        return first == '2' && third && value.charAt(pos + 1) == '5' && value.charAt(pos + 2) <= '5'
+            ? 3
+            : 0;
+      case 1:
+        return first == '2' && third && value.charAt(pos + 1) <= '4' ? 3 : 0;
+      case 2:
+        return (first == '0' || first == '1') && third ? 3 : 0;
+      case 3:
+        return (first == '0' || first == '1') && second ? 2 : 0;
+      case 4:
+        return second ? 2 : 0;
+      default:
+        return 1;
+    }
+  }
+
+  private static boolean isDigit(String value, int pos) {
+    if (pos >= value.length()) {
+      return false;
+    }
+    char c = value.charAt(pos);
+    return c >= '0' && c <= '9';
+  }
+
+  private static final class HeaderParam {
+    private enum Target {
+      REQUEST_URI,
+      TO,
+      FROM
+    }
+
+    private final Target target;
+    private final String name;
+    private final String value;
+
+    private HeaderParam(Target target, String name, String value) {
+      this.target = target;
+      this.name = name;
+      this.value = value;
+    }
+
+    private void remove(SIPRequest request) {
+      SipUri sipUri;
+      switch (target) {
+        case TO:
+          request.getTo().removeParameter(name);
+          sipUri = (SipUri) request.getTo().getAddress().getURI();
+          break;
+        case FROM:
+          request.getFrom().removeParameter(name);
+          sipUri = (SipUri) request.getFrom().getAddress().getURI();
+          break;
+        default:
+          sipUri = (SipUri) request.getRequestURI();
+      }
+      if (sipUri != null) {
+        sipUri.removeParameter(name);
+      }
+    }
+
+    private void add(SIPRequest request) {
+      try {
+        switch (target) {
+          case TO:
+            request.getTo().setParameter(name, value);
+            break;
+          case FROM:
+            request.getFrom().setParameter(name, value);
+            break;
+          default:
+            SipUri sipUri = (SipUri) request.getRequestURI();
+            if (sipUri != null) {
+              sipUri.setParameter(name, value);
+            }
+        }
+      } catch (ParseException e) {
+        logger.error("Error adding normalization for addHeaderParams {}={}", name, value);
+      }
+    }
+  }
+}
@@ -1,12 +1,12 @@
 package com.cisco.dhruva.normalisation.rules;
 
-import com.cisco.dhruva.normalisation.apis.UriNormalisationImpl;
 import com.cisco.dsb.proxy.messaging.ProxySIPRequest;
 import com.cisco.dsb.trunk.util.SipParamConstants;
 import com.google.common.collect.ImmutableMap;
 import gov.nist.javax.sip.address.SipUri;
 import gov.nist.javax.sip.message.SIPRequest;
 import java.text.ParseException;
+import java.util.Map;
 import javax.sip.message.Request;
 import lombok.CustomLog;
 import org.jeasy.rules.annotation.Action;
@@ -21,7 +21,7 @@ import org.jeasy.rules.api.Facts;
     description = "Normalisation policy that adds opn,dpn params to reqUri")
 public class AddOpnDpnRule {
 
-  private ImmutableMap<String, String> params;
+  private final ImmutableMap<String, String> params;
 
   public AddOpnDpnRule(String dpnValue, String opnValue) {
     params =
@@ -43,8 +43,9 @@ public class AddOpnDpnRule {
     SipUri reqUri = (SipUri) request.getRequestURI();
 
     logger.debug("R-URI before modification: {}", reqUri);
-    UriNormalisationImpl uriNorm = new UriNormalisationImpl(reqUri);
-    reqUri = uriNorm.setParams(params).getUri();
+    for (Map.Entry<String, String> param : params.entrySet()) {
+      reqUri.setParameter(param.getKey(), param.getValue());
+    }
     logger.debug("R-URI after modification: {}", reqUri);
   }
 }
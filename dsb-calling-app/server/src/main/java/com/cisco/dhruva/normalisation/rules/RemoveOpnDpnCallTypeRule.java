@@ -1,6 +1,5 @@
 package com.cisco.dhruva.normalisation.rules;
 
-import com.cisco.dhruva.normalisation.apis.UriNormalisationImpl;
 import com.cisco.dsb.proxy.messaging.ProxySIPRequest;
 import com.cisco.dsb.trunk.util.SipParamConstants;
 import com.google.common.collect.ImmutableList;
@@ -20,7 +19,7 @@ import org.jeasy.rules.api.Facts;
     description = "Normalisation policy that removes opn,dpn params to reqUri")
 public class RemoveOpnDpnCallTypeRule {
 
-  private static ImmutableList<String> paramsToBeRemoved =
+  private static final ImmutableList<String> paramsToBeRemoved =
       ImmutableList.of(
           SipParamConstants.X_CISCO_OPN, SipParamConstants.X_CISCO_DPN, SipParamConstants.CALLTYPE);
 
@@ -39,8 +38,9 @@ public class RemoveOpnDpnCallTypeRule {
     SipUri reqUri = (SipUri) request.getRequestURI();
 
     logger.debug("R-URI before modification: {}", reqUri);
-    UriNormalisationImpl uriNorm = new UriNormalisationImpl(reqUri);
-    reqUri = uriNorm.removeParams(paramsToBeRemoved).getUri();
+    for (String param : paramsToBeRemoved) {
+      reqUri.removeParameter(param);
+    }
     logger.debug("R-URI after modification: {}", reqUri);
   }
 }
@@ -19,6 +19,7 @@ import com.cisco.dsb.common.ratelimiter.RateLimitPolicy;
 import com.cisco.dsb.common.ratelimiter.RateLimitPolicy.RateLimit.ResponseOptions;
 import com.cisco.dsb.common.ratelimiter.RateLimitPolicy.Type;
 import com.cisco.dsb.common.ratelimiter.RateLimiterConfigurator;
+import com.cisco.dsb.common.ratelimiter.cluster.ClusterQuotaCoordinator;
 import com.cisco.dsb.common.servergroup.ServerGroup;
 import com.cisco.dsb.common.servergroup.ServerGroupElement;
 import com.cisco.dsb.common.sip.stack.dto.DhruvaNetwork;
@@ -105,6 +106,10 @@ public class CallingAppRateLimiterConfigurator implements RateLimiterConfigurato
   public List<Policy> createPolicies() {
     List<Policy> policies = new ArrayList<>();
     ratePolicyToResponseOptionsMap.clear();
+    ClusterQuotaCoordinator clusterQuotaCoordinator = dsbRateLimiter.getClusterQuotaCoordinator();
+    if (clusterQuotaCoordinator != null) {
+      clusterQuotaCoordinator.clearQuotas();
+    }
     rateLimitPolicyList.forEach(
         rateLimitPolicy -> {
           logger.info("Configuring rateLimiterPolicy: {}", rateLimitPolicy.getName());
@@ -135,19 +140,21 @@ public class CallingAppRateLimiterConfigurator implements RateLimiterConfigurato
           if (rateLimitPolicy.getRateLimit() != null) {
             String policyName =
                 NETWORK_LEVEL_POLICY_PREFIX + UNDERSCORE + rateLimitPolicy.getName();
-            policies.add(
-                Policy.builder(policyName)
-                    .matcher(
-                        (new UserMatcher(Mode.MATCH_ALL))
-                            .addProperty(
-                                DsbRateLimitAttribute.DHRUVA_NETWORK_RATE_LIMIT.toString(),
-                                policyValue))
-                    .action(
-                        (new RateAction(
-                            rateLimitPolicy.getRateLimit().getPermits(),
-                            rateLimitPolicy.getRateLimit().getInterval(),
-                            (rateLimitPolicy.getType() == Type.NETWORK) ? null : PROCESS)))
-                    .build());
+            Integer permits = rateLimitPolicy.getRateLimit().getPermits();
+            if (clusterQuotaCoordinator != null
+                && permits != null
+                && rateLimitPolicy.getType() == Type.GLOBAL) {
+              // enforce only this node's share of the cluster wide quota, usage of the quota is
+              // recorded under the configured name the policy value carries
+              permits =
+                  clusterQuotaCoordinator.register(
+                      rateLimitPolicy.getName(),
+                      permits,
+                      localPermits ->
+                          createRateLimitPolicy(
+                              policyName, policyValue, rateLimitPolicy, localPermits));
+            }
+            policies.add(createRateLimitPolicy(policyName, policyValue, rateLimitPolicy, permits));
             ResponseOptions responseOptions = rateLimitPolicy.getRateLimit().getResponseOptions();
             if (responseOptions != null) {
               ratePolicyToResponseOptionsMap.put(policyName, responseOptions);
@@ -157,6 +164,21 @@ public class CallingAppRateLimiterConfigurator implements RateLimiterConfigurato
     return policies;
   }
 
+  private Policy createRateLimitPolicy(
+      String policyName, String policyValue, RateLimitPolicy rateLimitPolicy, Integer permits) {
+    return Policy.builder(policyName)
+        .matcher(
+            (new UserMatcher(Mode.MATCH_ALL))
+                .addProperty(
+                    DsbRateLimitAttribute.DHRUVA_NETWORK_RATE_LIMIT.toString(), policyValue))
+        .action(
+            (new RateAction(
+                permits,
+                rateLimitPolicy.getRateLimit().getInterval(),
+                (rateLimitPolicy.getType() == Type.NETWORK) ? null : PROCESS)))
+        .build();
+  }
+
   @Override
   public void createAllowDenyListMap() {
     allowDenyListsMap.clear();
@@ -22,7 +22,6 @@ import com.cisco.dsb.common.maintanence.Maintenance;
 import com.cisco.dsb.common.record.DhruvaAppRecord;
 import com.cisco.dsb.common.service.MetricService;
 import com.cisco.dsb.common.sip.jain.JainSipHelper;
-import com.cisco.dsb.common.util.SpringApplicationContext;
 import com.cisco.dsb.proxy.messaging.ProxySIPRequest;
 import com.cisco.dsb.proxy.messaging.ProxySIPResponse;
 import com.cisco.dsb.trunk.TrunkManager;
@@ -38,7 +37,6 @@ import javax.sip.SipProvider;
 import javax.sip.message.Response;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
-import org.springframework.context.ApplicationContext;
 import org.testng.Assert;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.BeforeTest;
@@ -52,8 +50,6 @@ public class CallTypeTest {
   @Mock ProxySIPRequest proxySIPRequest;
   @Mock ProxySIPResponse proxySIPResponse;
   MetricService metricService;
-  ApplicationContext context;
-  SpringApplicationContext springApplicationContext = new SpringApplicationContext();
   Map<String, CallTypeConfig> callTypeConfigMap = new HashMap<>();
   ErrorMappingPolicy errorMappingPolicy = new ErrorMappingPolicy();
   List<Integer> errorCodes1 = new ArrayList<>();
@@ -102,11 +98,6 @@ public class CallTypeTest {
   public void setup() {
 
     reset(proxySIPRequest, proxySIPResponse, trunkManager, metricService);
-    context = mock(ApplicationContext.class);
-    when(context.getBean(MetricService.class)).thenReturn(metricService);
-
-    springApplicationContext.setApplicationContext(context);
-    when(context.getBean(MetricService.class)).thenReturn(metricService);
     when(trunkManager.handleEgress(
             any(TrunkType.class), any(ProxySIPRequest.class), anyString(), any()))
         .thenReturn(Mono.just(proxySIPResponse));
@@ -116,14 +107,20 @@ public class CallTypeTest {
   @DataProvider
   public Object[] getCallTypes() {
     return new Object[] {
-      new DialInPSTN(trunkManager, configurationProperty, new DialInPSTNToB2BNorm()),
+      new DialInPSTN(
+          trunkManager, configurationProperty, new DialInPSTNToB2BNorm(), metricService),
       new DialInB2B(
           trunkManager,
           configurationProperty,
-          new DialInB2BToCallingCoreNorm(configurationProperty)),
-      new DialOutWxC(trunkManager, configurationProperty, new DialOutWXCToB2BNorm()),
+          new DialInB2BToCallingCoreNorm(configurationProperty),
+          metricService),
+      new DialOutWxC(
+          trunkManager, configurationProperty, new DialOutWXCToB2BNorm(), metricService),
       new DialOutB2B(
-          trunkManager, configurationProperty, new DialOutB2BToPSTNNorm(configurationProperty))
+          trunkManager,
+          configurationProperty,
+          new DialOutB2BToPSTNNorm(configurationProperty),
+          metricService)
     };
   }
 
@@ -174,7 +171,8 @@ public class CallTypeTest {
               + "This happens when dhruva goes into maintenance mode, so call should not perform egress logic")
   public void testProcessRequestWhenInMaintenanceMode() {
     CallType callType =
-        new DialInPSTN(trunkManager, configurationProperty, new DialInPSTNToB2BNorm());
+        new DialInPSTN(
+            trunkManager, configurationProperty, new DialInPSTNToB2BNorm(), metricService);
     Maintenance maintenance = mock(Maintenance.class);
     when(configurationProperty.getMaintenance()).thenReturn(maintenance);
     when(trunkManager.handleIngress(
@@ -207,7 +205,10 @@ public class CallTypeTest {
   public void nullDtgTest() throws ParseException {
     CallType callType =
         new DialOutB2B(
-            trunkManager, configurationProperty, new DialOutB2BToPSTNNorm(configurationProperty));
+            trunkManager,
+            configurationProperty,
+            new DialOutB2BToPSTNNorm(configurationProperty),
+            metricService);
     SIPRequest sipRequest = mock(SIPRequest.class);
     SipUri sipUri = (SipUri) JainSipHelper.createSipURI("sip:abc@akg.com");
     when(sipRequest.getRequestURI()).thenReturn(sipUri);
@@ -222,7 +223,8 @@ public class CallTypeTest {
   @Test(description = "handle egress throws exception")
   public void testHandleEgressException() {
     DialInPSTNToB2BNorm normalization = new DialInPSTNToB2BNorm();
-    CallType callType = new DialInPSTN(trunkManager, configurationProperty, normalization);
+    CallType callType =
+        new DialInPSTN(trunkManager, configurationProperty, normalization, metricService);
     DhruvaRuntimeException dhruvaRuntimeException =
         new DhruvaRuntimeException(ErrorCode.APP_REQ_PROC, "Error while proxying the request");
     Maintenance maintenance = mock(Maintenance.class);
@@ -265,7 +267,8 @@ public class CallTypeTest {
           "test out the error mapping for responses functionality, only dialInPSTN is included")
   public void testResponseMapperDialInPSTN() throws ParseException {
     DialInPSTNToB2BNorm normalization = new DialInPSTNToB2BNorm();
-    DialInPSTN callType = new DialInPSTN(trunkManager, configurationProperty, normalization);
+    DialInPSTN callType =
+        new DialInPSTN(trunkManager, configurationProperty, normalization, metricService);
     callType.setCallTypeConfig(callTypeConfigMap.get(DialInPSTN.getCallTypeNameStr()));
     callType.setErrorMappingPolicy(errorMappingPolicy);
     callType.setErrorCodeToMappingMap(errorCodeToMappingMap);
@@ -319,7 +322,7 @@ public class CallTypeTest {
 
     DialOutWXCToB2BNorm dialOutWXCToB2BNorm = new DialOutWXCToB2BNorm();
     DialOutWxC dialOutWxC =
-        new DialOutWxC(trunkManager, configurationProperty, dialOutWXCToB2BNorm);
+        new DialOutWxC(trunkManager, configurationProperty, dialOutWXCToB2BNorm, metricService);
     SIPResponse dialOutWxCSipResponse = ResponseHelper.getSipResponse(503, sipRequest);
     ProxySIPResponse dialOutWxCProxySipResponse =
         new ProxySIPResponse(
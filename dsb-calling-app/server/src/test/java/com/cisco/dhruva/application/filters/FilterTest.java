@@ -15,7 +15,6 @@ import gov.nist.javax.sip.header.RequestLine;
 import gov.nist.javax.sip.message.SIPRequest;
 import java.text.ParseException;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
@@ -30,7 +29,6 @@ public class FilterTest {
   @Mock ProxySIPRequest proxySIPRequest;
   @Mock CallingAppConfigurationProperty configurationProperty;
   SIPRequest sipRequest;
-  HashMap<Object, Object> cache = new HashMap<>();
 
   @BeforeTest
   public void init() throws ParseException, FilterTreeException {
@@ -77,10 +75,10 @@ public class FilterTest {
     when(applicationContext.getBean(FilterFactory.class)).thenReturn(filterFactory);
 
     CallTypeFactory callTypeFactory = new CallTypeFactory();
-    callTypeFactory.setDialInPSTN(new DialInPSTN(null, null, null));
-    callTypeFactory.setDialInB2B(new DialInB2B(null, null, null));
-    callTypeFactory.setDialOutWxC(new DialOutWxC(null, null, null));
-    callTypeFactory.setDialOutB2B(new DialOutB2B(null, null, null));
+    callTypeFactory.setDialInPSTN(new DialInPSTN(null, null, null, null));
+    callTypeFactory.setDialInB2B(new DialInB2B(null, null, null, null));
+    callTypeFactory.setDialOutWxC(new DialOutWxC(null, null, null, null));
+    callTypeFactory.setDialOutB2B(new DialOutB2B(null, null, null, null));
 
     filter = new Filter(callTypeFactory, filterFactory);
     List<CallTypeEnum> interestedCallTypes = new ArrayList<>();
@@ -90,13 +88,11 @@ public class FilterTest {
     interestedCallTypes.add(CallTypeEnum.DIAL_OUT_B2B);
     filter.register(interestedCallTypes);
 
-    when(proxySIPRequest.getCache()).thenReturn(cache);
   }
 
   @BeforeMethod
   public void setup() {
     reset(proxySIPRequest);
-    cache.clear();
   }
 
   @Test
@@ -145,6 +141,19 @@ public class FilterTest {
     Assert.assertEquals(callType.getClass(), DialOutB2B.class);
   }
 
+  @Test(description = "filters are tested at most once per request")
+  public void testFiltersTestedOnce() throws ParseException, InvalidCallTypeException {
+    ((SipUri) sipRequest.getRequestURI())
+        .setParameter(SipParamConstants.CALLTYPE, SipParamConstants.DIAL_OUT_TAG);
+    when(proxySIPRequest.getNetwork()).thenReturn("net_b2b");
+    when(proxySIPRequest.getRequest()).thenReturn(sipRequest);
+    when(proxySIPRequest.getCallId()).thenReturn("DialOutB2B");
+    CallType callType = filter.filter(proxySIPRequest);
+    Assert.assertEquals(callType.getClass(), DialOutB2B.class);
+    // network b2b is the parent of both the dial-in and the dial-out tag filters
+    verify(proxySIPRequest, times(1)).getNetwork();
+  }
+
   @Test(expectedExceptions = {InvalidCallTypeException.class})
   public void testInvalidCallType() throws ParseException, InvalidCallTypeException {
     ((SipUri) sipRequest.getRequestURI()).setParameter(SipParamConstants.CALLTYPE, "Invalid");
@@ -7,11 +7,8 @@ import com.cisco.dhruva.application.CallingAppConfigurationProperty;
 import com.cisco.dhruva.application.calltype.CallTypeEnum;
 import com.cisco.dhruva.application.exceptions.FilterTreeException;
 import com.cisco.dsb.common.util.SpringApplicationContext;
-import com.cisco.dsb.proxy.messaging.ProxySIPRequest;
-import java.util.HashMap;
 import nl.jqno.equalsverifier.EqualsVerifier;
 import org.mockito.Mock;
-import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
 import org.springframework.context.ApplicationContext;
 import org.testng.Assert;
@@ -74,21 +71,6 @@ public class RootNodeTest {
     rootNode.insertCallType(CallTypeEnum.DIAL_IN_B2B);
   }
 
-  @Test(description = "cache checking")
-  @Ignore
-  public void testGetCallType() throws FilterTreeException {
-    rootNode.insertCallType(CallTypeEnum.DIAL_IN_B2B);
-    ProxySIPRequest proxySIPRequest = Mockito.mock(ProxySIPRequest.class);
-    HashMap<Object, Object> cache = new HashMap<>();
-    Mockito.when(proxySIPRequest.getNetwork()).thenReturn("TestNet");
-    Mockito.when(proxySIPRequest.getCache()).thenReturn(cache);
-    rootNode.getCallType(proxySIPRequest);
-    // second time should pick from cache
-    rootNode.getCallType(proxySIPRequest);
-    Mockito.verify(proxySIPRequest, Mockito.times(1)).getNetwork();
-    Assert.assertEquals(cache.get(new FilterId(FilterId.Id.NETWORK_B2B)), Boolean.FALSE);
-  }
-
   @Test(description = "Checking two FilterNodes are identified based on FilterId")
   public void testEquals() {
     FilterNode f1 = new RootNode();
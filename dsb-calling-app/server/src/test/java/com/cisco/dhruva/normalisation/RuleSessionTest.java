@@ -0,0 +1,160 @@
+package com.cisco.dhruva.normalisation;
+
+import static org.mockito.Mockito.*;
+
+import com.cisco.dhruva.normalisation.rules.AddOpnDpnRule;
+import com.cisco.dhruva.normalisation.rules.RemoveOpnDpnCallTypeRule;
+import com.cisco.dhruva.util.RequestHelper;
+import com.cisco.dsb.proxy.messaging.ProxySIPRequest;
+import com.cisco.dsb.trunk.util.SipParamConstants;
+import gov.nist.javax.sip.address.SipUri;
+import gov.nist.javax.sip.message.SIPRequest;
+import java.text.ParseException;
+import java.util.Arrays;
+import java.util.Collections;
+import org.jeasy.rules.annotation.Action;
+import org.jeasy.rules.annotation.Condition;
+import org.jeasy.rules.annotation.Fact;
+import org.jeasy.rules.annotation.Rule;
+import org.jeasy.rules.api.Facts;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class RuleSessionTest {
+
+  @Test(description = "rules of a session are fired against each request, in priority order")
+  public void testFire() throws ParseException {
+    RuleSession session =
+        new RuleSession(
+            Arrays.asList(new AddOpnDpnRule("dpn", "opn"), new RemoveOpnDpnCallTypeRule()));
+
+    for (int i = 0; i < 2; i++) {
+      SIPRequest request = (SIPRequest) RequestHelper.getInviteRequest();
+      ProxySIPRequest proxySIPRequest = mock(ProxySIPRequest.class);
+      when(proxySIPRequest.getRequest()).thenReturn(request);
+      ((SipUri) request.getRequestURI()).setParameter(SipParamConstants.CALLTYPE, "DialOut");
+
+      session.fire("proxyRequest", proxySIPRequest);
+
+      // both rules have the same priority, so they are fired by name
+      SipUri rUri = (SipUri) request.getRequestURI();
+      Assert.assertFalse(rUri.hasParameter(SipParamConstants.X_CISCO_DPN));
+      Assert.assertFalse(rUri.hasParameter(SipParamConstants.X_CISCO_OPN));
+      Assert.assertFalse(rUri.hasParameter(SipParamConstants.CALLTYPE));
+    }
+  }
+
+  @Test(description = "facts of a request are not kept once the rules are fired")
+  public void testFactsNotKept() throws ParseException {
+    SIPRequest request = (SIPRequest) RequestHelper.getInviteRequest();
+    ProxySIPRequest proxySIPRequest = mock(ProxySIPRequest.class);
+    when(proxySIPRequest.getRequest()).thenReturn(request);
+    RuleListener ruleListener = new RuleListener();
+    RuleSession session =
+        new RuleSession(
+            Collections.singletonList(new AddOpnDpnRule("d", "o")), null, ruleListener, null);
+
+    session.fire(Collections.singletonMap("proxyRequest", proxySIPRequest));
+    Assert.assertEquals(
+        ((SipUri) request.getRequestURI()).getParameter(SipParamConstants.X_CISCO_DPN), "d");
+
+    // the request of the previous fire is gone, so the condition is not met
+    session.fire("other", "value");
+    Assert.assertEquals(ruleListener.evaluated, 2);
+    Assert.assertEquals(ruleListener.executed, 1);
+  }
+
+  @Test(description = "actions get the facts they are annotated with and the facts themselves")
+  public void testCompiledRule() throws Exception {
+    org.jeasy.rules.api.Rule rule = CompiledRule.compile(new CountingRule());
+    Assert.assertEquals(rule.getName(), "CountingRule");
+    Assert.assertEquals(rule.getPriority(), 3);
+
+    Facts facts = new Facts();
+    facts.put("count", 1);
+    Assert.assertTrue(rule.evaluate(facts));
+    rule.execute(facts);
+    Assert.assertEquals((int) facts.get("count"), 2);
+
+    facts.put("count", 0);
+    Assert.assertFalse(rule.evaluate(facts));
+    Assert.assertFalse(rule.evaluate(new Facts()));
+  }
+
+  @Test(description = "unnamed rules are named after their class, as easy-rules does")
+  public void testDefaultNameAndDescription() {
+    org.jeasy.rules.api.Rule rule = CompiledRule.compile(new UnnamedRule());
+    Assert.assertEquals(rule.getName(), "UnnamedRule");
+    Assert.assertEquals(rule.getDescription(), "when isTrue then first,second");
+
+    // of the same priority, they would be equal in the Rules set without their names
+    RuleSession session = new RuleSession(Arrays.asList(new UnnamedRule(), new OtherUnnamedRule()));
+    Assert.assertEquals(session.getRules().size(), 2);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testRuleWithoutAction() {
+    CompiledRule.compile(new RuleWithoutAction());
+  }
+
+  @Rule(name = "CountingRule", priority = 3)
+  public static class CountingRule {
+    @Condition
+    public boolean isPositive(@Fact("count") Integer count) {
+      return count > 0;
+    }
+
+    @Action
+    public void increment(@Fact("count") Integer count, Facts facts) {
+      facts.put("count", count + 1);
+    }
+  }
+
+  @Rule
+  public static class UnnamedRule {
+    @Condition
+    public boolean isTrue() {
+      return true;
+    }
+
+    @Action(order = 2)
+    public void second() {}
+
+    @Action(order = 1)
+    public void first() {}
+  }
+
+  @Rule
+  public static class OtherUnnamedRule {
+    @Condition
+    public boolean isTrue() {
+      return true;
+    }
+
+    @Action
+    public void run() {}
+  }
+
+  @Rule(name = "RuleWithoutAction")
+  public static class RuleWithoutAction {
+    @Condition
+    public boolean isTrue() {
+      return true;
+    }
+  }
+
+  private static class RuleListener implements org.jeasy.rules.api.RuleListener {
+    private int evaluated;
+    private int executed;
+
+    @Override
+    public void afterEvaluate(org.jeasy.rules.api.Rule rule, Facts facts, boolean result) {
+      evaluated++;
+    }
+
+    @Override
+    public void beforeExecute(org.jeasy.rules.api.Rule rule, Facts facts) {
+      executed++;
+    }
+  }
+}
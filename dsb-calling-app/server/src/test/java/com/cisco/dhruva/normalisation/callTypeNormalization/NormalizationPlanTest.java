@@ -0,0 +1,103 @@
+package com.cisco.dhruva.normalisation.callTypeNormalization;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+
+import com.cisco.dhruva.util.RequestHelper;
+import com.cisco.dsb.common.sip.util.EndPoint;
+import com.cisco.dsb.common.sip.util.SipConstants;
+import com.cisco.dsb.common.transport.Transport;
+import com.cisco.dsb.trunk.util.SipParamConstants;
+import gov.nist.javax.sip.address.SipUri;
+import gov.nist.javax.sip.header.HeaderFactoryImpl;
+import gov.nist.javax.sip.message.SIPRequest;
+import java.text.ParseException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class NormalizationPlanTest {
+
+  // the pattern NormalizeUtil found the IP to replace with before the scanner
+  private static final Pattern IPADDRESS_PATTERN =
+      Pattern.compile(
+          "(?:(?:25[0-5]|2[0-4][0-9]|[01]?[0-9][0-9]?)\\.){3}(?:25[0-5]|2[0-4][0-9]|[01]?[0-9][0-9]?)");
+
+  @Test(description = "all operations of a plan are applied to the request in one call")
+  public void testNormalize() throws ParseException {
+    SIPRequest request = (SIPRequest) RequestHelper.getInviteRequest();
+    ((SipUri) request.getRequestURI()).setParameter(SipParamConstants.DTG, "CcpFusionUS");
+    request.setHeader(
+        new HeaderFactoryImpl()
+            .createHeader(SipConstants.X_BROAD_WORKS_CORRELATION_INFO, "279bcde4-62aa"));
+    NormalizationPlan plan =
+        NormalizationPlan.builder()
+            .setHeadersToRemove(
+                Collections.singletonList(SipConstants.X_BROAD_WORKS_CORRELATION_INFO))
+            .setParamsToRemove(
+                Collections.singletonList(
+                    new String[] {SipConstants.REQUEST_URI, SipParamConstants.DTG}))
+            .setParamsToAdd(
+                Collections.singletonList(
+                    new String[] {
+                      SipConstants.REQUEST_URI,
+                      SipParamConstants.CALLTYPE,
+                      SipParamConstants.DIAL_OUT_TAG
+                    }))
+            .build();
+
+    plan.normalize(request, null, new EndPoint("net_sp", "1.2.3.4", 5070, Transport.UDP));
+
+    SipUri rUri = (SipUri) request.getRequestURI();
+    assertEquals(rUri.getHost(), "1.2.3.4");
+    assertEquals(rUri.getPort(), 5070);
+    assertNull(rUri.getParameter(SipParamConstants.DTG));
+    assertEquals(rUri.getParameter(SipParamConstants.CALLTYPE), SipParamConstants.DIAL_OUT_TAG);
+    assertNull(request.getHeader(SipConstants.X_BROAD_WORKS_CORRELATION_INFO));
+  }
+
+  @Test(description = "params of unsupported headers are dropped when the plan is compiled")
+  public void testUnsupportedParamsDropped() throws ParseException {
+    SIPRequest request = (SIPRequest) RequestHelper.getInviteRequest();
+    NormalizationPlan plan =
+        NormalizationPlan.builder()
+            .setParamsToAdd(
+                Arrays.asList(
+                    new String[] {"Contact", "param", "value"},
+                    new String[] {SipConstants.TO, "incomplete"},
+                    new String[] {SipConstants.FROM, "param", "value"}))
+            .build();
+
+    plan.normalize(request, null, null);
+
+    assertNull(request.getTo().getParameter("incomplete"));
+    assertNotNull(request.getFrom().getParameter("param"));
+  }
+
+  @DataProvider
+  public Object[][] ipAddresses() {
+    return new Object[][] {
+      {"<sip:user@1.2.3.4:5060;transport=udp>", "1.2.3.4"},
+      {"256.1.1.1", "56.1.1.1"},
+      {"1.2.3.4.5", "1.2.3.4"},
+      {"01.02.03.004", "01.02.03.004"},
+      {"<sip:+12345678901.2.3.4567@host>", "01.2.3.45"},
+      {"999.999.999.999", null},
+      {"1.2.3", null},
+      {"<sip:user@example.com;transport=tcp>", null}
+    };
+  }
+
+  @Test(
+      description = "the scanner finds the same address as the regex it replaced",
+      dataProvider = "ipAddresses")
+  public void testFindIPv4Address(String value, String expected) {
+    Matcher matcher = IPADDRESS_PATTERN.matcher(value);
+    assertEquals(matcher.find() ? matcher.group() : null, expected);
+    assertEquals(NormalizationPlan.findIPv4Address(value), expected);
+  }
+}
@@ -1,6 +1,7 @@
 package com.cisco.dsb.common.config;
 
 import com.cisco.dsb.common.config.sip.CommonConfigurationProperties;
+import com.cisco.dsb.common.dns.DnsCachePolicy;
 import com.cisco.dsb.common.dns.DnsInjectionService;
 import com.cisco.dsb.common.dns.DnsLookup;
 import com.cisco.dsb.common.dns.DnsMetricsReporter;
@@ -18,8 +19,8 @@ import com.cisco.wx2.dto.IdentityMachineAccount;
 import com.cisco.wx2.server.config.ConfigProperties;
 import com.cisco.wx2.server.config.Wx2Properties;
 import com.cisco.wx2.server.exception.CsbHandlerExceptionResolver;
-import com.cisco.wx2.util.stripedexecutor.StripedExecutorService;
 import com.ciscospark.server.Wx2ConfigAdapter;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.TimeUnit;
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
@@ -87,7 +88,10 @@ public class DhruvaConfig extends Wx2ConfigAdapter {
 
   @Bean
   public EventingService eventingService() {
-    return new EventingService(commonConfigurationProperties.isEmitUnmaskedEvents());
+    return new EventingService(
+        commonConfigurationProperties.isEmitUnmaskedEvents(),
+        commonConfigurationProperties.getMessageEventBufferSize(),
+        commonConfigurationProperties.getEventSamplingPercent());
   }
 
   @Bean
@@ -96,12 +100,26 @@ public class DhruvaConfig extends Wx2ConfigAdapter {
     return new DhruvaExceptionResolver();
   }
 
+  /**
+   * Executor processing the SIP events of the proxy, serialized per Call-ID. By default the striped
+   * executor behind bounded queues, with proxyProcessorVirtualThreads a serial stripe executor on
+   * virtual threads, or with proxyProcessorBoundedQueues a bounded one on a fixed pool.
+   */
   @Bean
   @DependsOn("dhruvaExecutorService")
-  public StripedExecutorService stripedExecutor() {
-    dhruvaExecutorService().startStripedExecutorService(ExecutorType.PROXY_PROCESSOR);
-    return (StripedExecutorService)
-        dhruvaExecutorService().getExecutorThreadPool(ExecutorType.PROXY_PROCESSOR);
+  public ExecutorService proxyProcessorExecutor() {
+    if (commonConfigurationProperties.isProxyProcessorVirtualThreads()) {
+      dhruvaExecutorService()
+          .startSerialStripeExecutorService(ExecutorType.PROXY_PROCESSOR_VIRTUAL);
+      return dhruvaExecutorService().getExecutorThreadPool(ExecutorType.PROXY_PROCESSOR_VIRTUAL);
+    }
+    if (commonConfigurationProperties.isProxyProcessorBoundedQueues()) {
+      dhruvaExecutorService()
+          .startBoundedStripedExecutorService(ExecutorType.PROXY_PROCESSOR_BOUNDED);
+      return dhruvaExecutorService().getExecutorThreadPool(ExecutorType.PROXY_PROCESSOR_BOUNDED);
+    }
+    dhruvaExecutorService().startMonitoredStripedExecutorService(ExecutorType.PROXY_PROCESSOR);
+    return dhruvaExecutorService().getExecutorThreadPool(ExecutorType.PROXY_PROCESSOR);
   }
 
   @Bean
@@ -158,10 +176,23 @@ public class DhruvaConfig extends Wx2ConfigAdapter {
         .cacheSize(commonConfigurationProperties.getDnsCacheSize())
         .dnsLookupTimeoutMillis(commonConfigurationProperties.getDnsLookupTimeoutMillis())
         .retentionDurationMillis(commonConfigurationProperties.getTimeOutDnsCache())
+        .cachePolicy(dnsCachePolicy())
         .metered(dnsMetricsReporter())
         .build();
   }
 
+  private DnsCachePolicy dnsCachePolicy() {
+    if (!commonConfigurationProperties.isDnsCacheTtlAware()) {
+      return null;
+    }
+    return new DnsCachePolicy(
+        commonConfigurationProperties.getDnsCacheMinTtlMillis(),
+        commonConfigurationProperties.getDnsCacheMaxTtlMillis(),
+        commonConfigurationProperties.getDnsCacheNegativeTtlMillis(),
+        commonConfigurationProperties.getDnsCacheRefreshAheadPercent(),
+        commonConfigurationProperties.getDnsCacheRefreshJitterPercent());
+  }
+
   // TODO DSB
   @Bean
   @Profile("disabled")
@@ -41,6 +41,26 @@ public class CommonConfigurationProperties {
   public static final boolean DEFAULT_ATTACH_EXTERNAL_IP = false;
   public static final boolean DEFAULT_ENABLE_RATE_LIMITING = false;
   public static final Integer DEFAULT_TRAFFIC_CLASS = 0x68;
+  public static final int DEFAULT_RATE_LIMITER_PERMIT_CACHE_SIZE = 100_000;
+  public static final int DEFAULT_RATE_LIMITER_COUNTER_CACHE_SIZE = 200_000;
+  public static final int DEFAULT_RATE_LIMITER_CACHE_EXPIRY_MINUTES = 5;
+  public static final int DEFAULT_RATE_LIMITER_CACHE_CONCURRENCY = 16;
+  public static final int DEFAULT_RATE_LIMITER_CACHE_METRIC_INTERVAL = 60;
+  public static final int DEFAULT_PRE_PARSE_SOURCE_TRACKING_SIZE = 100_000;
+  public static final int DEFAULT_DNS_SERVER_GROUP_REFRESH_AHEAD_PERCENT = 80;
+  public static final long DEFAULT_DNS_SERVER_GROUP_SERVE_STALE_MILLIS = 30_000L;
+  public static final long DEFAULT_DNS_CACHE_MIN_TTL_MILLIS = 1_000L;
+  public static final long DEFAULT_DNS_CACHE_MAX_TTL_MILLIS = 300_000L;
+  public static final long DEFAULT_DNS_CACHE_NEGATIVE_TTL_MILLIS = 30_000L;
+  public static final int DEFAULT_DNS_CACHE_REFRESH_AHEAD_PERCENT = 80;
+  public static final int DEFAULT_DNS_CACHE_REFRESH_JITTER_PERCENT = 10;
+  public static final int DEFAULT_OVERLOAD_RETRY_AFTER_SECONDS = 5;
+  public static final long DEFAULT_OVERLOAD_CONTROL_INTERVAL_MILLIS = 500L;
+  public static final long DEFAULT_OVERLOAD_CONTROL_VALIDITY_MILLIS = 2_000L;
+  public static final int DEFAULT_METRIC_BUFFER_SIZE = 16_384;
+  public static final int DEFAULT_METRIC_BATCH_SIZE = 500;
+  public static final long DEFAULT_METRIC_FLUSH_INTERVAL_MILLIS = 1_000L;
+  public static final int DEFAULT_MESSAGE_EVENT_BUFFER_SIZE = 8_192;
   public static final ListenIfHeader.HostnameType DEFAULT_EXTERNAL_HOSTNAME_TYPE =
       ListenIfHeader.HostnameType.LOCAL_IP;
 
@@ -51,6 +71,10 @@ public class CommonConfigurationProperties {
   @Getter @Setter private String sipPrivateKey;
 
   @Getter @Setter private int udpEventloopThreadCount = 1;
+  // receive UDP on DatagramChannels read into reused direct buffers instead of the stack's socket.
+  // More than one receiver thread shares the port with SO_REUSEPORT, where the platform has it
+  @Getter @Setter private boolean udpChannelEnabled = false;
+  @Getter @Setter private int udpChannelReceiverCount = 1;
   @Getter @Setter private int tlsEventloopThreadCount = 20;
   @Getter @Setter private int connectionIdleTimeout = 14400;
 
@@ -71,6 +95,55 @@ public class CommonConfigurationProperties {
   @Getter @Setter private int trunkLBMetricInterval = 120;
 
   @Getter @Setter private int udpConnectionMetricInterval = 30;
+  // interval at which the percentiles of the request processing latency are emitted
+  @Getter @Setter private int latencyMetricInterval = 30;
+  // count SIP messages in memory and emit the counts per interval, instead of a point per message
+  @Getter @Setter private boolean sipMessageMetricAggregated = false;
+  @Getter @Setter private int sipMessageMetricInterval = 30;
+  // metric points are buffered and written in batches by a single thread, points that do not fit
+  // in the buffer while the writer is behind are dropped and counted in dhruva.metricsDropped
+  @Getter @Setter private boolean metricBatchingEnabled = false;
+  @Getter @Setter private int metricBufferSize = DEFAULT_METRIC_BUFFER_SIZE;
+  @Getter @Setter private int metricBatchSize = DEFAULT_METRIC_BATCH_SIZE;
+  @Getter @Setter private long metricFlushIntervalMillis = DEFAULT_METRIC_FLUSH_INTERVAL_MILLIS;
+
+  // rate limiter permit/counter store, tracked per remote source. Non-positive values fall back to
+  // defaults.
+  @Getter @Setter
+  private int rateLimiterPermitCacheSize = DEFAULT_RATE_LIMITER_PERMIT_CACHE_SIZE;
+
+  @Getter @Setter
+  private int rateLimiterCounterCacheSize = DEFAULT_RATE_LIMITER_COUNTER_CACHE_SIZE;
+
+  @Getter @Setter
+  private int rateLimiterCacheExpiryMinutes = DEFAULT_RATE_LIMITER_CACHE_EXPIRY_MINUTES;
+
+  // number of independently locked segments of the store
+  @Getter @Setter
+  private int rateLimiterCacheConcurrency = DEFAULT_RATE_LIMITER_CACHE_CONCURRENCY;
+
+  @Getter @Setter
+  private int rateLimiterCacheMetricInterval = DEFAULT_RATE_LIMITER_CACHE_METRIC_INTERVAL;
+
+  // cluster mode: GLOBAL rate limit policies are split between the nodes listed as peers
+  @Getter @Setter private boolean rateLimiterClusterEnabled = false;
+  @Getter @Setter private int rateLimiterClusterPort = 5090;
+  // address of the interface usage is received on, all interfaces if not set
+  @Getter @Setter private String rateLimiterClusterBindAddress;
+  // host:port of every node, including this one (own usage is ignored on receive)
+  @Getter @Setter private List<String> rateLimiterClusterPeers = new ArrayList<>();
+  @Getter @Setter private long rateLimiterClusterSyncIntervalMillis = 1000L;
+  @Getter @Setter private long rateLimiterClusterPeerTimeoutMillis = 5000L;
+
+  // pre-parse admission: applied on the source address of datagrams/connections before parsing
+  @Getter @Setter private List<String> preParseDenyList = new ArrayList<>();
+  // sources exempted from the per source token bucket
+  @Getter @Setter private List<String> preParseAllowList = new ArrayList<>();
+  // 0 disables per source rate limiting
+  @Getter @Setter private int preParseSourceRatePerSecond = 0;
+  // 0 defaults the burst to one second worth of permits
+  @Getter @Setter private int preParseSourceBurst = 0;
+  @Getter @Setter private int preParseSourceTrackingSize = DEFAULT_PRE_PARSE_SOURCE_TRACKING_SIZE;
 
   // DSBNetworkLayer is using this as static variable
   @Getter private static int socketConnectionTimeout = 8000;
@@ -92,6 +165,36 @@ public class CommonConfigurationProperties {
   @Getter private long timeOutDnsCache = 32_000L;
   @Getter private long timeOutDns = 10_000L;
   @Getter @Setter private long dnsLookupTimeoutMillis = 10_000L;
+  // DNS server groups: refresh in background once this much of the TTL has elapsed (0 disables)
+  @Getter @Setter
+  private int dnsServerGroupRefreshAheadPercent = DEFAULT_DNS_SERVER_GROUP_REFRESH_AHEAD_PERCENT;
+  // DNS server groups: serve an expired entry this long while it is re-resolved (0 disables)
+  @Getter @Setter
+  private long dnsServerGroupServeStaleMillis = DEFAULT_DNS_SERVER_GROUP_SERVE_STALE_MILLIS;
+  // SRV/A record caches answer lookups within the record TTL (clamped to [min, max]) instead of
+  // being a last known good fallback only
+  @Getter @Setter private boolean dnsCacheTtlAware = false;
+  @Getter @Setter private long dnsCacheMinTtlMillis = DEFAULT_DNS_CACHE_MIN_TTL_MILLIS;
+  @Getter @Setter private long dnsCacheMaxTtlMillis = DEFAULT_DNS_CACHE_MAX_TTL_MILLIS;
+  @Getter @Setter private long dnsCacheNegativeTtlMillis = DEFAULT_DNS_CACHE_NEGATIVE_TTL_MILLIS;
+  @Getter @Setter private int dnsCacheRefreshAheadPercent = DEFAULT_DNS_CACHE_REFRESH_AHEAD_PERCENT;
+  @Getter @Setter
+  private int dnsCacheRefreshJitterPercent = DEFAULT_DNS_CACHE_REFRESH_JITTER_PERCENT;
+  // process SIP events on a serial per Call-ID executor (virtual threads on JDK 21+) instead of the
+  // striped thread pool
+  @Getter @Setter private boolean proxyProcessorVirtualThreads = false;
+  // process SIP events on a bounded serial per Call-ID executor on a fixed pool instead of the
+  // striped thread pool, which has bounded queues as well. Bounded executors shed new calls with a
+  // 503 once they are overloaded
+  @Getter @Setter private boolean proxyProcessorBoundedQueues = false;
+  @Getter @Setter private int overloadRetryAfterSeconds = DEFAULT_OVERLOAD_RETRY_AFTER_SECONDS;
+  // SIP overload control (RFC 7339, loss algorithm): advertise the local load in the Via of
+  // responses and throttle new calls towards next hops that advertise theirs
+  @Getter @Setter private boolean overloadControlEnabled = false;
+  @Getter @Setter
+  private long overloadControlIntervalMillis = DEFAULT_OVERLOAD_CONTROL_INTERVAL_MILLIS;
+  @Getter @Setter
+  private long overloadControlValidityMillis = DEFAULT_OVERLOAD_CONTROL_VALIDITY_MILLIS;
   @Getter private Map<String, ServerGroup> serverGroups = new HashMap<>();
 
   @Getter private Map<String, RoutePolicy> routePolicyMap = new HashMap<>();
@@ -110,6 +213,11 @@ public class CommonConfigurationProperties {
 
   // toggle to enable emitting unmasked events
   @Getter @Setter private boolean emitUnmaskedEvents = true;
+  // events of SIP messages are formatted and published by a background thread from a buffer of
+  // this size, events that do not fit are dropped. 0 publishes them on the SIP threads
+  @Getter @Setter private int messageEventBufferSize = DEFAULT_MESSAGE_EVENT_BUFFER_SIZE;
+  // percentage of the events published per event type (e.g. SIPMESSAGE), all if left out
+  @Getter @Setter private Map<String, Integer> eventSamplingPercent = new HashMap<>();
 
   @Getter @Setter private Map<String, Integer> trafficClassMap = new ConcurrentHashMap<>();
 
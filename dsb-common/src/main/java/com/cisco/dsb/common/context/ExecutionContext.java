@@ -1,26 +1,103 @@
 package com.cisco.dsb.common.context;
 
-import com.cisco.dsb.common.util.DeepCopy;
-import java.io.NotSerializableException;
+import java.io.Serializable;
 import java.util.*;
 
-public class ExecutionContext extends HashMap<String, Object> implements Cloneable {
+/**
+ * Attributes of a request as it is processed. Copies share the entries of the context they were
+ * made from until either of them is changed, so a copy is O(1) and the entries are duplicated by
+ * the first change only. Values themselves are never copied, they are expected not to be changed
+ * once set. The key, value and entry views are read only.
+ */
+public class ExecutionContext extends AbstractMap<String, Object>
+    implements Cloneable, Serializable {
 
   private static final int INITIAL_SIZE = 64;
   private final long timestamp;
   private final String ctxId;
   /** We use this information to pass it to the proxy */
   private final Map<String, String> extraHeaders = new HashMap<>();
+  // shared with copies of this context while shared is set
+  private HashMap<String, Object> entries;
+  private boolean shared;
 
   public ExecutionContext() {
-    super(INITIAL_SIZE);
+    this.entries = new HashMap<>(INITIAL_SIZE);
     this.timestamp = System.currentTimeMillis();
     this.ctxId = this.timestamp + String.valueOf(super.hashCode());
   }
 
+  private ExecutionContext(ExecutionContext original) {
+    this();
+    this.entries = original.share();
+    this.shared = true;
+  }
+
+  /** Shallow copy, keeping the id and extra headers of this context */
   @Override
   public ExecutionContext clone() {
-    return (ExecutionContext) super.clone();
+    try {
+      ExecutionContext clone = (ExecutionContext) super.clone();
+      clone.entries = share();
+      clone.shared = true;
+      return clone;
+    } catch (CloneNotSupportedException e) {
+      throw new AssertionError(e);
+    }
+  }
+
+  private HashMap<String, Object> share() {
+    shared = true;
+    return entries;
+  }
+
+  private HashMap<String, Object> writable() {
+    if (shared) {
+      entries = new HashMap<>(entries);
+      shared = false;
+    }
+    return entries;
+  }
+
+  @Override
+  public Object get(Object key) {
+    return entries.get(key);
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return entries.containsKey(key);
+  }
+
+  @Override
+  public int size() {
+    return entries.size();
+  }
+
+  @Override
+  public Object put(String key, Object value) {
+    return writable().put(key, value);
+  }
+
+  @Override
+  public void putAll(Map<? extends String, ?> map) {
+    writable().putAll(map);
+  }
+
+  @Override
+  public Object remove(Object key) {
+    return entries.containsKey(key) ? writable().remove(key) : null;
+  }
+
+  @Override
+  public void clear() {
+    entries = new HashMap<>(INITIAL_SIZE);
+    shared = false;
+  }
+
+  @Override
+  public Set<Entry<String, Object>> entrySet() {
+    return Collections.unmodifiableMap(entries).entrySet();
   }
 
   public boolean getBoolean(String key) {
@@ -44,31 +121,9 @@ public class ExecutionContext extends HashMap<String, Object> implements Cloneab
     else remove(key);
   }
 
+  /** @return a new context with the entries of this one, which are only duplicated once changed */
   public ExecutionContext copy() {
-    ExecutionContext copy = new ExecutionContext();
-    // do field by filed assignment
-
-    Iterator<String> it = keySet().iterator();
-    String key = it.next();
-    while (key != null) {
-      Object orig = get(key);
-      try {
-        Object copyValue = DeepCopy.copy(orig);
-        if (copyValue != null) {
-          copy.set(key, copyValue);
-        } else {
-          copy.set(key, orig);
-        }
-      } catch (NotSerializableException e) {
-        copy.set(key, orig);
-      }
-      if (it.hasNext()) {
-        key = it.next();
-      } else {
-        key = null;
-      }
-    }
-    return copy;
+    return new ExecutionContext(this);
   }
 
   /**
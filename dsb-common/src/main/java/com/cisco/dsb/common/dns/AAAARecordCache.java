@@ -0,0 +1,37 @@
+package com.cisco.dsb.common.dns;
+
+import com.cisco.dsb.common.dns.dto.DNSARecord;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+import org.xbill.DNS.AAAARecord;
+import org.xbill.DNS.Record;
+
+/** Cache of IPv6 address records, kept apart from {@link ARecordCache} as both use the host. */
+public class AAAARecordCache extends AbstractDnsCache<DNSARecord> {
+
+  public AAAARecordCache(long maxCacheSize, long retentionTimeMillis) {
+    super(maxCacheSize, retentionTimeMillis);
+  }
+
+  public AAAARecordCache(long maxCacheSize, long retentionTimeMillis, DnsCachePolicy policy) {
+    super(maxCacheSize, retentionTimeMillis, policy);
+  }
+
+  AAAARecordCache(
+      long maxCacheSize, long retentionTimeMillis, DnsCachePolicy policy, LongSupplier clock) {
+    super(maxCacheSize, retentionTimeMillis, policy, clock);
+  }
+
+  @Override
+  protected List<DNSARecord> getRecords(Record[] records) {
+    return Arrays.stream(records)
+        .filter(r -> filterOnType(r, AAAARecord.class))
+        .map(r -> (AAAARecord) r)
+        .map(
+            r ->
+                new DNSARecord(r.getName().toString(), r.getTTL(), r.getAddress().getHostAddress()))
+        .collect(Collectors.toList());
+  }
+}
@@ -3,6 +3,7 @@ package com.cisco.dsb.common.dns;
 import com.cisco.dsb.common.dns.dto.DNSARecord;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.LongSupplier;
 import java.util.stream.Collectors;
 import org.xbill.DNS.ARecord;
 import org.xbill.DNS.Record;
@@ -13,6 +14,15 @@ public class ARecordCache extends AbstractDnsCache<DNSARecord> {
     super(maxCacheSize, retentionTimeMillis);
   }
 
+  public ARecordCache(long maxCacheSize, long retentionTimeMillis, DnsCachePolicy policy) {
+    super(maxCacheSize, retentionTimeMillis, policy);
+  }
+
+  ARecordCache(
+      long maxCacheSize, long retentionTimeMillis, DnsCachePolicy policy, LongSupplier clock) {
+    super(maxCacheSize, retentionTimeMillis, policy, clock);
+  }
+
   @Override
   protected List<DNSARecord> getRecords(Record[] records) {
     return Arrays.stream(records)
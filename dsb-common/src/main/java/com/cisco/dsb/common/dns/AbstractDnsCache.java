@@ -1,31 +1,72 @@
 package com.cisco.dsb.common.dns;
 
+import com.cisco.dsb.common.dns.metrics.DnsCacheCounters;
 import com.google.common.base.Preconditions;
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
 import lombok.CustomLog;
+import lombok.Getter;
 import org.xbill.DNS.Lookup;
 import org.xbill.DNS.Record;
 
+/**
+ * Cache of DNS lookup results. By default it only keeps the last known good records, returned when
+ * a live lookup fails.
+ *
+ * <p>With a {@link DnsCachePolicy} the cache is TTL aware: entries live for the (clamped) TTL of
+ * their records, lookups within the TTL are answered locally, and entries nearing expiry are
+ * refreshed in the background. NXDOMAIN/NODATA answers are cached as well. Records stay available
+ * as last known good for retentionTimeMillis past their TTL.
+ */
 @CustomLog
 public abstract class AbstractDnsCache<T> {
 
-  private final Cache<String, List<T>> dnsCache;
+  private final Cache<String, CachedRecords<T>> dnsCache;
+  private final DnsCachePolicy policy;
+  private final LongSupplier clock;
+  @Getter private final DnsCacheCounters counters;
 
   protected AbstractDnsCache(long maxCacheSize, long retentionTimeMillis) {
+    this(maxCacheSize, retentionTimeMillis, null, System::currentTimeMillis);
+  }
+
+  protected AbstractDnsCache(long maxCacheSize, long retentionTimeMillis, DnsCachePolicy policy) {
+    this(maxCacheSize, retentionTimeMillis, policy, System::currentTimeMillis);
+  }
+
+  AbstractDnsCache(
+      long maxCacheSize, long retentionTimeMillis, DnsCachePolicy policy, LongSupplier clock) {
     Preconditions.checkArgument(
         retentionTimeMillis > 0L, "retention time must be positive, was %d", retentionTimeMillis);
+    this.policy = policy;
+    this.clock = clock;
+    long expireAfterWriteMillis =
+        policy == null ? retentionTimeMillis : policy.getMaxTtlMillis() + retentionTimeMillis;
     dnsCache =
         CacheBuilder.newBuilder()
             .maximumSize(
                 maxCacheSize) // if 0, elements are evicted immediately after being loaded into the
             // cache
-            .expireAfterWrite(retentionTimeMillis, TimeUnit.MILLISECONDS)
+            .expireAfterWrite(expireAfterWriteMillis, TimeUnit.MILLISECONDS)
             .build();
-    logger.info("Initialized {} with max {} records", getClass().getSimpleName(), maxCacheSize);
+    this.counters = new DnsCacheCounters(dnsCache::size);
+    logger.info(
+        "Initialized {} with max {} records, ttl aware: {}",
+        getClass().getSimpleName(),
+        maxCacheSize,
+        policy != null);
+  }
+
+  public boolean isTtlAware() {
+    return policy != null;
   }
 
   protected boolean filterOnType(Record actualObject, Class<? extends Record> expectedType) {
@@ -47,6 +88,53 @@ public abstract class AbstractDnsCache<T> {
         lookupResult.getErrorString());
   }
 
+  /**
+   * Answers from a live entry when TTL aware, otherwise runs the live lookup and passes its result
+   * to {@link #lookup(String, DnsLookupResult)}.
+   *
+   * @param resolver runs the live lookup, called at most once per invocation
+   */
+  CompletableFuture<List<T>> resolve(
+      String searchString, int queryType, Supplier<CompletableFuture<DnsLookupResult>> resolver) {
+    if (policy != null) {
+      long now = clock.getAsLong();
+      CachedRecords<T> cached = dnsCache.getIfPresent(searchString);
+      if (cached != null && now < cached.expiresAt) {
+        counters.hit();
+        if (now >= cached.refreshAt && cached.refreshing.compareAndSet(false, true)) {
+          counters.refresh();
+          refresh(searchString, cached, resolver);
+        }
+        if (cached.isNegative()) {
+          return CompletableFuture.failedFuture(
+              new DnsException(queryType, searchString, toErrorCode(cached.result)));
+        }
+        return CompletableFuture.completedFuture(Collections.unmodifiableList(cached.records));
+      }
+      counters.miss();
+    }
+    return resolver.get().thenApply(lookupResult -> lookup(searchString, lookupResult));
+  }
+
+  private void refresh(
+      String searchString,
+      CachedRecords<T> cached,
+      Supplier<CompletableFuture<DnsLookupResult>> resolver) {
+    resolver
+        .get()
+        .whenComplete(
+            (lookupResult, error) -> {
+              if (error != null || !cacheResult(searchString, lookupResult)) {
+                // keep serving the current entry until it expires, the next hit retries
+                logger.warn(
+                    "Background refresh of DNS results for [{}] failed, reason = [{}]",
+                    searchString,
+                    error != null ? error.getMessage() : lookupResult.getErrorString());
+                cached.refreshing.set(false);
+              }
+            });
+  }
+
   // If DNS layer returned results, then we cache them and return immediately.
   // Otherwise, return previously cached results or empty list if none found.
   protected List<T> lookup(String searchString, DnsLookupResult lookupResult) {
@@ -59,44 +147,113 @@ public abstract class AbstractDnsCache<T> {
     return result == Lookup.TRY_AGAIN || result == Lookup.UNRECOVERABLE;
   }
 
+  private static boolean isNegative(int result) {
+    return result == Lookup.HOST_NOT_FOUND || result == Lookup.TYPE_NOT_FOUND;
+  }
+
   private List<T> cacheRecordsorReturnCachedResults(
       String searchString, DnsLookupResult lookupResult) {
     if (lookupResult.hasRecords()) {
       List<T> results = getRecords(lookupResult.getRecords());
-      dnsCache.put(searchString, results);
+      dnsCache.put(searchString, newEntry(results, lookupResult));
       return Collections.unmodifiableList(results);
     }
+    cacheNegativeResult(searchString, lookupResult);
     return getCachedRecords(searchString, lookupResult);
   }
 
+  /** @return true if the result replaced the cached entry */
+  private boolean cacheResult(String searchString, DnsLookupResult lookupResult) {
+    if (lookupResult.hasRecords()) {
+      dnsCache.put(searchString, newEntry(getRecords(lookupResult.getRecords()), lookupResult));
+      return true;
+    }
+    return cacheNegativeResult(searchString, lookupResult);
+  }
+
+  private boolean cacheNegativeResult(String searchString, DnsLookupResult lookupResult) {
+    if (policy != null && isNegative(lookupResult.getResult())) {
+      dnsCache.put(searchString, newEntry(Collections.emptyList(), lookupResult));
+      return true;
+    }
+    return false;
+  }
+
+  private CachedRecords<T> newEntry(List<T> records, DnsLookupResult lookupResult) {
+    long now = clock.getAsLong();
+    if (policy == null) {
+      return new CachedRecords<>(records, lookupResult.getResult(), Long.MAX_VALUE, Long.MAX_VALUE);
+    }
+    long ttl;
+    if (isNegative(lookupResult.getResult())) {
+      // dnsjava's LookupSession does not expose the SOA of a negative answer, its own cache
+      // applies the SOA minimum below us; ours is bounded by the configured negative TTL
+      ttl = policy.clampTtl(policy.getNegativeTtlMillis());
+    } else {
+      long minTtlSeconds = Long.MAX_VALUE;
+      for (Record record : lookupResult.getRecords()) {
+        minTtlSeconds = Math.min(minTtlSeconds, record.getTTL());
+      }
+      ttl = policy.clampTtl(TimeUnit.SECONDS.toMillis(minTtlSeconds));
+    }
+    long refreshAfter = ttl * policy.getRefreshAheadPercent() / 100;
+    long maxJitter = ttl * policy.getRefreshJitterPercent() / 100;
+    if (maxJitter > 0) {
+      refreshAfter -= ThreadLocalRandom.current().nextLong(maxJitter + 1);
+    }
+    // only names that resolve are prefetched
+    boolean refreshAhead =
+        policy.getRefreshAheadPercent() > 0 && !isNegative(lookupResult.getResult());
+    long refreshAt = refreshAhead ? now + refreshAfter : Long.MAX_VALUE;
+    return new CachedRecords<>(records, lookupResult.getResult(), now + ttl, refreshAt);
+  }
+
   private List<T> getCachedRecords(String searchString, DnsLookupResult lookupResult) {
     if (useCache(lookupResult.getResult())) {
-      List<T> results = dnsCache.getIfPresent(searchString);
-      if (results != null && results.size() > 0) {
+      CachedRecords<T> cached = dnsCache.getIfPresent(searchString);
+      if (cached != null && !cached.records.isEmpty()) {
         logLookupError(searchString, lookupResult);
-        return Collections.unmodifiableList(results);
+        counters.staleServe();
+        return Collections.unmodifiableList(cached.records);
       }
     }
+    throw new DnsException(
+        lookupResult.getQueryType(), searchString, toErrorCode(lookupResult.getResult()));
+  }
 
-    DnsErrorCode errorCode;
-
-    switch (lookupResult.getResult()) {
+  private static DnsErrorCode toErrorCode(int result) {
+    switch (result) {
       case Lookup.SUCCESSFUL:
-        errorCode = DnsErrorCode.ERROR_UNKNOWN;
-        break;
+        return DnsErrorCode.ERROR_UNKNOWN;
       case Lookup.TRY_AGAIN:
-        errorCode = DnsErrorCode.ERROR_DNS_QUERY_TIMEDOUT;
-        break;
+        return DnsErrorCode.ERROR_DNS_QUERY_TIMEDOUT;
       case Lookup.HOST_NOT_FOUND:
-        errorCode = DnsErrorCode.ERROR_DNS_HOST_NOT_FOUND;
-        break;
+        return DnsErrorCode.ERROR_DNS_HOST_NOT_FOUND;
       case Lookup.TYPE_NOT_FOUND:
-        errorCode = DnsErrorCode.ERROR_DNS_INVALID_TYPE;
-        break;
+        return DnsErrorCode.ERROR_DNS_INVALID_TYPE;
       default:
-        errorCode = DnsErrorCode.ERROR_DNS_OTHER;
-        break;
+        return DnsErrorCode.ERROR_DNS_OTHER;
+    }
+  }
+
+  private static final class CachedRecords<T> {
+    // empty for a cached NXDOMAIN/NODATA answer
+    private final List<T> records;
+    // Lookup result code the entry was created from
+    private final int result;
+    private final long expiresAt;
+    private final long refreshAt;
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    private CachedRecords(List<T> records, int result, long expiresAt, long refreshAt) {
+      this.records = records;
+      this.result = result;
+      this.expiresAt = expiresAt;
+      this.refreshAt = refreshAt;
+    }
+
+    private boolean isNegative() {
+      return AbstractDnsCache.isNegative(result);
     }
-    throw new DnsException(lookupResult.getQueryType(), searchString, errorCode);
   }
 }
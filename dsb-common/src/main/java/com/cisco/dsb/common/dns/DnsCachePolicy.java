@@ -0,0 +1,50 @@
+package com.cisco.dsb.common.dns;
+
+import com.google.common.base.Preconditions;
+import lombok.Getter;
+
+/**
+ * Settings of the TTL aware mode of {@link AbstractDnsCache}. Record TTLs are clamped to [minTtl,
+ * maxTtl]; negative answers are kept for negativeTtl (also clamped). An entry is refreshed in the
+ * background once refreshAheadPercent of its TTL has elapsed, minus a random jitter of up to
+ * refreshJitterPercent of the TTL so that entries cached together do not refresh together.
+ */
+@Getter
+public class DnsCachePolicy {
+  private final long minTtlMillis;
+  private final long maxTtlMillis;
+  private final long negativeTtlMillis;
+  private final int refreshAheadPercent;
+  private final int refreshJitterPercent;
+
+  public DnsCachePolicy(
+      long minTtlMillis,
+      long maxTtlMillis,
+      long negativeTtlMillis,
+      int refreshAheadPercent,
+      int refreshJitterPercent) {
+    Preconditions.checkArgument(
+        minTtlMillis >= 0L && maxTtlMillis >= minTtlMillis,
+        "invalid TTL range [%s, %s]",
+        minTtlMillis,
+        maxTtlMillis);
+    Preconditions.checkArgument(
+        refreshAheadPercent >= 0 && refreshAheadPercent <= 100,
+        "refresh ahead percent must be in [0, 100], was %s",
+        refreshAheadPercent);
+    Preconditions.checkArgument(
+        refreshJitterPercent >= 0 && refreshJitterPercent <= refreshAheadPercent,
+        "refresh jitter percent must be in [0, %s], was %s",
+        refreshAheadPercent,
+        refreshJitterPercent);
+    this.minTtlMillis = minTtlMillis;
+    this.maxTtlMillis = maxTtlMillis;
+    this.negativeTtlMillis = Math.max(0L, negativeTtlMillis);
+    this.refreshAheadPercent = refreshAheadPercent;
+    this.refreshJitterPercent = refreshJitterPercent;
+  }
+
+  long clampTtl(long ttlMillis) {
+    return Math.min(maxTtlMillis, Math.max(minTtlMillis, ttlMillis));
+  }
+}
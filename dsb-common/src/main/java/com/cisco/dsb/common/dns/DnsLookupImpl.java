@@ -5,11 +5,14 @@ import static java.util.Objects.requireNonNull;
 import com.cisco.dsb.common.dns.dto.DNSARecord;
 import com.cisco.dsb.common.dns.dto.DNSSRVRecord;
 import com.cisco.dsb.common.util.TriFunction;
+import java.io.IOException;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
 import java.util.concurrent.CompletionStage;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import lombok.CustomLog;
 import org.xbill.DNS.*;
 import org.xbill.DNS.Record;
@@ -26,69 +29,96 @@ import org.xbill.DNS.lookup.NoSuchRRSetException;
 // IF DNS lookup fails, we will then attempt to read from our local cache for last known good
 // result.
 //
+// When the record caches are TTL aware (see DnsCachePolicy), lookups within the record TTL are
+// answered by the cache and only misses and background refreshes go to DNS.
+//
+// Lookups go through dnsjava's LookupSession and never block the calling thread. Every query is
+// bounded by the lookup timeout, and a query that timed out or failed on I/O is retried with
+// exponential backoff, scheduled on a delayed executor.
+//
 @CustomLog
 public class DnsLookupImpl implements DnsLookup {
 
   private final SrvRecordCache srvCache;
   private final ARecordCache aCache;
+  private final AAAARecordCache aaaaCache;
   private final LookupFactory lookupFactory;
+  private final long queryTimeoutMillis;
 
   private static final int maxDNSRetries = 2;
+  private static final long DEFAULT_QUERY_TIMEOUT_MILLIS = 5_000L;
+  private static final long INITIAL_RETRY_BACKOFF_MILLIS = 100L;
+
+  public DnsLookupImpl(
+      SrvRecordCache srvCache,
+      ARecordCache aCache,
+      AAAARecordCache aaaaCache,
+      LookupFactory lookupFactory) {
+    this(srvCache, aCache, aaaaCache, lookupFactory, DEFAULT_QUERY_TIMEOUT_MILLIS);
+  }
 
-  public DnsLookupImpl(SrvRecordCache srvCache, ARecordCache aCache, LookupFactory lookupFactory) {
+  public DnsLookupImpl(
+      SrvRecordCache srvCache,
+      ARecordCache aCache,
+      AAAARecordCache aaaaCache,
+      LookupFactory lookupFactory,
+      long queryTimeoutMillis) {
     this.srvCache = requireNonNull(srvCache, "srvCache");
     this.aCache = requireNonNull(aCache, "aCache");
+    this.aaaaCache = requireNonNull(aaaaCache, "aaaaCache");
     this.lookupFactory = requireNonNull(lookupFactory, "lookupFactory");
+    this.queryTimeoutMillis =
+        queryTimeoutMillis > 0 ? queryTimeoutMillis : DEFAULT_QUERY_TIMEOUT_MILLIS;
   }
 
   @Override
   public CompletableFuture<List<DNSSRVRecord>> lookupSRV(String srvString) {
-    DnsLookupResult dnsLookupResult = doLookup(srvString, Type.SRV);
-    CompletableFuture<List<DNSSRVRecord>> srvRecords = new CompletableFuture<>();
-    try {
-      List<DNSSRVRecord> dnssrvRecords = srvCache.lookup(srvString, dnsLookupResult);
-      srvRecords.complete(dnssrvRecords);
-    } catch (DnsException ex) {
-      srvRecords.completeExceptionally(ex);
-    }
-    return srvRecords;
+    // the cache falls back to the last known good records or throws DnsException, which
+    // completes the returned future exceptionally
+    return srvCache.resolve(
+        srvString,
+        Type.SRV,
+        () -> lookupWithRetry(srvString, Type.SRV, maxDNSRetries, INITIAL_RETRY_BACKOFF_MILLIS));
   }
 
   @Override
   public CompletableFuture<List<DNSARecord>> lookupA(String host) {
-    DnsLookupResult dnsLookupResult = doLookup(host, Type.A);
-    CompletableFuture<List<DNSARecord>> aRecords = new CompletableFuture<>();
-    try {
-      List<DNSARecord> dnsARecords = aCache.lookup(host, dnsLookupResult);
-      aRecords.complete(dnsARecords);
-    } catch (DnsException ex) {
-      aRecords.completeExceptionally(ex);
-    }
-    return aRecords;
+    return aCache.resolve(
+        host,
+        Type.A,
+        () -> lookupWithRetry(host, Type.A, maxDNSRetries, INITIAL_RETRY_BACKOFF_MILLIS));
   }
 
   @Override
-  public List<DNSARecord> lookupAAsync(String lookup)
-      throws InterruptedException, ExecutionException {
-    DnsLookupResult dnsLookupResult = doLookupAsync(lookup, Type.A).toCompletableFuture().get();
-    List<DNSARecord> dnsARecords = aCache.lookup(lookup, dnsLookupResult);
-    return dnsARecords;
+  public CompletableFuture<List<DNSARecord>> lookupAAAA(String host) {
+    return aaaaCache.resolve(
+        host,
+        Type.AAAA,
+        () -> lookupWithRetry(host, Type.AAAA, maxDNSRetries, INITIAL_RETRY_BACKOFF_MILLIS));
   }
 
-  public DnsLookupResult doLookup(String query, int queryType) {
-
-    Lookup lookup = lookupFactory.createLookup(query, queryType);
-
-    if (lookup != null) {
-      int countRetry = maxDNSRetries;
-      Record[] records;
-      do {
-        records = lookup.run();
-        --countRetry;
-      } while (lookup.getResult() == Lookup.TRY_AGAIN && countRetry >= 0);
-      return new DnsLookupResult(records, lookup.getResult(), lookup.getErrorString(), queryType);
-    }
-    return new DnsLookupResult(null, null, null, queryType);
+  private CompletableFuture<DnsLookupResult> lookupWithRetry(
+      String query, int queryType, int retriesLeft, long backoffMillis) {
+    return doLookupAsync(query, queryType)
+        .toCompletableFuture()
+        .thenCompose(
+            dnsLookupResult -> {
+              if (dnsLookupResult.getResult() != Lookup.TRY_AGAIN || retriesLeft <= 0) {
+                return CompletableFuture.completedFuture(dnsLookupResult);
+              }
+              logger.warn(
+                  "dns lookup for query {} with querytype {} failed: {}, retrying in {}ms",
+                  query,
+                  queryType,
+                  dnsLookupResult.getErrorString(),
+                  backoffMillis);
+              Executor delayed =
+                  CompletableFuture.delayedExecutor(backoffMillis, TimeUnit.MILLISECONDS);
+              return CompletableFuture.runAsync(() -> {}, delayed)
+                  .thenCompose(
+                      ignore ->
+                          lookupWithRetry(query, queryType, retriesLeft - 1, backoffMillis * 2));
+            });
   }
 
   private TriFunction<LookupResult, Integer, Throwable, DnsLookupResult> handleDnsLookupResult =
@@ -102,29 +132,40 @@ public class DnsLookupImpl implements DnsLookup {
               result.getRecords().toArray(Record[]::new), Lookup.SUCCESSFUL, null, queryType);
         } else {
           Throwable cause = ex;
-          int reason = Lookup.UNRECOVERABLE;
-          if (ex instanceof CompletionException && ex.getCause() != null) {
-            cause = ex.getCause();
+          while (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
           }
+          // only a query that got no answer is worth another try, an answer such as SERVFAIL,
+          // REFUSED or one that cannot be parsed is final
+          int reason = Lookup.UNRECOVERABLE;
           if (cause instanceof NoSuchRRSetException || cause instanceof NoSuchDomainException) {
             logger.warn("No results returned for query result from dnsjava: {}", ex.getMessage());
             reason = Lookup.HOST_NOT_FOUND;
+          } else if (cause instanceof TimeoutException) {
+            logger.warn("dns lookup timed out after {}ms", queryTimeoutMillis);
+            reason = Lookup.TRY_AGAIN;
+          } else if (cause instanceof IOException) {
+            logger.warn("dns lookup failed: {}", cause.getMessage());
+            reason = Lookup.TRY_AGAIN;
           }
-          return new DnsLookupResult(null, reason, ex.getMessage(), queryType);
+          return new DnsLookupResult(null, reason, String.valueOf(cause.getMessage()), queryType);
         }
       };
 
   public CompletionStage<DnsLookupResult> doLookupAsync(String query, int queryType) {
-    LookupSession session = lookupFactory.createLookupAsync(query);
     Name name;
     try {
       name = Name.fromString(query);
     } catch (TextParseException e) {
-      throw new DnsException(queryType, query, DnsErrorCode.ERROR_DNS_INVALID_QUERY);
+      return CompletableFuture.failedFuture(
+          new DnsException(queryType, query, DnsErrorCode.ERROR_DNS_INVALID_QUERY));
     }
-    logger.info("executing async dns lookup for query {} with querytype {}", query, queryType);
+    LookupSession session = lookupFactory.createLookupAsync(query);
+    logger.debug("executing async dns lookup for query {} with querytype {}", query, queryType);
     return session
         .lookupAsync(name, queryType, DClass.IN)
+        .toCompletableFuture()
+        .orTimeout(queryTimeoutMillis, TimeUnit.MILLISECONDS)
         .handle((result, ex) -> handleDnsLookupResult.apply(result, queryType, ex));
   }
 }
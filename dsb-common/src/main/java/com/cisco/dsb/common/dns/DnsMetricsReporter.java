@@ -1,8 +1,14 @@
 package com.cisco.dsb.common.dns;
 
+import com.cisco.dsb.common.dns.metrics.DnsCacheCounters;
 import com.cisco.dsb.common.dns.metrics.DnsReporter;
 import com.cisco.dsb.common.dns.metrics.DnsTimingContext;
+import com.cisco.dsb.common.metric.Metric;
+import com.cisco.dsb.common.metric.Metrics;
 import com.cisco.dsb.common.service.MetricService;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import lombok.CustomLog;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -10,6 +16,8 @@ import org.springframework.stereotype.Component;
 @Component
 @CustomLog
 public class DnsMetricsReporter implements DnsReporter {
+  public static final String CACHE_METRIC_MEASUREMENT = "dns.cache";
+  private static final int CACHE_METRIC_INTERVAL_SECONDS = 60;
 
   @Autowired public MetricService metricsService;
 
@@ -40,4 +48,25 @@ public class DnsMetricsReporter implements DnsReporter {
   public void reportEmpty(String query, String queryType) {
     logger.error("got empty records while resolving query {} type {} ", query, queryType);
   }
+
+  @Override
+  public void reportCache(String queryType, DnsCacheCounters counters) {
+    metricsService.registerPeriodicMetric(
+        CACHE_METRIC_MEASUREMENT,
+        () -> cacheMetricSupplier(queryType, counters),
+        CACHE_METRIC_INTERVAL_SECONDS,
+        TimeUnit.SECONDS);
+  }
+
+  static Set<Metric> cacheMetricSupplier(String queryType, DnsCacheCounters counters) {
+    return Collections.singleton(
+        Metrics.newMetric()
+            .measurement(CACHE_METRIC_MEASUREMENT)
+            .tag("queryType", queryType)
+            .field("hits", counters.drainHits())
+            .field("misses", counters.drainMisses())
+            .field("refreshes", counters.drainRefreshes())
+            .field("staleServes", counters.drainStaleServes())
+            .field("size", counters.size()));
+  }
 }
@@ -29,6 +29,7 @@ public final class DnsResolvers {
     private final long retentionDurationMillis;
     private final long cacheSize;
     private final List<String> servers;
+    private final DnsCachePolicy cachePolicy;
 
     private DnsResolverBuilder() {
       this(
@@ -37,6 +38,7 @@ public final class DnsResolvers {
           DEFAULT_CACHE_SIZE,
           SECONDS.toMillis(DEFAULT_DNS_TIMEOUT_SECONDS),
           HOURS.toMillis(DEFAULT_RETENTION_DURATION_HOURS),
+          null,
           null);
     }
 
@@ -46,13 +48,15 @@ public final class DnsResolvers {
         long cacheSize,
         long dnsLookupTimeoutMillis,
         long retentionDurationMillis,
-        List<String> servers) {
+        List<String> servers,
+        DnsCachePolicy cachePolicy) {
       this.reporter = reporter;
       this.lookupFactory = lookupFactory;
       this.dnsLookupTimeoutMillis = dnsLookupTimeoutMillis;
       this.retentionDurationMillis = retentionDurationMillis;
       this.servers = servers; // DNS servers
       this.cacheSize = cacheSize;
+      this.cachePolicy = cachePolicy;
     }
 
     public DnsLookup build() {
@@ -75,13 +79,27 @@ public final class DnsResolvers {
         }
       } else simpleLookupFactory = lookupFactory;
 
-      SrvRecordCache srvRecordCache = new SrvRecordCache(cacheSize, retentionDurationMillis);
-      ARecordCache aRecordCache = new ARecordCache(cacheSize, retentionDurationMillis);
+      SrvRecordCache srvRecordCache =
+          new SrvRecordCache(cacheSize, retentionDurationMillis, cachePolicy);
+      ARecordCache aRecordCache = new ARecordCache(cacheSize, retentionDurationMillis, cachePolicy);
+      AAAARecordCache aaaaRecordCache =
+          new AAAARecordCache(cacheSize, retentionDurationMillis, cachePolicy);
 
-      DnsLookup result = new DnsLookupImpl(srvRecordCache, aRecordCache, simpleLookupFactory);
+      DnsLookup result =
+          new DnsLookupImpl(
+              srvRecordCache,
+              aRecordCache,
+              aaaaRecordCache,
+              simpleLookupFactory,
+              dnsLookupTimeoutMillis);
 
       if (reporter != null) {
         result = new MeteredDnsResolver(result, reporter);
+        if (cachePolicy != null) {
+          reporter.reportCache("SRV", srvRecordCache.getCounters());
+          reporter.reportCache("A", aRecordCache.getCounters());
+          reporter.reportCache("AAAA", aaaaRecordCache.getCounters());
+        }
       }
       return result;
     }
@@ -94,7 +112,8 @@ public final class DnsResolvers {
           cacheSize,
           dnsLookupTimeoutMillis,
           retentionDurationMillis,
-          servers);
+          servers,
+          cachePolicy);
     }
 
     public DnsResolverBuilder dnsLookupTimeoutMillis(long dnsLookupTimeoutMillis) {
@@ -104,7 +123,8 @@ public final class DnsResolvers {
           cacheSize,
           dnsLookupTimeoutMillis,
           retentionDurationMillis,
-          servers);
+          servers,
+          cachePolicy);
     }
 
     public DnsResolverBuilder retentionDurationMillis(long retentionDurationMillis) {
@@ -114,7 +134,8 @@ public final class DnsResolvers {
           cacheSize,
           dnsLookupTimeoutMillis,
           retentionDurationMillis,
-          servers);
+          servers,
+          cachePolicy);
     }
 
     public DnsResolverBuilder cacheSize(long cacheSize) {
@@ -124,7 +145,8 @@ public final class DnsResolvers {
           cacheSize,
           dnsLookupTimeoutMillis,
           retentionDurationMillis,
-          servers);
+          servers,
+          cachePolicy);
     }
 
     public DnsResolverBuilder lookupFactory(LookupFactory lookupFactory) {
@@ -134,7 +156,20 @@ public final class DnsResolvers {
           cacheSize,
           dnsLookupTimeoutMillis,
           retentionDurationMillis,
-          servers);
+          servers,
+          cachePolicy);
+    }
+
+    // Makes the record caches TTL aware, null keeps them as last known good fallback only
+    public DnsResolverBuilder cachePolicy(DnsCachePolicy cachePolicy) {
+      return new DnsResolverBuilder(
+          reporter,
+          lookupFactory,
+          cacheSize,
+          dnsLookupTimeoutMillis,
+          retentionDurationMillis,
+          servers,
+          cachePolicy);
     }
 
     public DnsResolverBuilder servers(List<String> servers) {
@@ -144,7 +179,8 @@ public final class DnsResolvers {
           cacheSize,
           dnsLookupTimeoutMillis,
           retentionDurationMillis,
-          servers);
+          servers,
+          cachePolicy);
     }
   }
 
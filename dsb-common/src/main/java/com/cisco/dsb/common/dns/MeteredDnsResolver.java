@@ -8,9 +8,13 @@ import com.cisco.dsb.common.dns.metrics.DnsReporter;
 import com.cisco.dsb.common.dns.metrics.DnsTimingContext;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
 
-/** Tracks metrics for DnsSrvResolver calls. */
+/**
+ * Tracks metrics for DnsSrvResolver calls. Metrics are recorded when the lookup completes, the
+ * caller thread is never blocked on the delegate.
+ */
 class MeteredDnsResolver implements DnsLookup {
   private final DnsLookup delegate;
   private final DnsReporter reporter;
@@ -22,77 +26,50 @@ class MeteredDnsResolver implements DnsLookup {
 
   @Override
   public CompletableFuture<List<DNSSRVRecord>> lookupSRV(String fqdn) {
-
-    final DnsTimingContext resolveTimer = reporter.resolveTimer();
-
-    final List<DNSSRVRecord> result;
-    CompletableFuture<List<DNSSRVRecord>> f1 = new CompletableFuture<>();
-    String errorMsg = null;
-
-    try {
-      CompletableFuture<List<DNSSRVRecord>> f2 = delegate.lookupSRV(fqdn);
-      result = f2.get();
-      f1.complete(result);
-      if (result.isEmpty()) {
-        errorMsg = DnsErrorCode.ERROR_DNS_NO_RECORDS_FOUND.name();
-        reporter.reportEmpty(fqdn, "SRV");
-      }
-    } catch (DnsException error) {
-      errorMsg = error.getErrorCode().name();
-      reporter.reportFailure(fqdn, "SRV", error);
-      f1.completeExceptionally(error);
-    } catch (InterruptedException | ExecutionException error) {
-      DnsException dnsException = (DnsException) error.getCause();
-      if (dnsException != null) {
-        errorMsg = dnsException.getErrorCode().name();
-      }
-      reporter.reportFailure(fqdn, "SRV", error);
-      f1.completeExceptionally(error.getCause());
-    } finally {
-      resolveTimer.stop(fqdn, "SRV", errorMsg);
-    }
-
-    return f1;
+    return metered(fqdn, "SRV", () -> delegate.lookupSRV(fqdn));
   }
 
   @Override
   public CompletableFuture<List<DNSARecord>> lookupA(String host) {
+    return metered(host, "A", () -> delegate.lookupA(host));
+  }
 
-    final DnsTimingContext resolveTimer = reporter.resolveTimer();
+  @Override
+  public CompletableFuture<List<DNSARecord>> lookupAAAA(String host) {
+    return metered(host, "AAAA", () -> delegate.lookupAAAA(host));
+  }
+
+  private <T> CompletableFuture<List<T>> metered(
+      String query, String type, Supplier<CompletableFuture<List<T>>> lookup) {
 
-    final List<DNSARecord> result;
-    CompletableFuture<List<DNSARecord>> f1 = new CompletableFuture<>();
-    String errorMsg = null;
+    final DnsTimingContext resolveTimer = reporter.resolveTimer();
 
+    CompletableFuture<List<T>> future;
     try {
-      CompletableFuture<List<DNSARecord>> f2 = delegate.lookupA(host);
-      result = f2.get();
-      f1.complete(result);
-      if (result.isEmpty()) {
-        errorMsg = DnsErrorCode.ERROR_DNS_NO_RECORDS_FOUND.name();
-        reporter.reportEmpty(host, "A");
-      }
+      future = lookup.get();
     } catch (DnsException error) {
-      errorMsg = error.getErrorCode().name();
-      reporter.reportFailure(host, "A", error);
-      f1.completeExceptionally(error);
-    } catch (InterruptedException | ExecutionException error) {
-      DnsException dnsException = (DnsException) error.getCause();
-      if (dnsException != null) {
-        errorMsg = dnsException.getErrorCode().name();
-      }
-      reporter.reportFailure(host, "A", error);
-      f1.completeExceptionally(error.getCause());
-    } finally {
-      resolveTimer.stop(host, "A", errorMsg);
+      reporter.reportFailure(query, type, error);
+      resolveTimer.stop(query, type, error.getErrorCode().name());
+      return CompletableFuture.failedFuture(error);
     }
 
-    return f1;
-  }
-
-  @Override
-  public List<DNSARecord> lookupAAsync(String lookup)
-      throws InterruptedException, ExecutionException {
-    return List.of();
+    return future.whenComplete(
+        (result, throwable) -> {
+          String errorMsg = null;
+          if (throwable != null) {
+            Throwable error =
+                throwable instanceof CompletionException && throwable.getCause() != null
+                    ? throwable.getCause()
+                    : throwable;
+            if (error instanceof DnsException) {
+              errorMsg = ((DnsException) error).getErrorCode().name();
+            }
+            reporter.reportFailure(query, type, error);
+          } else if (result.isEmpty()) {
+            errorMsg = DnsErrorCode.ERROR_DNS_NO_RECORDS_FOUND.name();
+            reporter.reportEmpty(query, type);
+          }
+          resolveTimer.stop(query, type, errorMsg);
+        });
   }
 }
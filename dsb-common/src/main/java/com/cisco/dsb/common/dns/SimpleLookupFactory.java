@@ -33,7 +33,7 @@ public class SimpleLookupFactory implements LookupFactory {
 
     Lookup.setDefaultResolver(resolver);
     Lookup.setDefaultCache(cache, DClass.IN);
-    this.session = LookupSession.builder().resolver(resolver).build();
+    this.session = LookupSession.builder().resolver(resolver).cache(cache).build();
   }
 
   @Override
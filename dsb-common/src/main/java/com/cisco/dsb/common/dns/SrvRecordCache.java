@@ -3,6 +3,7 @@ package com.cisco.dsb.common.dns;
 import com.cisco.dsb.common.dns.dto.DNSSRVRecord;
 import java.util.Arrays;
 import java.util.List;
+import java.util.function.LongSupplier;
 import java.util.stream.Collectors;
 import org.xbill.DNS.Record;
 import org.xbill.DNS.SRVRecord;
@@ -13,6 +14,15 @@ public class SrvRecordCache extends AbstractDnsCache<DNSSRVRecord> {
     super(maxCacheSize, retentionTimeMillis);
   }
 
+  public SrvRecordCache(long maxCacheSize, long retentionTimeMillis, DnsCachePolicy policy) {
+    super(maxCacheSize, retentionTimeMillis, policy);
+  }
+
+  SrvRecordCache(
+      long maxCacheSize, long retentionTimeMillis, DnsCachePolicy policy, LongSupplier clock) {
+    super(maxCacheSize, retentionTimeMillis, policy, clock);
+  }
+
   @Override
   protected List<DNSSRVRecord> getRecords(Record[] records) {
     return Arrays.stream(records)
@@ -0,0 +1,57 @@
+package com.cisco.dsb.common.dns.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/** Counters of a DNS record cache. Reading a counter resets it. */
+public class DnsCacheCounters {
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder refreshes = new LongAdder();
+  private final LongAdder staleServes = new LongAdder();
+  private final LongSupplier size;
+
+  public DnsCacheCounters(LongSupplier size) {
+    this.size = size;
+  }
+
+  /** A lookup answered from a live cache entry, positive or negative. */
+  public void hit() {
+    hits.increment();
+  }
+
+  /** A lookup that had to go to the resolver. */
+  public void miss() {
+    misses.increment();
+  }
+
+  /** A background refresh of an entry nearing expiry. */
+  public void refresh() {
+    refreshes.increment();
+  }
+
+  /** A failed lookup answered with the last known good records. */
+  public void staleServe() {
+    staleServes.increment();
+  }
+
+  public long drainHits() {
+    return hits.sumThenReset();
+  }
+
+  public long drainMisses() {
+    return misses.sumThenReset();
+  }
+
+  public long drainRefreshes() {
+    return refreshes.sumThenReset();
+  }
+
+  public long drainStaleServes() {
+    return staleServes.sumThenReset();
+  }
+
+  public long size() {
+    return size.getAsLong();
+  }
+}
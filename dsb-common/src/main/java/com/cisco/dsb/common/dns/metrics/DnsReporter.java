@@ -18,4 +18,11 @@ public interface DnsReporter {
    * @param error The exception causing the failure.
    */
   void reportFailure(String query, String queryType, Throwable error);
+
+  /**
+   * Report the counters of a TTL aware record cache. Called once, when the cache is created.
+   *
+   * @param queryType "SRV" or "A"
+   */
+  default void reportCache(String queryType, DnsCacheCounters counters) {}
 }
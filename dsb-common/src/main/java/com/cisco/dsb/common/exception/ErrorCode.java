@@ -27,6 +27,7 @@ public enum ErrorCode {
   TRUNK_NO_RETRY(502, Action.SEND_ERR_RESPONSE),
   REQUEST_TIME_OUT(408, Action.RETRY),
   CB_OPEN(502),
+  NEXT_HOP_OVERLOADED(503, Action.RETRY),
   INIT(0);
 
   @Getter private final int responseCode;
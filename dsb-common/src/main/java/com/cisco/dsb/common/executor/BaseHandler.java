@@ -73,4 +73,10 @@ public abstract class BaseHandler implements StripedRunnable {
   public String getStripeId() {
     return getCallId();
   }
+
+  // Returns false if the handler must not be dropped when the executor is backed up, because it
+  // completes work already admitted. Executors with bounded queues take it beyond their bounds.
+  public boolean isSheddable() {
+    return true;
+  }
 }
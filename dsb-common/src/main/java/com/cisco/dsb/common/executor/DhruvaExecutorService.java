@@ -1,6 +1,7 @@
 package com.cisco.dsb.common.executor;
 
 import com.cisco.wx2.util.MonitoredExecutorProvider;
+import com.codahale.metrics.Gauge;
 import com.codahale.metrics.MetricRegistry;
 import com.google.common.collect.Maps;
 import java.util.Map;
@@ -18,7 +19,18 @@ public class DhruvaExecutorService extends MonitoredExecutorProvider {
   private final ConcurrentMap<String, ScheduledExecutorService> scheduledExecutorMap =
       new ConcurrentHashMap<>();
 
+  private final ConcurrentMap<String, HashedWheelTimer> timerMap = new ConcurrentHashMap<>();
+
+  public static final long DEFAULT_TIMER_TICK_MILLIS = 50;
+  public static final int DEFAULT_TIMER_WHEEL_SIZE = 512;
+  public static final int DEFAULT_BOUNDED_THREADS = 20;
+  public static final int DEFAULT_BOUNDED_STRIPE_QUEUE = 100;
+  public static final int DEFAULT_BOUNDED_QUEUE = 10000;
+  public static final int DEFAULT_OVERLOAD_QUEUE_PERCENT = 80;
+  public static final long DEFAULT_OVERLOAD_QUEUE_WAIT_MILLIS = 500;
+
   private final String servername;
+  private final Environment env;
   private final MetricRegistry metricRegistry;
   private boolean isEnableMonitoredExecutorServiceMetricsToInfluxFromStatsD;
 
@@ -34,6 +46,7 @@ public class DhruvaExecutorService extends MonitoredExecutorProvider {
         applicationInstanceIndex,
         isEnableMonitoredExecutorServiceMetricsToInfluxFromStatsD);
     this.servername = servername;
+    this.env = env;
     this.metricRegistry = metricRegistry;
     this.isEnableMonitoredExecutorServiceMetricsToInfluxFromStatsD =
         isEnableMonitoredExecutorServiceMetricsToInfluxFromStatsD;
@@ -66,6 +79,9 @@ public class DhruvaExecutorService extends MonitoredExecutorProvider {
                   key,
                   (r, ex) -> {
                     if (!ex.isShutdown()) {
+                      if (metricRegistry != null) {
+                        metricRegistry.meter(MetricRegistry.name(key, "rejected")).mark();
+                      }
                       logger.warn(
                           "Execution of event rejected because queue limit has been exceeded");
                     }
@@ -99,6 +115,147 @@ public class DhruvaExecutorService extends MonitoredExecutorProvider {
     logger.info("Starting cached stripped executor service name={}", name);
   }
 
+  /**
+   * Starts the striped executor service of the type with bounded queues and an overload signal: a
+   * {@link SerialStripeExecutorService} keeps the tasks of a stripe in order and runs them on the
+   * threads of a striped executor service, which grows as needed. Bounds and overload thresholds
+   * are configured as for {@link #startBoundedStripedExecutorService(ExecutorType)}.
+   *
+   * @param type executor to start
+   */
+  public void startMonitoredStripedExecutorService(final ExecutorType type) {
+    String name = type.getExecutorName(this.servername);
+    if (isExecutorServiceRunning(name)) {
+      logger.info("Executor service {} already running on {}", this, this.servername);
+      return;
+    }
+    startSerialStripeExecutorService(
+        name,
+        this.newStripedExecutorService(name),
+        DEFAULT_BOUNDED_STRIPE_QUEUE,
+        DEFAULT_BOUNDED_QUEUE);
+  }
+
+  /**
+   * Starts a {@link SerialStripeExecutorService} for the type, a drop-in for the striped executor
+   * service for handlers that block: tasks of a stripe run in order, on virtual threads when the
+   * runtime supports them. Unbounded unless bounds are configured, see {@link
+   * #startBoundedStripedExecutorService(ExecutorType)}.
+   *
+   * @param type executor to start
+   */
+  public void startSerialStripeExecutorService(final ExecutorType type) {
+    String name = type.getExecutorName(this.servername);
+    if (isExecutorServiceRunning(name)) {
+      logger.info("Executor service {} already running on {}", this, this.servername);
+      return;
+    }
+    startSerialStripeExecutorService(
+        name,
+        SerialStripeExecutorService.newBackingExecutor(name),
+        Integer.MAX_VALUE,
+        Integer.MAX_VALUE);
+  }
+
+  /**
+   * Starts a {@link SerialStripeExecutorService} for the type on a fixed number of threads, with
+   * bounded queues and an overload signal, see {@link #isOverloaded(ExecutorType)}. Tasks of a
+   * stripe run in order. Configured by executor.&lt;name&gt;.max (threads), .stripe-queue and
+   * .queue (bounds per stripe and in total), .overload.queue-percent (tasks queued, in percent of
+   * the total bound) and .overload.queue-wait-millis (time tasks wait) from which on it is
+   * overloaded.
+   *
+   * @param type executor to start
+   */
+  public void startBoundedStripedExecutorService(final ExecutorType type) {
+    String name = type.getExecutorName(this.servername);
+    if (isExecutorServiceRunning(name)) {
+      logger.info("Executor service {} already running on {}", this, this.servername);
+      return;
+    }
+    int threads = getProperty("executor." + name + ".max", Integer.class, DEFAULT_BOUNDED_THREADS);
+    startSerialStripeExecutorService(
+        name,
+        SerialStripeExecutorService.newFixedBackingExecutor(name, threads),
+        DEFAULT_BOUNDED_STRIPE_QUEUE,
+        DEFAULT_BOUNDED_QUEUE);
+  }
+
+  private void startSerialStripeExecutorService(
+      String name, ExecutorService backingExecutor, int stripeQueue, int queue) {
+    String prefix = "executor." + name;
+    int maxStripeTasks = getProperty(prefix + ".stripe-queue", Integer.class, stripeQueue);
+    int maxQueuedTasks = getProperty(prefix + ".queue", Integer.class, queue);
+    int overloadPercent =
+        getProperty(
+            prefix + ".overload.queue-percent", Integer.class, DEFAULT_OVERLOAD_QUEUE_PERCENT);
+    long overloadQueueWaitMillis =
+        getProperty(
+            prefix + ".overload.queue-wait-millis",
+            Long.class,
+            maxQueuedTasks == Integer.MAX_VALUE ? 0 : DEFAULT_OVERLOAD_QUEUE_WAIT_MILLIS);
+    int overloadQueuedTasks = (int) Math.max(1, (long) maxQueuedTasks * overloadPercent / 100);
+
+    SerialStripeExecutorService executor =
+        (SerialStripeExecutorService)
+            this.executorMap.computeIfAbsent(
+                name,
+                key ->
+                    new SerialStripeExecutorService(
+                        backingExecutor,
+                        maxStripeTasks,
+                        maxQueuedTasks,
+                        overloadQueuedTasks,
+                        overloadQueueWaitMillis));
+    registerStripeMetrics(name, executor);
+    logger.info(
+        "Starting serial stripe executor service name={}, stripeQueue={}, queue={}",
+        name,
+        maxStripeTasks,
+        maxQueuedTasks);
+  }
+
+  private void registerStripeMetrics(String name, SerialStripeExecutorService executor) {
+    if (metricRegistry == null) {
+      return;
+    }
+    String activeStripes = MetricRegistry.name(name, "activeStripes");
+    String queueDepth = MetricRegistry.name(name, "queueDepth");
+    String queueWait = MetricRegistry.name(name, "queueWaitMillis");
+    String overloaded = MetricRegistry.name(name, "overloaded");
+    metricRegistry.remove(activeStripes);
+    metricRegistry.remove(queueDepth);
+    metricRegistry.remove(queueWait);
+    metricRegistry.remove(overloaded);
+    metricRegistry.register(activeStripes, (Gauge<Integer>) executor::getActiveStripes);
+    metricRegistry.register(queueDepth, (Gauge<Long>) executor::getQueuedTasks);
+    metricRegistry.register(queueWait, (Gauge<Long>) executor::getQueueWaitMillis);
+    metricRegistry.register(overloaded, (Gauge<Boolean>) executor::isOverloaded);
+  }
+
+  /**
+   * @return true if the executor of the type reports itself overloaded. Only executors started
+   *     with {@link #startMonitoredStripedExecutorService(ExecutorType)}, {@link
+   *     #startBoundedStripedExecutorService(ExecutorType)} or {@link
+   *     #startSerialStripeExecutorService(ExecutorType)} can be
+   */
+  public boolean isOverloaded(final ExecutorType type) {
+    ExecutorService executor = getExecutorThreadPool(type);
+    return executor instanceof SerialStripeExecutorService
+        && ((SerialStripeExecutorService) executor).isOverloaded();
+  }
+
+  /**
+   * @return tasks queued on the serial stripe executor relative to its overload threshold, 0 if
+   *     the executor is not running
+   */
+  public double getQueueLoad(final ExecutorType type) {
+    ExecutorService executor = getExecutorThreadPool(type);
+    return executor instanceof SerialStripeExecutorService
+        ? ((SerialStripeExecutorService) executor).getQueueLoad()
+        : 0;
+  }
+
   public void startScheduledExecutorService(final ExecutorType type) {
     String name = type.getExecutorName(this.servername);
     if (isScheduledExecutorServiceRunning(name)) {
@@ -126,6 +283,60 @@ public class DhruvaExecutorService extends MonitoredExecutorProvider {
         "Starting Scheduled executor service name={}, corePoolSize={}, maxPoolSize={}", name);
   }
 
+  /**
+   * Starts a {@link HashedWheelTimer} for the type, for high volume one shot timeouts. Expired
+   * timeouts run on the scheduled executor service of the same type, which is started as well. Tick
+   * and wheel size are read from executor.&lt;name&gt;.timer.tick-millis and
+   * executor.&lt;name&gt;.timer.wheel-size.
+   *
+   * @param type timer to start
+   */
+  public void startTimerService(final ExecutorType type) {
+    String name = type.getExecutorName(this.servername);
+    if (isTimerServiceRunning(name)) {
+      logger.info("Timer service {} already running on {}", this, this.servername);
+      return;
+    }
+    startScheduledExecutorService(type);
+    ScheduledExecutorService dispatcher = getScheduledExecutor(name);
+    String prefix = "executor." + name + ".timer";
+    long tickMillis = getProperty(prefix + ".tick-millis", Long.class, DEFAULT_TIMER_TICK_MILLIS);
+    int wheelSize = getProperty(prefix + ".wheel-size", Integer.class, DEFAULT_TIMER_WHEEL_SIZE);
+
+    HashedWheelTimer timer =
+        this.timerMap.computeIfAbsent(
+            name, key -> new HashedWheelTimer(key, tickMillis, wheelSize, dispatcher));
+    timer.start();
+    registerTimerMetrics(name, timer);
+    logger.info(
+        "Starting timer service name={}, tickMillis={}, wheelSize={}", name, tickMillis, wheelSize);
+  }
+
+  private void registerTimerMetrics(String name, HashedWheelTimer timer) {
+    if (metricRegistry == null) {
+      return;
+    }
+    String pending = MetricRegistry.name(name, "timer", "pending");
+    String tickLag = MetricRegistry.name(name, "timer", "tickLagMillis");
+    metricRegistry.remove(pending);
+    metricRegistry.remove(tickLag);
+    metricRegistry.register(pending, (Gauge<Integer>) timer::getPendingTimeouts);
+    metricRegistry.register(tickLag, (Gauge<Long>) timer::getTickLagMillis);
+  }
+
+  private <T> T getProperty(String key, Class<T> type, T defaultValue) {
+    T value = env != null ? env.getProperty(key, type, defaultValue) : null;
+    return value != null ? value : defaultValue;
+  }
+
+  public boolean isTimerServiceRunning(String name) {
+    return this.timerMap.containsKey(name);
+  }
+
+  public HashedWheelTimer getTimer(final ExecutorType type) {
+    return this.timerMap.get(type.getExecutorName(this.servername));
+  }
+
   public boolean isExecutorServiceRunning(String name) {
     return this.executorMap.containsKey(name);
   }
@@ -8,8 +8,12 @@ public enum ExecutorType {
   PROXY_CLIENT_TIMEOUT,
   PROXY_SEND_MESSAGE,
   PROXY_PROCESSOR,
+  PROXY_PROCESSOR_VIRTUAL,
+  PROXY_PROCESSOR_BOUNDED,
   KEEP_ALIVE_SERVICE,
-  OPTIONS_PING;
+  OPTIONS_PING,
+  RATE_LIMITER_CLUSTER,
+  OVERLOAD_CONTROL;
 
   ExecutorType() {}
 
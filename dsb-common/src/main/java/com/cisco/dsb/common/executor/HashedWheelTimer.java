@@ -0,0 +1,316 @@
+package com.cisco.dsb.common.executor;
+
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+import lombok.CustomLog;
+
+/**
+ * Timer for large numbers of one shot timeouts that are mostly cancelled before they fire, like
+ * Timer C. Timeouts are hashed into a wheel of buckets by their deadline, a single worker thread
+ * advances the wheel every tick and hands the expired timeouts over to a dispatcher executor.
+ *
+ * <p>Scheduling and cancelling are O(1) and lock free: both only enqueue the timeout for the
+ * worker, which links it into / unlinks it from its bucket on the next tick. Unlike {@link
+ * java.util.concurrent.ScheduledThreadPoolExecutor}, a cancelled timeout is therefore released
+ * within a tick instead of staying queued until its deadline. Timeouts fire at most one tick late,
+ * never early.
+ */
+@CustomLog
+public class HashedWheelTimer {
+
+  private final String name;
+  private final long tickNanos;
+  private final Bucket[] wheel;
+  private final int mask;
+  private final Executor dispatcher;
+  private final LongSupplier nanoClock;
+  private final long startNanos;
+
+  private final Queue<WheelTimeout> added = new ConcurrentLinkedQueue<>();
+  private final Queue<WheelTimeout> cancelled = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger pendingTimeouts = new AtomicInteger();
+  private volatile long tickLagNanos;
+  private volatile boolean stopped;
+  private Thread worker;
+  // next tick to process, only accessed by the worker
+  private long tick;
+
+  /**
+   * @param name name of the timer, also used for its worker thread
+   * @param tickMillis resolution of the timer
+   * @param wheelSize number of buckets, rounded up to a power of 2. Timeouts further than
+   *     tickMillis * wheelSize away go around the wheel more than once
+   * @param dispatcher runs the expired timeouts, so that they do not hold up the wheel
+   */
+  public HashedWheelTimer(String name, long tickMillis, int wheelSize, Executor dispatcher) {
+    this(name, TimeUnit.MILLISECONDS.toNanos(tickMillis), wheelSize, dispatcher, System::nanoTime);
+  }
+
+  HashedWheelTimer(
+      String name, long tickNanos, int wheelSize, Executor dispatcher, LongSupplier nanoClock) {
+    if (tickNanos <= 0) {
+      throw new IllegalArgumentException("tick must be greater than 0: " + tickNanos);
+    }
+    if (wheelSize <= 0 || wheelSize > (1 << 30)) {
+      throw new IllegalArgumentException("wheelSize must be in (0, 2^30]: " + wheelSize);
+    }
+    int size = Integer.highestOneBit(wheelSize);
+    if (size < wheelSize) {
+      size <<= 1;
+    }
+    this.name = name;
+    this.tickNanos = tickNanos;
+    this.wheel = new Bucket[size];
+    for (int i = 0; i < size; i++) {
+      wheel[i] = new Bucket();
+    }
+    this.mask = size - 1;
+    this.dispatcher = Objects.requireNonNull(dispatcher, "dispatcher");
+    this.nanoClock = nanoClock;
+    this.startNanos = nanoClock.getAsLong();
+  }
+
+  /** Starts the worker thread advancing the wheel. Has no effect if already started. */
+  public synchronized void start() {
+    if (worker != null || stopped) {
+      return;
+    }
+    worker = new Thread(this::run, name + "_wheel");
+    worker.setDaemon(true);
+    worker.start();
+    logger.info("Started timer {} with tick {}ns and {} buckets", name, tickNanos, wheel.length);
+  }
+
+  /** Stops the worker thread. Pending timeouts never fire and new ones are rejected. */
+  public synchronized void stop() {
+    stopped = true;
+    if (worker != null) {
+      LockSupport.unpark(worker);
+    }
+  }
+
+  /**
+   * Schedules the task to run on the dispatcher once the delay has elapsed. The MDC of the calling
+   * thread is carried over to the task.
+   *
+   * @return handle to cancel the timeout
+   * @throws RejectedExecutionException if the timer is stopped
+   */
+  public Timeout newTimeout(Runnable task, long delay, TimeUnit unit) {
+    Objects.requireNonNull(task, "task");
+    if (stopped) {
+      throw new RejectedExecutionException("Timer " + name + " is stopped");
+    }
+    long deadline = nanoClock.getAsLong() - startNanos + Math.max(0, unit.toNanos(delay));
+    WheelTimeout timeout =
+        new WheelTimeout(
+            DhruvaExecutorService.CustomThreadPoolExecutor.wrapWithMdcContext(task), deadline);
+    pendingTimeouts.incrementAndGet();
+    added.add(timeout);
+    return timeout;
+  }
+
+  /** @return timeouts scheduled, that have neither fired nor been cancelled yet */
+  public int getPendingTimeouts() {
+    return pendingTimeouts.get();
+  }
+
+  /** @return how late the worker processed the last tick, a sign of an overloaded host */
+  public long getTickLagMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(tickLagNanos);
+  }
+
+  private void run() {
+    while (!stopped) {
+      long sleepNanos = startNanos + (tick + 1) * tickNanos - nanoClock.getAsLong();
+      if (sleepNanos > 0) {
+        LockSupport.parkNanos(this, sleepNanos);
+        continue;
+      }
+      try {
+        advance(nanoClock.getAsLong());
+      } catch (Throwable t) {
+        logger.error("Unexpected error on timer {}", name, t);
+      }
+    }
+    logger.info("Stopped timer {} with {} pending timeouts", name, pendingTimeouts.get());
+  }
+
+  /** Processes every tick that has elapsed until the given time. Called by the worker only. */
+  void advance(long nowNanos) {
+    long elapsed = nowNanos - startNanos;
+    while ((tick + 1) * tickNanos <= elapsed) {
+      removeCancelled();
+      transferAdded();
+      Bucket bucket = wheel[(int) (tick & mask)];
+      bucket.expire(this, (tick + 1) * tickNanos);
+      tickLagNanos = elapsed - (tick + 1) * tickNanos;
+      tick++;
+    }
+  }
+
+  private void removeCancelled() {
+    WheelTimeout timeout;
+    while ((timeout = cancelled.poll()) != null) {
+      if (timeout.bucket != null) {
+        timeout.bucket.remove(timeout);
+      }
+    }
+  }
+
+  private void transferAdded() {
+    WheelTimeout timeout;
+    while ((timeout = added.poll()) != null) {
+      if (timeout.state != WheelTimeout.ST_INIT) {
+        // cancelled before it made it to the wheel
+        continue;
+      }
+      long expiryTick = timeout.deadline / tickNanos;
+      timeout.remainingRounds = (expiryTick - tick) / wheel.length;
+      // already overdue timeouts go to the current tick
+      wheel[(int) (Math.max(expiryTick, tick) & mask)].add(timeout);
+    }
+  }
+
+  private void expire(WheelTimeout timeout) {
+    if (!timeout.compareAndSetState(WheelTimeout.ST_INIT, WheelTimeout.ST_EXPIRED)) {
+      return;
+    }
+    pendingTimeouts.decrementAndGet();
+    try {
+      dispatcher.execute(timeout.task);
+    } catch (RejectedExecutionException e) {
+      logger.error("Timer {} unable to dispatch expired timeout", name, e);
+    }
+  }
+
+  /** Handle of a task scheduled on a {@link HashedWheelTimer}. */
+  public interface Timeout {
+    /**
+     * Cancels the timeout, it is released from the timer within a tick.
+     *
+     * @return false if the timeout had already fired or was cancelled before
+     */
+    boolean cancel();
+
+    boolean isCancelled();
+
+    boolean isExpired();
+  }
+
+  private final class WheelTimeout implements Timeout {
+    private static final int ST_INIT = 0;
+    private static final int ST_CANCELLED = 1;
+    private static final int ST_EXPIRED = 2;
+
+    private final Runnable task;
+    // nanos since start of the timer
+    private final long deadline;
+    // not private, for the STATE_UPDATER
+    volatile int state = ST_INIT;
+
+    // bucket links, only accessed by the worker
+    private long remainingRounds;
+    private Bucket bucket;
+    private WheelTimeout next;
+    private WheelTimeout prev;
+
+    private WheelTimeout(Runnable task, long deadline) {
+      this.task = task;
+      this.deadline = deadline;
+    }
+
+    private boolean compareAndSetState(int expected, int newState) {
+      return STATE_UPDATER.compareAndSet(this, expected, newState);
+    }
+
+    @Override
+    public boolean cancel() {
+      if (!compareAndSetState(ST_INIT, ST_CANCELLED)) {
+        return false;
+      }
+      pendingTimeouts.decrementAndGet();
+      cancelled.add(this);
+      return true;
+    }
+
+    @Override
+    public boolean isCancelled() {
+      return state == ST_CANCELLED;
+    }
+
+    @Override
+    public boolean isExpired() {
+      return state == ST_EXPIRED;
+    }
+  }
+
+  private static final AtomicIntegerFieldUpdater<WheelTimeout> STATE_UPDATER =
+      AtomicIntegerFieldUpdater.newUpdater(WheelTimeout.class, "state");
+
+  /** Doubly linked list of the timeouts hashed to a slot of the wheel. Worker only. */
+  private static final class Bucket {
+    private WheelTimeout head;
+    private WheelTimeout tail;
+
+    private void add(WheelTimeout timeout) {
+      timeout.bucket = this;
+      if (head == null) {
+        head = tail = timeout;
+      } else {
+        tail.next = timeout;
+        timeout.prev = tail;
+        tail = timeout;
+      }
+    }
+
+    private void remove(WheelTimeout timeout) {
+      WheelTimeout next = timeout.next;
+      if (timeout.prev != null) {
+        timeout.prev.next = next;
+      }
+      if (next != null) {
+        next.prev = timeout.prev;
+      }
+      if (timeout == head) {
+        head = next;
+      }
+      if (timeout == tail) {
+        tail = timeout.prev;
+      }
+      timeout.prev = null;
+      timeout.next = null;
+      timeout.bucket = null;
+    }
+
+    private void expire(HashedWheelTimer timer, long tickDeadline) {
+      WheelTimeout timeout = head;
+      while (timeout != null) {
+        WheelTimeout next = timeout.next;
+        if (timeout.remainingRounds <= 0) {
+          remove(timeout);
+          if (timeout.deadline <= tickDeadline) {
+            timer.expire(timeout);
+          } else {
+            // can only happen if it was placed in a wrong bucket
+            throw new IllegalStateException(
+                "timeout deadline " + timeout.deadline + " > tick deadline " + tickDeadline);
+          }
+        } else if (timeout.isCancelled()) {
+          remove(timeout);
+        } else {
+          timeout.remainingRounds--;
+        }
+        timeout = next;
+      }
+    }
+  }
+}
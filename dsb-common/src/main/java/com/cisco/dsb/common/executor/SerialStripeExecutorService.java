@@ -0,0 +1,355 @@
+package com.cisco.dsb.common.executor;
+
+import com.cisco.wx2.util.stripedexecutor.StripedRunnable;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RunnableFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.CustomLog;
+
+/**
+ * Alternative to the striped executor for handlers that block. Tasks of the same stripe ({@link
+ * StripedRunnable#getStripe()}, the Call-ID for {@link BaseHandler}s) run one after the other in
+ * submission order, tasks of different stripes run concurrently without any bound.
+ *
+ * <p>No thread is tied to a stripe: the first task of an idle stripe starts a drain task on the
+ * backing executor, which runs the tasks queued for the stripe until there are none left. The
+ * backing executor is a virtual thread per task executor when the runtime provides one (JDK 21+),
+ * so that blocking in a handler only parks a virtual thread, else an unbounded cached pool of
+ * platform threads.
+ *
+ * <p>The queues can be bounded, per stripe and in total, tasks beyond the bounds are rejected.
+ * Handlers that are not {@link BaseHandler#isSheddable() sheddable} are queued beyond the bounds,
+ * behind the other tasks of their stripe, and count towards them. The executor reports itself
+ * {@link #isOverloaded() overloaded} when the tasks queued or the time they wait reach the overload
+ * thresholds, before the bounds are hit, so that callers can shed new work while the work already
+ * admitted still gets processed.
+ */
+@CustomLog
+public class SerialStripeExecutorService extends AbstractExecutorService {
+
+  // stripe -> tasks of the stripe, the head being the one running. No entry when the stripe is idle
+  private final ConcurrentHashMap<Object, Queue<StripeTask>> stripes = new ConcurrentHashMap<>();
+  private final ExecutorService backingExecutor;
+  private final int maxStripeTasks;
+  private final int maxQueuedTasks;
+  private final int overloadQueuedTasks;
+  private final long overloadQueueWaitNanos;
+  private final AtomicLong queuedTasks = new AtomicLong();
+  // time the last task started waited in its stripe queue
+  private volatile long queueWaitNanos;
+  private volatile boolean shutdown;
+
+  SerialStripeExecutorService(ExecutorService backingExecutor) {
+    this(backingExecutor, Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE, 0);
+  }
+
+  /**
+   * @param backingExecutor runs the stripes, see {@link #newBackingExecutor(String)} and {@link
+   *     #newFixedBackingExecutor(String, int)}
+   * @param maxStripeTasks tasks a stripe can have queued or running, further sheddable ones are
+   *     rejected
+   * @param maxQueuedTasks tasks all stripes together can have queued or running, further sheddable
+   *     ones are rejected
+   * @param overloadQueuedTasks tasks queued or running from which on the executor is overloaded
+   * @param overloadQueueWaitMillis queue wait from which on the executor is overloaded, 0 to only
+   *     consider the tasks queued
+   */
+  public SerialStripeExecutorService(
+      ExecutorService backingExecutor,
+      int maxStripeTasks,
+      int maxQueuedTasks,
+      int overloadQueuedTasks,
+      long overloadQueueWaitMillis) {
+    if (maxStripeTasks <= 0 || maxQueuedTasks <= 0 || overloadQueuedTasks <= 0) {
+      throw new IllegalArgumentException("bounds and overload threshold must be greater than 0");
+    }
+    this.backingExecutor = backingExecutor;
+    this.maxStripeTasks = maxStripeTasks;
+    this.maxQueuedTasks = maxQueuedTasks;
+    this.overloadQueuedTasks = overloadQueuedTasks;
+    this.overloadQueueWaitNanos = TimeUnit.MILLISECONDS.toNanos(overloadQueueWaitMillis);
+  }
+
+  /**
+   * @param name prefix of the thread names, for the platform thread fallback
+   * @return virtual thread per task executor if the runtime supports it, else a cached pool
+   */
+  static ExecutorService newBackingExecutor(String name) {
+    try {
+      // compiled for JDK 17, so looked up at runtime
+      ExecutorService executor =
+          (ExecutorService)
+              Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+      logger.info("Executor service {} runs on virtual threads", name);
+      return executor;
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      logger.warn(
+          "Virtual threads not supported by this runtime, executor service {} runs on a cached"
+              + " thread pool",
+          name);
+    }
+    return Executors.newCachedThreadPool(newThreadFactory(name));
+  }
+
+  /**
+   * @param name prefix of the thread names
+   * @param threads number of stripes processed at the same time
+   * @return pool of a fixed number of platform threads
+   */
+  static ExecutorService newFixedBackingExecutor(String name, int threads) {
+    // holds at most one drain task per stripe, so bounded by the stripes
+    return new ThreadPoolExecutor(
+        threads,
+        threads,
+        0L,
+        TimeUnit.MILLISECONDS,
+        new LinkedBlockingQueue<>(),
+        newThreadFactory(name));
+  }
+
+  private static ThreadFactory newThreadFactory(String name) {
+    AtomicInteger threadCount = new AtomicInteger();
+    return runnable -> {
+      Thread thread = new Thread(runnable, name + "-" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
+  @Override
+  public void execute(Runnable command) {
+    if (shutdown) {
+      throw new RejectedExecutionException("Executor service is shut down");
+    }
+    Object stripe = getStripe(command);
+    Runnable mdcTask = DhruvaExecutorService.CustomThreadPoolExecutor.wrapWithMdcContext(command);
+    if (stripe == null) {
+      backingExecutor.execute(mdcTask);
+      return;
+    }
+    boolean sheddable = isSheddable(command);
+    if (queuedTasks.incrementAndGet() > maxQueuedTasks && sheddable) {
+      queuedTasks.decrementAndGet();
+      throw new RejectedExecutionException("Queue limit of " + maxQueuedTasks + " reached");
+    }
+    StripeTask task = new StripeTask(command, mdcTask);
+    // 1: stripe queue full. The drain of an idle stripe is started while its entry is being
+    // created, so a rejected drain leaves no entry that other tasks could have been queued to
+    int[] state = new int[1];
+    try {
+      stripes.compute(
+          stripe,
+          (key, tasks) -> {
+            if (tasks == null) {
+              backingExecutor.execute(new Drain(stripe, task));
+              tasks = new ArrayDeque<>();
+            } else if (tasks.size() >= maxStripeTasks && sheddable) {
+              state[0] = 1;
+              return tasks;
+            }
+            tasks.add(task);
+            return tasks;
+          });
+    } catch (RejectedExecutionException e) {
+      queuedTasks.decrementAndGet();
+      throw e;
+    }
+    if (state[0] == 1) {
+      queuedTasks.decrementAndGet();
+      throw new RejectedExecutionException("Stripe queue limit of " + maxStripeTasks + " reached");
+    }
+  }
+
+  private static Object getStripe(Runnable command) {
+    if (command instanceof StripedFutureTask) {
+      return ((StripedFutureTask<?>) command).stripe;
+    }
+    if (command instanceof StripedRunnable) {
+      return ((StripedRunnable) command).getStripe();
+    }
+    return null;
+  }
+
+  private static boolean isSheddable(Runnable command) {
+    if (command instanceof StripedFutureTask) {
+      return ((StripedFutureTask<?>) command).sheddable;
+    }
+    return !(command instanceof BaseHandler) || ((BaseHandler) command).isSheddable();
+  }
+
+  private void drain(Object stripe, StripeTask first) {
+    StripeTask[] next = {first};
+    while (next[0] != null) {
+      // tasks handed back by shutdownNow are skipped, they are no longer counted
+      if (next[0].claim()) {
+        try {
+          next[0].run();
+        } catch (Throwable t) {
+          logger.error("Task of stripe {} failed", stripe, t);
+        }
+        queuedTasks.decrementAndGet();
+      }
+      next[0] = null;
+      stripes.computeIfPresent(
+          stripe,
+          (key, tasks) -> {
+            tasks.poll();
+            next[0] = tasks.peek();
+            return next[0] == null ? null : tasks;
+          });
+    }
+  }
+
+  /** keeps the stripe of tasks handed over to {@link #submit(Runnable)} */
+  @Override
+  protected <T> RunnableFuture<T> newTaskFor(Runnable runnable, T value) {
+    if (runnable instanceof StripedRunnable) {
+      return new StripedFutureTask<>(
+          runnable, value, ((StripedRunnable) runnable).getStripe(), isSheddable(runnable));
+    }
+    return super.newTaskFor(runnable, value);
+  }
+
+  /** @return stripes having tasks queued or running */
+  public int getActiveStripes() {
+    return stripes.size();
+  }
+
+  /** @return striped tasks queued or running */
+  public long getQueuedTasks() {
+    return queuedTasks.get();
+  }
+
+  /** @return time the task started last waited in the queue of its stripe */
+  public long getQueueWaitMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(queueWaitNanos);
+  }
+
+  /**
+   * @return true if the tasks queued, or the time they wait while there are any, reached the
+   *     overload thresholds
+   */
+  public boolean isOverloaded() {
+    long queued = queuedTasks.get();
+    return queued >= overloadQueuedTasks
+        || (overloadQueueWaitNanos > 0 && queued > 0 && queueWaitNanos >= overloadQueueWaitNanos);
+  }
+
+  /** @return tasks queued relative to the overload threshold, 1 once overloaded by them */
+  public double getQueueLoad() {
+    return queuedTasks.get() / (double) overloadQueuedTasks;
+  }
+
+  @Override
+  public void shutdown() {
+    shutdown = true;
+    backingExecutor.shutdown();
+  }
+
+  /** @return tasks that never started, striped ones in the order of their stripes */
+  @Override
+  public List<Runnable> shutdownNow() {
+    shutdown = true;
+    // claimed before the running tasks get interrupted, so that their drains stop after them. The
+    // task running, if any, is claimed already and stays counted until it ends
+    List<Runnable> notStarted = new ArrayList<>();
+    for (Object stripe : stripes.keySet()) {
+      stripes.computeIfPresent(
+          stripe,
+          (key, tasks) -> {
+            for (StripeTask task : tasks) {
+              if (task.claim()) {
+                notStarted.add(task.command);
+              }
+            }
+            return tasks;
+          });
+    }
+    queuedTasks.addAndGet(-notStarted.size());
+    for (Runnable runnable : backingExecutor.shutdownNow()) {
+      // drains that never started only had tasks claimed above
+      if (!(runnable instanceof Drain)) {
+        notStarted.add(runnable);
+      }
+    }
+    return notStarted;
+  }
+
+  @Override
+  public boolean isShutdown() {
+    return shutdown;
+  }
+
+  @Override
+  public boolean isTerminated() {
+    return shutdown && backingExecutor.isTerminated();
+  }
+
+  @Override
+  public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+    return backingExecutor.awaitTermination(timeout, unit);
+  }
+
+  /** Task queued in a stripe, run by the drain of the stripe unless shutdownNow took it back. */
+  private final class StripeTask {
+    private final Runnable command;
+    private final Runnable mdcTask;
+    private final long enqueuedNanos = System.nanoTime();
+    private final AtomicBoolean claimed = new AtomicBoolean();
+
+    private StripeTask(Runnable command, Runnable mdcTask) {
+      this.command = command;
+      this.mdcTask = mdcTask;
+    }
+
+    private boolean claim() {
+      return claimed.compareAndSet(false, true);
+    }
+
+    private void run() {
+      queueWaitNanos = System.nanoTime() - enqueuedNanos;
+      mdcTask.run();
+    }
+  }
+
+  private final class Drain implements Runnable {
+    private final Object stripe;
+    private final StripeTask first;
+
+    private Drain(Object stripe, StripeTask first) {
+      this.stripe = stripe;
+      this.first = first;
+    }
+
+    @Override
+    public void run() {
+      drain(stripe, first);
+    }
+  }
+
+  private static final class StripedFutureTask<T> extends FutureTask<T> {
+    private final Object stripe;
+    private final boolean sheddable;
+
+    private StripedFutureTask(Runnable runnable, T value, Object stripe, boolean sheddable) {
+      super(runnable, value);
+      this.stripe = stripe;
+      this.sheddable = sheddable;
+    }
+  }
+}
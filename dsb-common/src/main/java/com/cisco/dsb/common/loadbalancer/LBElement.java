@@ -30,6 +30,16 @@ public interface LBElement extends Comparable {
    */
   int getWeight();
 
+  /**
+   * Gets the identity of this element used by key based selection ({@link LBType#CONSISTENT_HASH}).
+   * It must not change while the element is being load balanced.
+   *
+   * @return the hash key of this element
+   */
+  default String getHashKey() {
+    return toString();
+  }
+
   /**
    * Gets the <code>String</code> representation of this object.
    *
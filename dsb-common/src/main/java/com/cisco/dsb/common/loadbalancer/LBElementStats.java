@@ -0,0 +1,136 @@
+package com.cisco.dsb.common.loadbalancer;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * Live load signals of an {@link LBElement}, used by the adaptive {@link LBType}s: requests
+ * currently outstanding on the element, and a peak EWMA of its response time. Stats are shared per
+ * {@link LBElement#getHashKey()}, so every server group, and every DNS resolution of it, sending to
+ * the same element sees the same load.
+ *
+ * <p>The peak EWMA jumps to any response time above the current average and decays towards lower
+ * ones with a time constant of {@link #DECAY_NANOS}, so a degrading element is penalised at once
+ * and recovers gradually. Read between responses, it decays towards 0 for the time since the last
+ * one, so an element that got no traffic after a slow response is tried again.
+ *
+ * <p>Also keeps the reduction of new requests the element asks for through SIP overload control
+ * (RFC 7339, loss algorithm), until the validity it advertised along with it runs out.
+ */
+public final class LBElementStats {
+
+  static final long DECAY_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+  // held by the snapshots of the elements, dropped along with the last snapshot referring to them
+  private static final Cache<String, LBElementStats> STATS =
+      CacheBuilder.newBuilder().weakValues().build();
+
+  private final AtomicInteger outstanding = new AtomicInteger();
+  private final LongSupplier nanoClock;
+  private double ewmaNanos;
+  private long lastUpdateNanos;
+  private int overloadReduction;
+  private long overloadExpiryNanos;
+  private long overloadSeq = Long.MIN_VALUE;
+
+  LBElementStats(LongSupplier nanoClock) {
+    this.nanoClock = nanoClock;
+    this.lastUpdateNanos = nanoClock.getAsLong();
+  }
+
+  public static LBElementStats of(LBElement lbElement) {
+    return STATS
+        .asMap()
+        .computeIfAbsent(
+            String.valueOf(lbElement.getHashKey()), key -> new LBElementStats(System::nanoTime));
+  }
+
+  /**
+   * Marks a request as sent to the element. Every call must be paired with {@link #end()}.
+   *
+   * @return start time to hand over to {@link #sample(long)}
+   */
+  public long start() {
+    outstanding.incrementAndGet();
+    return nanoClock.getAsLong();
+  }
+
+  /**
+   * Records the response time of a request, on its first response (provisional or final) or on
+   * the failure of it. A failure after a timeout thereby counts as a slow response.
+   *
+   * @param startNanos value returned by {@link #start()}
+   */
+  public void sample(long startNanos) {
+    long now = nanoClock.getAsLong();
+    observe(Math.max(0, now - startNanos), now);
+  }
+
+  /** Marks a request as done, on its final response or the failure of it. */
+  public void end() {
+    outstanding.decrementAndGet();
+  }
+
+  private synchronized void observe(long responseNanos, long now) {
+    if (responseNanos > ewmaNanos) {
+      ewmaNanos = responseNanos;
+    } else {
+      double decay = decay(now);
+      ewmaNanos = ewmaNanos * decay + responseNanos * (1 - decay);
+    }
+    lastUpdateNanos = now;
+  }
+
+  public int getOutstanding() {
+    return outstanding.get();
+  }
+
+  public synchronized double getEwmaNanos() {
+    return ewmaNanos * decay(nanoClock.getAsLong());
+  }
+
+  /** @return weight left to the average for the time elapsed since its last update */
+  private double decay(long now) {
+    return Math.exp(-Math.max(0, now - lastUpdateNanos) / (double) DECAY_NANOS);
+  }
+
+  /**
+   * Takes over the overload control advertised by the element. Values older than the ones already
+   * known, by their sequence, are ignored.
+   *
+   * @param reduction percent of new requests to drop
+   * @param validityMillis how long the reduction applies, 0 to end it right away
+   * @param seq sequence of the values, increasing with every change
+   */
+  public synchronized void updateOverloadControl(int reduction, long validityMillis, long seq) {
+    if (seq < overloadSeq) {
+      return;
+    }
+    overloadSeq = seq;
+    overloadReduction = Math.max(0, Math.min(100, reduction));
+    overloadExpiryNanos = nanoClock.getAsLong() + TimeUnit.MILLISECONDS.toNanos(validityMillis);
+  }
+
+  /** @return percent of new requests to drop, 0 once the advertised validity ran out */
+  public synchronized int getOverloadReduction() {
+    return nanoClock.getAsLong() - overloadExpiryNanos < 0 ? overloadReduction : 0;
+  }
+
+  /** @return true if a new request is to be dropped, with the probability of the reduction */
+  public boolean isThrottled() {
+    int reduction = getOverloadReduction();
+    return reduction > 0 && ThreadLocalRandom.current().nextInt(100) < reduction;
+  }
+
+  /**
+   * Expected wait on the element, the response time average scaled by the requests queued ahead.
+   * Elements without any response yet cost 0, so that they get probed.
+   */
+  double getCost() {
+    return getEwmaNanos() * (getOutstanding() + 1);
+  }
+}
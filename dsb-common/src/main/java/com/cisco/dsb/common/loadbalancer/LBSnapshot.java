@@ -0,0 +1,339 @@
+package com.cisco.dsb.common.loadbalancer;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.util.Collection;
+import java.util.TreeSet;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Immutable selection structure over the elements of a {@link LoadBalancable}, shared by every
+ * {@link LoadBalancer} created for it. Elements are kept in the order of the TreeSet LoadBalancer
+ * used to build per call, grouped in tiers of equal priority (q-value). Each tier carries an alias
+ * table for O(1) weighted picks, and every element its precomputed rendezvous hash and its live
+ * {@link LBElementStats}.
+ *
+ * <p>Per call state is only a bitset of the elements already tried, which the select methods
+ * take as argument. Snapshots are cached per element collection and rebuilt when an element is
+ * added, removed or changes its priority or weight.
+ */
+final class LBSnapshot {
+
+  static final LBSnapshot EMPTY = new LBSnapshot(new LBElement[0]);
+
+  // identity keyed, a snapshot lives as long as the collection it was built from
+  private static final Cache<Collection<?>, LBSnapshot> SNAPSHOTS =
+      CacheBuilder.newBuilder().weakKeys().build();
+
+  private static final int MAX_ALIAS_ATTEMPTS = 4;
+
+  // elements as given, with the priority and weight they had, to detect config changes
+  private final LBElement[] source;
+  private final int[] sourcePriorities;
+  private final int[] sourceWeights;
+
+  private final LBElement[] elements;
+  private final int[] weights;
+  private final int[] tierStart;
+  private final int[] tierEnd;
+  private final long[] tierWeight;
+  private final long[] hashKeys;
+  private final LBElementStats[] stats;
+  private final double[] aliasProbability;
+  private final int[] alias;
+
+  static LBSnapshot of(Collection<? extends LBElement> lbElements) {
+    if (lbElements == null || lbElements.isEmpty()) {
+      return EMPTY;
+    }
+    LBSnapshot snapshot = SNAPSHOTS.getIfPresent(lbElements);
+    if (snapshot == null || !snapshot.isBuiltFrom(lbElements)) {
+      snapshot = new LBSnapshot(lbElements.toArray(new LBElement[0]));
+      SNAPSHOTS.put(lbElements, snapshot);
+    }
+    return snapshot;
+  }
+
+  private LBSnapshot(LBElement[] source) {
+    this.source = source;
+    this.sourcePriorities = new int[source.length];
+    this.sourceWeights = new int[source.length];
+    for (int i = 0; i < source.length; i++) {
+      sourcePriorities[i] = source[i].getPriority();
+      sourceWeights[i] = source[i].getWeight();
+    }
+    TreeSet<LBElement> sorted = new TreeSet<>();
+    for (LBElement element : source) {
+      sorted.add(element);
+    }
+    this.elements = sorted.toArray(new LBElement[0]);
+    int size = elements.length;
+    this.weights = new int[size];
+    this.tierStart = new int[size];
+    this.tierEnd = new int[size];
+    this.tierWeight = new long[size];
+    this.hashKeys = new long[size];
+    this.stats = new LBElementStats[size];
+    this.aliasProbability = new double[size];
+    this.alias = new int[size];
+
+    int start = 0;
+    for (int i = 0; i < size; i++) {
+      weights[i] = Math.max(elements[i].getWeight(), 0);
+      hashKeys[i] = RendezvousHash.hash(elements[i].getHashKey());
+      stats[i] = LBElementStats.of(elements[i]);
+      boolean lastOfTier =
+          i + 1 == size
+              || Float.compare(elements[i].getPriority(), elements[i + 1].getPriority()) != 0;
+      if (lastOfTier) {
+        buildTier(start, i + 1);
+        start = i + 1;
+      }
+    }
+  }
+
+  private void buildTier(int start, int end) {
+    long total = 0;
+    for (int i = start; i < end; i++) {
+      tierStart[i] = start;
+      tierEnd[i] = end;
+      total += weights[i];
+    }
+    for (int i = start; i < end; i++) {
+      tierWeight[i] = total;
+    }
+    if (total == 0) {
+      return;
+    }
+    // Vose's alias method
+    int n = end - start;
+    double[] scaled = new double[n];
+    int[] small = new int[n];
+    int[] large = new int[n];
+    int smallCount = 0;
+    int largeCount = 0;
+    for (int i = 0; i < n; i++) {
+      scaled[i] = (double) weights[start + i] * n / total;
+      if (scaled[i] < 1) {
+        small[smallCount++] = i;
+      } else {
+        large[largeCount++] = i;
+      }
+    }
+    while (smallCount > 0 && largeCount > 0) {
+      int less = small[--smallCount];
+      int more = large[--largeCount];
+      aliasProbability[start + less] = scaled[less];
+      alias[start + less] = start + more;
+      scaled[more] = scaled[more] + scaled[less] - 1;
+      if (scaled[more] < 1) {
+        small[smallCount++] = more;
+      } else {
+        large[largeCount++] = more;
+      }
+    }
+    while (largeCount > 0) {
+      aliasProbability[start + large[--largeCount]] = 1;
+    }
+    while (smallCount > 0) {
+      aliasProbability[start + small[--smallCount]] = 1;
+    }
+  }
+
+  private boolean isBuiltFrom(Collection<? extends LBElement> lbElements) {
+    if (lbElements.size() != source.length) {
+      return false;
+    }
+    int i = 0;
+    for (LBElement element : lbElements) {
+      if (element != source[i]
+          || element.getPriority() != sourcePriorities[i]
+          || element.getWeight() != sourceWeights[i]) {
+        return false;
+      }
+      i++;
+    }
+    return true;
+  }
+
+  int size() {
+    return elements.length;
+  }
+
+  LBElement get(int index) {
+    return elements[index];
+  }
+
+  long[] newTried() {
+    return new long[(elements.length + 63) >>> 6];
+  }
+
+  static boolean isTried(long[] tried, int index) {
+    return (tried[index >>> 6] & (1L << index)) != 0;
+  }
+
+  static void markTried(long[] tried, int index) {
+    tried[index >>> 6] |= 1L << index;
+  }
+
+  void markAllTried(long[] tried) {
+    for (int i = 0; i < elements.length; i++) {
+      markTried(tried, i);
+    }
+  }
+
+  int untriedCount(long[] tried) {
+    int count = elements.length;
+    for (long word : tried) {
+      count -= Long.bitCount(word);
+    }
+    return count;
+  }
+
+  /** @return index of the first element not tried yet, it belongs to the highest q tier left */
+  int firstUntried(long[] tried) {
+    for (int i = 0; i < elements.length; i++) {
+      if (!isTried(tried, i)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  // the n-th (0 based) untried element in [first, end)
+  private int nthUntried(long[] tried, int first, int end, int n) {
+    for (int i = first; i < end; i++) {
+      if (!isTried(tried, i) && n-- == 0) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  private int countUntried(long[] tried, int first, int end) {
+    int count = 0;
+    for (int i = first; i < end; i++) {
+      if (!isTried(tried, i)) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /** Weighted random pick among the untried elements of the highest q tier left. */
+  int selectWeighted(long[] tried) {
+    int first = firstUntried(tried);
+    if (first < 0) {
+      return -1;
+    }
+    int start = tierStart[first];
+    int end = tierEnd[first];
+    if (tierWeight[first] == 0) {
+      return selectRandom(tried);
+    }
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    // rejection sampling on the full tier keeps the distribution of the untried elements exact
+    for (int attempt = 0; attempt < MAX_ALIAS_ATTEMPTS; attempt++) {
+      int index = start + random.nextInt(end - start);
+      int selected = random.nextDouble() < aliasProbability[index] ? index : alias[index];
+      if (!isTried(tried, selected)) {
+        return selected;
+      }
+    }
+    long untriedWeight = 0;
+    for (int i = first; i < end; i++) {
+      if (!isTried(tried, i)) {
+        untriedWeight += weights[i];
+      }
+    }
+    if (untriedWeight == 0) {
+      return selectRandom(tried);
+    }
+    long pick = random.nextLong(untriedWeight);
+    for (int i = first; i < end; i++) {
+      if (!isTried(tried, i) && (pick -= weights[i]) < 0) {
+        return i;
+      }
+    }
+    return first;
+  }
+
+  /** Uniform random pick among the untried elements of the highest q tier left. */
+  int selectRandom(long[] tried) {
+    int first = firstUntried(tried);
+    if (first < 0) {
+      return -1;
+    }
+    int end = tierEnd[first];
+    int untried = countUntried(tried, first, end);
+    return nthUntried(tried, first, end, ThreadLocalRandom.current().nextInt(untried));
+  }
+
+  /** Uniform random pick among all untried elements, ignoring q-values. */
+  int selectAnyRandom(long[] tried) {
+    int untried = untriedCount(tried);
+    if (untried == 0) {
+      return -1;
+    }
+    return nthUntried(tried, 0, elements.length, ThreadLocalRandom.current().nextInt(untried));
+  }
+
+  /** {@link HashAlgorithm} over the untried elements of the highest q tier left. */
+  int selectModuloHash(long[] tried, String key) {
+    int first = firstUntried(tried);
+    if (first < 0) {
+      return -1;
+    }
+    int end = tierEnd[first];
+    int index = HashAlgorithm.selectIndex(key, countUntried(tried, first, end));
+    return index != -1 ? nthUntried(tried, first, end, index) : -1;
+  }
+
+  /** {@link RendezvousHash} over the untried elements of the highest q tier left. */
+  int selectRendezvous(long[] tried, String key) {
+    int first = firstUntried(tried);
+    if (first < 0 || key == null) {
+      return first;
+    }
+    long keyHash = RendezvousHash.hash(key);
+    int selected = -1;
+    double highestScore = -1;
+    for (int i = first; i < tierEnd[first]; i++) {
+      if (isTried(tried, i)) {
+        continue;
+      }
+      double score = RendezvousHash.score(keyHash, hashKeys[i], weights[i]);
+      if (score > highestScore) {
+        highestScore = score;
+        selected = i;
+      }
+    }
+    return selected;
+  }
+
+  /**
+   * Power of two choices among the untried elements of the highest q tier left: picks two of them
+   * at random and returns the less loaded one. Weights are not considered, the load is.
+   */
+  int selectLeastLoaded(long[] tried, ToDoubleFunction<LBElementStats> load) {
+    int first = firstUntried(tried);
+    if (first < 0) {
+      return -1;
+    }
+    int end = tierEnd[first];
+    int untried = countUntried(tried, first, end);
+    if (untried == 1) {
+      return first;
+    }
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    int n = random.nextInt(untried);
+    int m = random.nextInt(untried - 1);
+    if (m >= n) {
+      m++;
+    }
+    int one = nthUntried(tried, first, end, n);
+    int other = nthUntried(tried, first, end, m);
+    return load.applyAsDouble(stats[other]) < load.applyAsDouble(stats[one]) ? other : one;
+  }
+}
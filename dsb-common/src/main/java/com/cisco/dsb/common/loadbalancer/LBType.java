@@ -1,110 +1,67 @@
 package com.cisco.dsb.common.loadbalancer;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
-import java.util.*;
-import java.util.concurrent.ThreadLocalRandom;
-import java.util.function.BiFunction;
-import lombok.Getter;
+import java.util.function.ToDoubleFunction;
 
 @SuppressFBWarnings
 public enum LBType {
-  MS_ID(hashBased()), // using MS_ID key to pick the element if qValue is equal
+  MS_ID(LBSnapshot::selectModuloHash), // using MS_ID key to pick the element if qValue is equal
+  CONSISTENT_HASH(
+      LBSnapshot::selectRendezvous), // like MS_ID, but weight aware and stable when elements change
   ONCE(single()), // picking only one element randomly from the treeSet, ignoring highestQ
-  HIGHEST_Q(highestQ()), // picking the first element of the treeset
+  HIGHEST_Q(highestQ()), // picking a random element among the highest q elements
   HUNT(weightBased()), // HUNT group using weight based algo to get next element
   WEIGHT(
-      weightBased()); // if qValue is equal, then weight based random distribution is used to pick
+      weightBased()), // if qValue is equal, then weight based random distribution is used to pick
   // the next element
+  // if qValue is equal, the better of two random elements by requests in flight
+  LEAST_OUTSTANDING(leastLoaded(LBElementStats::getOutstanding)),
+  // if qValue is equal, the better of two random elements by response time EWMA and requests in
+  // flight
+  PEAK_EWMA(leastLoaded(LBElementStats::getCost));
 
-  @Getter private BiFunction<TreeSet<LBElement>, String, LBElement> selectElement;
+  // algo to choose an Element from the snapshot, skipping the ones already tried
+  final Selector selector;
 
-  LBType(BiFunction<TreeSet<LBElement>, String, LBElement> selectElement) {
-    this.selectElement = selectElement;
+  LBType(Selector selector) {
+    this.selector = selector;
   }
 
-  private static BiFunction<TreeSet<LBElement>, String, LBElement> hashBased() {
-    return (elementsToSelect, key) -> {
-      List<LBElement> highestQvalueElements = getHighestQElements(elementsToSelect);
-      LBElement selectedElement;
-      int index = HashAlgorithm.selectIndex(key, highestQvalueElements.size());
-      selectedElement = (index != -1 ? highestQvalueElements.get(index) : null);
-      return selectedElement;
-    };
+  /** Selects the index of the next element to try in a {@link LBSnapshot}. */
+  @FunctionalInterface
+  interface Selector {
+    /**
+     * @param snapshot elements to select from
+     * @param tried bitset of the elements already tried, selectors may mark more of them
+     * @param key key of the LoadBalancer, used by hash based selection
+     * @return index of the selected element, -1 if every element was tried
+     */
+    int select(LBSnapshot snapshot, long[] tried, String key);
   }
 
-  private static List<LBElement> getHighestQElements(TreeSet<LBElement> elementsToSelect) {
-    float highestQValue = elementsToSelect.first().getPriority();
-    ArrayList<LBElement> highestQvalueElements = new ArrayList<>();
-    for (LBElement element : elementsToSelect) {
-      if (Float.compare(highestQValue, element.getPriority()) == 0)
-        highestQvalueElements.add(element);
-      else break;
-    }
-    return highestQvalueElements;
-  }
-
-  private static BiFunction<TreeSet<LBElement>, String, LBElement> weightBased() {
-    return (elementsToSelect, key) -> {
-      List<LBElement> highestQvalueElements;
-      highestQvalueElements = getHighestQElements(elementsToSelect);
-      int[] weights = new int[highestQvalueElements.size() + 1];
-      weights[0] = 0;
-      for (int i = 1; i < weights.length; i++) {
-        weights[i] = highestQvalueElements.get(i - 1).getWeight() + weights[i - 1];
-      }
-      // Binary search to find index of rand
-      int first, mid, last;
-      int rand = ThreadLocalRandom.current().nextInt(weights[weights.length - 1]);
-      first = 0;
-      last = weights.length - 1;
-
-      while (first <= last) {
-        mid = first + ((last - first) / 2);
-
-        if (weights[mid] < rand) {
-          first = mid + 1;
-        } else if (weights[mid] > rand) {
-          last = mid - 1;
-        } else {
-          // key found
-          return highestQvalueElements.get(mid);
-        }
-      }
-      // key not found
-      return highestQvalueElements.get(first - 1);
-    };
+  private static Selector weightBased() {
+    return (snapshot, tried, key) -> snapshot.selectWeighted(tried);
   }
 
   /**
-   * Select only one element and clear the treeset, so that next call does not give any element. No
-   * priority given to qValue
+   * Select only one element and mark every element as tried, so that next call does not give any
+   * element. No priority given to qValue
    *
-   * @return LBElement - selected element
+   * @return Selector - selects the element
    */
-  private static BiFunction<TreeSet<LBElement>, String, LBElement> single() {
-    return (elementsToSelect, key) -> {
-      int index = ThreadLocalRandom.current().nextInt(elementsToSelect.size());
-      int i = 0;
-      LBElement selectedElement = null;
-      for (LBElement element : elementsToSelect) {
-        if (i == index) {
-          selectedElement = element;
-          elementsToSelect.clear();
-          break;
-        }
-        i++;
-      }
-      return selectedElement;
+  private static Selector single() {
+    return (snapshot, tried, key) -> {
+      int selected = snapshot.selectAnyRandom(tried);
+      snapshot.markAllTried(tried);
+      return selected;
     };
   }
 
-  private static BiFunction<TreeSet<LBElement>, String, LBElement> highestQ() {
-    return (elementsToSelect, key) -> {
-      List<LBElement> highestQvalueElements = getHighestQElements(elementsToSelect);
-      LBElement selectedElement =
-          highestQvalueElements.get(
-              ThreadLocalRandom.current().nextInt(highestQvalueElements.size()));
-      return selectedElement;
-    };
+  private static Selector leastLoaded(ToDoubleFunction<LBElementStats> load) {
+    return (snapshot, tried, key) -> snapshot.selectLeastLoaded(tried, load);
+  }
+
+  private static Selector highestQ() {
+    return (snapshot, tried, key) -> snapshot.selectRandom(tried);
   }
 }
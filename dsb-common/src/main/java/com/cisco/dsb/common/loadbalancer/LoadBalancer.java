@@ -1,8 +1,6 @@
 package com.cisco.dsb.common.loadbalancer;
 
-import java.util.Collection;
 import java.util.TreeSet;
-import java.util.function.BiFunction;
 import javax.annotation.Nullable;
 import lombok.CustomLog;
 import lombok.Setter;
@@ -10,10 +8,13 @@ import lombok.Setter;
 @CustomLog
 public final class LoadBalancer {
   private LBElement currentElement;
-  private TreeSet<LBElement> elementsToTry;
+  // shared, precomputed elements of the LoadBalancable
+  private LBSnapshot snapshot;
+  // bitset over the snapshot of the elements already tried
+  private long[] tried;
   @Setter private String key;
   // algo to choose an Element from given elements
-  private BiFunction<TreeSet<LBElement>, String, LBElement> selectElement;
+  private LBType.Selector selector;
 
   private LoadBalancer() {}
 
@@ -27,8 +28,9 @@ public final class LoadBalancer {
    */
   public static LoadBalancer of(LoadBalancable loadBalancable) {
     LoadBalancer loadBalancer = new LoadBalancer();
-    loadBalancer.selectElement = loadBalancable.getLbType().getSelectElement();
-    loadBalancer.initialiseTreeSet(loadBalancable.getElements());
+    loadBalancer.selector = loadBalancable.getLbType().selector;
+    loadBalancer.snapshot = LBSnapshot.of(loadBalancable.getElements());
+    loadBalancer.tried = loadBalancer.snapshot.newTried();
     return loadBalancer;
   }
 
@@ -42,13 +44,13 @@ public final class LoadBalancer {
    */
   @Nullable
   public LBElement getNextElement() {
-    if (elementsToTry.isEmpty()) {
+    int selected = isEmpty() ? -1 : selector.select(snapshot, tried, key);
+    if (selected < 0) {
       logger.warn("No more Elements to try");
       return null;
     }
-    LBElement selectedElement = selectElement.apply(elementsToTry, key);
-    elementsToTry.remove(selectedElement);
-    currentElement = selectedElement;
+    LBSnapshot.markTried(tried, selected);
+    currentElement = snapshot.get(selected);
     return currentElement;
   }
 
@@ -62,19 +64,22 @@ public final class LoadBalancer {
   }
 
   /**
-   * create a TreeSet
+   * Elements not tried yet, in the order of their preference. A new set is built on every call, it
+   * is meant for inspection only.
    *
-   * @param lbElements - Elements to be loadbalanced
+   * @return elements left to try
    */
-  private void initialiseTreeSet(Collection<? extends LBElement> lbElements) {
-    elementsToTry = new TreeSet<>(lbElements);
-  }
-
   public TreeSet<? extends LBElement> getElementsToTry() {
-    return this.elementsToTry;
+    TreeSet<LBElement> elementsToTry = new TreeSet<>();
+    for (int i = 0; i < snapshot.size(); i++) {
+      if (!LBSnapshot.isTried(tried, i)) {
+        elementsToTry.add(snapshot.get(i));
+      }
+    }
+    return elementsToTry;
   }
 
   public boolean isEmpty() {
-    return this.elementsToTry.isEmpty();
+    return snapshot.untriedCount(tried) == 0;
   }
 }
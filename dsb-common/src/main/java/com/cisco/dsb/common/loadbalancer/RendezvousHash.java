@@ -0,0 +1,80 @@
+package com.cisco.dsb.common.loadbalancer;
+
+import java.util.List;
+
+/**
+ * Weighted rendezvous (highest random weight) hashing. Every element gets a score derived from the
+ * key and the element's {@link LBElement#getHashKey()}, and the element with the highest score is
+ * selected. Adding or removing an element only moves the keys that element wins or won, i.e. ~1/N
+ * of them, unlike {@link HashAlgorithm} where almost every key moves when the list size changes.
+ *
+ * <p>Scores follow the weighted variant (score = -weight / ln(u), u uniform in (0, 1)), so an
+ * element gets a share of the keys proportional to its weight. Selection walks the elements once
+ * and does not allocate.
+ */
+public final class RendezvousHash {
+
+  private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+  private static final long FNV_PRIME = 0x100000001b3L;
+  private static final double TWO_POW_53 = 0x1.0p53;
+
+  private RendezvousHash() {}
+
+  /**
+   * Select the element with the highest score for the key.
+   *
+   * @param key Key used to select the element, null selects the first element.
+   * @param elements elements to select from.
+   * @return the selected element, or null if there are no elements.
+   */
+  public static <E extends LBElement> E select(String key, List<E> elements) {
+    if (elements.isEmpty()) {
+      return null;
+    }
+    if (key == null) {
+      return elements.get(0);
+    }
+    long keyHash = hash(key);
+    E selected = null;
+    double highestScore = -1;
+    for (E element : elements) {
+      double score = score(keyHash, element);
+      if (score > highestScore) {
+        highestScore = score;
+        selected = element;
+      }
+    }
+    return selected;
+  }
+
+  static double score(long keyHash, LBElement element) {
+    return score(keyHash, hash(element.getHashKey()), Math.max(element.getWeight(), 0));
+  }
+
+  static double score(long keyHash, long elementHash, int weight) {
+    long combined = mix(keyHash ^ elementHash);
+    // top 53 bits as a uniform double in (0, 1)
+    double uniform = ((combined >>> 11) + 0.5) / TWO_POW_53;
+    return -weight / Math.log(uniform);
+  }
+
+  /** 64 bit FNV-1a over the chars of s, null hashes like the empty string */
+  static long hash(String s) {
+    long hash = FNV_OFFSET_BASIS;
+    if (s == null) {
+      return hash;
+    }
+    for (int i = 0; i < s.length(); i++) {
+      hash ^= s.charAt(i);
+      hash *= FNV_PRIME;
+    }
+    return hash;
+  }
+
+  // SplitMix64 finalizer, spreads the FNV output over all 64 bits
+  private static long mix(long z) {
+    z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+    z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+    return z ^ (z >>> 31);
+  }
+}
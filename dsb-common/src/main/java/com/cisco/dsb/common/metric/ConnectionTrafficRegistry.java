@@ -0,0 +1,123 @@
+package com.cisco.dsb.common.metric;
+
+import com.cisco.dsb.common.sip.util.SipUtils;
+import com.cisco.dsb.common.util.log.event.Event.DIRECTION;
+import gov.nist.javax.sip.stack.MessageChannel;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import lombok.Getter;
+
+/**
+ * Packets and bytes sent and received per connection, i.e. per transport, local and remote
+ * address. A message channel resolves the slot of its peer once and keeps it, so counting a packet
+ * is a couple of atomic adds on the slot. The counts are taken, and reset, once per interval; slots
+ * without traffic in an interval are retired, channels still holding them resolve a new one. A
+ * packet counted while its slot is being retired may be missed.
+ */
+public final class ConnectionTrafficRegistry {
+
+  private final Map<String, Slot> slots = new ConcurrentHashMap<>();
+
+  /** @return slot of the connection between the channel and its current peer */
+  public Slot slotOf(MessageChannel channel) {
+    String transport = channel.getTransport().toUpperCase();
+    String key = transport + "-" + channel.getHostPort() + "-" + channel.getPeerHostPort();
+    Slot slot = slots.get(key);
+    if (slot == null || slot.retired) {
+      slot = slots.compute(key, (k, existing) -> isLive(existing) ? existing : new Slot(channel));
+    }
+    return slot;
+  }
+
+  private static boolean isLive(Slot slot) {
+    return slot != null && !slot.retired;
+  }
+
+  /** @return counts of the connections with traffic since the previous snapshot, which are reset */
+  public List<Snapshot> snapshotAndReset() {
+    List<Snapshot> snapshots = new ArrayList<>();
+    slots.forEach(
+        (key, slot) -> {
+          boolean idle = true;
+          for (DIRECTION direction : DIRECTION.values()) {
+            long packets = slot.counts.getAndSet(Slot.PACKETS + 2 * direction.ordinal(), 0);
+            long bytes = slot.counts.getAndSet(Slot.BYTES + 2 * direction.ordinal(), 0);
+            if (packets > 0) {
+              snapshots.add(new Snapshot(slot, direction, packets, bytes));
+              idle = false;
+            }
+          }
+          if (idle) {
+            slot.retired = true;
+            slots.remove(key, slot);
+          }
+        });
+    return snapshots;
+  }
+
+  /** Counts of a single connection, held on to by the channels using it */
+  public static final class Slot {
+    private static final int PACKETS = 0;
+    private static final int BYTES = 1;
+
+    @Getter private final String transport;
+    @Getter private final String localAddress;
+    @Getter private final int localPort;
+    private final InetAddress remoteInetAddress;
+    @Getter private final String remoteAddress;
+    @Getter private final int remotePort;
+    private final String inboundId;
+    private final String outboundId;
+    // packets and bytes, per direction
+    private final AtomicLongArray counts = new AtomicLongArray(2 * DIRECTION.values().length);
+    private volatile boolean retired;
+
+    private Slot(MessageChannel channel) {
+      this.transport = channel.getTransport().toUpperCase();
+      this.localAddress = channel.getHost();
+      this.localPort = channel.getPort();
+      this.remoteInetAddress = channel.getPeerInetAddress();
+      this.remoteAddress = channel.getPeerAddress();
+      this.remotePort = channel.getPeerPort();
+      this.inboundId = SipUtils.getConnectionId(DIRECTION.IN.toString(), transport, channel);
+      this.outboundId = SipUtils.getConnectionId(DIRECTION.OUT.toString(), transport, channel);
+    }
+
+    /** @return true if the slot still counts the traffic with the given peer */
+    public boolean isFor(InetAddress peerAddress, int peerPort) {
+      return !retired
+          && remotePort == peerPort
+          && peerAddress != null
+          && peerAddress.equals(remoteInetAddress);
+    }
+
+    public void count(DIRECTION direction, int bytes) {
+      counts.incrementAndGet(PACKETS + 2 * direction.ordinal());
+      counts.addAndGet(BYTES + 2 * direction.ordinal(), bytes);
+    }
+
+    public String getId(DIRECTION direction) {
+      return direction == DIRECTION.IN ? inboundId : outboundId;
+    }
+  }
+
+  /** Traffic of a connection in one direction, in an interval */
+  @Getter
+  public static final class Snapshot {
+    private final Slot slot;
+    private final DIRECTION direction;
+    private final long packets;
+    private final long bytes;
+
+    Snapshot(Slot slot, DIRECTION direction, long packets, long bytes) {
+      this.slot = slot;
+      this.direction = direction;
+      this.packets = packets;
+      this.bytes = bytes;
+    }
+  }
+}
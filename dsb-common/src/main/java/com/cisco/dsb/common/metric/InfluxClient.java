@@ -5,11 +5,13 @@
 package com.cisco.dsb.common.metric;
 
 import com.cisco.dsb.common.config.DhruvaProperties;
+import com.cisco.dsb.common.config.sip.CommonConfigurationProperties;
 import com.cisco.wx2.metrics.InfluxPoint;
 import com.cisco.wx2.server.InfluxDBClientHelper;
 import java.time.Instant;
 import java.util.Set;
 import java.util.stream.Collectors;
+import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 import javax.inject.Inject;
 import org.apache.commons.lang3.StringUtils;
@@ -18,16 +20,54 @@ public class InfluxClient implements MetricClient {
 
   @Inject private InfluxDBClientHelper influxDBClientHelper;
   @Inject private DhruvaProperties dhruvaProperties;
+  @Inject private CommonConfigurationProperties commonConfigurationProperties;
+  // null while batching is disabled, points are then written one by one
+  private MetricBatchWriter<InfluxPoint> batchWriter;
 
   public static final String INSTANCE_NAME_KEY = "instanceName";
   public static final String SERVICE_NAME_KEY = "serviceName";
+  public static final String METRICS_DROPPED_MEASUREMENT = "dhruva.metricsDropped";
+
+  @PostConstruct
+  void startBatchWriter() {
+    if (commonConfigurationProperties == null
+        || !commonConfigurationProperties.isMetricBatchingEnabled()) {
+      return;
+    }
+    batchWriter =
+        new MetricBatchWriter<>(
+            "influx-batch-writer",
+            influxDBClientHelper::writePoints,
+            commonConfigurationProperties.getMetricBufferSize(),
+            commonConfigurationProperties.getMetricBatchSize(),
+            commonConfigurationProperties.getMetricFlushIntervalMillis(),
+            this::sendDroppedMetric);
+    batchWriter.start();
+  }
+
+  // written directly, the buffer being full when points are dropped
+  private void sendDroppedMetric(long dropped) {
+    Metric metric =
+        Metrics.newMetric()
+            .measurement(METRICS_DROPPED_MEASUREMENT)
+            .field("count", dropped)
+            .field("total", batchWriter.getDropped());
+    metric.timestamp(Instant.now());
+    metric.tag(INSTANCE_NAME_KEY, getInstanceName());
+    metric.tag(SERVICE_NAME_KEY, dhruvaProperties.getServiceNameEnvVar());
+    influxDBClientHelper.writePointAsync((InfluxPoint) metric.get());
+  }
 
   @Override
   public void sendMetric(Metric metric) {
     metric.timestamp(Instant.now());
     metric.tag(INSTANCE_NAME_KEY, getInstanceName());
     metric.tag(SERVICE_NAME_KEY, dhruvaProperties.getServiceNameEnvVar());
-    influxDBClientHelper.writePointAsync((InfluxPoint) metric.get());
+    if (batchWriter != null) {
+      batchWriter.offer((InfluxPoint) metric.get());
+    } else {
+      influxDBClientHelper.writePointAsync((InfluxPoint) metric.get());
+    }
   }
 
   @Override
@@ -39,7 +79,12 @@ public class InfluxClient implements MetricClient {
             .map(metric -> metric.tag(SERVICE_NAME_KEY, dhruvaProperties.getServiceNameEnvVar()))
             .map(metric -> (InfluxPoint) metric.get())
             .collect(Collectors.toSet());
-    if (!influxPoints.isEmpty()) {
+    if (influxPoints.isEmpty()) {
+      return;
+    }
+    if (batchWriter != null) {
+      influxPoints.forEach(batchWriter::offer);
+    } else {
       influxDBClientHelper.writePoints(influxPoints);
     }
   }
@@ -61,6 +106,9 @@ public class InfluxClient implements MetricClient {
 
   @PreDestroy
   private void destroy() {
+    if (batchWriter != null) {
+      batchWriter.stop();
+    }
     influxDBClientHelper.shutdown();
   }
 }
@@ -0,0 +1,106 @@
+package com.cisco.dsb.common.metric;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import lombok.Getter;
+
+/**
+ * Lock free histogram of latencies, flushed as percentiles once per interval instead of a point per
+ * call. Values are counted in microseconds in log-linear buckets, 16 linear sub buckets per power
+ * of 2, so a percentile is off by at most 1/16 of its value. The counts are striped by thread, so
+ * that threads recording at the same time rarely update the same cache line.
+ */
+public final class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 4;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  // values up to 2^36us (~19h), larger ones are counted in the last bucket
+  private static final int MAX_EXPONENT = 36;
+  static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+  private static final int STRIPES =
+      Math.min(8, Integer.highestOneBit(Runtime.getRuntime().availableProcessors()));
+
+  private final AtomicLongArray counts = new AtomicLongArray(STRIPES * BUCKETS);
+  private final LongAccumulator maxMicros = new LongAccumulator(Math::max, 0);
+
+  public void record(long duration, TimeUnit unit) {
+    long micros = unit.toMicros(duration);
+    if (micros < 0) {
+      return;
+    }
+    int stripe = (int) Thread.currentThread().getId() & (STRIPES - 1);
+    counts.incrementAndGet(stripe * BUCKETS + bucketOf(micros));
+    maxMicros.accumulate(micros);
+  }
+
+  static int bucketOf(long micros) {
+    if (micros < SUB_BUCKETS) {
+      return (int) micros;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(micros);
+    if (exponent > MAX_EXPONENT) {
+      return BUCKETS - 1;
+    }
+    int shift = exponent - SUB_BUCKET_BITS;
+    return (shift + 1) * SUB_BUCKETS + (int) ((micros >>> shift) & (SUB_BUCKETS - 1));
+  }
+
+  /** @return highest value counted in the bucket */
+  static long highestValueOf(int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    int shift = bucket / SUB_BUCKETS - 1;
+    long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+    return lowest + (1L << shift) - 1;
+  }
+
+  /** @return values recorded since the previous snapshot, which are cleared */
+  public Snapshot snapshotAndReset() {
+    long[] buckets = new long[BUCKETS];
+    long count = 0;
+    for (int i = 0; i < counts.length(); i++) {
+      long bucketCount = counts.getAndSet(i, 0);
+      buckets[i % BUCKETS] += bucketCount;
+      count += bucketCount;
+    }
+    long max = maxMicros.getThenReset();
+    return new Snapshot(
+        count,
+        valueAt(buckets, count, 0.5, max),
+        valueAt(buckets, count, 0.9, max),
+        valueAt(buckets, count, 0.99, max),
+        max);
+  }
+
+  private static long valueAt(long[] buckets, long count, double quantile, long max) {
+    long rank = Math.max(1, (long) Math.ceil(quantile * count));
+    long seen = 0;
+    for (int bucket = 0; bucket < buckets.length; bucket++) {
+      seen += buckets[bucket];
+      if (seen >= rank) {
+        return Math.min(highestValueOf(bucket), max);
+      }
+    }
+    return max;
+  }
+
+  /** Percentiles of the latencies recorded in an interval, in microseconds */
+  @Getter
+  public static final class Snapshot {
+    private final long count;
+    private final long p50;
+    private final long p90;
+    private final long p99;
+    private final long max;
+
+    Snapshot(long count, long p50, long p90, long p99, long max) {
+      this.count = count;
+      this.p50 = p50;
+      this.p90 = p90;
+      this.p99 = p99;
+      this.max = max;
+    }
+  }
+}
@@ -0,0 +1,46 @@
+package com.cisco.dsb.common.metric;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latency of a single request, carried along with the request instead of being looked up by
+ * Call-ID. Started when the request is received, split every time it is sent out and ended once,
+ * when it is done with.
+ */
+public final class LatencyTimer {
+
+  private final long startNanos;
+  // elapsed at the latest split, 0 if never split
+  private final AtomicLong splitNanos = new AtomicLong();
+  private final AtomicBoolean ended = new AtomicBoolean();
+
+  public LatencyTimer() {
+    this(System.nanoTime());
+  }
+
+  public LatencyTimer(long startNanos) {
+    this.startNanos = startNanos;
+  }
+
+  /** Marks the time the request was last sent out, out of order splits are ignored */
+  public void split(long nowNanos) {
+    long elapsed = Math.max(1, nowNanos - startNanos);
+    splitNanos.accumulateAndGet(elapsed, Math::max);
+  }
+
+  /**
+   * @return time from the start to the latest split, or to now if never split. -1 if already ended
+   */
+  public long end(long nowNanos) {
+    if (!ended.compareAndSet(false, true)) {
+      return -1;
+    }
+    long split = splitNanos.get();
+    return split > 0 ? split : Math.max(0, nowNanos - startNanos);
+  }
+
+  public boolean isEnded() {
+    return ended.get();
+  }
+}
@@ -0,0 +1,158 @@
+package com.cisco.dsb.common.metric;
+
+import com.cisco.dsb.common.util.MpscRingBuffer;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import lombok.CustomLog;
+
+/**
+ * Writes metric points in batches from a single thread, so that the threads emitting them only
+ * pay for an offer to a bounded lock free buffer. A batch is written once it is full or once its
+ * oldest point has waited for the flush interval. If the sink falls behind and the buffer fills
+ * up, further points are dropped and counted rather than blocking the emitting threads. While
+ * idle, the writer parks until a point is offered or the pending batch is due.
+ */
+@CustomLog
+public final class MetricBatchWriter<E> {
+
+  private final MpscRingBuffer<E> buffer;
+  private final Consumer<Set<E>> sink;
+  private final int batchSize;
+  private final long flushIntervalNanos;
+  private final LongConsumer droppedListener;
+  private final Thread writer;
+  private final LongAdder dropped = new LongAdder();
+  private final LongAdder written = new LongAdder();
+  private volatile boolean running;
+  // set by the writer before it parks, emitting threads only unpark it then
+  private volatile boolean waiting;
+  // only accessed by the writer thread
+  private long droppedReported;
+
+  public MetricBatchWriter(
+      String name, Consumer<Set<E>> sink, int bufferSize, int batchSize, long flushIntervalMillis) {
+    this(name, sink, bufferSize, batchSize, flushIntervalMillis, null);
+  }
+
+  /**
+   * @param droppedListener called by the writer thread with the number of points dropped since it
+   *     was last called, after a batch is written. May be null
+   */
+  public MetricBatchWriter(
+      String name,
+      Consumer<Set<E>> sink,
+      int bufferSize,
+      int batchSize,
+      long flushIntervalMillis,
+      LongConsumer droppedListener) {
+    this.droppedListener = droppedListener;
+    this.buffer = new MpscRingBuffer<>(bufferSize);
+    this.sink = sink;
+    this.batchSize = Math.max(1, batchSize);
+    this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+    this.writer = new Thread(this::run, name);
+    this.writer.setDaemon(true);
+  }
+
+  public void start() {
+    running = true;
+    writer.start();
+  }
+
+  /** Stops the writer once the points buffered so far are written */
+  public void stop() {
+    running = false;
+    LockSupport.unpark(writer);
+    try {
+      writer.join(TimeUnit.NANOSECONDS.toMillis(flushIntervalNanos) + 1000);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /** @return false if the point was dropped, the writer being too far behind */
+  public boolean offer(E point) {
+    if (buffer.offer(point)) {
+      if (waiting) {
+        LockSupport.unpark(writer);
+      }
+      return true;
+    }
+    dropped.increment();
+    return false;
+  }
+
+  public long getDropped() {
+    return dropped.sum();
+  }
+
+  public long getWritten() {
+    return written.sum();
+  }
+
+  private void run() {
+    Set<E> batch = new HashSet<>();
+    long deadline = 0;
+    while (running || !buffer.isEmpty()) {
+      E point = buffer.poll();
+      if (point != null) {
+        if (batch.isEmpty()) {
+          deadline = System.nanoTime() + flushIntervalNanos;
+        }
+        batch.add(point);
+        if (batch.size() >= batchSize) {
+          batch = flush(batch);
+        }
+        continue;
+      }
+      if (!batch.isEmpty() && (!running || System.nanoTime() - deadline >= 0)) {
+        batch = flush(batch);
+        continue;
+      }
+      waiting = true;
+      // a point offered before the flag was visible is seen here, one offered after unparks
+      if (running && buffer.isEmpty()) {
+        if (batch.isEmpty()) {
+          LockSupport.park(this);
+        } else {
+          LockSupport.parkNanos(this, deadline - System.nanoTime());
+        }
+      }
+      waiting = false;
+    }
+    if (!batch.isEmpty()) {
+      flush(batch);
+    }
+  }
+
+  private Set<E> flush(Set<E> batch) {
+    try {
+      sink.accept(batch);
+      written.add(batch.size());
+    } catch (Exception e) {
+      logger.error("Failed to write a batch of {} metrics", batch.size(), e);
+    }
+    long droppedSoFar = dropped.sum();
+    if (droppedSoFar != droppedReported) {
+      logger.warn(
+          "Dropped {} metrics as the writer is falling behind, {} in total",
+          droppedSoFar - droppedReported,
+          droppedSoFar);
+      if (droppedListener != null) {
+        try {
+          droppedListener.accept(droppedSoFar - droppedReported);
+        } catch (Exception e) {
+          logger.error("Failed to report {} dropped metrics", droppedSoFar - droppedReported, e);
+        }
+      }
+      droppedReported = droppedSoFar;
+    }
+    // the sink may hold on to the batch
+    return new HashSet<>();
+  }
+}
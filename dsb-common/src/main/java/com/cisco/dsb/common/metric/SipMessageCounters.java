@@ -0,0 +1,103 @@
+package com.cisco.dsb.common.metric;
+
+import com.cisco.dsb.common.transport.Transport;
+import com.cisco.dsb.common.util.log.event.Event.DIRECTION;
+import com.cisco.dsb.common.util.log.event.Event.MESSAGE_TYPE;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts of the SIP messages sent and received, per method, call type, message type, direction,
+ * transport and flags, emitted as a point per combination once per interval instead of a point per
+ * message. Counting a message allocates nothing once its method and call type have been seen.
+ */
+public final class SipMessageCounters {
+
+  private static final MESSAGE_TYPE[] MESSAGE_TYPES = MESSAGE_TYPE.values();
+  private static final DIRECTION[] DIRECTIONS = DIRECTION.values();
+  private static final Transport[] TRANSPORTS = Transport.values();
+  // isMidCall x isInternallyGenerated
+  private static final int FLAGS = 4;
+  static final int SLOTS = MESSAGE_TYPES.length * DIRECTIONS.length * TRANSPORTS.length * FLAGS;
+
+  // method (status code for responses) -> callType -> count per slot
+  private final Map<String, Map<String, AtomicLongArray>> counters = new ConcurrentHashMap<>();
+
+  public void increment(
+      String method,
+      MESSAGE_TYPE messageType,
+      DIRECTION direction,
+      Transport transport,
+      String callType,
+      boolean isMidCall,
+      boolean isInternallyGenerated) {
+    Map<String, AtomicLongArray> byCallType = counters.get(method);
+    if (byCallType == null) {
+      byCallType = counters.computeIfAbsent(method, key -> new ConcurrentHashMap<>());
+    }
+    String callTypeKey = callType == null ? "" : callType;
+    AtomicLongArray slots = byCallType.get(callTypeKey);
+    if (slots == null) {
+      slots = byCallType.computeIfAbsent(callTypeKey, key -> new AtomicLongArray(SLOTS));
+    }
+    slots.incrementAndGet(
+        slotOf(messageType, direction, transport, isMidCall, isInternallyGenerated));
+  }
+
+  static int slotOf(
+      MESSAGE_TYPE messageType,
+      DIRECTION direction,
+      Transport transport,
+      boolean isMidCall,
+      boolean isInternallyGenerated) {
+    int slot = messageType.ordinal();
+    slot = slot * DIRECTIONS.length + direction.ordinal();
+    slot = slot * TRANSPORTS.length + transport.ordinal();
+    return slot * FLAGS + (isMidCall ? 2 : 0) + (isInternallyGenerated ? 1 : 0);
+  }
+
+  /** @return a point per combination counted since the previous drain, which are cleared */
+  public Set<Metric> drain(String measurement) {
+    Set<Metric> metrics = new HashSet<>();
+    counters.forEach(
+        (method, byCallType) ->
+            byCallType.forEach(
+                (callType, slots) -> {
+                  for (int slot = 0; slot < SLOTS; slot++) {
+                    long count = slots.getAndSet(slot, 0);
+                    if (count > 0) {
+                      metrics.add(toMetric(measurement, method, callType, slot, count));
+                    }
+                  }
+                }));
+    return metrics;
+  }
+
+  private static Metric toMetric(
+      String measurement, String method, String callType, int slot, long count) {
+    int flags = slot % FLAGS;
+    slot /= FLAGS;
+    Transport transport = TRANSPORTS[slot % TRANSPORTS.length];
+    slot /= TRANSPORTS.length;
+    DIRECTION direction = DIRECTIONS[slot % DIRECTIONS.length];
+    MESSAGE_TYPE messageType = MESSAGE_TYPES[slot / DIRECTIONS.length];
+
+    Metric metric =
+        Metrics.newMetric()
+            .measurement(measurement)
+            .tag("method", method)
+            .tag("messageType", messageType.name())
+            .tag("direction", direction.name())
+            .tag("isMidCall", (flags & 2) != 0)
+            .tag("transport", transport.name())
+            .tag("isInternallyGenerated", (flags & 1) != 0)
+            .field("count", count);
+    if (!callType.isEmpty()) {
+      metric.tag("callType", callType);
+    }
+    return metric;
+  }
+}
@@ -20,6 +20,11 @@ public class SipMetricsContext implements AutoCloseable {
   // Value to be set for a metric
   private final long value;
 
+  // Latency of the request the event is about, null if not timed
+  @Getter private final LatencyTimer latencyTimer;
+  // When the event happened, the metric task may run later
+  @Getter private final long eventNanos = System.nanoTime();
+
   public enum State {
     proxyNewRequestReceived,
     proxyNewRequestSendSuccess,
@@ -41,6 +46,7 @@ public class SipMetricsContext implements AutoCloseable {
    * @param emitMetric If true, sends metric immediately and assumes event that generated this
    * @param callType holds information of internal calltype derived by dhruva, e.g: dialInPstn,
    *     dialInB2B metric was successful
+   * @param latencyTimer latency of the request the event is about, null if not timed
    */
   public SipMetricsContext(
       @NonNull MetricService metricsService,
@@ -48,10 +54,12 @@ public class SipMetricsContext implements AutoCloseable {
       String callId,
       long value,
       String callType,
+      LatencyTimer latencyTimer,
       boolean emitMetric) {
     this.metricsService = metricsService;
     this.value = value;
     this.callType = callType;
+    this.latencyTimer = latencyTimer;
     if (metricsService != null) {
       setCallId(callId);
       this.state = state;
@@ -70,6 +78,16 @@ public class SipMetricsContext implements AutoCloseable {
     }
   }
 
+  public SipMetricsContext(
+      @NonNull MetricService metricsService,
+      State state,
+      String callId,
+      long value,
+      String callType,
+      boolean emitMetric) {
+    this(metricsService, state, callId, value, callType, null, emitMetric);
+  }
+
   public SipMetricsContext(MetricService metricsService, State state, String callId) {
     this(metricsService, state, callId, false);
   }
@@ -88,6 +106,16 @@ public class SipMetricsContext implements AutoCloseable {
     this(metricsService, state, callId, 1, callType, emitMetric);
   }
 
+  public SipMetricsContext(
+      MetricService metricsService,
+      State state,
+      String callId,
+      String callType,
+      LatencyTimer latencyTimer,
+      boolean emitMetric) {
+    this(metricsService, state, callId, 1, callType, latencyTimer, emitMetric);
+  }
+
   public SipMetricsContext(MetricService metricsService, State state, long value) {
     this(metricsService, state, null, value, null, true);
   }
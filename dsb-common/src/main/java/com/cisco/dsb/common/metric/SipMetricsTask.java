@@ -23,43 +23,6 @@ public class SipMetricsTask implements Runnable {
     this.metricsContext = Preconditions.checkNotNull(ctx);
   }
 
-  // Returns timing duration in milliseconds
-  private long getTime(String metric) {
-    return metricsService.stopTimer(metricsContext.getCallId(), metric);
-  }
-
-  private long getTimeStopWatch(String metric) {
-    return metricsService.endStopWatch(metricsContext.getCallId(), metric);
-  }
-
-  private long getSplitTimeStopWatch(String metric) {
-    return metricsService.getSplitTimeStopWatch(metricsContext.getCallId(), metric);
-  }
-
-  // Record timing operation for given metric
-  private void time(String metric) {
-    final long duration = getTime(metric);
-
-    if (duration > 0) metricsService.time(metric, duration, TimeUnit.MILLISECONDS, metricsContext);
-    else logger.debug("duration is invalid, skipping sending the metric: " + metric);
-  }
-
-  private void timeStopWatch(String metric) {
-    long splitDuration = getSplitTimeStopWatch(metric);
-    // Stop the stopwatch and clean the cache
-    final long duration = getTimeStopWatch(metric);
-    logger.debug("total duration {} split duration", duration, splitDuration);
-    // If splitDuration is invalid due to invalid state , consider the total duration returned by
-    // stop api of stop watch
-    if (splitDuration < 0 && duration > 0) {
-      splitDuration = duration;
-    }
-    // We will consider split time
-    if (splitDuration > 0)
-      metricsService.time(metric, splitDuration, TimeUnit.MILLISECONDS, metricsContext);
-    else logger.debug("duration is invalid, skipping sending the metric: {}", metric);
-  }
-
   @Override
   @SuppressWarnings({"checkstyle:cyclomaticcomplexity", "checkstyle:methodlength"})
   public void run() {
@@ -67,11 +30,12 @@ public class SipMetricsTask implements Runnable {
   }
 
   private void handleState() {
+    LatencyTimer latencyTimer = metricsContext.getLatencyTimer();
+    if (latencyTimer == null || metricsContext.state == null) {
+      // request not timed, e.g. other than an initial INVITE
+      return;
+    }
     switch (metricsContext.state) {
-      case proxyNewRequestReceived:
-        logger.debug("incoming new request timer start {}", metricsContext.getCallId());
-        metricsService.startStopWatch(metricsContext.getCallId(), incomingRequest);
-        break;
       case proxyNewRequestSendSuccess:
       case proxyNewRequestSendFailure:
       case proxyNewRequestRetryNextElement:
@@ -79,15 +43,23 @@ public class SipMetricsTask implements Runnable {
             "split the request timer {} for event {}",
             metricsContext.getCallId(),
             metricsContext.state);
-        metricsService.splitStopWatch(metricsContext.getCallId(), incomingRequest);
+        latencyTimer.split(metricsContext.getEventNanos());
         break;
       case proxyNewRequestFinalResponseProcessed:
       case proxyRequestCancelReceived:
+        // latency till the request was last sent out, so excluding the time waiting for responses
+        long latency = latencyTimer.end(metricsContext.getEventNanos());
         logger.debug(
-            "incoming new request processing latency time end {}", metricsContext.getCallId());
-        timeStopWatch(incomingRequest);
+            "incoming new request processing latency {}ns for {}",
+            latency,
+            metricsContext.getCallId());
+        if (latency > 0) {
+          metricsService.recordLatency(
+              incomingRequest, metricsContext.getCallType(), latency, TimeUnit.NANOSECONDS);
+        }
         break;
       default:
+        // the timer starts along with the request
         break;
     }
   }
@@ -0,0 +1,102 @@
+package com.cisco.dsb.common.overload;
+
+import com.cisco.dsb.common.config.sip.CommonConfigurationProperties;
+import com.cisco.dsb.common.executor.DhruvaExecutorService;
+import com.cisco.dsb.common.executor.ExecutorType;
+import com.cisco.dsb.common.executor.HashedWheelTimer;
+import java.util.concurrent.TimeUnit;
+import lombok.CustomLog;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * Local load of the proxy, advertised to upstream clients through SIP overload control (RFC 7339,
+ * loss algorithm). Samples the signals that back up first once the proxy gets more traffic than it
+ * can handle, each normalised so that 1 is the point the proxy is overloaded at:
+ *
+ * <ul>
+ *   <li>tasks queued on the per Call-ID executor of the proxy, relative to its overload threshold
+ *   <li>how late the Timer C wheel processes its ticks
+ *   <li>how late the sampling itself runs, i.e. the scheduling latency of the host
+ * </ul>
+ *
+ * The load factor is the highest of them. From it the monitor derives the reduction, in percent,
+ * of new requests the clients are asked to drop: the share of the traffic admitted right now that
+ * brings the load back to 1. A higher reduction applies at once, a lower one by at most {@link
+ * #RECOVERY_STEP_PERCENT} per sample so that the traffic does not oscillate.
+ */
+@Service
+@CustomLog
+public class LoadMonitor {
+
+  static final long LAG_OVERLOAD_MILLIS = 100;
+  static final int RECOVERY_STEP_PERCENT = 10;
+
+  private final DhruvaExecutorService dhruvaExecutorService;
+  @Getter private final boolean enabled;
+  @Getter private final long validityMillis;
+  private final long intervalNanos;
+  // only accessed by the sampling thread
+  private long lastSampleNanos;
+  @Getter private volatile double loadFactor;
+  @Getter private volatile int reduction;
+  // oc-seq, increases with every change of the reduction, also across restarts
+  @Getter private volatile long sequence = System.currentTimeMillis();
+
+  @Autowired
+  public LoadMonitor(
+      DhruvaExecutorService dhruvaExecutorService,
+      CommonConfigurationProperties commonConfigurationProperties) {
+    this.dhruvaExecutorService = dhruvaExecutorService;
+    this.enabled = commonConfigurationProperties.isOverloadControlEnabled();
+    this.validityMillis = commonConfigurationProperties.getOverloadControlValidityMillis();
+    long intervalMillis = commonConfigurationProperties.getOverloadControlIntervalMillis();
+    this.intervalNanos = TimeUnit.MILLISECONDS.toNanos(intervalMillis);
+    if (!enabled) {
+      return;
+    }
+    dhruvaExecutorService.startScheduledExecutorService(ExecutorType.OVERLOAD_CONTROL);
+    dhruvaExecutorService
+        .getScheduledExecutorThreadPool(ExecutorType.OVERLOAD_CONTROL)
+        .scheduleWithFixedDelay(
+            () -> sample(System.nanoTime()), intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    logger.info("Overload control enabled, sampling the load every {}ms", intervalMillis);
+  }
+
+  void sample(long nowNanos) {
+    long lateNanos = lastSampleNanos == 0 ? 0 : nowNanos - lastSampleNanos - intervalNanos;
+    lastSampleNanos = nowNanos;
+
+    // only the executor of the configured mode is running, the others have no load
+    double load =
+        Math.max(
+            dhruvaExecutorService.getQueueLoad(ExecutorType.PROXY_PROCESSOR),
+            Math.max(
+                dhruvaExecutorService.getQueueLoad(ExecutorType.PROXY_PROCESSOR_BOUNDED),
+                dhruvaExecutorService.getQueueLoad(ExecutorType.PROXY_PROCESSOR_VIRTUAL)));
+    HashedWheelTimer timerC = dhruvaExecutorService.getTimer(ExecutorType.PROXY_CLIENT_TIMEOUT);
+    if (timerC != null) {
+      load = Math.max(load, timerC.getTickLagMillis() / (double) LAG_OVERLOAD_MILLIS);
+    }
+    load = Math.max(load, TimeUnit.NANOSECONDS.toMillis(lateNanos) / (double) LAG_OVERLOAD_MILLIS);
+    update(load);
+  }
+
+  void update(double load) {
+    loadFactor = load;
+    int current = reduction;
+    // share of all requests still admitted once the admitted ones are scaled down to a load of 1
+    double admitted = (100 - current) / 100.0 / Math.max(load, 0.01);
+    int target = (int) Math.round(100 * Math.max(0, 1 - admitted));
+    int next =
+        target >= current
+            ? Math.min(target, 100)
+            : Math.max(target, current - RECOVERY_STEP_PERCENT);
+    if (next != current) {
+      reduction = next;
+      sequence++;
+      logger.info("Load factor {}, overload control reduction {}% -> {}%", load, current, next);
+    }
+  }
+}
@@ -0,0 +1,19 @@
+package com.cisco.dsb.common.overload;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Overload control a next hop advertised in our Via of its response, read before the proxy removes
+ * that Via.
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class OverloadControl {
+  // percent of new requests to drop
+  private final int reduction;
+  private final long validityMillis;
+  private final long sequence;
+}
@@ -0,0 +1,103 @@
+package com.cisco.dsb.common.overload;
+
+import com.cisco.dsb.common.loadbalancer.LBElementStats;
+import gov.nist.core.NameValue;
+import gov.nist.javax.sip.header.Via;
+import gov.nist.javax.sip.message.SIPResponse;
+import java.text.ParseException;
+import javax.sip.header.ViaHeader;
+import lombok.CustomLog;
+
+/**
+ * Via header parameters of SIP overload control (RFC 7339), loss algorithm only. A client announces
+ * its support with an {@code oc} flag in the Via of its requests, the server answers with the
+ * percent of new requests to drop ({@code oc}), how long that applies ({@code oc-validity}) and
+ * the sequence of the values ({@code oc-seq}) in the same Via of the responses.
+ */
+@CustomLog
+public final class ViaOverloadControl {
+
+  public static final String OC = "oc";
+  public static final String OC_ALGO = "oc-algo";
+  public static final String OC_VALIDITY = "oc-validity";
+  public static final String OC_SEQ = "oc-seq";
+  public static final String ALGO_LOSS = "loss";
+  // applies when a server sends oc without oc-validity
+  static final long DEFAULT_VALIDITY_MILLIS = 500;
+
+  private ViaOverloadControl() {}
+
+  /** Announces support of the loss algorithm in the Via of a request we send */
+  public static void addClientSupport(ViaHeader viaHeader) throws ParseException {
+    Via via = (Via) viaHeader;
+    via.setParameter(new NameValue(OC, null, true));
+    via.setQuotedParameter(OC_ALGO, ALGO_LOSS);
+  }
+
+  /**
+   * Advertises the reduction of the load monitor in the top Via of a response we send, if the
+   * client of that Via supports the loss algorithm.
+   */
+  public static void advertise(SIPResponse response, LoadMonitor loadMonitor) {
+    if (loadMonitor == null || !loadMonitor.isEnabled()) {
+      return;
+    }
+    Via via = response.getTopmostVia();
+    if (via == null || via.getParameter(OC) == null) {
+      return;
+    }
+    // no oc-algo means the default loss algorithm
+    String algorithms = via.getParameter(OC_ALGO);
+    if (algorithms != null && !algorithms.contains(ALGO_LOSS)) {
+      return;
+    }
+    try {
+      via.removeParameter(OC);
+      via.setParameter(OC, String.valueOf(loadMonitor.getReduction()));
+      via.setQuotedParameter(OC_ALGO, ALGO_LOSS);
+      via.setParameter(OC_VALIDITY, String.valueOf(loadMonitor.getValidityMillis()));
+      via.setParameter(OC_SEQ, String.valueOf(loadMonitor.getSequence()));
+    } catch (ParseException e) {
+      logger.warn("Unable to advertise overload control in Via {}", via, e);
+    }
+  }
+
+  /**
+   * Reads the overload control a next hop advertised in our Via, the top one of its response. Our
+   * Via is removed before the response reaches the application, so this has to happen first.
+   *
+   * @return null if the next hop does not control its load
+   */
+  public static OverloadControl read(Via via) {
+    if (via == null) {
+      return null;
+    }
+    String oc = via.getParameter(OC);
+    // only the flag we sent, the next hop does not control its load
+    if (oc == null || oc.isEmpty()) {
+      return null;
+    }
+    String validity = via.getParameter(OC_VALIDITY);
+    String seq = via.getParameter(OC_SEQ);
+    try {
+      return new OverloadControl(
+          Integer.parseInt(oc),
+          validity == null ? DEFAULT_VALIDITY_MILLIS : Long.parseLong(validity),
+          seq == null ? 0 : Long.parseLong(seq));
+    } catch (NumberFormatException e) {
+      logger.warn("Ignoring invalid overload control in Via {}", via);
+      return null;
+    }
+  }
+
+  /** Takes over the overload control a next hop advertised, as read by {@link #read(Via)} */
+  public static void apply(OverloadControl overloadControl, LBElementStats stats) {
+    if (overloadControl == null || stats == null) {
+      return;
+    }
+    stats.updateOverloadControl(
+        overloadControl.getReduction(),
+        overloadControl.getValidityMillis(),
+        overloadControl.getSequence());
+  }
+}
@@ -0,0 +1,57 @@
+package com.cisco.dsb.common.ratelimiter;
+
+import java.util.Set;
+import lombok.CustomLog;
+
+/**
+ * Compiled form of an {@link AllowAndDenyList}. IP lists and IP range lists are merged into one
+ * {@link IpPrefixTrie} per direction, built once whenever the allow/deny lists are (re)configured.
+ */
+@CustomLog
+public final class AllowAndDenyMatcher {
+
+  private final IpPrefixTrie allow;
+  private final IpPrefixTrie deny;
+
+  private AllowAndDenyMatcher(IpPrefixTrie allow, IpPrefixTrie deny) {
+    this.allow = allow;
+    this.deny = deny;
+  }
+
+  public static AllowAndDenyMatcher compile(AllowAndDenyList allowAndDenyList) {
+    return new AllowAndDenyMatcher(
+        compile(allowAndDenyList.getAllowIPList(), allowAndDenyList.getAllowIPRangeList()),
+        compile(allowAndDenyList.getDenyIPList(), allowAndDenyList.getDenyIPRangeList()));
+  }
+
+  public boolean isAllowed(String remoteIP) {
+    return allow.matches(remoteIP);
+  }
+
+  public boolean isDenied(String remoteIP) {
+    return deny.matches(remoteIP);
+  }
+
+  private static IpPrefixTrie compile(Set<String> ipList, Set<String> ipRangeList) {
+    if ((ipList == null || ipList.isEmpty()) && (ipRangeList == null || ipRangeList.isEmpty())) {
+      return IpPrefixTrie.EMPTY;
+    }
+    IpPrefixTrie.Builder builder = IpPrefixTrie.builder();
+    add(builder, ipList);
+    add(builder, ipRangeList);
+    return builder.build();
+  }
+
+  private static void add(IpPrefixTrie.Builder builder, Set<String> ips) {
+    if (ips == null) {
+      return;
+    }
+    for (String ip : ips) {
+      try {
+        builder.add(ip);
+      } catch (IllegalArgumentException e) {
+        logger.error("Invalid IP/CIDR {} configured in allow/deny list. Ignoring it.", ip);
+      }
+    }
+  }
+}
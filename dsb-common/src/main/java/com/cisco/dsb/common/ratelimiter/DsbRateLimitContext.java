@@ -3,8 +3,10 @@ package com.cisco.dsb.common.ratelimiter;
 import static com.cisco.dsb.common.ratelimiter.DsbRateLimiterUtil.checkAllowIP;
 import static com.cisco.dsb.common.ratelimiter.DsbRateLimiterUtil.checkDenyIP;
 import static com.cisco.dsb.common.ratelimiter.DsbRateLimiterUtil.checkRateLimit;
+import static com.cisco.dsb.common.ratelimiter.DsbRateLimiterUtil.getPolicyName;
 
 import com.cisco.dsb.common.ratelimiter.RateLimitPolicy.RateLimit.ResponseOptions;
+import com.cisco.dsb.common.ratelimiter.cluster.ClusterQuotaCoordinator;
 import com.cisco.wx2.ratelimit.policy.Policy;
 import com.cisco.wx2.ratelimit.provider.BasicRateLimitContext;
 import java.util.concurrent.ExecutionException;
@@ -60,7 +62,14 @@ public class DsbRateLimitContext extends BasicRateLimitContext {
       case DENY_IP:
         return checkDenyIP(remoteIP, dsbRateLimiter, value, localIP);
       case DHRUVA_NETWORK_RATE_LIMIT:
-        return checkRateLimit(localIP, value);
+        if (!checkRateLimit(localIP, value)) {
+          return false;
+        }
+        ClusterQuotaCoordinator coordinator = dsbRateLimiter.getClusterQuotaCoordinator();
+        if (coordinator != null) {
+          coordinator.recordUsage(getPolicyName(value));
+        }
+        return true;
       case NEW_CALL:
         return true; // needs to be implemented. Not used currently.
     }
@@ -3,8 +3,12 @@ package com.cisco.dsb.common.ratelimiter;
 import static com.cisco.dsb.common.ratelimiter.RateLimitConstants.DENY_CODE;
 import static com.cisco.dsb.common.ratelimiter.RateLimitConstants.RATE_LIMIT_CODE;
 
+import com.cisco.dsb.common.config.sip.CommonConfigurationProperties;
 import com.cisco.dsb.common.dto.RateLimitInfo;
+import com.cisco.dsb.common.metric.Metric;
+import com.cisco.dsb.common.metric.Metrics;
 import com.cisco.dsb.common.ratelimiter.RateLimitPolicy.RateLimit.ResponseOptions;
+import com.cisco.dsb.common.ratelimiter.cluster.ClusterQuotaCoordinator;
 import com.cisco.dsb.common.service.MetricService;
 import com.cisco.wx2.ratelimit.RateLimitContext;
 import com.cisco.wx2.ratelimit.RateLimiter;
@@ -16,13 +20,16 @@ import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.RemovalCause;
 import com.google.common.cache.RemovalNotification;
-import io.fabric8.kubernetes.client.utils.IpAddressMatcher;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
 import javax.annotation.Nonnull;
 import javax.annotation.PostConstruct;
 import javax.servlet.http.HttpServletRequest;
@@ -35,11 +42,22 @@ import org.springframework.stereotype.Component;
 @Component
 @CustomLog
 public class DsbRateLimiter extends RateLimiter {
+  private static final String STORE_METRIC_MEASUREMENT = "ratelimiter.store";
+  private static final String PERMIT_STORE = "permit";
+  private static final String COUNTER_STORE = "counter";
+
   private MetricService metricService;
+  private CommonConfigurationProperties commonConfigurationProperties;
+
+  // evictions reported till the last store metric, used to emit per interval deltas
+  private final AtomicLong reportedPermitEvictions = new AtomicLong();
+  private final AtomicLong reportedCounterEvictions = new AtomicLong();
 
   @Autowired
-  public DsbRateLimiter(MetricService metricService) {
+  public DsbRateLimiter(
+      MetricService metricService, CommonConfigurationProperties commonConfigurationProperties) {
     this.metricService = metricService;
+    this.commonConfigurationProperties = commonConfigurationProperties;
   }
   // This must be set to identify the userID.
   @Getter @Setter
@@ -60,35 +78,75 @@ public class DsbRateLimiter extends RateLimiter {
   // keyed on the String
   // {REMOTE IP}|{Policy ID}.
   private Cache<String, Counter> counterCache;
-  // required to store CIRDUtilObjects per cidr in all/deny lists.
-  @Getter private static Map<String, IpAddressMatcher> allowCIDRMap = new ConcurrentHashMap<>();
+  // Compiled allow/deny lists keyed on policy name. Rebuilt on every setAllowDenyListsMap and
+  // swapped as a whole, so the SIP threads always see a complete snapshot.
+  private volatile Map<String, AllowAndDenyMatcher> allowDenyMatchers = Collections.emptyMap();
+
+  // Messages are evaluated against a copy of the policies that is never changed. Replacing policies
+  // builds a new copy and swaps it in whole, so an evaluation sees all the policies before or all
+  // of them after a change, without coordinating with it. Policies are therefore only changed
+  // through setPolicies and setPolicy.
+  private volatile PolicySnapshot policySnapshot = new PolicySnapshot(Collections.emptyList());
 
-  @Getter private static Map<String, IpAddressMatcher> denyCIDRMap = new ConcurrentHashMap<>();
+  // Set only in cluster mode, splits GLOBAL policies between the nodes of the cluster.
+  @Getter @Setter private volatile ClusterQuotaCoordinator clusterQuotaCoordinator;
+
+  // Applied by the message processors on the source address, before messages are parsed.
+  // Null if neither a pre-parse deny list nor a per source rate is configured.
+  @Getter private PreParseAdmissionFilter preParseAdmissionFilter;
 
   @PostConstruct
   protected void init() {
     this.permitCache = makePermitCache();
     this.counterCache = makeCounterCache();
+    if (metricService != null) {
+      metricService.registerPeriodicMetric(
+          STORE_METRIC_MEASUREMENT,
+          this::storeMetricSupplier,
+          getConfigValue(
+              CommonConfigurationProperties::getRateLimiterCacheMetricInterval,
+              CommonConfigurationProperties.DEFAULT_RATE_LIMITER_CACHE_METRIC_INTERVAL),
+          TimeUnit.SECONDS);
+    }
+    if (commonConfigurationProperties != null) {
+      PreParseAdmissionFilter admissionFilter =
+          new PreParseAdmissionFilter(commonConfigurationProperties);
+      if (admissionFilter.isEnabled()) {
+        logger.info("Pre-parse admission filter enabled");
+        this.preParseAdmissionFilter = admissionFilter;
+        if (metricService != null) {
+          metricService.registerPeriodicMetric(
+              PreParseAdmissionFilter.METRIC_MEASUREMENT,
+              admissionFilter::dropMetricSupplier,
+              getConfigValue(
+                  CommonConfigurationProperties::getRateLimiterCacheMetricInterval,
+                  CommonConfigurationProperties.DEFAULT_RATE_LIMITER_CACHE_METRIC_INTERVAL),
+              TimeUnit.SECONDS);
+        }
+      }
+    }
   }
 
-  public void setPolicies(List<Policy> policies) {
+  public synchronized void setPolicies(List<Policy> policies) {
     removePolicies();
-    if (policies == null || policies.isEmpty()) {
-      return;
-    }
-    for (Policy policy : policies) {
-      logger.info("Adding policy {}", policy);
-      addPolicy(policy);
+    if (policies != null) {
+      for (Policy policy : policies) {
+        logger.info("Adding policy {}", policy);
+        addPolicy(policy);
+      }
     }
+    policySnapshot = new PolicySnapshot(getPolicies());
   }
 
-  public void setPolicy(Policy policy) {
+  /** Replaces the policy of the same name, no message is evaluated without either of them. */
+  public synchronized void setPolicy(Policy policy) {
     if (policy == null) {
       return;
     }
     removePolicy(policy.getName());
     logger.info("Adding policy {}", policy);
     addPolicy(policy);
+    policySnapshot = new PolicySnapshot(getPolicies());
   }
 
   public Cache<String, Permit> getPermitCache() {
@@ -107,13 +165,27 @@ public class DsbRateLimiter extends RateLimiter {
 
   public void setAllowDenyListsMap(@Nonnull Map<String, AllowAndDenyList> allowDenyListsMap) {
     this.allowDenyListsMap = allowDenyListsMap;
-    addAllowCIDRObjects(allowDenyListsMap);
-    addDenyCIDRObjects(allowDenyListsMap);
+    Map<String, AllowAndDenyMatcher> matchers = new HashMap<>();
+    allowDenyListsMap.forEach(
+        (policyName, allowAndDenyList) -> {
+          if (allowAndDenyList != null) {
+            matchers.put(policyName, AllowAndDenyMatcher.compile(allowAndDenyList));
+          }
+        });
+    this.allowDenyMatchers = Collections.unmodifiableMap(matchers);
+  }
+
+  /**
+   * @param policyName name of the policy the allow/deny lists are configured for
+   * @return compiled allow/deny lists of the policy, null if none are configured
+   */
+  public AllowAndDenyMatcher getAllowDenyMatcher(String policyName) {
+    return allowDenyMatchers.get(policyName);
   }
 
   public void evaluateDsbContext(DsbRateLimitContext context) {
     try {
-      Action.Enforcement enforcement = evaluate(context);
+      Action.Enforcement enforcement = policySnapshot.enforce(context);
       boolean pass = enforcement.isPass() || !enforcement.getPolicy().enforce();
       String policyName = null;
       if (enforcement.getPolicy()
@@ -161,12 +233,11 @@ public class DsbRateLimiter extends RateLimiter {
   }
 
   private Cache<String, Permit> makePermitCache() {
-    // In Minutes
-    int permitCacheExpiryTime = 5;
-    int permitCacheMaxSize = 2000;
     return CacheBuilder.newBuilder()
-        .expireAfterWrite(permitCacheExpiryTime, TimeUnit.MINUTES)
-        .maximumSize(permitCacheMaxSize)
+        .expireAfterWrite(getCacheExpiryMinutes(), TimeUnit.MINUTES)
+        .maximumSize(getPermitCacheSize())
+        .concurrencyLevel(getCacheConcurrency())
+        .recordStats()
         .removalListener(
             (RemovalNotification<String, Permit> removal) -> {
               if (removal.getCause() != RemovalCause.REPLACED) {
@@ -177,42 +248,93 @@ public class DsbRateLimiter extends RateLimiter {
   }
 
   private Cache<String, Counter> makeCounterCache() {
-    // In Minutes
-    int counterCacheExpiryTime = 5;
-    int counterCacheMaxSize = 2000; // Can be made configurable later
     return CacheBuilder.newBuilder()
-        .expireAfterWrite(counterCacheExpiryTime, TimeUnit.MINUTES)
-        .maximumSize(counterCacheMaxSize)
+        .expireAfterWrite(getCacheExpiryMinutes(), TimeUnit.MINUTES)
+        .maximumSize(getCounterCacheSize())
+        .concurrencyLevel(getCacheConcurrency())
+        .recordStats()
         .build();
   }
 
-  private void addAllowCIDRObjects(Map<String, AllowAndDenyList> allowDenyListsMap) {
-    allowCIDRMap.clear();
-    allowDenyListsMap
-        .values()
-        .forEach(
-            value -> {
-              if (value.getAllowIPRangeList() == null) {
-                return;
-              }
-              value
-                  .getAllowIPRangeList()
-                  .forEach(cidr -> allowCIDRMap.put(cidr, new IpAddressMatcher(cidr)));
-            });
-  }
-
-  private void addDenyCIDRObjects(Map<String, AllowAndDenyList> allowDenyListsMap) {
-    denyCIDRMap.clear();
-    allowDenyListsMap
-        .values()
-        .forEach(
-            value -> {
-              if (value.getDenyIPRangeList() == null) {
-                return;
-              }
-              value
-                  .getDenyIPRangeList()
-                  .forEach(cidr -> denyCIDRMap.put(cidr, new IpAddressMatcher(cidr)));
-            });
+  /**
+   * Occupancy and size based evictions of the permit and counter stores. Size evictions mean
+   * sources are being tracked beyond the configured capacity and per source limits lose state.
+   */
+  protected Set<Metric> storeMetricSupplier() {
+    Set<Metric> metrics = new HashSet<>();
+    if (permitCache != null) {
+      metrics.add(
+          createStoreMetric(
+              PERMIT_STORE, permitCache, getPermitCacheSize(), reportedPermitEvictions));
+    }
+    if (counterCache != null) {
+      metrics.add(
+          createStoreMetric(
+              COUNTER_STORE, counterCache, getCounterCacheSize(), reportedCounterEvictions));
+    }
+    return metrics;
+  }
+
+  private Metric createStoreMetric(
+      String store, Cache<String, ?> cache, long capacity, AtomicLong reportedEvictions) {
+    long size = cache.size();
+    long evictions = cache.stats().evictionCount();
+    return Metrics.newMetric()
+        .measurement(STORE_METRIC_MEASUREMENT)
+        .tag("store", store)
+        .field("size", size)
+        .field("capacity", capacity)
+        .field("occupancyPercent", capacity > 0 ? (size * 100) / capacity : 0)
+        .field("evictions", evictions - reportedEvictions.getAndSet(evictions));
+  }
+
+  private int getPermitCacheSize() {
+    return getConfigValue(
+        CommonConfigurationProperties::getRateLimiterPermitCacheSize,
+        CommonConfigurationProperties.DEFAULT_RATE_LIMITER_PERMIT_CACHE_SIZE);
+  }
+
+  private int getCounterCacheSize() {
+    return getConfigValue(
+        CommonConfigurationProperties::getRateLimiterCounterCacheSize,
+        CommonConfigurationProperties.DEFAULT_RATE_LIMITER_COUNTER_CACHE_SIZE);
+  }
+
+  private int getCacheExpiryMinutes() {
+    return getConfigValue(
+        CommonConfigurationProperties::getRateLimiterCacheExpiryMinutes,
+        CommonConfigurationProperties.DEFAULT_RATE_LIMITER_CACHE_EXPIRY_MINUTES);
+  }
+
+  private int getCacheConcurrency() {
+    return getConfigValue(
+        CommonConfigurationProperties::getRateLimiterCacheConcurrency,
+        CommonConfigurationProperties.DEFAULT_RATE_LIMITER_CACHE_CONCURRENCY);
+  }
+
+  private int getConfigValue(
+      ToIntFunction<CommonConfigurationProperties> getter, int defaultValue) {
+    if (commonConfigurationProperties == null) {
+      return defaultValue;
+    }
+    int value = getter.applyAsInt(commonConfigurationProperties);
+    return value > 0 ? value : defaultValue;
+  }
+
+  /** Policies of the rate limiter at one point in time, not changed once created. */
+  private static final class PolicySnapshot extends RateLimiter {
+
+    private PolicySnapshot(List<Policy> policies) {
+      policies.forEach(this::addPolicy);
+    }
+
+    private Action.Enforcement enforce(RateLimitContext context) {
+      return evaluate(context);
+    }
+
+    @Override
+    public RateLimitContext createContext(HttpServletRequest request) {
+      return null;
+    }
   }
 }
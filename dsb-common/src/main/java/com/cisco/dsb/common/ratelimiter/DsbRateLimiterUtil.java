@@ -3,13 +3,11 @@ package com.cisco.dsb.common.ratelimiter;
 import static com.cisco.dsb.common.ratelimiter.RateLimitConstants.ALL;
 import static com.cisco.dsb.common.ratelimiter.RateLimitConstants.POLICY_VALUE_DELIMITER;
 
-import io.fabric8.kubernetes.client.utils.IpAddressMatcher;
 import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import lombok.CustomLog;
 import lombok.Getter;
 import lombok.Setter;
-import org.apache.commons.collections4.CollectionUtils;
 import org.springframework.stereotype.Component;
 
 @Getter
@@ -18,9 +16,14 @@ import org.springframework.stereotype.Component;
 @Component
 public class DsbRateLimiterUtil {
 
+  // Policy values are fixed per configured policy, so they are split once and reused instead of
+  // running the regex based String.split for every message. Bounded to guard against misuse.
+  private static final int MAX_CACHED_POLICY_VALUES = 1024;
+  private static final Map<String, String[]> policyInfoCache = new ConcurrentHashMap<>();
+
   public static boolean checkAllowIP(
       String remoteIP, DsbRateLimiter dsbRateLimiter, String value, String localIP) {
-    String[] policyInfo = value.split(POLICY_VALUE_DELIMITER);
+    String[] policyInfo = getPolicyInfo(value);
     if (!checkIfPolicyApplicableToContext(localIP, policyInfo)) {
       return false;
     }
@@ -29,7 +32,7 @@ public class DsbRateLimiterUtil {
 
   public static boolean checkDenyIP(
       String remoteIP, DsbRateLimiter dsbRateLimiter, String value, String localIP) {
-    String[] policyInfo = value.split(POLICY_VALUE_DELIMITER);
+    String[] policyInfo = getPolicyInfo(value);
     if (!checkIfPolicyApplicableToContext(localIP, policyInfo)) {
       return false;
     }
@@ -37,10 +40,15 @@ public class DsbRateLimiterUtil {
   }
 
   public static boolean checkRateLimit(String localIP, String value) {
-    String[] policyInfo = value.split(POLICY_VALUE_DELIMITER);
+    String[] policyInfo = getPolicyInfo(value);
     return checkIfPolicyApplicableToContext(localIP, policyInfo);
   }
 
+  /** @return name of the configured policy the policy value was built for */
+  public static String getPolicyName(String value) {
+    return getPolicyInfo(value)[0];
+  }
+
   public static boolean checkAllowOrDenyIP(
       String remoteIP, DsbRateLimiter dsbRateLimiter, String policyName, boolean isForAllow) {
     if (remoteIP == null) {
@@ -48,47 +56,31 @@ public class DsbRateLimiterUtil {
       return false;
     }
 
-    Map<String, AllowAndDenyList> allowDenyListsMap = dsbRateLimiter.getAllowDenyListsMap();
-    if (allowDenyListsMap == null || allowDenyListsMap.get(policyName) == null) {
+    AllowAndDenyMatcher allowAndDenyMatcher = dsbRateLimiter.getAllowDenyMatcher(policyName);
+    if (allowAndDenyMatcher == null) {
       return false;
     }
-    AllowAndDenyList allowDenyForPolicy = allowDenyListsMap.get(policyName);
-    Set<String> ipList;
-    if (isForAllow) {
-      ipList = allowDenyForPolicy.getAllowIPList();
-    } else {
-      ipList = allowDenyForPolicy.getDenyIPList();
+    boolean isMatch =
+        isForAllow
+            ? allowAndDenyMatcher.isAllowed(remoteIP)
+            : allowAndDenyMatcher.isDenied(remoteIP);
+    if (isMatch) {
+      logger.debug(
+          "{} in {} list for policy: {}", remoteIP, isForAllow ? "allow" : "deny", policyName);
     }
+    return isMatch;
+  }
 
-    if (CollectionUtils.isNotEmpty(ipList) && ipList.contains(remoteIP)) {
-      logger.debug("{} in {} ipList: {}", remoteIP, isForAllow ? "allow" : "deny", ipList);
-      return true;
-    }
-    Set<String> ipRangeList;
-    if (isForAllow) {
-      ipRangeList = allowDenyForPolicy.getAllowIPRangeList();
-    } else {
-      ipRangeList = allowDenyForPolicy.getDenyIPRangeList();
+  private static String[] getPolicyInfo(String value) {
+    String[] policyInfo = policyInfoCache.get(value);
+    if (policyInfo != null) {
+      return policyInfo;
     }
-    if (CollectionUtils.isNotEmpty(ipRangeList)) {
-      for (String cidr : ipRangeList) {
-        IpAddressMatcher ipAddressMatcher;
-        if (isForAllow) {
-          ipAddressMatcher = DsbRateLimiter.getAllowCIDRMap().get(cidr);
-        } else {
-          ipAddressMatcher = DsbRateLimiter.getDenyCIDRMap().get(cidr);
-        }
-        if (ipAddressMatcher == null) {
-          logger.error("ipMatcher {} not configured in List. Ignoring it.", cidr);
-          continue;
-        }
-        if (ipAddressMatcher.matches(remoteIP)) {
-          logger.debug("{} in ipRangeList for policy: {}", remoteIP, policyName);
-          return true;
-        }
-      }
+    policyInfo = value.split(POLICY_VALUE_DELIMITER);
+    if (policyInfoCache.size() < MAX_CACHED_POLICY_VALUES) {
+      policyInfoCache.put(value, policyInfo);
     }
-    return false;
+    return policyInfo;
   }
 
   private static boolean checkIfPolicyApplicableToContext(String localIP, String[] policyInfo) {
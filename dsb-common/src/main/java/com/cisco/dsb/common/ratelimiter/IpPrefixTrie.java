@@ -0,0 +1,365 @@
+package com.cisco.dsb.common.ratelimiter;
+
+import java.net.InetAddress;
+import java.util.Arrays;
+
+/**
+ * Immutable binary trie over IPv4 and IPv6 address prefixes. Exact IPs are stored as full length
+ * prefixes (/32 or /128), so a single lookup answers both the IP list and the IP range (CIDR) list
+ * checks of an {@link AllowAndDenyList}.
+ *
+ * <p>Nodes are kept in flat int arrays, lookups parse the address string in place and walk at most
+ * 32 (IPv4) or 128 (IPv6) nodes, without allocating. IPv4-mapped IPv6 addresses (::ffff:a.b.c.d)
+ * are matched against the IPv4 prefixes, same as {@link InetAddress#getByName(String)} would treat
+ * them.
+ */
+public final class IpPrefixTrie {
+
+  // index 0 and 1 are the IPv4 and IPv6 roots. Roots are never children, so 0 marks 'no child'.
+  private static final int ROOT_V4 = 0;
+  private static final int ROOT_V6 = 1;
+  private static final int NONE = 0;
+
+  public static final IpPrefixTrie EMPTY = new Builder().build();
+
+  // lookups run on the SIP stack threads, reuse one result holder per thread for IPv6 parsing
+  private static final ThreadLocal<long[]> V6_SCRATCH = ThreadLocal.withInitial(() -> new long[2]);
+
+  private final int[] zero;
+  private final int[] one;
+  private final boolean[] terminal;
+
+  private IpPrefixTrie(int[] zero, int[] one, boolean[] terminal) {
+    this.zero = zero;
+    this.one = one;
+    this.terminal = terminal;
+  }
+
+  public static Builder builder() {
+    return new Builder();
+  }
+
+  /**
+   * Checks if the given literal IP address falls in any of the prefixes of this trie.
+   *
+   * @param ip IPv4 or IPv6 literal, optionally enclosed in [] and/or suffixed with a %zone
+   * @return true if any prefix matches, false if none matches or ip is not a valid literal
+   */
+  public boolean matches(String ip) {
+    if (ip == null) {
+      return false;
+    }
+    int from = 0;
+    int to = ip.length();
+    if (to > 1 && ip.charAt(0) == '[' && ip.charAt(to - 1) == ']') {
+      from++;
+      to--;
+    }
+    int zone = ip.indexOf('%', from);
+    if (zone >= 0 && zone < to) {
+      to = zone;
+    }
+    if (ip.indexOf(':', from) < 0) {
+      long v4 = parseIPv4(ip, from, to);
+      return v4 >= 0 && matchesV4((int) v4);
+    }
+    long[] v6 = V6_SCRATCH.get();
+    if (!parseIPv6(ip, from, to, v6)) {
+      return false;
+    }
+    long hi = v6[0];
+    long lo = v6[1];
+    if (hi == 0 && (lo >>> 32) == 0xffffL) {
+      return matchesV4((int) lo);
+    }
+    return matchesV6(hi, lo);
+  }
+
+  /** Same as {@link #matches(String)}, for the already resolved source address of a datagram. */
+  public boolean matches(InetAddress address) {
+    if (address == null) {
+      return false;
+    }
+    byte[] bytes = address.getAddress();
+    if (bytes.length == 4) {
+      return matchesV4((int) toLong(bytes, 0, 4));
+    }
+    long hi = toLong(bytes, 0, 8);
+    long lo = toLong(bytes, 8, 8);
+    if (hi == 0 && (lo >>> 32) == 0xffffL) {
+      return matchesV4((int) lo);
+    }
+    return matchesV6(hi, lo);
+  }
+
+  private static long toLong(byte[] bytes, int from, int length) {
+    long value = 0;
+    for (int i = from; i < from + length; i++) {
+      value = (value << 8) | (bytes[i] & 0xff);
+    }
+    return value;
+  }
+
+  private boolean matchesV4(int address) {
+    int node = ROOT_V4;
+    if (terminal[node]) {
+      return true;
+    }
+    for (int bit = 31; bit >= 0; bit--) {
+      node = ((address >>> bit) & 1) == 0 ? zero[node] : one[node];
+      if (node == NONE) {
+        return false;
+      }
+      if (terminal[node]) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean matchesV6(long hi, long lo) {
+    int node = ROOT_V6;
+    if (terminal[node]) {
+      return true;
+    }
+    for (int i = 0; i < 128; i++) {
+      long word = i < 64 ? hi : lo;
+      node = ((word >>> (63 - (i & 63))) & 1) == 0 ? zero[node] : one[node];
+      if (node == NONE) {
+        return false;
+      }
+      if (terminal[node]) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Parses a dotted quad IPv4 literal in [from, to) of s.
+   *
+   * @return the address as an unsigned 32 bit value, or -1 if it is not a valid IPv4 literal
+   */
+  static long parseIPv4(CharSequence s, int from, int to) {
+    long address = 0;
+    int octets = 0;
+    int value = -1;
+    for (int i = from; i < to; i++) {
+      char c = s.charAt(i);
+      if (c >= '0' && c <= '9') {
+        value = (value < 0 ? 0 : value * 10) + (c - '0');
+        if (value > 255) {
+          return -1;
+        }
+      } else if (c == '.' && value >= 0 && octets < 3) {
+        address = (address << 8) | value;
+        octets++;
+        value = -1;
+      } else {
+        return -1;
+      }
+    }
+    if (value < 0 || octets != 3) {
+      return -1;
+    }
+    return (address << 8) | value;
+  }
+
+  /**
+   * Parses an IPv6 literal in [from, to) of s.
+   *
+   * @param out receives the upper (out[0]) and lower (out[1]) 64 bits of the address
+   * @return false if it is not a valid IPv6 literal
+   */
+  static boolean parseIPv6(CharSequence s, int from, int to, long[] out) {
+    // groups are shifted into a 128 bit (hi, lo) accumulator; groups after '::' go to a second one
+    long headHi = 0, headLo = 0, tailHi = 0, tailLo = 0;
+    int headGroups = 0, tailGroups = 0;
+    boolean compressed = false;
+    int i = from;
+    if (to - from >= 2 && s.charAt(from) == ':' && s.charAt(from + 1) == ':') {
+      compressed = true;
+      i += 2;
+    }
+    while (i < to) {
+      int group = 0;
+      int digits = 0;
+      int start = i;
+      while (i < to && digits <= 4) {
+        int hex = Character.digit(s.charAt(i), 16);
+        if (hex < 0) {
+          break;
+        }
+        group = (group << 4) | hex;
+        digits++;
+        i++;
+      }
+      int groupsSoFar = headGroups + tailGroups;
+      if (i < to && s.charAt(i) == '.') {
+        // embedded IPv4 occupies the last two groups
+        long v4 = parseIPv4(s, start, to);
+        if (v4 < 0 || groupsSoFar > 6) {
+          return false;
+        }
+        if (compressed) {
+          tailHi = (tailHi << 32) | (tailLo >>> 32);
+          tailLo = (tailLo << 32) | v4;
+          tailGroups += 2;
+        } else {
+          headHi = (headHi << 32) | (headLo >>> 32);
+          headLo = (headLo << 32) | v4;
+          headGroups += 2;
+        }
+        i = to;
+        break;
+      }
+      if (digits == 0 || digits > 4 || groupsSoFar >= 8) {
+        return false;
+      }
+      if (compressed) {
+        tailHi = (tailHi << 16) | (tailLo >>> 48);
+        tailLo = (tailLo << 16) | group;
+        tailGroups++;
+      } else {
+        headHi = (headHi << 16) | (headLo >>> 48);
+        headLo = (headLo << 16) | group;
+        headGroups++;
+      }
+      if (i == to) {
+        break;
+      }
+      if (s.charAt(i) != ':' || i + 1 == to) {
+        return false;
+      }
+      i++;
+      if (s.charAt(i) == ':') {
+        if (compressed) {
+          return false;
+        }
+        compressed = true;
+        i++;
+      }
+    }
+    int groups = headGroups + tailGroups;
+    if (compressed ? groups > 7 : groups != 8) {
+      return false;
+    }
+    // head goes to the top of the address, tail stays at the bottom
+    int shift = 16 * (8 - headGroups);
+    long hi;
+    long lo;
+    if (shift == 0) {
+      hi = headHi;
+      lo = headLo;
+    } else if (shift < 64) {
+      hi = (headHi << shift) | (headLo >>> (64 - shift));
+      lo = headLo << shift;
+    } else if (shift < 128) {
+      hi = headLo << (shift - 64);
+      lo = 0;
+    } else {
+      hi = 0;
+      lo = 0;
+    }
+    out[0] = hi | tailHi;
+    out[1] = lo | tailLo;
+    return true;
+  }
+
+  /** Collects prefixes and builds an immutable {@link IpPrefixTrie}. Not thread safe. */
+  public static final class Builder {
+    private int[] zero = new int[64];
+    private int[] one = new int[64];
+    private boolean[] terminal = new boolean[64];
+    private int size = 2;
+
+    private Builder() {}
+
+    /**
+     * Adds an IP ("10.1.1.1", "2001:db8::1") or a CIDR ("10.1.1.0/24", "2001:db8::/32") to the
+     * trie.
+     *
+     * @throws IllegalArgumentException if the value is not a literal IP or CIDR
+     */
+    public Builder add(String ipOrCidr) {
+      if (ipOrCidr == null) {
+        throw new IllegalArgumentException("ip/cidr cannot be null");
+      }
+      String value = ipOrCidr.trim();
+      int slash = value.indexOf('/');
+      String ip = slash < 0 ? value : value.substring(0, slash);
+      boolean v6 = ip.indexOf(':') >= 0;
+      int maxBits = v6 ? 128 : 32;
+      int bits = maxBits;
+      if (slash >= 0) {
+        try {
+          bits = Integer.parseInt(value.substring(slash + 1));
+        } catch (NumberFormatException e) {
+          throw new IllegalArgumentException("Invalid prefix length in " + ipOrCidr);
+        }
+        if (bits < 0 || bits > maxBits) {
+          throw new IllegalArgumentException("Invalid prefix length in " + ipOrCidr);
+        }
+      }
+      if (!v6) {
+        long v4 = parseIPv4(ip, 0, ip.length());
+        if (v4 < 0) {
+          throw new IllegalArgumentException("Invalid IPv4 address " + ipOrCidr);
+        }
+        insert(ROOT_V4, v4 << 32, 0, bits);
+        return this;
+      }
+      long[] address = new long[2];
+      if (!parseIPv6(ip, 0, ip.length(), address)) {
+        throw new IllegalArgumentException("Invalid IPv6 address " + ipOrCidr);
+      }
+      long hi = address[0];
+      long lo = address[1];
+      if (hi == 0 && (lo >>> 32) == 0xffffL && bits >= 96) {
+        // IPv4-mapped prefix, lookups normalise these to IPv4
+        insert(ROOT_V4, lo << 32, 0, bits - 96);
+      } else {
+        insert(ROOT_V6, hi, lo, bits);
+      }
+      return this;
+    }
+
+    private void insert(int root, long hi, long lo, int bits) {
+      int node = root;
+      for (int i = 0; i < bits; i++) {
+        if (terminal[node]) {
+          // a shorter prefix already covers this one
+          return;
+        }
+        long word = i < 64 ? hi : lo;
+        boolean set = ((word >>> (63 - (i & 63))) & 1) == 1;
+        int next = set ? one[node] : zero[node];
+        if (next == NONE) {
+          next = newNode();
+          if (set) {
+            one[node] = next;
+          } else {
+            zero[node] = next;
+          }
+        }
+        node = next;
+      }
+      terminal[node] = true;
+    }
+
+    private int newNode() {
+      if (size == terminal.length) {
+        int capacity = size * 2;
+        zero = Arrays.copyOf(zero, capacity);
+        one = Arrays.copyOf(one, capacity);
+        terminal = Arrays.copyOf(terminal, capacity);
+      }
+      return size++;
+    }
+
+    public IpPrefixTrie build() {
+      return new IpPrefixTrie(
+          Arrays.copyOf(zero, size), Arrays.copyOf(one, size), Arrays.copyOf(terminal, size));
+    }
+  }
+}
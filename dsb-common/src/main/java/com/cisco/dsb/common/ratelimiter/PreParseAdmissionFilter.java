@@ -0,0 +1,185 @@
+package com.cisco.dsb.common.ratelimiter;
+
+import com.cisco.dsb.common.config.sip.CommonConfigurationProperties;
+import com.cisco.dsb.common.metric.Metric;
+import com.cisco.dsb.common.metric.Metrics;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import java.net.InetAddress;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import lombok.CustomLog;
+
+/**
+ * Admission check on the source address of a datagram or of an incoming connection, applied by the
+ * message processors before the JAIN SIP stack parses anything. Sources in the deny list are
+ * dropped, every other source that is not in the allow list is held to a per source token bucket.
+ *
+ * <p>Unlike {@link DsbRateLimiterValve} this never looks at the message, it is a coarse first line
+ * of defence so that floods are dropped without paying for parsing. Drops are counted per policy
+ * ({@link #DENY_POLICY}, {@link #RATE_POLICY}), rejected connections of connection oriented
+ * transports apart from dropped packets.
+ */
+@CustomLog
+public class PreParseAdmissionFilter {
+  public static final String DENY_POLICY = "deny";
+  public static final String RATE_POLICY = "rate";
+  public static final String METRIC_MEASUREMENT = "ratelimiter.preparse";
+
+  private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+  private final IpPrefixTrie denyList;
+  private final IpPrefixTrie allowList;
+  private final int ratePerSecond;
+  private final int burst;
+  private final Cache<InetAddress, TokenBucket> buckets;
+  private final LongSupplier nanoClock;
+
+  private final DropCounter denyDrops = new DropCounter();
+  private final DropCounter rateDrops = new DropCounter();
+
+  public PreParseAdmissionFilter(CommonConfigurationProperties commonConfigurationProperties) {
+    this(commonConfigurationProperties, System::nanoTime);
+  }
+
+  PreParseAdmissionFilter(
+      CommonConfigurationProperties commonConfigurationProperties, LongSupplier nanoClock) {
+    this.denyList = compile(commonConfigurationProperties.getPreParseDenyList());
+    this.allowList = compile(commonConfigurationProperties.getPreParseAllowList());
+    int configuredRate = commonConfigurationProperties.getPreParseSourceRatePerSecond();
+    int configuredBurst = commonConfigurationProperties.getPreParseSourceBurst();
+    int trackingSize = commonConfigurationProperties.getPreParseSourceTrackingSize();
+    this.ratePerSecond = Math.max(0, configuredRate);
+    this.burst = configuredBurst > 0 ? configuredBurst : ratePerSecond;
+    // an idle source has refilled its bucket after burst/rate seconds, so it can be forgotten
+    long refillSeconds = ratePerSecond > 0 ? (burst + ratePerSecond - 1) / ratePerSecond : 1;
+    this.buckets =
+        CacheBuilder.newBuilder()
+            .maximumSize(
+                trackingSize > 0
+                    ? trackingSize
+                    : CommonConfigurationProperties.DEFAULT_PRE_PARSE_SOURCE_TRACKING_SIZE)
+            .expireAfterAccess(refillSeconds, TimeUnit.SECONDS)
+            .build();
+    this.nanoClock = nanoClock;
+  }
+
+  /** @return false if neither a deny list nor a source rate is configured */
+  public boolean isEnabled() {
+    return denyList != IpPrefixTrie.EMPTY || ratePerSecond > 0;
+  }
+
+  /**
+   * @param source source address of the datagram or connection
+   * @param bytes size of the datagram, 0 for a connection
+   * @return false if the datagram/connection must be dropped without further processing
+   */
+  public boolean admit(InetAddress source, int bytes) {
+    DropCounter dropCounter = check(source);
+    if (dropCounter == null) {
+      return true;
+    }
+    dropCounter.add(bytes);
+    return false;
+  }
+
+  /**
+   * @param source source address of an incoming connection
+   * @return false if the connection must be closed without further processing
+   */
+  public boolean admitConnection(InetAddress source) {
+    DropCounter dropCounter = check(source);
+    if (dropCounter == null) {
+      return true;
+    }
+    dropCounter.connections.increment();
+    return false;
+  }
+
+  /** @return counter of the policy the source is dropped by, null if it is admitted */
+  private DropCounter check(InetAddress source) {
+    if (source == null) {
+      return null;
+    }
+    if (denyList.matches(source)) {
+      return denyDrops;
+    }
+    if (ratePerSecond == 0 || allowList.matches(source)) {
+      return null;
+    }
+    long now = nanoClock.getAsLong();
+    TokenBucket bucket =
+        buckets.asMap().computeIfAbsent(source, address -> new TokenBucket(burst, now));
+    return bucket.tryAcquire(now, ratePerSecond, burst) ? null : rateDrops;
+  }
+
+  /** Packets, bytes and connections dropped per policy since the last call. */
+  public Set<Metric> dropMetricSupplier() {
+    Set<Metric> metrics = new HashSet<>();
+    metrics.add(denyDrops.toMetric(DENY_POLICY));
+    metrics.add(rateDrops.toMetric(RATE_POLICY));
+    return metrics;
+  }
+
+  private static IpPrefixTrie compile(List<String> ips) {
+    if (ips == null || ips.isEmpty()) {
+      return IpPrefixTrie.EMPTY;
+    }
+    IpPrefixTrie.Builder builder = IpPrefixTrie.builder();
+    for (String ip : ips) {
+      try {
+        builder.add(ip);
+      } catch (IllegalArgumentException e) {
+        logger.error("Invalid IP/CIDR {} configured for pre-parse admission. Ignoring it.", ip);
+      }
+    }
+    return builder.build();
+  }
+
+  private static final class TokenBucket {
+    private double tokens;
+    private long lastRefillNanos;
+
+    private TokenBucket(int burst, long now) {
+      this.tokens = burst;
+      this.lastRefillNanos = now;
+    }
+
+    private synchronized boolean tryAcquire(long now, int ratePerSecond, int burst) {
+      long elapsed = now - lastRefillNanos;
+      if (elapsed > 0) {
+        tokens = Math.min(burst, tokens + (double) elapsed * ratePerSecond / NANOS_PER_SECOND);
+        lastRefillNanos = now;
+      }
+      if (tokens < 1) {
+        return false;
+      }
+      tokens--;
+      return true;
+    }
+  }
+
+  private static final class DropCounter {
+    private final LongAdder packets = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LongAdder connections = new LongAdder();
+
+    private void add(int size) {
+      packets.increment();
+      bytes.add(size);
+    }
+
+    private Metric toMetric(String policy) {
+      return Metrics.newMetric()
+          .measurement(METRIC_MEASUREMENT)
+          .tag("policy", policy)
+          .field("droppedPackets", packets.sumThenReset())
+          .field("droppedBytes", bytes.sumThenReset())
+          .field("rejectedConnections", connections.sumThenReset());
+    }
+  }
+}
@@ -0,0 +1,165 @@
+package com.cisco.dsb.common.ratelimiter.cluster;
+
+import com.cisco.dsb.common.ratelimiter.DsbRateLimiter;
+import com.cisco.wx2.ratelimit.policy.Policy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+import java.util.function.LongSupplier;
+import lombok.CustomLog;
+import lombok.Getter;
+
+/**
+ * Splits cluster wide (GLOBAL) quotas between the nodes of a cluster. Every node keeps enforcing
+ * its share locally through {@link DsbRateLimiter}, so the SIP path never waits on a peer. On every
+ * {@link #sync()} the node publishes the number of messages each quota's policy matched during the
+ * interval and re-apportions each quota in proportion to the demand seen by each node for it:
+ *
+ * <pre>
+ *   share = (localUsage + 1) / (clusterUsage + nodes)
+ * </pre>
+ *
+ * Shares of all nodes add up to 1, and without traffic every node gets an equal share. The error is
+ * bounded by one sync interval of demand shift plus rounding of one permit per node. A node that
+ * stops publishing is dropped after the peer timeout and its share is redistributed.
+ */
+@CustomLog
+public class ClusterQuotaCoordinator {
+
+  @Getter private final String nodeId;
+  private final ClusterTransport transport;
+  private final DsbRateLimiter dsbRateLimiter;
+  private final long peerTimeoutMillis;
+  private final LongSupplier clock;
+
+  private final Map<String, PeerUsage> peers = new ConcurrentHashMap<>();
+  private final Map<String, Quota> quotas = new ConcurrentHashMap<>();
+
+  public ClusterQuotaCoordinator(
+      String nodeId,
+      ClusterTransport transport,
+      DsbRateLimiter dsbRateLimiter,
+      long peerTimeoutMillis,
+      LongSupplier clock) {
+    this.nodeId = nodeId;
+    this.transport = transport;
+    this.dsbRateLimiter = dsbRateLimiter;
+    this.peerTimeoutMillis = peerTimeoutMillis;
+    this.clock = clock;
+  }
+
+  public void start() {
+    transport.start(this::onPeerUsage);
+  }
+
+  public void stop() {
+    transport.stop();
+  }
+
+  /**
+   * Called for every message matching the policy of a quota. Usage of policies without a cluster
+   * quota is ignored.
+   *
+   * @param quotaName name the quota was registered with
+   */
+  public void recordUsage(String quotaName) {
+    Quota quota = quotas.get(quotaName);
+    if (quota != null) {
+      quota.usage.increment();
+    }
+  }
+
+  /**
+   * Registers a cluster wide quota. The policy is rebuilt through the factory and re-applied on the
+   * rate limiter whenever the local share of the quota changes.
+   *
+   * @param quotaName name usage of the quota is recorded and exchanged with the peers under
+   * @param clusterPermits permits allowed across the cluster
+   * @param policyFactory builds the policy for the given local permits
+   * @return permits this node should enforce right now, an equal share until usage is known
+   */
+  public int register(String quotaName, int clusterPermits, IntFunction<Policy> policyFactory) {
+    int localPermits = getLocalPermits(clusterPermits, 1.0 / (peers.size() + 1));
+    quotas.put(quotaName, new Quota(clusterPermits, policyFactory, localPermits));
+    return localPermits;
+  }
+
+  /** Removes all registered quotas, called before the policies are re-created. */
+  public void clearQuotas() {
+    quotas.clear();
+  }
+
+  public int getPeerCount() {
+    return peers.size();
+  }
+
+  /** Publishes local usage and rebalances the quotas. Runs periodically off the SIP path. */
+  public synchronized void sync() {
+    long now = clock.getAsLong();
+    Map<String, Long> localUsage = new HashMap<>();
+    quotas.forEach((quotaName, quota) -> localUsage.put(quotaName, quota.usage.sumThenReset()));
+    transport.publish(new NodeUsage(nodeId, localUsage));
+
+    peers.values().removeIf(peer -> now - peer.receivedAt > peerTimeoutMillis);
+    int nodes = peers.size() + 1;
+    localUsage.forEach(
+        (quotaName, usage) -> {
+          Quota quota = quotas.get(quotaName);
+          if (quota == null) {
+            return;
+          }
+          long clusterUsage = usage;
+          for (PeerUsage peer : peers.values()) {
+            clusterUsage += peer.usage.getOrDefault(quotaName, 0L);
+          }
+          double localShare = (usage + 1.0) / (clusterUsage + nodes);
+          int localPermits = getLocalPermits(quota.clusterPermits, localShare);
+          if (localPermits != quota.appliedPermits) {
+            logger.info(
+                "Rebalancing cluster quota {}: {} of {} permits, nodes: {}",
+                quotaName,
+                localPermits,
+                quota.clusterPermits,
+                nodes);
+            dsbRateLimiter.setPolicy(quota.policyFactory.apply(localPermits));
+            quota.appliedPermits = localPermits;
+          }
+        });
+  }
+
+  void onPeerUsage(NodeUsage nodeUsage) {
+    peers.put(nodeUsage.getNodeId(), new PeerUsage(nodeUsage.getUsage(), clock.getAsLong()));
+  }
+
+  static int getLocalPermits(int clusterPermits, double share) {
+    if (clusterPermits <= 0) {
+      return clusterPermits;
+    }
+    return (int) Math.max(1, Math.round(clusterPermits * share));
+  }
+
+  private static class PeerUsage {
+    private final Map<String, Long> usage;
+    private final long receivedAt;
+
+    private PeerUsage(Map<String, Long> usage, long receivedAt) {
+      this.usage = usage;
+      this.receivedAt = receivedAt;
+    }
+  }
+
+  private static class Quota {
+    private final int clusterPermits;
+    private final IntFunction<Policy> policyFactory;
+    private final LongAdder usage = new LongAdder();
+    private volatile int appliedPermits;
+
+    private Quota(int clusterPermits, IntFunction<Policy> policyFactory, int appliedPermits) {
+      this.clusterPermits = clusterPermits;
+      this.policyFactory = policyFactory;
+      this.appliedPermits = appliedPermits;
+    }
+  }
+}
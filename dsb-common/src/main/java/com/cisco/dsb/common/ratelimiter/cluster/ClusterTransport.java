@@ -0,0 +1,17 @@
+package com.cisco.dsb.common.ratelimiter.cluster;
+
+import java.util.function.Consumer;
+
+/**
+ * Exchanges {@link NodeUsage} between the rate limiters of a cluster. Delivery is best effort, a
+ * lost update only delays the rebalancing of global quotas by one sync interval.
+ */
+public interface ClusterTransport {
+
+  /** Starts receiving usage published by peers. Own usage must not be delivered back. */
+  void start(Consumer<NodeUsage> listener);
+
+  void publish(NodeUsage nodeUsage);
+
+  void stop();
+}
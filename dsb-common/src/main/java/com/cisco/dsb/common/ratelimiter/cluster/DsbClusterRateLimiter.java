@@ -0,0 +1,80 @@
+package com.cisco.dsb.common.ratelimiter.cluster;
+
+import com.cisco.dsb.common.config.sip.CommonConfigurationProperties;
+import com.cisco.dsb.common.executor.DhruvaExecutorService;
+import com.cisco.dsb.common.executor.ExecutorType;
+import com.cisco.dsb.common.ratelimiter.DsbRateLimiter;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import lombok.CustomLog;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Enables cluster mode of {@link DsbRateLimiter} when 'common.rateLimiterClusterEnabled' is set.
+ * Usage is exchanged with the configured peers over UDP and GLOBAL policies are split between the
+ * nodes by a {@link ClusterQuotaCoordinator}.
+ */
+@Component
+@CustomLog
+public class DsbClusterRateLimiter {
+
+  private final DsbRateLimiter dsbRateLimiter;
+  private final CommonConfigurationProperties commonConfigurationProperties;
+  private final DhruvaExecutorService dhruvaExecutorService;
+  private ClusterQuotaCoordinator coordinator;
+
+  @Autowired
+  public DsbClusterRateLimiter(
+      DsbRateLimiter dsbRateLimiter,
+      CommonConfigurationProperties commonConfigurationProperties,
+      DhruvaExecutorService dhruvaExecutorService) {
+    this.dsbRateLimiter = dsbRateLimiter;
+    this.commonConfigurationProperties = commonConfigurationProperties;
+    this.dhruvaExecutorService = dhruvaExecutorService;
+  }
+
+  @PostConstruct
+  public void init() {
+    if (!commonConfigurationProperties.isRateLimiterClusterEnabled()) {
+      return;
+    }
+    coordinator =
+        new ClusterQuotaCoordinator(
+            UUID.randomUUID().toString(),
+            new UdpClusterTransport(
+                commonConfigurationProperties.getRateLimiterClusterBindAddress(),
+                commonConfigurationProperties.getRateLimiterClusterPort(),
+                commonConfigurationProperties.getRateLimiterClusterPeers()),
+            dsbRateLimiter,
+            commonConfigurationProperties.getRateLimiterClusterPeerTimeoutMillis(),
+            System::currentTimeMillis);
+    coordinator.start();
+    dsbRateLimiter.setClusterQuotaCoordinator(coordinator);
+
+    long syncInterval = commonConfigurationProperties.getRateLimiterClusterSyncIntervalMillis();
+    dhruvaExecutorService.startScheduledExecutorService(ExecutorType.RATE_LIMITER_CLUSTER);
+    dhruvaExecutorService
+        .getScheduledExecutorThreadPool(ExecutorType.RATE_LIMITER_CLUSTER)
+        .scheduleAtFixedRate(this::sync, syncInterval, syncInterval, TimeUnit.MILLISECONDS);
+    logger.info("Rate limiter cluster mode enabled, node: {}", coordinator.getNodeId());
+  }
+
+  private void sync() {
+    try {
+      coordinator.sync();
+    } catch (RuntimeException e) {
+      logger.error("Unable to sync rate limiter cluster usage", e);
+    }
+  }
+
+  @PreDestroy
+  public void destroy() {
+    if (coordinator != null) {
+      dsbRateLimiter.setClusterQuotaCoordinator(null);
+      coordinator.stop();
+    }
+  }
+}
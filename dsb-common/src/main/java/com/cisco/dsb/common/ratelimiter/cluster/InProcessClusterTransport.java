@@ -0,0 +1,44 @@
+package com.cisco.dsb.common.ratelimiter.cluster;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * {@link ClusterTransport} connecting nodes within the same JVM, used for tests and local setups.
+ * All transports created from the same {@link Bus} see each other's usage.
+ */
+public class InProcessClusterTransport implements ClusterTransport {
+
+  private final Bus bus;
+  private Consumer<NodeUsage> listener;
+
+  public InProcessClusterTransport(Bus bus) {
+    this.bus = bus;
+  }
+
+  @Override
+  public void start(Consumer<NodeUsage> listener) {
+    this.listener = listener;
+    bus.transports.add(this);
+  }
+
+  @Override
+  public void publish(NodeUsage nodeUsage) {
+    bus.transports.forEach(
+        transport -> {
+          if (transport != this) {
+            transport.listener.accept(nodeUsage);
+          }
+        });
+  }
+
+  @Override
+  public void stop() {
+    bus.transports.remove(this);
+  }
+
+  public static class Bus {
+    private final List<InProcessClusterTransport> transports = new CopyOnWriteArrayList<>();
+  }
+}
@@ -0,0 +1,18 @@
+package com.cisco.dsb.common.ratelimiter.cluster;
+
+import java.util.Map;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Messages evaluated by the rate limiter of one node during the last sync interval, per cluster
+ * quota.
+ */
+@Getter
+@AllArgsConstructor
+@ToString
+public class NodeUsage {
+  private final String nodeId;
+  private final Map<String, Long> usage;
+}
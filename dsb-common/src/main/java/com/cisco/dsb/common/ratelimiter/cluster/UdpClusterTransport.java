@@ -0,0 +1,187 @@
+package com.cisco.dsb.common.ratelimiter.cluster;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import lombok.CustomLog;
+
+/**
+ * {@link ClusterTransport} sending one small datagram per peer and sync interval. Peers are given
+ * as host:port and resolved on every publish, so a headless service name that tracks the replicas
+ * can be used. Datagrams from any other address than a resolved peer are dropped, so only the
+ * nodes of the cluster can move its quotas.
+ */
+@CustomLog
+public class UdpClusterTransport implements ClusterTransport {
+
+  private static final int VERSION = 2;
+  private static final int MAX_PACKET_SIZE = 8192;
+
+  private final String bindAddress;
+  private final int port;
+  private final List<String> peers;
+  private DatagramSocket socket;
+  private Thread receiver;
+  // set by publish, read by the receiver to skip its own usage
+  private volatile String ownNodeId;
+  // addresses of the peers as of the last publish, the only sources usage is accepted from
+  private volatile Set<InetAddress> peerAddresses = Collections.emptySet();
+
+  /**
+   * @param bindAddress address of the interface to receive usage on, all interfaces if null
+   * @param port port to receive usage on
+   * @param peers host:port of every node of the cluster
+   */
+  public UdpClusterTransport(String bindAddress, int port, List<String> peers) {
+    this.bindAddress = bindAddress;
+    this.port = port;
+    this.peers = peers;
+  }
+
+  @Override
+  public void start(Consumer<NodeUsage> listener) {
+    InetSocketAddress localAddress =
+        bindAddress == null || bindAddress.isEmpty()
+            ? new InetSocketAddress(port)
+            : new InetSocketAddress(bindAddress, port);
+    if (localAddress.isUnresolved()) {
+      throw new IllegalStateException(
+          "Unable to resolve rate limiter cluster bind address " + bindAddress);
+    }
+    if (localAddress.getAddress().isAnyLocalAddress()) {
+      logger.warn("Rate limiter cluster bind address not configured, listening on all interfaces");
+    }
+    try {
+      socket = new DatagramSocket(localAddress);
+    } catch (SocketException e) {
+      throw new IllegalStateException("Unable to bind rate limiter cluster to " + localAddress, e);
+    }
+    resolvePeers();
+    receiver = new Thread(() -> receive(listener), "dsb-ratelimiter-cluster");
+    receiver.setDaemon(true);
+    receiver.start();
+    logger.info("Rate limiter cluster transport listening on {}, peers: {}", localAddress, peers);
+  }
+
+  private void receive(Consumer<NodeUsage> listener) {
+    byte[] buffer = new byte[MAX_PACKET_SIZE];
+    while (!socket.isClosed()) {
+      DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+      try {
+        socket.receive(packet);
+        if (!peerAddresses.contains(packet.getAddress())) {
+          // not logged above debug, anyone can send these
+          logger.debug(
+              "Dropping rate limiter cluster usage from unknown peer {}", packet.getAddress());
+          continue;
+        }
+        NodeUsage nodeUsage = decode(packet.getData(), packet.getOffset(), packet.getLength());
+        if (nodeUsage != null && !nodeUsage.getNodeId().equals(ownNodeId)) {
+          listener.accept(nodeUsage);
+        }
+      } catch (IOException e) {
+        if (!socket.isClosed()) {
+          logger.warn("Unable to receive rate limiter cluster usage", e);
+        }
+      } catch (RuntimeException e) {
+        logger.error("Unable to process rate limiter cluster usage", e);
+      }
+    }
+  }
+
+  @Override
+  public void publish(NodeUsage nodeUsage) {
+    if (socket == null) {
+      return;
+    }
+    ownNodeId = nodeUsage.getNodeId();
+    byte[] data = encode(nodeUsage);
+    for (InetSocketAddress address : resolvePeers()) {
+      try {
+        socket.send(new DatagramPacket(data, data.length, address));
+      } catch (IOException | RuntimeException e) {
+        logger.warn("Unable to publish rate limiter usage to peer {}", address, e);
+      }
+    }
+  }
+
+  /** Resolves the peers again and updates the addresses usage is accepted from. */
+  private List<InetSocketAddress> resolvePeers() {
+    List<InetSocketAddress> addresses = new ArrayList<>(peers.size());
+    Set<InetAddress> resolved = new HashSet<>();
+    for (String peer : peers) {
+      try {
+        int separator = peer.lastIndexOf(':');
+        InetSocketAddress address =
+            new InetSocketAddress(
+                peer.substring(0, separator), Integer.parseInt(peer.substring(separator + 1)));
+        if (address.isUnresolved()) {
+          logger.warn("Unable to resolve rate limiter cluster peer {}", peer);
+          continue;
+        }
+        addresses.add(address);
+        resolved.add(address.getAddress());
+      } catch (RuntimeException e) {
+        logger.warn("Invalid rate limiter cluster peer {}", peer, e);
+      }
+    }
+    peerAddresses = resolved;
+    return addresses;
+  }
+
+  @Override
+  public void stop() {
+    if (socket != null) {
+      socket.close();
+    }
+  }
+
+  static byte[] encode(NodeUsage nodeUsage) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      out.writeByte(VERSION);
+      out.writeUTF(nodeUsage.getNodeId());
+      out.writeShort(nodeUsage.getUsage().size());
+      for (Map.Entry<String, Long> usage : nodeUsage.getUsage().entrySet()) {
+        out.writeUTF(usage.getKey());
+        out.writeLong(usage.getValue());
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+    return bytes.toByteArray();
+  }
+
+  static NodeUsage decode(byte[] data, int offset, int length) {
+    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(data, offset, length))) {
+      if (in.readByte() != VERSION) {
+        return null;
+      }
+      String nodeId = in.readUTF();
+      int count = in.readUnsignedShort();
+      Map<String, Long> usage = new HashMap<>(count * 2);
+      for (int i = 0; i < count; i++) {
+        usage.put(in.readUTF(), in.readLong());
+      }
+      return new NodeUsage(nodeId, usage);
+    } catch (IOException e) {
+      logger.warn("Discarding malformed rate limiter cluster usage");
+      return null;
+    }
+  }
+}
@@ -4,6 +4,7 @@ import com.cisco.wx2.util.Utilities;
 import com.google.common.base.Ticker;
 import java.util.*;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
 import javax.annotation.Nullable;
 import lombok.CustomLog;
 
@@ -82,15 +83,27 @@ public class DhruvaAppRecord {
     return sae;
   }
 
+  /**
+   * Records added so far, only formatted as {@link #toString()} would have done now when the
+   * supplier is called. Records added afterwards are left out.
+   */
+  public Supplier<String> snapshot() {
+    Object[] records = history.toArray();
+    long now = now();
+    return () -> format(records, now);
+  }
+
   @Override
   public String toString() {
-    long startTime = history.size() > 0 ? firstTime() : 0;
-    long now = now();
+    return format(history.toArray(), now());
+  }
+
+  private String format(Object[] a, long now) {
+    long startTime = a.length > 0 ? ((Record) a[0]).getTime() : 0;
 
     StringBuilder sb = new StringBuilder();
     sb.append("CurrentRecord {");
     sb.append("start_ms=").append(creationTimeSinceEpochMs()).append(", ");
-    Object[] a = history.toArray();
     sb.append('[');
     for (Object item : a) {
       Record r = (Record) item;
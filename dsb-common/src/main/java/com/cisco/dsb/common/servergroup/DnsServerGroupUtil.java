@@ -1,5 +1,6 @@
 package com.cisco.dsb.common.servergroup;
 
+import com.cisco.dsb.common.config.sip.CommonConfigurationProperties;
 import com.cisco.dsb.common.exception.DhruvaException;
 import com.cisco.dsb.common.service.SipServerLocatorService;
 import com.cisco.dsb.common.sip.dto.HopImpl;
@@ -11,6 +12,7 @@ import com.cisco.wx2.dto.User;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
 import java.util.stream.Collectors;
 import lombok.CustomLog;
 import lombok.Getter;
@@ -18,26 +20,118 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Mono;
 
+/**
+ * Resolves DNS server groups and caches the result for the TTL of the records.
+ *
+ * <p>Concurrent calls for a server group that is not cached share one outstanding resolution. Once
+ * {@link CommonConfigurationProperties#getDnsServerGroupRefreshAheadPercent()} of the TTL has
+ * elapsed the next call re-resolves in the background while the cached group keeps being served,
+ * and an expired group is served for up to {@link
+ * CommonConfigurationProperties#getDnsServerGroupServeStaleMillis()} while it is re-resolved. So
+ * routing to a hot server group does not wait on DNS, and the resolver sees at most one query per
+ * server group at a time.
+ */
 @Component
 @CustomLog
 public class DnsServerGroupUtil {
   @Getter private SipServerLocatorService locatorService;
+  private CommonConfigurationProperties commonConfigurationProperties;
+  private final LongSupplier clock;
   private Map<ServerGroup, CachedServerGroup> serverGroupCache = new ConcurrentHashMap<>();
+  private Map<ServerGroup, CompletableFuture<ServerGroup>> inFlight = new ConcurrentHashMap<>();
 
-  @Autowired
   public DnsServerGroupUtil(SipServerLocatorService locatorService) {
+    this(locatorService, null);
+  }
+
+  @Autowired
+  public DnsServerGroupUtil(
+      SipServerLocatorService locatorService,
+      CommonConfigurationProperties commonConfigurationProperties) {
+    this(locatorService, commonConfigurationProperties, System::currentTimeMillis);
+  }
+
+  DnsServerGroupUtil(
+      SipServerLocatorService locatorService,
+      CommonConfigurationProperties commonConfigurationProperties,
+      LongSupplier clock) {
     this.locatorService = locatorService;
+    this.commonConfigurationProperties = commonConfigurationProperties;
+    this.clock = clock;
   }
 
   public Mono<ServerGroup> createDNSServerGroup(ServerGroup serverGroup, String userId) {
 
-    ServerGroup csg = getSGFromCache(serverGroup);
+    CachedServerGroup csg = serverGroupCache.get(serverGroup);
     if (csg != null) {
-      logger.debug("SG found in DNS Cache {}", csg);
-      return Mono.just(csg);
+      long now = clock.getAsLong();
+      if (now < csg.refreshAt) {
+        logger.debug("SG found in DNS Cache {}", csg.serverGroup);
+        return Mono.just(csg.serverGroup);
+      }
+      if (now < csg.expiry + getServeStaleMillis()) {
+        logger.debug(
+            "SG found in DNS Cache {}, {}, refreshing in background",
+            csg.serverGroup,
+            now < csg.expiry ? "ttl nearing expiry" : "ttl expired");
+        refreshInBackground(serverGroup, userId);
+        return Mono.just(csg.serverGroup);
+      }
+      logger.debug("SG present in cache but ttl expired {}", serverGroup);
+    } else {
+      logger.debug("SG not present in cache {}", serverGroup);
     }
 
     logger.debug("Invalid cache, looking up... {}", serverGroup);
+    // every caller gets its own copy, so a cancelled subscriber does not cancel the shared lookup
+    return Mono.fromFuture(resolve(serverGroup, userId).copy());
+  }
+
+  private void refreshInBackground(ServerGroup serverGroup, String userId) {
+    if (inFlight.containsKey(serverGroup)) {
+      return;
+    }
+    resolve(serverGroup, userId)
+        .whenComplete(
+            (sg, err) -> {
+              if (err != null) {
+                logger.warn(
+                    "Background refresh failed for {}, serving cached SG", serverGroup, err);
+              }
+            });
+  }
+
+  /**
+   * Returns the outstanding resolution of the server group, or starts one. The cache is updated
+   * before the returned future completes.
+   */
+  private CompletableFuture<ServerGroup> resolve(ServerGroup serverGroup, String userId) {
+    CompletableFuture<ServerGroup> pending = inFlight.get(serverGroup);
+    if (pending != null) {
+      logger.debug("Joining in-flight lookup for {}", serverGroup);
+      return pending;
+    }
+    CompletableFuture<ServerGroup> resolution = new CompletableFuture<>();
+    pending = inFlight.putIfAbsent(serverGroup, resolution);
+    if (pending != null) {
+      logger.debug("Joining in-flight lookup for {}", serverGroup);
+      return pending;
+    }
+    resolution.whenComplete((sg, err) -> inFlight.remove(serverGroup, resolution));
+    lookup(serverGroup, userId)
+        .toFuture()
+        .whenComplete(
+            (sg, err) -> {
+              if (err != null) {
+                resolution.completeExceptionally(err);
+              } else {
+                resolution.complete(sg);
+              }
+            });
+    return resolution;
+  }
+
+  private Mono<ServerGroup> lookup(ServerGroup serverGroup, String userId) {
     String hostname = serverGroup.getHostName();
     int port = serverGroup.getPort();
     User userInject = null;
@@ -98,52 +192,45 @@ public class DnsServerGroupUtil {
     return serverGroup.toBuilder().setElements(elementList).build();
   }
 
-  /**
-   * Returns ServerGroup from cache if it's present and ttl has not expired. Returns Null if either
-   * of criteria fail.
-   *
-   * @param serverGroup This is used just for object comparison. The returned object is a new object
-   *     built using all the properties of this object and has resolved elements
-   * @return new ServerGroup with resolved elements
-   */
-  private ServerGroup getSGFromCache(ServerGroup serverGroup) {
-    if (serverGroupCache.containsKey(serverGroup)) {
-      CachedServerGroup csg = serverGroupCache.get(serverGroup);
-      if (csg.expiry - System.currentTimeMillis() > 0) {
-        return csg.serverGroup;
-      }
-      logger.debug("SG present in cache but ttl expired {}", serverGroup);
-      return null;
-    }
-    logger.debug("SG not present in cache {}", serverGroup);
-    return null;
-  }
-
   private void updateSGCache(
       ServerGroup serverGroup, LocateSIPServersResponse locateSIPServersResponse) {
-    long expiry =
+    long ttl =
         locateSIPServersResponse.getDnsARecords().stream()
-                .mapToLong(dns -> dns.getRecord().getTtl() * 1000L)
-                .min()
-                .orElse(0L)
-            + System.currentTimeMillis();
-    CachedServerGroup csg = serverGroupCache.get(serverGroup);
-    if (csg == null) {
-      csg = new CachedServerGroup(serverGroup, expiry);
-    } else {
-      csg.serverGroup = serverGroup;
-      csg.expiry = expiry;
-    }
-    serverGroupCache.put(serverGroup, csg);
+            .mapToLong(dns -> dns.getRecord().getTtl() * 1000L)
+            .min()
+            .orElse(0L);
+    long now = clock.getAsLong();
+    long expiry = now + ttl;
+    int refreshAheadPercent = getRefreshAheadPercent();
+    long refreshAt =
+        refreshAheadPercent > 0 && refreshAheadPercent < 100
+            ? now + ttl * refreshAheadPercent / 100
+            : expiry;
+    serverGroupCache.put(serverGroup, new CachedServerGroup(serverGroup, expiry, refreshAt));
+  }
+
+  private long getServeStaleMillis() {
+    return commonConfigurationProperties == null
+        ? CommonConfigurationProperties.DEFAULT_DNS_SERVER_GROUP_SERVE_STALE_MILLIS
+        : Math.max(0, commonConfigurationProperties.getDnsServerGroupServeStaleMillis());
+  }
+
+  private int getRefreshAheadPercent() {
+    return commonConfigurationProperties == null
+        ? CommonConfigurationProperties.DEFAULT_DNS_SERVER_GROUP_REFRESH_AHEAD_PERCENT
+        : commonConfigurationProperties.getDnsServerGroupRefreshAheadPercent();
   }
 
-  private class CachedServerGroup {
-    ServerGroup serverGroup;
-    long expiry;
+  // immutable, replaced as a whole so readers never see an expiry of a different lookup
+  private static class CachedServerGroup {
+    final ServerGroup serverGroup;
+    final long expiry;
+    final long refreshAt;
 
-    public CachedServerGroup(ServerGroup serverGroup, long expiry) {
+    CachedServerGroup(ServerGroup serverGroup, long expiry, long refreshAt) {
       this.serverGroup = serverGroup;
       this.expiry = expiry;
+      this.refreshAt = refreshAt;
     }
   }
 }
@@ -154,6 +154,11 @@ public class ServerGroup implements LBElement, LoadBalancable, Pingable {
         .isEquals();
   }
 
+  @Override
+  public String getHashKey() {
+    return name + ":" + hostName;
+  }
+
   @Override
   public String toString() {
     return String.format(
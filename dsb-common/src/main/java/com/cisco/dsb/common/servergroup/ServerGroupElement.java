@@ -155,4 +155,9 @@ public class ServerGroupElement implements LBElement, Pingable {
 
     return uniqueString;
   }
+
+  @Override
+  public String getHashKey() {
+    return toUniqueElementString();
+  }
 }
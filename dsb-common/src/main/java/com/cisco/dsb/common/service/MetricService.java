@@ -8,13 +8,13 @@ import static com.cisco.dsb.common.util.log.event.Event.DIRECTION.OUT;
 import static com.cisco.dsb.common.util.log.event.Event.MESSAGE_TYPE.REQUEST;
 import static com.cisco.dsb.common.util.log.event.Event.MESSAGE_TYPE.RESPONSE;
 
-import com.cisco.dsb.common.dto.ConnectionInfo;
 import com.cisco.dsb.common.dto.RateLimitInfo;
 import com.cisco.dsb.common.executor.DhruvaExecutorService;
 import com.cisco.dsb.common.executor.ExecutorType;
 import com.cisco.dsb.common.metric.*;
 import com.cisco.dsb.common.servergroup.ServerGroup;
 import com.cisco.dsb.common.sip.util.SipUtils;
+import com.cisco.dsb.common.transport.Connection;
 import com.cisco.dsb.common.transport.Transport;
 import com.cisco.dsb.common.util.log.event.Event.DIRECTION;
 import com.cisco.dsb.common.util.log.event.Event.MESSAGE_TYPE;
@@ -23,11 +23,7 @@ import com.cisco.wx2.dto.health.ServiceState;
 import com.cisco.wx2.util.Token;
 import com.google.common.base.Joiner;
 import com.google.common.base.Strings;
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.RemovalCause;
 import gov.nist.javax.sip.stack.MessageChannel;
-import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
@@ -40,7 +36,6 @@ import lombok.CustomLog;
 import lombok.Getter;
 import lombok.Setter;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.commons.lang3.time.StopWatch;
 import org.jetbrains.annotations.NotNull;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
@@ -96,7 +91,9 @@ public class MetricService {
 
   @Getter @Setter private Map<String, String> trunkLBAlgorithm;
 
-  @Getter @Setter private Map<String, ConnectionInfo> connectionInfoMap;
+  @Getter
+  private final ConnectionTrafficRegistry connectionTrafficRegistry =
+      new ConnectionTrafficRegistry();
 
   @Getter @Setter private Map<RateLimitInfo, Integer> rateLimiterMap;
 
@@ -106,9 +103,14 @@ public class MetricService {
 
   @Getter @Setter private Map<String, Boolean> sgeStatusMap = new ConcurrentHashMap<>();
 
-  @Getter private final Cache<String, Long> timers;
-  @Getter private final HashMap<String, StopWatch> stopWatchTimers = new HashMap<>();
-  private static final long SCAVENGE_EVERY_X_HOURS = 12L;
+  // metric -> callType -> latencies recorded since the last flush
+  @Getter
+  private final Map<String, Map<String, LatencyHistogram>> latencyHistograms =
+      new ConcurrentHashMap<>();
+
+  // set once SIP messages are counted per interval rather than emitted one by one
+  @Getter private volatile SipMessageCounters sipMessageCounters;
+
   public static final Joiner joiner = Joiner.on(Token.Chars.Dot).skipNulls();
 
   @Autowired
@@ -122,26 +124,12 @@ public class MetricService {
         dhruvaExecutorService.getScheduledExecutorThreadPool(ExecutorType.METRIC_SERVICE);
     this.executorService = executorService;
 
-    timers =
-        CacheBuilder.newBuilder()
-            .expireAfterWrite(SCAVENGE_EVERY_X_HOURS, TimeUnit.HOURS)
-            .maximumSize(200000L)
-            .removalListener(
-                (notification) -> {
-                  if (notification.getCause() == RemovalCause.SIZE) {
-                    logger.warn(
-                        "Timer removed due to cache size. Consider increasing size or decreasing TTL.");
-                  }
-                })
-            .build();
-
     this.cpsCounterMap = new ConcurrentHashMap<>();
     this.cpsTrunkCounterMap = new ConcurrentHashMap<>();
     this.trunkStatusMap = new ConcurrentHashMap<>();
     this.serverGroupStatusMap = new ConcurrentHashMap<>();
     this.trunkLBMap = new ConcurrentHashMap<>();
     this.trunkLBAlgorithm = new ConcurrentHashMap<>();
-    this.connectionInfoMap = new ConcurrentHashMap<>();
     this.rateLimiterMap = new ConcurrentHashMap<>();
   }
 
@@ -152,12 +140,6 @@ public class MetricService {
         getMetricFromSupplier(measurement, metricSupplier), interval, interval, timeUnit);
   }
 
-  public void insertConnectionInfo(String id, ConnectionInfo connectionInfo) {
-    if (this.connectionInfoMap != null) {
-      this.connectionInfoMap.computeIfAbsent(id, value -> connectionInfo);
-    }
-  }
-
   public void updateRateLimiterInfo(RateLimitInfo rateLimitInfo) {
     if (this.rateLimiterMap != null) {
       this.rateLimiterMap.merge(rateLimitInfo, 1, Integer::sum);
@@ -197,6 +179,61 @@ public class MetricService {
         "connection", this.connectionInfoMetricSupplier(), interval, timeUnit);
   }
 
+  /**
+   * Emits the latencies recorded with {@link #recordLatency(String, String, long, TimeUnit)} as
+   * count, p50, p90, p99 and max per metric and call type, once per interval
+   *
+   * @param interval
+   * @param timeUnit
+   */
+  public void emitLatencyMetricPerInterval(int interval, TimeUnit timeUnit) {
+    // measurements named after the metrics, so not registered under a single one
+    scheduledExecutor.scheduleAtFixedRate(
+        () -> sendMetric(latencyMetricSupplier().get()), interval, interval, timeUnit);
+  }
+
+  public Supplier<Set<Metric>> latencyMetricSupplier() {
+    return () -> {
+      Set<Metric> latencyMetricSet = new HashSet<>();
+      latencyHistograms.forEach(
+          (metric, histograms) ->
+              histograms.forEach(
+                  (callType, histogram) -> {
+                    LatencyHistogram.Snapshot snapshot = histogram.snapshotAndReset();
+                    if (snapshot.getCount() == 0) return;
+                    Metric latencyMetric =
+                        Metrics.newMetric().measurement(prefixDhruvaToMeasurementName(metric));
+                    if (!callType.isEmpty()) latencyMetric.tag("callType", callType);
+                    latencyMetric.field(COUNT, snapshot.getCount());
+                    latencyMetric.field("p50", toMillis(snapshot.getP50()));
+                    latencyMetric.field("p90", toMillis(snapshot.getP90()));
+                    latencyMetric.field("p99", toMillis(snapshot.getP99()));
+                    latencyMetric.field("max", toMillis(snapshot.getMax()));
+                    latencyMetricSet.add(latencyMetric);
+                  }));
+      return latencyMetricSet;
+    };
+  }
+
+  /**
+   * Counts the SIP messages passed to {@link #sendSipMessageMetric} in memory from now on and emits
+   * the counts per method, call type, message type, direction, transport and flags, once per
+   * interval. The per message fields (Call-ID, CSeq, Request-URI, delays) are not emitted then.
+   *
+   * @param interval
+   * @param timeUnit
+   */
+  public void emitSipMessageMetricPerInterval(int interval, TimeUnit timeUnit) {
+    SipMessageCounters counters = new SipMessageCounters();
+    this.registerPeriodicMetric(
+        "sipMessage", () -> counters.drain("sipMessage"), interval, timeUnit);
+    this.sipMessageCounters = counters;
+  }
+
+  private static double toMillis(long micros) {
+    return micros / 1000.0;
+  }
+
   /**
    * Currently used to emit establised connection info for UDP transports
    *
@@ -216,26 +253,14 @@ public class MetricService {
   }
 
   private Supplier<Set<Metric>> connectionInfoMetricSupplier() {
-    {
-      Supplier<Set<Metric>> connectionInfoSupplier =
-          () -> {
-            Set<Metric> connectionInfoMetricSet = new HashSet<>();
-            for (Map.Entry<String, ConnectionInfo> entry : connectionInfoMap.entrySet()) {
-              if (entry.getValue() != null) {
-                ConnectionInfo connectionInfo = entry.getValue();
-                Metric connectionMetric =
-                    this.createConnectionMetric(
-                        connectionInfo.getDirection(),
-                        connectionInfo.getMessageChannel(),
-                        connectionInfo.getConnectionState());
-                connectionInfoMetricSet.add(connectionMetric);
-              }
-            }
-            connectionInfoMap.clear();
-            return connectionInfoMetricSet;
-          };
-      return connectionInfoSupplier;
-    }
+    return () -> {
+      Set<Metric> connectionInfoMetricSet = new HashSet<>();
+      for (ConnectionTrafficRegistry.Snapshot snapshot :
+          connectionTrafficRegistry.snapshotAndReset()) {
+        connectionInfoMetricSet.add(createConnectionMetric(snapshot));
+      }
+      return connectionInfoMetricSet;
+    };
   }
 
   /**
@@ -496,6 +521,27 @@ public class MetricService {
     return connectionMetric;
   }
 
+  private Metric createConnectionMetric(ConnectionTrafficRegistry.Snapshot snapshot) {
+    ConnectionTrafficRegistry.Slot slot = snapshot.getSlot();
+    Metric connectionMetric = Metrics.newMetric().measurement("connection");
+    connectionMetric.tag("direction", snapshot.getDirection().toString());
+    connectionMetric.tag("transport", slot.getTransport());
+    connectionMetric.field("localAddress", slot.getLocalAddress());
+    connectionMetric.field("localPort", slot.getLocalPort());
+    if (snapshot.getDirection() == OUT) {
+      connectionMetric.field("localPortStr", "Ephemeral port");
+    } else {
+      connectionMetric.field("localPortStr", String.valueOf(slot.getLocalPort()));
+    }
+    connectionMetric.field("remoteAddress", slot.getRemoteAddress());
+    connectionMetric.field("remotePort", slot.getRemotePort());
+    connectionMetric.field("id", slot.getId(snapshot.getDirection()));
+    connectionMetric.field("packets", snapshot.getPackets());
+    connectionMetric.field("bytes", snapshot.getBytes());
+    connectionMetric.tag("connectionState", Connection.STATE.CONNECTED.toString());
+    return connectionMetric;
+  }
+
   public void emitConnectionErrorMetric(
       MessageChannel channel, boolean isClient, String exceptionMessage) {
     try {
@@ -595,6 +641,13 @@ public class MetricService {
       String callType,
       String additionalDetails) {
 
+    SipMessageCounters counters = sipMessageCounters;
+    if (counters != null) {
+      counters.increment(
+          method, messageType, direction, transport, callType, isMidCall, isInternallyGenerated);
+      return;
+    }
+
     Metric metric =
         Metrics.newMetric()
             .measurement("sipMessage")
@@ -770,115 +823,15 @@ public class MetricService {
     return point;
   }
 
-  // Starts timing operation on the given (metric, callId) pair
-  public void startTimer(String callId, String metric) {
-    if (!Strings.isNullOrEmpty(metric) && !Strings.isNullOrEmpty(callId)) {
-      String key = joiner.join(callId, metric);
-      timers.put(key, System.nanoTime());
-    }
-  }
-
-  public void startStopWatch(String callId, String metric) {
-    if (!Strings.isNullOrEmpty(metric) && !Strings.isNullOrEmpty(callId)) {
-      String key = joiner.join(callId, metric);
-      StopWatch stopWatch = stopWatchTimers.get(key);
-      if (stopWatch != null && !stopWatch.isStarted()) {
-        stopWatch.start();
-      } else {
-        stopWatch = new StopWatch();
-        stopWatch.start();
-        stopWatchTimers.put(key, stopWatch);
-      }
-    }
-  }
-
-  public void pauseStopWatch(String callId, String metric) {
-    if (!Strings.isNullOrEmpty(metric) && !Strings.isNullOrEmpty(callId)) {
-      String key = joiner.join(callId, metric);
-      StopWatch stopWatch = stopWatchTimers.get(key);
-      if (stopWatch != null) {
-        stopWatch.suspend();
-      }
-    }
-  }
-
-  public void splitStopWatch(String callId, String metric) {
-    if (!Strings.isNullOrEmpty(metric) && !Strings.isNullOrEmpty(callId)) {
-      String key = joiner.join(callId, metric);
-      StopWatch stopWatch = stopWatchTimers.get(key);
-      if (stopWatch != null) {
-        try {
-          stopWatch.split();
-        } catch (IllegalStateException e) {
-          logger.info("stopwatch split exception {} for callID {}", e.getMessage(), callId);
-        }
-      }
-    }
-  }
-
-  public void resumeStopWatch(String callId, String metric) {
-    if (!Strings.isNullOrEmpty(metric) && !Strings.isNullOrEmpty(callId)) {
-      String key = joiner.join(callId, metric);
-      StopWatch stopWatch = stopWatchTimers.get(key);
-      if (stopWatch != null) {
-        stopWatch.resume();
-      }
-    }
-  }
-
-  public long getSplitTimeStopWatch(String callId, String metric) {
-    final long noValidDuration = -1L;
-    if (!Strings.isNullOrEmpty(metric) && !Strings.isNullOrEmpty(callId)) {
-      String key = joiner.join(callId, metric);
-      StopWatch stopWatch = stopWatchTimers.get(key);
-      if (stopWatch != null) {
-        TimeUnit timeUnit = TimeUnit.MILLISECONDS;
-        try {
-          return timeUnit.convert(stopWatch.getSplitNanoTime(), TimeUnit.NANOSECONDS);
-        } catch (IllegalStateException e) {
-          logger.info("exception while we get split time {} for callID {}", e.getMessage(), callId);
-          return noValidDuration;
-        }
-      }
-    }
-    return noValidDuration;
-  }
-
-  public long endStopWatch(String callId, String metric) {
-    final long noValidDuration = -1L;
-    if (!Strings.isNullOrEmpty(metric) && !Strings.isNullOrEmpty(callId)) {
-      String key = joiner.join(callId, metric);
-      StopWatch stopWatch = stopWatchTimers.get(key);
-      if (stopWatch != null) {
-        try {
-          stopWatch.stop();
-        } catch (IllegalStateException e) {
-          logger.info("exception while we get stop time {} for callID {}", e.getMessage(), callId);
-          return noValidDuration;
-        }
-        long retVal = stopWatch.getTime(TimeUnit.MILLISECONDS);
-        stopWatchTimers.remove(key);
-        return retVal;
-      }
-    }
-    return noValidDuration;
-  }
-
-  // Stops timing operation on the given (metric, callId) pair and calculates
-  // the delta between start/stop operations. Returns negative one if no valid
-  // duration for metric & callId combo exists. Duration is in milliseconds.
-  public long stopTimer(String callId, String metric) {
-    final long noValidDuration = -1L;
-    if (!Strings.isNullOrEmpty(metric) && !Strings.isNullOrEmpty(callId)) {
-      String key = joiner.join(callId, metric);
-      Long startTime = timers.getIfPresent(key);
-      if (startTime != null) {
-        timers.invalidate(key);
-        return TimeUnit.MILLISECONDS.convert(System.nanoTime() - startTime, TimeUnit.NANOSECONDS);
-      }
-      return noValidDuration;
-    }
-    return noValidDuration;
+  /**
+   * Records the latency into the histogram of the metric and call type, flushed as percentiles by
+   * {@link #emitLatencyMetricPerInterval(int, TimeUnit)}. Lock free, so cheap enough per call.
+   */
+  public void recordLatency(String metric, String callType, long duration, TimeUnit timeUnit) {
+    latencyHistograms
+        .computeIfAbsent(metric, key -> new ConcurrentHashMap<>())
+        .computeIfAbsent(Strings.nullToEmpty(callType), key -> new LatencyHistogram())
+        .record(duration, timeUnit);
   }
 
   public void handleMetricsEvent(SipMetricsContext metricsContext) {
@@ -20,6 +20,10 @@ public class DsbJainSipMessageProcessorFactory implements MessageProcessorFactor
       throws IOException {
     if (transport.equalsIgnoreCase(ListeningPoint.UDP)) {
 
+      if (sipProperties.isUdpChannelEnabled()) {
+        return new DsbSipUdpChannelMessageProcessor(
+            ipAddress, sipStack, port, sipProperties, executorService, metricService);
+      }
       return new DsbSipUdpMessageProcessor(
           ipAddress, sipStack, port, sipProperties, executorService, metricService);
     }
@@ -2,26 +2,33 @@ package com.cisco.dsb.common.sip.jain.channelCache;
 
 import com.cisco.dsb.common.config.sip.CommonConfigurationProperties;
 import com.cisco.dsb.common.executor.DhruvaExecutorService;
+import com.cisco.dsb.common.ratelimiter.PreParseAdmissionFilter;
 import com.cisco.dsb.common.service.MetricService;
 import com.cisco.dsb.common.transport.Connection;
 import com.cisco.dsb.common.util.log.event.Event;
 import com.google.common.base.Preconditions;
 import gov.nist.javax.sip.SipStackImpl;
 import gov.nist.javax.sip.stack.ConnectionOrientedMessageChannel;
+import gov.nist.javax.sip.stack.NioTcpMessageChannel;
+import gov.nist.javax.sip.stack.NioTcpMessageProcessor;
 import gov.nist.javax.sip.stack.NioTlsMessageProcessor;
 import gov.nist.javax.sip.stack.SIPTransactionStack;
 import java.io.IOException;
 import java.net.InetAddress;
+import java.nio.channels.SocketChannel;
 import java.util.Collection;
 import lombok.CustomLog;
 import lombok.Getter;
+import lombok.Setter;
 
 @CustomLog
 public class DsbNioTlsMessageProcessor extends NioTlsMessageProcessor
-    implements MessageChannelCache {
+    implements MessageChannelCache, PreParseAdmissionControlled {
   private final StartStoppable keepAliveTimerTask;
   private final StartStoppable connectionMetricTask;
   @Getter private MetricService metricService;
+  @Getter @Setter private volatile PreParseAdmissionFilter preParseAdmissionFilter;
+  private final RejectedConnections rejectedConnections = new RejectedConnections();
 
   /**
    * Constructor.
@@ -64,6 +71,25 @@ public class DsbNioTlsMessageProcessor extends NioTlsMessageProcessor
     logger.debug("TLS message nio processor thread for stack {} stopping", getStackName());
     super.stop();
     connectionMetricTask.stop();
+    rejectedConnections.closeAll();
+  }
+
+  /**
+   * Invoked by the stack for every accepted connection. Connections from sources rejected by the
+   * pre-parse admission filter get no message channel, they are counted by the filter and shut
+   * down right away.
+   */
+  @Override
+  protected NioTcpMessageChannel createMessageChannel(
+      NioTcpMessageProcessor nioTcpMessageProcessor, SocketChannel client) throws IOException {
+    rejectedConnections.closeAll();
+    PreParseAdmissionFilter admissionFilter = this.preParseAdmissionFilter;
+    if (admissionFilter != null
+        && !admissionFilter.admitConnection(client.socket().getInetAddress())) {
+      rejectedConnections.add(client);
+      return null;
+    }
+    return super.createMessageChannel(nioTcpMessageProcessor, client);
   }
 
   @Override
@@ -0,0 +1,172 @@
+package com.cisco.dsb.common.sip.jain.channelCache;
+
+import com.cisco.dsb.common.config.sip.CommonConfigurationProperties;
+import com.cisco.dsb.common.executor.DhruvaExecutorService;
+import com.cisco.dsb.common.service.MetricService;
+import gov.nist.javax.sip.stack.SIPTransactionStack;
+import java.io.IOException;
+import java.net.BindException;
+import java.net.DatagramPacket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.CustomLog;
+
+/**
+ * UDP message processor receiving on DatagramChannels instead of the stack's socket. Each receiver
+ * thread reads into a direct buffer of its own, reused for every datagram, and copies out only the
+ * bytes of the datagram for the parser, where the stack allocates a buffer of the maximum message
+ * size per datagram. With more than one receiver, each binds the port with SO_REUSEPORT and the
+ * kernel spreads the datagrams between them. Messages are sent from the socket of the first one.
+ * The channels take over the port from the socket the stack bound, while it is still bound if it
+ * allows address reuse, as the socket of {@link com.cisco.dsb.common.sip.tls.DsbNetworkLayer} does.
+ *
+ * <p>Receivers are not monitored by the thread auditor, as a receive on a channel does not time out
+ * to ping it.
+ */
+@CustomLog
+public class DsbSipUdpChannelMessageProcessor extends DsbSipUdpMessageProcessor {
+
+  private final DatagramChannel[] channels;
+
+  public DsbSipUdpChannelMessageProcessor(
+      InetAddress ipAddress,
+      SIPTransactionStack sipStack,
+      int port,
+      CommonConfigurationProperties sipProperties,
+      DhruvaExecutorService executorService,
+      MetricService metricService)
+      throws IOException {
+    super(ipAddress, sipStack, port, sipProperties, executorService, metricService);
+
+    // the stack bound its socket without SO_REUSEPORT, the channels are bound in its place
+    InetSocketAddress localAddress = new InetSocketAddress(ipAddress, sock.getLocalPort());
+    int receiveBufferSize = sock.getReceiveBufferSize();
+    int sendBufferSize = sock.getSendBufferSize();
+    int trafficClass = sock.getTrafficClass();
+    int count = Math.max(1, sipProperties.getUdpChannelReceiverCount());
+    if (sock.getReuseAddress()) {
+      // bound next to the socket, so that the port is never free for someone else to take
+      try {
+        this.channels =
+            openChannels(localAddress, count, receiveBufferSize, sendBufferSize, trafficClass);
+      } finally {
+        sock.close();
+      }
+    } else {
+      sock.close();
+      try {
+        this.channels =
+            openChannels(localAddress, count, receiveBufferSize, sendBufferSize, trafficClass);
+      } catch (BindException e) {
+        logger.error("UDP port {} was taken once the stack released it", localAddress, e);
+        BindException bindException =
+            new BindException(
+                "UDP port "
+                    + localAddress
+                    + " was taken between releasing the stack socket and binding the channels");
+        bindException.initCause(e);
+        throw bindException;
+      }
+    }
+    this.sock = channels[0].socket();
+  }
+
+  private static DatagramChannel[] openChannels(
+      InetSocketAddress localAddress,
+      int count,
+      int receiveBufferSize,
+      int sendBufferSize,
+      int trafficClass)
+      throws IOException {
+    List<DatagramChannel> channels = new ArrayList<>(count);
+    try {
+      for (int i = 0; i < count; i++) {
+        DatagramChannel channel = DatagramChannel.open();
+        channels.add(channel);
+        if (count > 1) {
+          if (!channel.supportedOptions().contains(StandardSocketOptions.SO_REUSEPORT)) {
+            logger.warn(
+                "SO_REUSEPORT not supported, UDP on {} is received by one thread", localAddress);
+            count = 1;
+          } else {
+            channel.setOption(StandardSocketOptions.SO_REUSEPORT, true);
+          }
+        }
+        channel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+        channel.setOption(StandardSocketOptions.SO_RCVBUF, receiveBufferSize);
+        channel.setOption(StandardSocketOptions.SO_SNDBUF, sendBufferSize);
+        channel.bind(localAddress);
+        channel.setOption(StandardSocketOptions.IP_TOS, trafficClass);
+      }
+    } catch (IOException | RuntimeException e) {
+      for (DatagramChannel channel : channels) {
+        channel.close();
+      }
+      throw e;
+    }
+    logger.info("Receiving UDP on {} by {} threads", localAddress, channels.size());
+    return channels.toArray(new DatagramChannel[0]);
+  }
+
+  @Override
+  public void run() {
+    int threadPoolSize = startMessageChannels();
+    for (int i = 1; i < channels.length; i++) {
+      DatagramChannel channel = channels[i];
+      Thread receiver =
+          new Thread(
+              () -> receive(channel, threadPoolSize),
+              getStackName() + "-UDPReceiverThread-" + i);
+      receiver.setDaemon(true);
+      receiver.start();
+    }
+    receive(channels[0], threadPoolSize);
+  }
+
+  private void receive(DatagramChannel channel, int threadPoolSize) {
+    ByteBuffer buffer = ByteBuffer.allocateDirect(this.getMaximumMessageSize());
+    while (this.isRunning) {
+      try {
+        buffer.clear();
+        InetSocketAddress source = (InetSocketAddress) channel.receive(buffer);
+        buffer.flip();
+        int length = buffer.remaining();
+
+        // drop on the source address alone, before the datagram is copied out for parsing
+        if (!admit(source.getAddress(), length)) {
+          continue;
+        }
+
+        byte[] message = new byte[length];
+        buffer.get(message);
+        dispatch(new DatagramPacket(message, length, source), threadPoolSize);
+      } catch (ClosedChannelException ex) {
+        if (this.isRunning) {
+          reportSockeException(ex);
+        }
+        logger.debug("UDPMessageProcessor: Stopping receiver on {}", channel);
+        return;
+      } catch (Exception ex) {
+        reportSockeException(ex); // report exception but try to continue to receive data ...
+      }
+    }
+  }
+
+  @Override
+  public void stop() {
+    super.stop();
+    for (DatagramChannel channel : channels) {
+      try {
+        channel.close();
+      } catch (IOException e) {
+        logger.warn("Unable to close UDP channel {}", channel, e);
+      }
+    }
+  }
+}
@@ -2,6 +2,7 @@ package com.cisco.dsb.common.sip.jain.channelCache;
 
 import com.cisco.dsb.common.config.sip.CommonConfigurationProperties;
 import com.cisco.dsb.common.executor.DhruvaExecutorService;
+import com.cisco.dsb.common.ratelimiter.PreParseAdmissionFilter;
 import com.cisco.dsb.common.service.MetricService;
 import com.google.common.base.Preconditions;
 import gov.nist.core.HostPort;
@@ -14,6 +15,7 @@ import java.net.*;
 import java.util.LinkedList;
 import lombok.CustomLog;
 import lombok.Getter;
+import lombok.Setter;
 import org.springframework.util.ReflectionUtils;
 
 /**
@@ -22,8 +24,10 @@ import org.springframework.util.ReflectionUtils;
  * emitted out
  */
 @CustomLog
-public class DsbSipUdpMessageProcessor extends UDPMessageProcessor {
+public class DsbSipUdpMessageProcessor extends UDPMessageProcessor
+    implements PreParseAdmissionControlled {
   @Getter private MetricService metricService;
+  @Getter @Setter private volatile PreParseAdmissionFilter preParseAdmissionFilter;
 
   public DsbSipUdpMessageProcessor(
       InetAddress ipAddress,
@@ -73,31 +77,7 @@ public class DsbSipUdpMessageProcessor extends UDPMessageProcessor {
   @Override
   public void run() {
 
-    // Check for running flag.
-    this.messageChannels = new LinkedList();
-    // start all our messageChannels (unless the thread pool size is
-    // infinity.
-
-    // fetching the value of threadPoolSize from sipStack
-    Field threadPoolSizeField =
-        ReflectionUtils.findField(SIPTransactionStack.class, "threadPoolSize");
-    ReflectionUtils.makeAccessible(threadPoolSizeField);
-    int threadPoolSize =
-        ReflectionUtils.getField(threadPoolSizeField, sipStack) == null
-            ? -1
-            : (Integer) ReflectionUtils.getField(threadPoolSizeField, sipStack);
-
-    if (threadPoolSize != -1) {
-      for (int i = 0; i < threadPoolSize; i++) {
-        /* creating DsbUdpMessageChannel which is an extension over UdpMessageChannel to reuse there API's*/
-        DsbUdpMessageChannel channel =
-            new DsbUdpMessageChannel(
-                sipStack,
-                this,
-                ((SipStackImpl) sipStack).getStackName() + "-UDPMessageChannelThread-" + i);
-        this.messageChannels.add(channel);
-      }
-    }
+    int threadPoolSize = startMessageChannels();
 
     // Ask the auditor to monitor this thread
     ThreadAuditor.ThreadHandle threadHandle = null;
@@ -118,21 +98,12 @@ public class DsbSipUdpMessageProcessor extends UDPMessageProcessor {
         DatagramPacket packet = new DatagramPacket(message, bufsize);
         sock.receive(packet);
 
-        // Count of # of packets in process.
-        // this.useCount++;
-        if (threadPoolSize != -1) {
-          // Note: the only condition watched for by threads
-          // synchronizing on the messageQueue member is that it is
-          // not empty. As soon as you introduce some other
-          // condition you will have to call notifyAll instead of
-          // notify below.
-
-          this.messageQueue.offer(
-              new DatagramQueuedMessageDispatch(packet, System.currentTimeMillis()));
-
-        } else {
-          new DsbUdpMessageChannel(sipStack, this, packet);
+        // drop on the source address alone, before the datagram is queued for parsing
+        if (!admit(packet.getAddress(), packet.getLength())) {
+          continue;
         }
+
+        dispatch(packet, threadPoolSize);
         // exceptionsReportedCounter = 0;	// reset lock flooding checker
       } catch (SocketTimeoutException ex) {
         // This socket timeout allows us to ping the thread auditor periodically
@@ -151,7 +122,66 @@ public class DsbSipUdpMessageProcessor extends UDPMessageProcessor {
     }
   }
 
-  private void reportSockeException(Exception e) {
+  /**
+   * Starts the threads parsing the received datagrams
+   *
+   * @return number of threads, -1 if a thread is started per datagram instead
+   */
+  protected int startMessageChannels() {
+    // Check for running flag.
+    this.messageChannels = new LinkedList();
+    // start all our messageChannels (unless the thread pool size is
+    // infinity.
+
+    // fetching the value of threadPoolSize from sipStack
+    Field threadPoolSizeField =
+        ReflectionUtils.findField(SIPTransactionStack.class, "threadPoolSize");
+    ReflectionUtils.makeAccessible(threadPoolSizeField);
+    int threadPoolSize =
+        ReflectionUtils.getField(threadPoolSizeField, sipStack) == null
+            ? -1
+            : (Integer) ReflectionUtils.getField(threadPoolSizeField, sipStack);
+
+    if (threadPoolSize != -1) {
+      for (int i = 0; i < threadPoolSize; i++) {
+        /* creating DsbUdpMessageChannel which is an extension over UdpMessageChannel to reuse there API's*/
+        DsbUdpMessageChannel channel =
+            new DsbUdpMessageChannel(
+                sipStack,
+                this,
+                ((SipStackImpl) sipStack).getStackName() + "-UDPMessageChannelThread-" + i);
+        this.messageChannels.add(channel);
+      }
+    }
+    return threadPoolSize;
+  }
+
+  /** @return false if a datagram of the source is to be dropped before it is parsed */
+  protected boolean admit(InetAddress source, int length) {
+    PreParseAdmissionFilter admissionFilter = this.preParseAdmissionFilter;
+    return admissionFilter == null || admissionFilter.admit(source, length);
+  }
+
+  /** Hands a received datagram over to be parsed */
+  protected void dispatch(DatagramPacket packet, int threadPoolSize) {
+    // Count of # of packets in process.
+    // this.useCount++;
+    if (threadPoolSize != -1) {
+      // Note: the only condition watched for by threads
+      // synchronizing on the messageQueue member is that it is
+      // not empty. As soon as you introduce some other
+      // condition you will have to call notifyAll instead of
+      // notify below.
+
+      this.messageQueue.offer(
+          new DatagramQueuedMessageDispatch(packet, System.currentTimeMillis()));
+
+    } else {
+      new DsbUdpMessageChannel(sipStack, this, packet);
+    }
+  }
+
+  protected void reportSockeException(Exception e) {
     logger.warn(
         "Exception caught while receiving data via UdpMessageChannel at localAddress:{}, localport: {}, error:{}",
         String.valueOf(sock.getLocalAddress()),
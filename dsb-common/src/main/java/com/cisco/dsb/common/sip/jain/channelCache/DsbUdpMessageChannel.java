@@ -1,9 +1,7 @@
 package com.cisco.dsb.common.sip.jain.channelCache;
 
-import com.cisco.dsb.common.dto.ConnectionInfo;
+import com.cisco.dsb.common.metric.ConnectionTrafficRegistry;
 import com.cisco.dsb.common.service.MetricService;
-import com.cisco.dsb.common.sip.util.SipUtils;
-import com.cisco.dsb.common.transport.Connection;
 import com.cisco.dsb.common.util.log.event.Event;
 import gov.nist.javax.sip.message.SIPMessage;
 import gov.nist.javax.sip.stack.*;
@@ -15,6 +13,9 @@ import lombok.CustomLog;
 @CustomLog
 public class DsbUdpMessageChannel extends UDPMessageChannel {
 
+  // traffic slot of the current peer, only resolved again once the peer changes
+  private ConnectionTrafficRegistry.Slot trafficSlot;
+
   protected DsbUdpMessageChannel(
       InetAddress targetAddr,
       int port,
@@ -42,9 +43,8 @@ public class DsbUdpMessageChannel extends UDPMessageChannel {
   @Override
   public void processMessage(SIPMessage sipMessage) {
     super.processMessage(sipMessage);
-    // emit metric with dir inward
-    this.sendConnectionInfoMetric(
-        Event.DIRECTION.IN.toString(), Connection.STATE.CONNECTED.toString(), this);
+    // count the traffic inward
+    this.countTraffic(Event.DIRECTION.IN, sipMessage.getSize());
   }
   /**
    * processes incoming messages to server overriden to emit connection information to capture
@@ -54,9 +54,8 @@ public class DsbUdpMessageChannel extends UDPMessageChannel {
   protected void sendMessage(byte[] msg, InetAddress peerAddress, int peerPort, boolean reConnect) {
     try {
       super.sendMessage(msg, peerAddress, peerPort, reConnect);
-      // sending connection info metric
-      this.sendConnectionInfoMetric(
-          Event.DIRECTION.OUT.toString(), Connection.STATE.CONNECTED.toString(), this);
+      // count the traffic outward
+      this.countTraffic(Event.DIRECTION.OUT, msg.length);
     } catch (IOException exp) {
       //  emit event and metrics
       Event.emitConnectionErrorEvent(this.getTransport(), null, exp);
@@ -68,8 +67,7 @@ public class DsbUdpMessageChannel extends UDPMessageChannel {
       byte[] msg, InetAddress peerAddress, int peerPort, String peerProtocol, boolean retry) {
     try {
       super.sendMessage(msg, peerAddress, peerPort, peerProtocol, retry);
-      this.sendConnectionInfoMetric(
-          Event.DIRECTION.OUT.toString(), Connection.STATE.CONNECTED.toString(), this);
+      this.countTraffic(Event.DIRECTION.OUT, msg.length);
 
     } catch (IOException exp) {
       Event.emitConnectionErrorEvent(this.getTransport(), null, exp);
@@ -85,25 +83,23 @@ public class DsbUdpMessageChannel extends UDPMessageChannel {
         this.getMessageProcessor().getPort());
   }
 
-  public void sendConnectionInfoMetric(
-      String direction, String connectionState, MessageChannel channel) {
-    DsbSipUdpMessageProcessor dsbUdpMessageProcessor =
-        this.getMessageProcessor() != null
-            ? (DsbSipUdpMessageProcessor) this.getMessageProcessor()
-            : null;
-    MetricService metricService =
-        dsbUdpMessageProcessor != null ? dsbUdpMessageProcessor.getMetricService() : null;
-
-    if (metricService != null) {
-      String connectionId = SipUtils.getConnectionId(direction, channel.getTransport(), this);
-      ConnectionInfo connectionInfo =
-          ConnectionInfo.builder()
-              .direction(direction)
-              .transport(channel.getTransport())
-              .messageChannel(channel)
-              .connectionState(connectionState)
-              .build();
-      metricService.insertConnectionInfo(connectionId, connectionInfo);
+  /**
+   * Counts a packet on the connection with the current peer, emitted per interval as connection
+   * info. Resolving the connection is left out as long as the peer stays the same
+   */
+  public void countTraffic(Event.DIRECTION direction, int bytes) {
+    ConnectionTrafficRegistry.Slot slot = this.trafficSlot;
+    if (slot == null || !slot.isFor(this.getPeerInetAddress(), this.getPeerPort())) {
+      DsbSipUdpMessageProcessor dsbUdpMessageProcessor =
+          (DsbSipUdpMessageProcessor) this.getMessageProcessor();
+      MetricService metricService =
+          dsbUdpMessageProcessor != null ? dsbUdpMessageProcessor.getMetricService() : null;
+      if (metricService == null) {
+        return;
+      }
+      slot = metricService.getConnectionTrafficRegistry().slotOf(this);
+      this.trafficSlot = slot;
     }
+    slot.count(direction, bytes);
   }
 }
@@ -0,0 +1,13 @@
+package com.cisco.dsb.common.sip.jain.channelCache;
+
+import com.cisco.dsb.common.ratelimiter.PreParseAdmissionFilter;
+
+/**
+ * Message processors that check the source address of datagrams/connections against a {@link
+ * PreParseAdmissionFilter} before anything is handed to the stack for parsing.
+ *
+ * <p>Set by the application once the stack is created, a null filter admits everything.
+ */
+public interface PreParseAdmissionControlled {
+  void setPreParseAdmissionFilter(PreParseAdmissionFilter preParseAdmissionFilter);
+}
@@ -0,0 +1,45 @@
+package com.cisco.dsb.common.sip.jain.channelCache;
+
+import java.io.IOException;
+import java.net.StandardSocketOptions;
+import java.nio.channels.SocketChannel;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import lombok.CustomLog;
+
+/**
+ * Connections rejected by the NIO message processors before a message channel is created for them.
+ * A rejected connection is shut down in both directions at once: the peer sees it closed, and the
+ * stack, reading end of stream on a connection without a message channel, drops it without parsing
+ * anything. The stack registers every accepted connection with its selector right after asking for
+ * its message channel, and fails on a closed one, so the socket itself is only released on the next
+ * accept (or when the processor stops), by which time the stack has registered it.
+ */
+@CustomLog
+final class RejectedConnections {
+
+  private final Queue<SocketChannel> connections = new ConcurrentLinkedQueue<>();
+
+  void add(SocketChannel connection) {
+    try {
+      // reset rather than a graceful close, nothing is kept for the connection once closed
+      connection.setOption(StandardSocketOptions.SO_LINGER, 0);
+      connection.shutdownOutput();
+      connection.shutdownInput();
+    } catch (IOException e) {
+      logger.debug("Unable to shut down rejected connection {}", connection, e);
+    }
+    connections.add(connection);
+  }
+
+  void closeAll() {
+    SocketChannel connection;
+    while ((connection = connections.poll()) != null) {
+      try {
+        connection.close();
+      } catch (IOException e) {
+        logger.debug("Unable to close rejected connection {}", connection, e);
+      }
+    }
+  }
+}
@@ -0,0 +1,85 @@
+package com.cisco.dsb.common.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock free queue for many producers and a single consumer. Every slot carries a sequence
+ * telling whether it is free to be written for the current lap or holds an element to be read, so
+ * producers only contend on the tail and never wait on each other or on the consumer. Offering to
+ * a full buffer fails instead of blocking.
+ */
+public final class MpscRingBuffer<E> {
+
+  private final int mask;
+  private final AtomicReferenceArray<E> elements;
+  // slot i is free for position p when its sequence is p, and holds the element of p when p + 1
+  private final AtomicLongArray sequences;
+  private final AtomicLong tail = new AtomicLong();
+  // only accessed by the consumer
+  private long head;
+
+  public MpscRingBuffer(int capacity) {
+    int size = capacity <= 1 ? 2 : Integer.highestOneBit(capacity - 1) << 1;
+    this.mask = size - 1;
+    this.elements = new AtomicReferenceArray<>(size);
+    this.sequences = new AtomicLongArray(size);
+    for (int i = 0; i < size; i++) {
+      sequences.set(i, i);
+    }
+  }
+
+  public int capacity() {
+    return mask + 1;
+  }
+
+  /** @return false if the buffer is full */
+  public boolean offer(E element) {
+    long position = tail.get();
+    while (true) {
+      long available = sequences.get((int) position & mask) - position;
+      if (available == 0) {
+        if (tail.compareAndSet(position, position + 1)) {
+          break;
+        }
+        position = tail.get();
+      } else if (available < 0) {
+        // the consumer has not read this slot since the previous lap
+        return false;
+      } else {
+        position = tail.get();
+      }
+    }
+    int index = (int) position & mask;
+    elements.lazySet(index, element);
+    sequences.set(index, position + 1);
+    return true;
+  }
+
+  /** @return the oldest element, null if there is none. Only called by the consumer */
+  public E poll() {
+    int index = (int) head & mask;
+    if (sequences.get(index) != head + 1) {
+      return null;
+    }
+    E element = elements.get(index);
+    elements.lazySet(index, null);
+    sequences.set(index, head + mask + 1);
+    head++;
+    return element;
+  }
+
+  /**
+   * @return true if an offer would fail now. Only a hint, other producers and the consumer may
+   *     change it right after
+   */
+  public boolean isFull() {
+    long position = tail.get();
+    return sequences.get((int) position & mask) - position < 0;
+  }
+
+  public boolean isEmpty() {
+    return sequences.get((int) head & mask) != head + 1;
+  }
+}
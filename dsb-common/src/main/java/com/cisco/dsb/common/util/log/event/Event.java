@@ -20,6 +20,7 @@ import gov.nist.javax.sip.message.SIPRequest;
 import gov.nist.javax.sip.message.SIPResponse;
 import io.github.resilience4j.circuitbreaker.event.CircuitBreakerEvent;
 import java.util.*;
+import javax.sip.address.Address;
 import javax.sip.message.Message;
 import lombok.CustomLog;
 import lombok.Setter;
@@ -47,6 +48,9 @@ public class Event {
   public static String CALLED_NUMBER = "calledNumber";
   public static String INBOUND_NETWORK = "inboundNetwork";
   public static String OUTBOUND_NETWORK = "outboundNetwork";
+  public static String MESSAGE_TIMESTAMP = "messageTimestamp";
+  public static String CALL_ID = "callId";
+  public static String REQUEST_URI = "requestUri";
 
   public enum EventType {
     CONNECTION,
@@ -106,61 +110,88 @@ public class Event {
       String outboundNetwork,
       DhruvaAppRecord appRecord,
       EventingService eventService) {
+    // TODO LMAUtil and Event classes needs to be refactored and made spring classes
+    if (eventingService == null && eventService != null) {
+      eventingService = eventService;
+    }
+
+    if (eventingService == null || !eventingService.sample(EventType.SIPMESSAGE)) {
+      return;
+    }
+    boolean background = eventingService.isPublishingInBackground();
+    // not even captured if it would be dropped
+    if (background && !eventingService.hasRoomForMessageEvent()) {
+      return;
+    }
+    eventingService.publishMessageEvent(
+        new MessageEvent(
+            messageBindingInfo,
+            message,
+            direction,
+            sipMessageType,
+            isInternallyGenerated,
+            isMidDialog,
+            isRetransmitted,
+            inboundNetwork,
+            outboundNetwork,
+            appRecord,
+            background));
+  }
 
-    String remoteAddress =
-        messageBindingInfo.getRemoteAddress() != null
-            ? Optional.ofNullable(messageBindingInfo.getRemoteAddress().getHostAddress()).orElse("")
-            : "";
+  /** @return logging event of a SIP message, read from the message the event holds */
+  public static LoggingEvent toLoggingEvent(MessageEvent messageEvent) {
+    MESSAGE_TYPE sipMessageType = messageEvent.getMessageType();
+    SIPMessage message = messageEvent.getMessage();
 
+    CSeq cseqHeaderValue = (CSeq) message.getHeader(CSeq.NAME);
     Map<String, String> messageInfoMap =
         Maps.newHashMap(
             ImmutableMap.of(
                 SIP_MESSAGE_TYPE,
                 sipMessageType.name(),
                 "cseqMethod",
-                String.valueOf(message.getHeader(CSeq.NAME)),
+                cseqHeaderValue == null ? "null" : cseqHeaderValue.encodeBody(),
                 Event.REMOTEIP,
-                remoteAddress));
+                messageEvent.getRemoteAddress()));
 
     if (MESSAGE_TYPE.REQUEST.equals(sipMessageType)) {
       SIPRequest sipRequest = (SIPRequest) message;
       messageInfoMap.put("sipMethod", String.valueOf(sipRequest.getMethod()));
+      messageInfoMap.put(REQUEST_URI, String.valueOf(sipRequest.getRequestURI()));
     } else {
       SIPResponse sipResponse = (SIPResponse) message;
       messageInfoMap.put("responseCode", String.valueOf(sipResponse.getStatusCode()));
       messageInfoMap.put("reasonPhrase", String.valueOf(sipResponse.getReasonPhrase()));
     }
+    messageInfoMap.put(
+        CALL_ID, message.getCallId() == null ? null : message.getCallId().getCallId());
 
-    CSeq cseqHeaderValue = (CSeq) message.getHeader(CSeq.NAME);
-    if (cseqHeaderValue != null) {
-      messageInfoMap.put("cseqMethod", cseqHeaderValue.encodeBody());
-    }
     // Populate To and From user portion
-    SipUri fromSipUri = (SipUri) ((SIPMessage) message).getFromHeader().getAddress().getURI();
-    String fromUser = fromSipUri.getUser();
-    SipUri toSipUri = (SipUri) ((SIPMessage) message).getToHeader().getAddress().getURI();
-    String toUser = toSipUri.getUser();
-    messageInfoMap.put(Event.CALLED_NUMBER, toUser);
-    messageInfoMap.put(Event.CALLING_NUMBER, fromUser);
-
-    messageInfoMap.put(Event.INBOUND_NETWORK, inboundNetwork);
-    messageInfoMap.put(Event.OUTBOUND_NETWORK, outboundNetwork);
-
-    messageInfoMap.put(Event.REMOTEPORT, String.valueOf(messageBindingInfo.getRemotePort()));
-    messageInfoMap.put(Event.DIRECTION_KEY, direction.name());
-
-    String localHostAddress =
-        messageBindingInfo.getLocalAddress() != null
-            ? Optional.ofNullable(messageBindingInfo.getLocalAddress().getHostAddress()).orElse("")
-            : "";
-    messageInfoMap.put(Event.LOCALIP, localHostAddress);
-    messageInfoMap.put(Event.LOCALPORT, String.valueOf(messageBindingInfo.getLocalPort()));
-    messageInfoMap.put(Event.ISMIDDIALOG, String.valueOf(isMidDialog));
+    messageInfoMap.put(
+        Event.CALLED_NUMBER,
+        message.getToHeader() == null ? null : user(message.getToHeader().getAddress()));
+    messageInfoMap.put(
+        Event.CALLING_NUMBER,
+        message.getFromHeader() == null ? null : user(message.getFromHeader().getAddress()));
+
+    messageInfoMap.put(Event.INBOUND_NETWORK, messageEvent.getInboundNetwork());
+    messageInfoMap.put(Event.OUTBOUND_NETWORK, messageEvent.getOutboundNetwork());
+
+    messageInfoMap.put(Event.REMOTEPORT, String.valueOf(messageEvent.getRemotePort()));
+    messageInfoMap.put(Event.DIRECTION_KEY, messageEvent.getDirection().name());
+
+    messageInfoMap.put(Event.LOCALIP, messageEvent.getLocalAddress());
+    messageInfoMap.put(Event.LOCALPORT, String.valueOf(messageEvent.getLocalPort()));
+    messageInfoMap.put(Event.ISMIDDIALOG, String.valueOf(messageEvent.isMidDialog()));
     // DSB TODO
-    messageInfoMap.put(Event.ISINTERNALLYGENERATED, String.valueOf(isInternallyGenerated));
-    messageInfoMap.put(Event.ISRETRANSMITTED, String.valueOf(isRetransmitted));
+    messageInfoMap.put(
+        Event.ISINTERNALLYGENERATED, String.valueOf(messageEvent.isInternallyGenerated()));
+    messageInfoMap.put(Event.ISRETRANSMITTED, String.valueOf(messageEvent.isRetransmitted()));
+    // when the message was sent or received, the event may be published later
+    messageInfoMap.put(Event.MESSAGE_TIMESTAMP, String.valueOf(messageEvent.getTimestamp()));
+    String appRecord = messageEvent.getAppRecord();
     if (appRecord != null) {
-      messageInfoMap.put("appRecord", appRecord.toString());
+      messageInfoMap.put("appRecord", appRecord);
     }
 
     SessionId sessionId = SessionId.extractFromSipEvent(message);
@@ -168,23 +199,18 @@ public class Event {
       messageInfoMap.put("localSessionId", sessionId.getLocalSessionId());
       messageInfoMap.put("remoteSessionId", sessionId.getRemoteSessionId());
     }
-    // TODO LMAUtil and Event classes needs to be refactored and made spring classes
-    if (eventingService == null && eventService != null) {
-      eventingService = eventService;
-    }
 
-    if (eventingService != null) {
-      LoggingEvent event =
-          new LoggingEvent.LoggingEventBuilder()
-              .eventType(EventType.SIPMESSAGE)
-              .eventInfoMap(messageInfoMap)
-              .sipMsgPayload(message)
-              .build();
-      // generate other necessary events
-      List<DhruvaEvent> events = new ArrayList<>();
-      events.add(event);
-      eventingService.publishEvents(events);
-    }
+    return new LoggingEvent.LoggingEventBuilder()
+        .eventType(EventType.SIPMESSAGE)
+        .eventInfoMap(messageInfoMap)
+        .sipMsgPayload(message)
+        .build();
+  }
+
+  private static String user(Address address) {
+    return address != null && address.getURI() instanceof SipUri
+        ? ((SipUri) address.getURI()).getUser()
+        : null;
   }
 
   public static void emitSGElementUpEvent(
@@ -1,24 +1,92 @@
 package com.cisco.dsb.common.util.log.event;
 
+import com.cisco.dsb.common.util.MpscRingBuffer;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
 import java.util.function.Supplier;
+import javax.annotation.PreDestroy;
 import lombok.CustomLog;
+import org.slf4j.MDC;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Sinks;
 
 @CustomLog
 public class EventingService {
 
+  private static final long DROP_REPORT_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+
   private final boolean allowUnmaskedEvents;
   private List<Class<? extends DhruvaEvent>> interestedEvents;
   private final Sinks.Many<DhruvaEvent> sink;
   private final Flux<DhruvaEvent> flux;
+  // percentage of the events of each type that are published
+  private final int[] samplingPercent = new int[Event.EventType.values().length];
+  // events of SIP messages waiting to be formatted and published, null to publish them right away
+  private final MpscRingBuffer<MessageEvent> messageEvents;
+  private final Thread publisher;
+  private volatile boolean running = true;
+  // set by the publisher before it parks, the calling threads only unpark it then
+  private volatile boolean waiting;
+  private final LongAdder dropped = new LongAdder();
+  private final LongAdder sampledOut = new LongAdder();
 
   public EventingService(boolean allowUnmaskedEvents) {
+    this(allowUnmaskedEvents, 0, Collections.emptyMap());
+  }
+
+  /**
+   * @param messageEventBufferSize events of SIP messages that can wait to be published by a
+   *     background thread, further ones are dropped. If 0 they are published by the calling thread
+   * @param samplingPercent percentage of the events published, per event type. Types left out are
+   *     all published
+   */
+  public EventingService(
+      boolean allowUnmaskedEvents,
+      int messageEventBufferSize,
+      Map<String, Integer> samplingPercent) {
     this.allowUnmaskedEvents = allowUnmaskedEvents;
     this.sink = Sinks.many().multicast().onBackpressureBuffer();
     this.flux = this.sink.asFlux();
+    Arrays.fill(this.samplingPercent, 100);
+    samplingPercent.forEach(
+        (eventType, percent) -> {
+          try {
+            this.samplingPercent[Event.EventType.valueOf(eventType).ordinal()] = percent;
+          } catch (IllegalArgumentException e) {
+            logger.warn("Ignoring sampling of unknown event type {}", eventType);
+          }
+        });
     registerSubscription();
+    if (messageEventBufferSize > 0) {
+      this.messageEvents = new MpscRingBuffer<>(messageEventBufferSize);
+      this.publisher = new Thread(this::publishMessageEvents, "message-event-publisher");
+      this.publisher.setDaemon(true);
+      this.publisher.start();
+    } else {
+      this.messageEvents = null;
+      this.publisher = null;
+    }
+  }
+
+  /** Stops the publisher once the events of SIP messages queued so far are published */
+  @PreDestroy
+  public void shutdown() {
+    running = false;
+    if (publisher == null) {
+      return;
+    }
+    LockSupport.unpark(publisher);
+    try {
+      publisher.join(TimeUnit.SECONDS.toMillis(5));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
   }
 
   public void register(List<Class<? extends DhruvaEvent>> interestedEvents) {
@@ -44,6 +112,116 @@ public class EventingService {
   }
 
   public void publishEvents(List<DhruvaEvent> events) {
-    events.forEach(this.sink::tryEmitNext);
+    for (DhruvaEvent event : events) {
+      if (event instanceof LoggingEvent && !sample(((LoggingEvent) event).getEventType())) {
+        continue;
+      }
+      emit(event);
+    }
+  }
+
+  /**
+   * Samples an event before it is created
+   *
+   * @return true if an event of the type is to be published, false if it is sampled out
+   */
+  public boolean sample(Event.EventType eventType) {
+    int percent = eventType == null ? 100 : samplingPercent[eventType.ordinal()];
+    if (percent >= 100 || percent > 0 && ThreadLocalRandom.current().nextInt(100) < percent) {
+      return true;
+    }
+    sampledOut.increment();
+    return false;
+  }
+
+  /**
+   * @return true if the events of SIP messages are published later by a background thread, so have
+   *     to capture the message as it is now
+   */
+  public boolean isPublishingInBackground() {
+    return messageEvents != null && running;
+  }
+
+  /**
+   * Checked before the event of a SIP message is captured, to not capture one that would be
+   * dropped
+   *
+   * @return false if the buffer of the background thread is full, the event is counted as dropped
+   */
+  public boolean hasRoomForMessageEvent() {
+    if (messageEvents != null && messageEvents.isFull()) {
+      dropped.increment();
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * Publishes the event of a SIP message, sampled already. It is formatted and published in the
+   * background if there is a buffer for it, and dropped if the buffer is full so that the calling
+   * thread never waits. Once shut down, it is published by the calling thread
+   */
+  public void publishMessageEvent(MessageEvent messageEvent) {
+    if (messageEvents == null || !running) {
+      emit(Event.toLoggingEvent(messageEvent));
+    } else if (!messageEvents.offer(messageEvent)) {
+      dropped.increment();
+    } else if (waiting) {
+      LockSupport.unpark(publisher);
+    }
+  }
+
+  private void emit(DhruvaEvent event) {
+    if (sink.tryEmitNext(event).isFailure()) {
+      dropped.increment();
+    }
+  }
+
+  /** @return events dropped as they could not be published in time */
+  public long getDroppedEvents() {
+    return dropped.sum();
+  }
+
+  public long getSampledOutEvents() {
+    return sampledOut.sum();
+  }
+
+  private void publishMessageEvents() {
+    long droppedReported = 0;
+    long lastReportNanos = System.nanoTime();
+    while (running || !messageEvents.isEmpty()) {
+      MessageEvent messageEvent = messageEvents.poll();
+      if (messageEvent == null) {
+        long now = System.nanoTime();
+        if (now - lastReportNanos >= DROP_REPORT_INTERVAL_NANOS) {
+          long droppedSoFar = dropped.sum();
+          if (droppedSoFar != droppedReported) {
+            logger.warn(
+                "Dropped {} events as they could not be published in time, {} in total",
+                droppedSoFar - droppedReported,
+                droppedSoFar);
+            droppedReported = droppedSoFar;
+          }
+          lastReportNanos = now;
+        }
+        waiting = true;
+        // an event offered before the flag was visible is seen here, one offered after unparks
+        if (running && messageEvents.isEmpty()) {
+          LockSupport.parkNanos(this, DROP_REPORT_INTERVAL_NANOS);
+        }
+        waiting = false;
+        continue;
+      }
+      try {
+        if (messageEvent.getLoggingContext() != null) {
+          MDC.setContextMap(messageEvent.getLoggingContext());
+        }
+        emit(Event.toLoggingEvent(messageEvent));
+      } catch (Exception e) {
+        logger.warn("Unable to publish the event of a SIP message", e);
+      } finally {
+        MDC.clear();
+      }
+    }
   }
 }
@@ -0,0 +1,114 @@
+package com.cisco.dsb.common.util.log.event;
+
+import com.cisco.dsb.common.record.DhruvaAppRecord;
+import com.cisco.dsb.common.sip.stack.dto.BindingInfo;
+import gov.nist.javax.sip.message.SIPMessage;
+import gov.nist.javax.sip.parser.StringMsgParser;
+import java.net.InetAddress;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.util.Map;
+import java.util.function.Supplier;
+import javax.sip.message.Message;
+import lombok.Getter;
+import org.slf4j.MDC;
+
+/**
+ * A SIP message sent or received, with what is known about it at the time. Only what is needed
+ * later is captured here, reading the headers and formatting the event into a {@link LoggingEvent}
+ * is left to the thread publishing it. An event published later by another thread holds the
+ * message encoded and the records of the app record so far, as the proxy keeps changing both.
+ */
+public final class MessageEvent {
+
+  private final InetAddress remoteAddress;
+  @Getter private final int remotePort;
+  private final InetAddress localAddress;
+  @Getter private final int localPort;
+  @Getter private final Event.DIRECTION direction;
+  @Getter private final Event.MESSAGE_TYPE messageType;
+  @Getter private final boolean internallyGenerated;
+  @Getter private final boolean midDialog;
+  @Getter private final boolean retransmitted;
+  @Getter private final String inboundNetwork;
+  @Getter private final String outboundNetwork;
+  // the message itself if published right away, else parsed from its encoding when published
+  private SIPMessage message;
+  private final String encodedMessage;
+  private final Supplier<String> appRecord;
+  @Getter private final long timestamp;
+  // logging context of the thread the message was handled on, restored when publishing
+  @Getter private final Map<String, String> loggingContext;
+
+  /**
+   * @param snapshot true if the event is published later by another thread, the message and app
+   *     record are then captured as they are now
+   */
+  public MessageEvent(
+      BindingInfo bindingInfo,
+      Message message,
+      Event.DIRECTION direction,
+      Event.MESSAGE_TYPE messageType,
+      boolean internallyGenerated,
+      boolean midDialog,
+      boolean retransmitted,
+      String inboundNetwork,
+      String outboundNetwork,
+      DhruvaAppRecord appRecord,
+      boolean snapshot) {
+    this.remoteAddress = bindingInfo.getRemoteAddress();
+    this.remotePort = bindingInfo.getRemotePort();
+    this.localAddress = bindingInfo.getLocalAddress();
+    this.localPort = bindingInfo.getLocalPort();
+    this.direction = direction;
+    this.messageType = messageType;
+    this.internallyGenerated = internallyGenerated;
+    this.midDialog = midDialog;
+    this.retransmitted = retransmitted;
+    this.inboundNetwork = inboundNetwork;
+    this.outboundNetwork = outboundNetwork;
+    this.timestamp = System.currentTimeMillis();
+    if (snapshot) {
+      this.message = null;
+      this.encodedMessage = ((SIPMessage) message).encode();
+      this.appRecord = appRecord == null ? null : appRecord.snapshot();
+      this.loggingContext = MDC.getCopyOfContextMap();
+    } else {
+      this.message = (SIPMessage) message;
+      this.encodedMessage = null;
+      this.appRecord = appRecord == null ? null : appRecord::toString;
+      this.loggingContext = null;
+    }
+  }
+
+  public String getRemoteAddress() {
+    return hostAddress(remoteAddress);
+  }
+
+  public String getLocalAddress() {
+    return hostAddress(localAddress);
+  }
+
+  /** @return the message as it was when the event was created */
+  public SIPMessage getMessage() {
+    if (message == null) {
+      try {
+        message =
+            new StringMsgParser()
+                .parseSIPMessage(
+                    encodedMessage.getBytes(StandardCharsets.UTF_8), true, false, null);
+      } catch (ParseException e) {
+        throw new IllegalStateException("Unable to parse the message of the event", e);
+      }
+    }
+    return message;
+  }
+
+  public String getAppRecord() {
+    return appRecord == null ? null : appRecord.get();
+  }
+
+  private static String hostAddress(InetAddress address) {
+    return address == null || address.getHostAddress() == null ? "" : address.getHostAddress();
+  }
+}
@@ -43,6 +43,8 @@ public class CommonConfigurationPropertiesTest {
     props.setSipCertificate("sipCertificate");
     props.setSipPrivateKey("sipPrivateKey");
     props.setUdpEventloopThreadCount(10);
+    props.setUdpChannelEnabled(true);
+    props.setUdpChannelReceiverCount(4);
     props.setTlsEventloopThreadCount(10);
     props.setConnectionIdleTimeout(36000);
     props.setHostPortEnabled(true);
@@ -61,6 +63,8 @@ public class CommonConfigurationPropertiesTest {
     Assert.assertEquals(props.getSipCertificate(), "sipCertificate");
     Assert.assertEquals(props.getSipPrivateKey(), "sipPrivateKey");
     Assert.assertEquals(props.getUdpEventloopThreadCount(), 10);
+    Assert.assertTrue(props.isUdpChannelEnabled());
+    Assert.assertEquals(props.getUdpChannelReceiverCount(), 4);
     Assert.assertEquals(props.getTlsEventloopThreadCount(), 10);
     Assert.assertEquals(props.getConnectionIdleTimeout(), 36000);
     Assert.assertTrue(props.isHostPortEnabled());
@@ -1,5 +1,9 @@
 package com.cisco.dsb.common.context;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.util.Map;
 import org.testng.Assert;
 import org.testng.annotations.Test;
@@ -58,4 +62,57 @@ public class ExecutionContextTest {
     context.set("test1", "dhruva");
     Assert.assertNotEquals(cloneContext.get("test1"), "Dhruva");
   }
+
+  @Test(description = "copies share the entries until either side changes them")
+  public void testCopyOnWrite() {
+    ExecutionContext context = new ExecutionContext();
+    Object value = new Object();
+    context.set("shared", value);
+    context.set("removed", "value");
+
+    ExecutionContext copyContext = context.copy();
+    Assert.assertSame(copyContext.get("shared"), value);
+    copyContext.set("added", "copy");
+    copyContext.remove("removed");
+    Assert.assertNull(context.get("added"));
+    Assert.assertEquals(context.get("removed"), "value");
+
+    context.set("shared", "changed");
+    Assert.assertSame(copyContext.get("shared"), value);
+    Assert.assertEquals(copyContext.size(), 2);
+    Assert.assertEquals(context.size(), 2);
+
+    ExecutionContext cloneContext = context.clone();
+    cloneContext.clear();
+    Assert.assertTrue(cloneContext.isEmpty());
+    Assert.assertEquals(context.get("shared"), "changed");
+  }
+
+  @Test(expectedExceptions = UnsupportedOperationException.class)
+  public void testViewsAreReadOnly() {
+    ExecutionContext context = new ExecutionContext();
+    context.set("test", "value");
+    context.copy().keySet().remove("test");
+  }
+
+  @Test(description = "a context held by a serialized request is serialized with its entries")
+  public void testSerializable() throws Exception {
+    ExecutionContext context = new ExecutionContext();
+    context.set("test", "value");
+    context.addExtraHeader("X-Cisco-Header", "header");
+    ExecutionContext copyContext = context.copy();
+
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+      out.writeObject(copyContext);
+    }
+    ExecutionContext read;
+    try (ObjectInputStream in =
+        new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+      read = (ExecutionContext) in.readObject();
+    }
+    Assert.assertEquals(read.get("test"), "value");
+    read.set("test", "changed");
+    Assert.assertEquals(copyContext.get("test"), "value");
+  }
 }
@@ -4,10 +4,16 @@ import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import com.cisco.dsb.common.dns.dto.DNSARecord;
+import com.cisco.dsb.common.dns.metrics.DnsCacheCounters;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import org.testng.Assert;
 import org.testng.annotations.Test;
@@ -68,4 +74,120 @@ public class AbstractDnsCacheTest {
       Assert.assertEquals(dnsEx.getErrorCode(), DnsErrorCode.ERROR_UNKNOWN);
     }
   }
+
+  @Test
+  public void ttlAwareCacheServesHitsAndRefreshesAhead() throws Exception {
+    AtomicLong clock = new AtomicLong();
+    ARecordCache aCache =
+        new ARecordCache(10, 1000, new DnsCachePolicy(1_000, 60_000, 5_000, 80, 0), clock::get);
+    AtomicInteger lookups = new AtomicInteger();
+    Supplier<CompletableFuture<DnsLookupResult>> resolver =
+        countingResolver(lookups, aRecordResult(10L));
+
+    aCache.resolve("test", Type.A, resolver).get();
+    List<DNSARecord> cached = aCache.resolve("test", Type.A, resolver).get();
+    Assert.assertEquals(cached.get(0).getAddress(), "1.1.1.1");
+    Assert.assertEquals(lookups.get(), 1);
+
+    // 80% of the 10s TTL has elapsed, the entry is served and refreshed in the background
+    clock.set(8_000);
+    aCache.resolve("test", Type.A, resolver).get();
+    Assert.assertEquals(lookups.get(), 2);
+    clock.set(9_000);
+    aCache.resolve("test", Type.A, resolver).get();
+    Assert.assertEquals(lookups.get(), 2);
+
+    // the refreshed entry expires 10s after the refresh
+    clock.set(18_001);
+    aCache.resolve("test", Type.A, resolver).get();
+    Assert.assertEquals(lookups.get(), 3);
+
+    DnsCacheCounters counters = aCache.getCounters();
+    Assert.assertEquals(counters.drainHits(), 3);
+    Assert.assertEquals(counters.drainMisses(), 2);
+    Assert.assertEquals(counters.drainRefreshes(), 1);
+    Assert.assertEquals(counters.drainStaleServes(), 0);
+    Assert.assertEquals(counters.drainHits(), 0);
+  }
+
+  @Test
+  public void ttlAwareCacheClampsRecordTtl() throws Exception {
+    AtomicLong clock = new AtomicLong();
+    ARecordCache aCache =
+        new ARecordCache(10, 1000, new DnsCachePolicy(1_000, 3_000, 5_000, 100, 0), clock::get);
+    AtomicInteger lookups = new AtomicInteger();
+    Supplier<CompletableFuture<DnsLookupResult>> resolver =
+        countingResolver(lookups, aRecordResult(3600L));
+
+    aCache.resolve("test", Type.A, resolver).get();
+    clock.set(2_999);
+    aCache.resolve("test", Type.A, resolver).get();
+    Assert.assertEquals(lookups.get(), 1);
+    clock.set(3_000);
+    aCache.resolve("test", Type.A, resolver).get();
+    Assert.assertEquals(lookups.get(), 2);
+  }
+
+  @Test
+  public void ttlAwareCacheCachesNegativeAnswers() throws Exception {
+    AtomicLong clock = new AtomicLong();
+    ARecordCache aCache =
+        new ARecordCache(10, 1000, new DnsCachePolicy(1_000, 60_000, 5_000, 80, 0), clock::get);
+    AtomicInteger lookups = new AtomicInteger();
+    Supplier<CompletableFuture<DnsLookupResult>> resolver =
+        countingResolver(
+            lookups, new DnsLookupResult(null, Lookup.HOST_NOT_FOUND, "nxdomain", Type.A));
+
+    for (long now : new long[] {0L, 4_999L, 5_000L}) {
+      clock.set(now);
+      try {
+        aCache.resolve("test", Type.A, resolver).get();
+        Assert.fail();
+      } catch (ExecutionException e) {
+        Assert.assertEquals(
+            ((DnsException) e.getCause()).getErrorCode(), DnsErrorCode.ERROR_DNS_HOST_NOT_FOUND);
+      }
+    }
+    Assert.assertEquals(lookups.get(), 2);
+    Assert.assertEquals(aCache.getCounters().drainHits(), 1);
+  }
+
+  @Test
+  public void ttlAwareCacheServesStaleRecordsOnFailure() throws Exception {
+    AtomicLong clock = new AtomicLong();
+    ARecordCache aCache =
+        new ARecordCache(10, 1000, new DnsCachePolicy(1_000, 60_000, 5_000, 80, 0), clock::get);
+    AtomicInteger lookups = new AtomicInteger();
+
+    aCache.resolve("test", Type.A, countingResolver(lookups, aRecordResult(10L))).get();
+    clock.set(10_500);
+    List<DNSARecord> stale =
+        aCache
+            .resolve(
+                "test",
+                Type.A,
+                countingResolver(
+                    lookups, new DnsLookupResult(null, Lookup.TRY_AGAIN, "timed out", Type.A)))
+            .get();
+
+    Assert.assertEquals(stale.get(0).getAddress(), "1.1.1.1");
+    Assert.assertEquals(lookups.get(), 2);
+    Assert.assertEquals(aCache.getCounters().drainStaleServes(), 1);
+  }
+
+  private static DnsLookupResult aRecordResult(long ttlSeconds)
+      throws TextParseException, UnknownHostException {
+    Record aRecord =
+        new ARecord(
+            Name.fromString("thefqdna."), DClass.IN, ttlSeconds, InetAddress.getByName("1.1.1.1"));
+    return new DnsLookupResult(new Record[] {aRecord}, Lookup.SUCCESSFUL, null, Type.A);
+  }
+
+  private static Supplier<CompletableFuture<DnsLookupResult>> countingResolver(
+      AtomicInteger lookups, DnsLookupResult result) {
+    return () -> {
+      lookups.incrementAndGet();
+      return CompletableFuture.completedFuture(result);
+    };
+  }
 }
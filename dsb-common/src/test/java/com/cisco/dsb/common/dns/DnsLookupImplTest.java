@@ -16,6 +16,7 @@ import java.util.Set;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import org.junit.Rule;
@@ -48,8 +49,9 @@ public class DnsLookupImplTest {
 
     SrvRecordCache srvCache = new SrvRecordCache(1000, 50000);
     ARecordCache aCache = new ARecordCache(1000, 50000);
+    AAAARecordCache aaaaCache = new AAAARecordCache(1000, 50000);
 
-    resolver = new DnsLookupImpl(srvCache, aCache, lookupFactory);
+    resolver = new DnsLookupImpl(srvCache, aCache, aaaaCache, lookupFactory);
 
     xbillResolver = mock(Resolver.class);
     mockResolver = mock(Resolver.class);
@@ -102,8 +104,9 @@ public class DnsLookupImplTest {
   public void shouldReturnEmptyForHostNotFound() throws Exception {
     String fqdn = "thefqdn3.";
 
-    when(lookupFactory.createLookup(fqdn, Type.SRV)).thenReturn(testLookup(fqdn));
-    when(xbillResolver.send(any(Message.class))).thenReturn(messageWithRCode(fqdn, Rcode.NXDOMAIN));
+    when(lookupFactory.createLookupAsync(fqdn)).thenReturn(testLookupSession());
+    when(xbillResolver.sendAsync(any(Message.class), any(Executor.class)))
+        .thenReturn(CompletableFuture.completedFuture(messageWithRCode(fqdn, Rcode.NXDOMAIN)));
 
     CompletableFuture<List<DNSSRVRecord>> f = resolver.lookupSRV(fqdn);
     List<DNSSRVRecord> actual = f.get();
@@ -114,8 +117,9 @@ public class DnsLookupImplTest {
   public void shouldReturnEmptyForServerFailure() throws Exception {
     String fqdn = "thefqdn1.";
 
-    when(lookupFactory.createLookup(fqdn, Type.SRV)).thenReturn(testLookup(fqdn));
-    when(xbillResolver.send(any(Message.class))).thenReturn(messageWithRCode(fqdn, Rcode.SERVFAIL));
+    when(lookupFactory.createLookupAsync(fqdn)).thenReturn(testLookupSession());
+    when(xbillResolver.sendAsync(any(Message.class), any(Executor.class)))
+        .thenReturn(CompletableFuture.completedFuture(messageWithRCode(fqdn, Rcode.SERVFAIL)));
 
     CompletableFuture<List<DNSSRVRecord>> f = resolver.lookupSRV(fqdn);
     List<DNSSRVRecord> actual = f.get();
@@ -126,32 +130,118 @@ public class DnsLookupImplTest {
   public void shouldReturnEmptyForServerError() throws Exception {
     String fqdn = "thefqdn2.";
 
-    when(lookupFactory.createLookup(fqdn, Type.SRV)).thenReturn(testLookup(fqdn));
-    when(xbillResolver.send(any(Message.class))).thenReturn(messageWithRCode(fqdn, Rcode.FORMERR));
+    when(lookupFactory.createLookupAsync(fqdn)).thenReturn(testLookupSession());
+    when(xbillResolver.sendAsync(any(Message.class), any(Executor.class)))
+        .thenReturn(CompletableFuture.completedFuture(messageWithRCode(fqdn, Rcode.FORMERR)));
 
     CompletableFuture<List<DNSSRVRecord>> f = resolver.lookupSRV(fqdn);
     List<DNSSRVRecord> actual = f.get();
     // assertThat(f.get().isEmpty(), is(true));
   }
 
-  @Test(description = "test aysnc lookup")
-  public void testAsyncLookup() throws ExecutionException, InterruptedException {
+  @Test(description = "I/O errors are retried with backoff before falling back to cache")
+  public void shouldRetryIOError() throws Exception {
+    String fqdn = "thefqdn7.";
+    String[] resultNodes = new String[] {"node1.domain."};
+
+    when(lookupFactory.createLookupAsync(fqdn)).thenReturn(testLookupSession());
+    when(xbillResolver.sendAsync(any(Message.class), any(Executor.class)))
+        .thenReturn(CompletableFuture.failedFuture(new IOException("network unreachable")))
+        .thenReturn(CompletableFuture.completedFuture(messageWithNodes(fqdn, resultNodes)));
+
+    List<DNSSRVRecord> actual = resolver.lookupSRV(fqdn).get(5, TimeUnit.SECONDS);
+
+    Assert.assertEquals(actual.size(), 1);
+    Assert.assertEquals(actual.get(0).getTarget(), "node1.domain.");
+  }
+
+  @Test(description = "a server failure is an answer, it is not retried or reported as a timeout")
+  public void shouldNotRetryServerFailure() throws Exception {
+    String fqdn = "thefqdn9.";
+
+    when(lookupFactory.createLookupAsync(fqdn)).thenReturn(testLookupSession());
+    when(xbillResolver.sendAsync(any(Message.class), any(Executor.class)))
+        .thenReturn(CompletableFuture.completedFuture(messageWithRCode(fqdn, Rcode.SERVFAIL)))
+        .thenReturn(
+            CompletableFuture.completedFuture(
+                messageWithNodes(fqdn, new String[] {"node1.domain."})));
+
+    try {
+      resolver.lookupSRV(fqdn).get(5, TimeUnit.SECONDS);
+      Assert.fail("server failure must not be retried");
+    } catch (ExecutionException e) {
+      Assert.assertTrue(e.getCause() instanceof DnsException);
+      Assert.assertEquals(
+          ((DnsException) e.getCause()).getErrorCode(), DnsErrorCode.ERROR_DNS_OTHER);
+    }
+  }
+
+  @Test(description = "a query that never gets an answer fails on the lookup timeout")
+  public void shouldNotBlockOnUnansweredQuery() throws Exception {
+    String fqdn = "thefqdn8.";
+    DnsLookup timeoutResolver =
+        new DnsLookupImpl(
+            new SrvRecordCache(1000, 50000),
+            new ARecordCache(1000, 50000),
+            new AAAARecordCache(1000, 50000),
+            lookupFactory,
+            50);
+
+    when(lookupFactory.createLookupAsync(fqdn)).thenReturn(testLookupSession());
+    when(xbillResolver.sendAsync(any(Message.class), any(Executor.class)))
+        .thenReturn(new CompletableFuture<>());
+
+    CompletableFuture<List<DNSSRVRecord>> f = timeoutResolver.lookupSRV(fqdn);
+    Assert.assertFalse(f.isDone());
+    try {
+      f.get(5, TimeUnit.SECONDS);
+      Assert.fail("lookup should have timed out");
+    } catch (ExecutionException e) {
+      Assert.assertTrue(e.getCause() instanceof DnsException);
+      Assert.assertEquals(
+          ((DnsException) e.getCause()).getErrorCode(), DnsErrorCode.ERROR_DNS_QUERY_TIMEDOUT);
+    }
+  }
+
+  @Test(description = "A lookups complete on the resolver, without blocking the caller")
+  public void testAsyncLookup() throws Exception {
     String fqdn = "cisco.webex.com";
     wireUpMockResolver(mockResolver, query -> answer(query, name -> LOOPBACK_A));
-    Cache mockCache = mock(Cache.class);
-    when(mockCache.getDClass()).thenReturn(DClass.IN);
-
-    LookupSession lookupSession =
-        LookupSession.builder().resolver(mockResolver).cache(mockCache).build();
-    when(lookupFactory.createLookupAsync(fqdn)).thenReturn(lookupSession);
+    when(lookupFactory.createLookupAsync(fqdn)).thenReturn(mockLookupSession());
 
-    List<DNSARecord> dnsaRecordList = resolver.lookupAAsync(fqdn);
+    List<DNSARecord> dnsaRecordList = resolver.lookupA(fqdn).get(5, TimeUnit.SECONDS);
     Assert.assertNotNull(dnsaRecordList);
     Assert.assertFalse(dnsaRecordList.isEmpty());
     Assert.assertEquals(
         dnsaRecordList.get(0).getAddress(), InetAddress.getLoopbackAddress().getHostAddress());
   }
 
+  @Test(description = "AAAA lookups return the IPv6 addresses of the host")
+  public void testAAAALookup() throws Exception {
+    String fqdn = "ipv6.webex.com";
+    InetAddress ipv6Loopback = InetAddress.getByName("::1");
+    wireUpMockResolver(
+        mockResolver,
+        query ->
+            answer(
+                query,
+                name ->
+                    query.getQuestion().getType() == Type.AAAA
+                        ? new AAAARecord(DUMMY_NAME, DClass.IN, 3600, ipv6Loopback)
+                        : null));
+    when(lookupFactory.createLookupAsync(fqdn)).thenReturn(mockLookupSession());
+
+    List<DNSARecord> records = resolver.lookupAAAA(fqdn).get(5, TimeUnit.SECONDS);
+    Assert.assertEquals(records.size(), 1);
+    Assert.assertEquals(records.get(0).getAddress(), ipv6Loopback.getHostAddress());
+  }
+
+  private LookupSession mockLookupSession() {
+    Cache mockCache = mock(Cache.class);
+    when(mockCache.getDClass()).thenReturn(DClass.IN);
+    return LookupSession.builder().resolver(mockResolver).cache(mockCache).build();
+  }
+
   private Message messageWithRCode(String query, int rcode) throws TextParseException {
     Name queryName = Name.fromString(query);
     Record question = Record.newRecord(queryName, Type.SRV, DClass.IN);
@@ -167,17 +257,13 @@ public class DnsLookupImplTest {
 
   private void setupResponseForQuery(String queryFqdn, String responseFqdn, String... results)
       throws IOException {
-    when(lookupFactory.createLookup(queryFqdn, Type.SRV)).thenReturn(testLookup(queryFqdn));
-    when(xbillResolver.send(any(Message.class)))
-        .thenReturn(messageWithNodes(responseFqdn, results));
+    when(lookupFactory.createLookupAsync(queryFqdn)).thenReturn(testLookupSession());
+    when(xbillResolver.sendAsync(any(Message.class), any(Executor.class)))
+        .thenReturn(CompletableFuture.completedFuture(messageWithNodes(responseFqdn, results)));
   }
 
-  private Lookup testLookup(String thefqdn) throws TextParseException {
-    Lookup result = new Lookup(thefqdn, Type.SRV);
-
-    result.setResolver(xbillResolver);
-
-    return result;
+  private LookupSession testLookupSession() {
+    return LookupSession.builder().resolver(xbillResolver).build();
   }
 
   private Message messageWithNodes(String query, String[] names) throws TextParseException {
@@ -3,8 +3,16 @@ package com.cisco.dsb.common.dns;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
+import com.cisco.dsb.common.dns.metrics.DnsCacheCounters;
+import com.cisco.dsb.common.metric.Metric;
 import com.cisco.dsb.common.service.MetricService;
+import com.cisco.wx2.metrics.InfluxPoint;
 import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
@@ -14,6 +22,7 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 import org.xbill.DNS.*;
 import org.xbill.DNS.Record;
+import org.xbill.DNS.lookup.LookupSession;
 
 public class DnsMetricsReporterTest {
 
@@ -41,7 +50,7 @@ public class DnsMetricsReporterTest {
     doNothing().when(metricService).sendDNSMetric(anyString(), anyString(), anyLong(), anyString());
     setupResponseForSrvQuery(query, query, "node1.domain.", "node2.domain.");
 
-    resolver.lookupSRV(query); // RCode = 0 (successful)
+    awaitCompletion(resolver.lookupSRV(query)); // RCode = 0 (successful)
     ArgumentCaptor<String> argumentCaptor1 = ArgumentCaptor.forClass(String.class);
     ArgumentCaptor<String> argumentCaptor2 = ArgumentCaptor.forClass(String.class);
     ArgumentCaptor<Long> argumentCaptor3 = ArgumentCaptor.forClass(Long.class);
@@ -67,14 +76,12 @@ public class DnsMetricsReporterTest {
 
   @Test
   public void testSrvLookupThrowsDnsExceptionWithMetrics() {
-    String query = "thefqdn1.";
+    String query = "bad\\1 name.";
     doNothing().when(metricService).sendDNSMetric(anyString(), anyString(), anyLong(), anyString());
 
     DnsErrorCode errorCode = DnsErrorCode.ERROR_DNS_INVALID_QUERY;
-    DnsException ex = new DnsException(Type.SRV, query, errorCode);
-    when(lookupFactory.createLookup(query, Type.SRV)).thenThrow(ex);
 
-    resolver.lookupSRV(query);
+    awaitCompletion(resolver.lookupSRV(query));
 
     ArgumentCaptor<String> argumentCaptor1 = ArgumentCaptor.forClass(String.class);
     ArgumentCaptor<String> argumentCaptor2 = ArgumentCaptor.forClass(String.class);
@@ -105,14 +112,15 @@ public class DnsMetricsReporterTest {
     String query = "thefqdn2.";
     doNothing().when(metricService).sendDNSMetric(anyString(), anyString(), anyLong(), anyString());
 
-    when(lookupFactory.createLookup(query, Type.SRV)).thenReturn(testLookupSrv(query));
-    when(xbillResolver.send(any(Message.class)))
+    when(lookupFactory.createLookupAsync(query)).thenReturn(testLookupSession());
+    when(xbillResolver.sendAsync(any(Message.class), any(Executor.class)))
         .thenReturn(
-            messageWithRCode(
-                query,
-                Rcode.SERVFAIL)); // RCode = 2 (try again) -> DnsErrorCode.ERROR_DNS_QUERY_TIMEDOUT
+            CompletableFuture.completedFuture(
+                messageWithRCode(
+                    query,
+                    Rcode.SERVFAIL))); // RCode = 2 (try again) -> ERROR_DNS_QUERY_TIMEDOUT
 
-    resolver.lookupSRV(query);
+    awaitCompletion(resolver.lookupSRV(query));
 
     ArgumentCaptor<String> argumentCaptor1 = ArgumentCaptor.forClass(String.class);
     ArgumentCaptor<String> argumentCaptor2 = ArgumentCaptor.forClass(String.class);
@@ -143,14 +151,15 @@ public class DnsMetricsReporterTest {
     String query = "thefqdn2.";
     doNothing().when(metricService).sendDNSMetric(anyString(), anyString(), anyLong(), anyString());
 
-    when(lookupFactory.createLookup(query, Type.A)).thenReturn(testLookupA(query));
-    when(xbillResolver.send(any(Message.class)))
+    when(lookupFactory.createLookupAsync(query)).thenReturn(testLookupSession());
+    when(xbillResolver.sendAsync(any(Message.class), any(Executor.class)))
         .thenReturn(
-            messageWithRCode(
-                query,
-                Rcode.SERVFAIL)); // RCode = 2 (try again) -> DnsErrorCode.ERROR_DNS_QUERY_TIMEDOUT
+            CompletableFuture.completedFuture(
+                messageWithRCode(
+                    query,
+                    Rcode.SERVFAIL))); // RCode = 2 (try again) -> ERROR_DNS_QUERY_TIMEDOUT
 
-    resolver.lookupA(query);
+    awaitCompletion(resolver.lookupA(query));
 
     ArgumentCaptor<String> argumentCaptor1 = ArgumentCaptor.forClass(String.class);
     ArgumentCaptor<String> argumentCaptor2 = ArgumentCaptor.forClass(String.class);
@@ -176,27 +185,47 @@ public class DnsMetricsReporterTest {
     Assert.assertEquals(DnsErrorCode.ERROR_DNS_QUERY_TIMEDOUT.name(), errorMsg);
   }
 
-  private void setupResponseForSrvQuery(String queryFqdn, String responseFqdn, String... results)
-      throws IOException {
-    when(lookupFactory.createLookup(queryFqdn, Type.SRV)).thenReturn(testLookupSrv(queryFqdn));
-    when(xbillResolver.send(any(Message.class)))
-        .thenReturn(messageWithNodes(responseFqdn, results));
+  @Test
+  public void testCacheCountersReported() {
+    DnsCacheCounters counters = new DnsCacheCounters(() -> 7L);
+    counters.hit();
+    counters.hit();
+    counters.miss();
+    counters.staleServe();
+
+    dnsMetricsReporter.reportCache("A", counters);
+    verify(metricService)
+        .registerPeriodicMetric(
+            eq(DnsMetricsReporter.CACHE_METRIC_MEASUREMENT),
+            any(),
+            anyInt(),
+            eq(TimeUnit.SECONDS));
+
+    Set<Metric> metrics = DnsMetricsReporter.cacheMetricSupplier("A", counters);
+    InfluxPoint point = (InfluxPoint) metrics.iterator().next().get();
+    Map<String, Object> fields = point.getFields();
+    Assert.assertEquals(point.getTags().get("queryType"), "A");
+    Assert.assertEquals(fields.get("hits"), 2L);
+    Assert.assertEquals(fields.get("misses"), 1L);
+    Assert.assertEquals(fields.get("refreshes"), 0L);
+    Assert.assertEquals(fields.get("staleServes"), 1L);
+    Assert.assertEquals(fields.get("size"), 7L);
   }
 
-  private Lookup testLookupSrv(String thefqdn) throws TextParseException {
-    Lookup result = new Lookup(thefqdn, Type.SRV);
-
-    result.setResolver(xbillResolver);
-
-    return result;
+  // lookups complete on the resolver threads, metrics are sent once they are done
+  private void awaitCompletion(CompletableFuture<?> lookup) {
+    lookup.handle((result, error) -> null).join();
   }
 
-  private Lookup testLookupA(String thefqdn) throws TextParseException {
-    Lookup result = new Lookup(thefqdn, Type.A);
-
-    result.setResolver(xbillResolver);
+  private void setupResponseForSrvQuery(String queryFqdn, String responseFqdn, String... results)
+      throws IOException {
+    when(lookupFactory.createLookupAsync(queryFqdn)).thenReturn(testLookupSession());
+    when(xbillResolver.sendAsync(any(Message.class), any(Executor.class)))
+        .thenReturn(CompletableFuture.completedFuture(messageWithNodes(responseFqdn, results)));
+  }
 
-    return result;
+  private LookupSession testLookupSession() {
+    return LookupSession.builder().resolver(xbillResolver).build();
   }
 
   private Message messageWithNodes(String query, String[] names) throws TextParseException {
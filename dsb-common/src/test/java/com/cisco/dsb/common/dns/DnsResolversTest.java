@@ -15,6 +15,7 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 import org.junit.Rule;
 import org.junit.rules.ExpectedException;
 import org.mockito.MockitoAnnotations;
@@ -23,6 +24,7 @@ import org.testng.annotations.BeforeTest;
 import org.testng.annotations.Test;
 import org.xbill.DNS.*;
 import org.xbill.DNS.Record;
+import org.xbill.DNS.lookup.LookupSession;
 
 public class DnsResolversTest {
   private DnsLookup resolver;
@@ -67,8 +69,9 @@ public class DnsResolversTest {
 
     String fqdn = "thefqdn11.";
 
-    when(lookupFactory.createLookup(fqdn, Type.SRV)).thenReturn(testLookupSrv(fqdn));
-    when(xbillResolver.send(any(Message.class))).thenReturn(messageWithRCode(fqdn, Rcode.NXDOMAIN));
+    when(lookupFactory.createLookupAsync(fqdn)).thenReturn(testLookupSession());
+    when(xbillResolver.sendAsync(any(Message.class), any(Executor.class)))
+        .thenReturn(CompletableFuture.completedFuture(messageWithRCode(fqdn, Rcode.NXDOMAIN)));
 
     CompletableFuture<List<DNSSRVRecord>> f = resolver.lookupSRV(fqdn);
     List<DNSSRVRecord> dnssrvRecords = f.get();
@@ -80,8 +83,9 @@ public class DnsResolversTest {
 
     String fqdn = "thefqdn12.";
 
-    when(lookupFactory.createLookup(fqdn, Type.SRV)).thenReturn(testLookupSrv(fqdn));
-    when(xbillResolver.send(any(Message.class))).thenReturn(messageWithRCode(fqdn, Rcode.NXDOMAIN));
+    when(lookupFactory.createLookupAsync(fqdn)).thenReturn(testLookupSession());
+    when(xbillResolver.sendAsync(any(Message.class), any(Executor.class)))
+        .thenReturn(CompletableFuture.completedFuture(messageWithRCode(fqdn, Rcode.NXDOMAIN)));
 
     CompletableFuture<List<DNSSRVRecord>> f = resolver.lookupSRV("_sips._spamhost.tcp.com");
     List<DNSSRVRecord> dnssrvRecords = f.get();
@@ -107,8 +111,9 @@ public class DnsResolversTest {
     thrown.expectCause(isA(DnsException.class));
 
     String host = "thehost13.";
-    when(lookupFactory.createLookup(host, Type.A)).thenReturn(testLookupA(host));
-    when(xbillResolver.send(any(Message.class))).thenReturn(messageWithRCode(host, Rcode.NXDOMAIN));
+    when(lookupFactory.createLookupAsync(host)).thenReturn(testLookupSession());
+    when(xbillResolver.sendAsync(any(Message.class), any(Executor.class)))
+        .thenReturn(CompletableFuture.completedFuture(messageWithRCode(host, Rcode.NXDOMAIN)));
     CompletableFuture<List<DNSARecord>> future = resolver.lookupA(host);
     List<DNSARecord> records = future.get();
   }
@@ -130,16 +135,16 @@ public class DnsResolversTest {
 
   private void setupResponseForSrvQuery(String queryFqdn, String responseFqdn, String... results)
       throws IOException {
-    when(lookupFactory.createLookup(queryFqdn, Type.SRV)).thenReturn(testLookupSrv(queryFqdn));
-    when(xbillResolver.send(any(Message.class)))
-        .thenReturn(messageWithNodes(responseFqdn, results));
+    when(lookupFactory.createLookupAsync(queryFqdn)).thenReturn(testLookupSession());
+    when(xbillResolver.sendAsync(any(Message.class), any(Executor.class)))
+        .thenReturn(CompletableFuture.completedFuture(messageWithNodes(responseFqdn, results)));
   }
 
   private void setupResponseForAQuery(String queryFqdn, String responseFqdn, String... results)
       throws IOException {
-    when(lookupFactory.createLookup(queryFqdn, Type.A)).thenReturn(testLookupA(queryFqdn));
-    when(xbillResolver.send(any(Message.class)))
-        .thenReturn(messageWithANodes(responseFqdn, results));
+    when(lookupFactory.createLookupAsync(queryFqdn)).thenReturn(testLookupSession());
+    when(xbillResolver.sendAsync(any(Message.class), any(Executor.class)))
+        .thenReturn(CompletableFuture.completedFuture(messageWithANodes(responseFqdn, results)));
   }
 
   private Message messageWithRCode(String query, int rcode) throws TextParseException {
@@ -155,20 +160,8 @@ public class DnsResolversTest {
     return result;
   }
 
-  private Lookup testLookupSrv(String thefqdn) throws TextParseException {
-    Lookup result = new Lookup(thefqdn, Type.SRV);
-
-    result.setResolver(xbillResolver);
-
-    return result;
-  }
-
-  private Lookup testLookupA(String thefqdn) throws TextParseException {
-    Lookup result = new Lookup(thefqdn, Type.A);
-
-    result.setResolver(xbillResolver);
-
-    return result;
+  private LookupSession testLookupSession() {
+    return LookupSession.builder().resolver(xbillResolver).build();
   }
 
   private Message messageWithNodes(String query, String[] names) throws TextParseException {
@@ -58,6 +58,20 @@ public class DhruvaExecutorServiceTest {
     when(env.getProperty(prefix + ".threadPriority", Integer.class, 5)).thenReturn(5);
     when(env.getProperty(prefix + ".delayedExecutionThresholdMillis", Long.class, 100L))
         .thenReturn(100L);
+
+    prefix = "executor.testDhruva_options_ping";
+    when(env.getProperty(prefix + ".min", Integer.class, 10)).thenReturn(10);
+    when(env.getProperty(prefix + ".max", Integer.class, 20)).thenReturn(20);
+    when(env.getProperty(prefix + ".queue", Integer.class, 20)).thenReturn(20);
+    when(env.getProperty(prefix + ".threadPriority", Integer.class, 5)).thenReturn(5);
+    when(env.getProperty(prefix + ".delayedExecutionThresholdMillis", Long.class, 100L))
+        .thenReturn(100L);
+    when(env.getProperty(prefix + ".timer.tick-millis", Long.class, 50L)).thenReturn(5L);
+
+    prefix = "executor.testDhruva_proxy_processor_bounded";
+    when(env.getProperty(prefix + ".max", Integer.class, 20)).thenReturn(2);
+    when(env.getProperty(prefix + ".queue", Integer.class, 10000)).thenReturn(4);
+    when(env.getProperty(prefix + ".overload.queue-percent", Integer.class, 80)).thenReturn(50);
     dhruvaExecutorService = new DhruvaExecutorService("testDhruva", env, metricRegistry, 10, false);
   }
 
@@ -157,4 +171,122 @@ public class DhruvaExecutorServiceTest {
 
     executorService.shutdown();
   }
+
+  @Test(description = "the striped executor behind bounded queues, with gauges")
+  public void testStartMonitoredStripedExecutorService() throws Exception {
+    // own service, the striped executor of the shared one may be running already
+    MetricRegistry monitoredRegistry = new MetricRegistry();
+    DhruvaExecutorService monitoredExecutorService =
+        new DhruvaExecutorService("testDhruva", env, monitoredRegistry, 10, false);
+    monitoredExecutorService.startMonitoredStripedExecutorService(ExecutorType.PROXY_PROCESSOR);
+    SerialStripeExecutorService executorService =
+        (SerialStripeExecutorService)
+            monitoredExecutorService.getExecutorThreadPool(ExecutorType.PROXY_PROCESSOR);
+    Assert.assertNotNull(executorService);
+    Assert.assertFalse(monitoredExecutorService.isOverloaded(ExecutorType.PROXY_PROCESSOR));
+
+    CountDownLatch release = new CountDownLatch(1);
+    BaseHandler blocked =
+        new BaseHandler() {
+          @Override
+          public void executeRun() {
+            try {
+              release.await();
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+          }
+
+          @Override
+          public String getCallId() {
+            return "call";
+          }
+        };
+    executorService.execute(blocked);
+    Assert.assertEquals(
+        monitoredRegistry.getGauges().get("testDhruva_proxy_processor.queueDepth").getValue(), 1L);
+    Assert.assertEquals(
+        monitoredRegistry.getGauges().get("testDhruva_proxy_processor.activeStripes").getValue(),
+        1);
+    Assert.assertNotNull(
+        monitoredRegistry.getGauges().get("testDhruva_proxy_processor.overloaded"));
+    release.countDown();
+
+    // trying to start an executor that is already running. No impact, just logs this activity
+    monitoredExecutorService.startMonitoredStripedExecutorService(ExecutorType.PROXY_PROCESSOR);
+    Assert.assertSame(
+        monitoredExecutorService.getExecutorThreadPool(ExecutorType.PROXY_PROCESSOR),
+        executorService);
+    executorService.shutdownNow();
+  }
+
+  @Test
+  public void testStartTimerService() throws InterruptedException {
+    dhruvaExecutorService.startTimerService(ExecutorType.OPTIONS_PING);
+    HashedWheelTimer timer = dhruvaExecutorService.getTimer(ExecutorType.OPTIONS_PING);
+    Assert.assertNotNull(timer);
+    // expired timeouts are dispatched to the scheduled executor of the same type
+    Assert.assertNotNull(
+        dhruvaExecutorService.getScheduledExecutorThreadPool(ExecutorType.OPTIONS_PING));
+
+    CountDownLatch fired = new CountDownLatch(1);
+    HashedWheelTimer.Timeout cancelled = timer.newTimeout(fired::countDown, 1, TimeUnit.HOURS);
+    Assert.assertEquals(
+        metricRegistry.getGauges().get("testDhruva_options_ping.timer.pending").getValue(), 1);
+    Assert.assertTrue(cancelled.cancel());
+    timer.newTimeout(fired::countDown, 1, TimeUnit.MILLISECONDS);
+    Assert.assertTrue(fired.await(5, TimeUnit.SECONDS));
+    Assert.assertEquals(timer.getPendingTimeouts(), 0);
+    Assert.assertNotNull(
+        metricRegistry.getGauges().get("testDhruva_options_ping.timer.tickLagMillis"));
+
+    // trying to start a timer that is already running. No impact, just logs this activity
+    dhruvaExecutorService.startTimerService(ExecutorType.OPTIONS_PING);
+    Assert.assertSame(dhruvaExecutorService.getTimer(ExecutorType.OPTIONS_PING), timer);
+    timer.stop();
+  }
+
+  @Test
+  public void testStartBoundedStripedExecutorService() throws Exception {
+    dhruvaExecutorService.startBoundedStripedExecutorService(ExecutorType.PROXY_PROCESSOR_BOUNDED);
+    SerialStripeExecutorService executorService =
+        (SerialStripeExecutorService)
+            dhruvaExecutorService.getExecutorThreadPool(ExecutorType.PROXY_PROCESSOR_BOUNDED);
+    Assert.assertNotNull(executorService);
+    Assert.assertFalse(dhruvaExecutorService.isOverloaded(ExecutorType.PROXY_PROCESSOR_BOUNDED));
+    // other executors never report overload
+    Assert.assertFalse(dhruvaExecutorService.isOverloaded(ExecutorType.DNS_LOCATOR_SERVICE));
+
+    CountDownLatch release = new CountDownLatch(1);
+    BaseHandler blocked =
+        new BaseHandler() {
+          @Override
+          public void executeRun() {
+            try {
+              release.await();
+            } catch (InterruptedException e) {
+              Thread.currentThread().interrupt();
+            }
+          }
+
+          @Override
+          public String getCallId() {
+            return "call";
+          }
+        };
+    executorService.execute(blocked);
+    executorService.execute(blocked);
+    // overloaded at 50% of the queue bound of 4
+    Assert.assertTrue(dhruvaExecutorService.isOverloaded(ExecutorType.PROXY_PROCESSOR_BOUNDED));
+    Assert.assertEquals(
+        metricRegistry.getGauges().get("testDhruva_proxy_processor_bounded.queueDepth").getValue(),
+        2L);
+    Assert.assertNotNull(
+        metricRegistry.getGauges().get("testDhruva_proxy_processor_bounded.queueWaitMillis"));
+    release.countDown();
+
+    // trying to start an executor that is already running. No impact, just logs this activity
+    dhruvaExecutorService.startBoundedStripedExecutorService(ExecutorType.PROXY_PROCESSOR_BOUNDED);
+    executorService.shutdownNow();
+  }
 }
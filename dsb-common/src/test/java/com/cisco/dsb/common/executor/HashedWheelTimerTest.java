@@ -0,0 +1,123 @@
+package com.cisco.dsb.common.executor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class HashedWheelTimerTest {
+
+  private static final long TICK = 10;
+
+  private final AtomicLong clock = new AtomicLong();
+  private final List<String> fired = new ArrayList<>();
+  private HashedWheelTimer timer;
+
+  @BeforeMethod
+  public void setup() {
+    clock.set(1_000_000);
+    fired.clear();
+    // wheel of 4 buckets, tasks run on the ticking thread
+    timer = new HashedWheelTimer("test", TICK, 4, Runnable::run, clock::get);
+  }
+
+  private void advanceTo(long nanos) {
+    clock.set(1_000_000 + nanos);
+    timer.advance(clock.get());
+  }
+
+  @Test(description = "timeouts fire in the tick after their deadline, never before")
+  public void testTimeoutsFireOnTheirTick() {
+    timer.newTimeout(() -> fired.add("a"), 5, TimeUnit.NANOSECONDS);
+    timer.newTimeout(() -> fired.add("b"), 25, TimeUnit.NANOSECONDS);
+    // beyond the 4 buckets of the wheel, takes more than one round
+    timer.newTimeout(() -> fired.add("c"), 95, TimeUnit.NANOSECONDS);
+    Assert.assertEquals(timer.getPendingTimeouts(), 3);
+
+    advanceTo(9);
+    Assert.assertTrue(fired.isEmpty());
+    advanceTo(10);
+    Assert.assertEquals(fired, List.of("a"));
+    advanceTo(29);
+    Assert.assertEquals(fired, List.of("a"));
+    advanceTo(30);
+    Assert.assertEquals(fired, List.of("a", "b"));
+    advanceTo(90);
+    Assert.assertEquals(fired, List.of("a", "b"));
+    advanceTo(100);
+    Assert.assertEquals(fired, List.of("a", "b", "c"));
+    Assert.assertEquals(timer.getPendingTimeouts(), 0);
+  }
+
+  @Test(description = "cancelled timeouts never fire and are no longer pending")
+  public void testCancel() {
+    HashedWheelTimer.Timeout notOnWheelYet =
+        timer.newTimeout(() -> fired.add("a"), 15, TimeUnit.NANOSECONDS);
+    HashedWheelTimer.Timeout onWheel =
+        timer.newTimeout(() -> fired.add("b"), 55, TimeUnit.NANOSECONDS);
+    timer.newTimeout(() -> fired.add("c"), 55, TimeUnit.NANOSECONDS);
+
+    Assert.assertTrue(notOnWheelYet.cancel());
+    advanceTo(10);
+    Assert.assertTrue(onWheel.cancel());
+    Assert.assertFalse(onWheel.cancel());
+    Assert.assertTrue(onWheel.isCancelled());
+    Assert.assertEquals(timer.getPendingTimeouts(), 1);
+
+    advanceTo(100);
+    Assert.assertEquals(fired, List.of("c"));
+    Assert.assertEquals(timer.getPendingTimeouts(), 0);
+  }
+
+  @Test(description = "a timeout cannot be cancelled once it fired")
+  public void testCancelAfterExpiry() {
+    HashedWheelTimer.Timeout timeout =
+        timer.newTimeout(() -> fired.add("a"), 0, TimeUnit.NANOSECONDS);
+    advanceTo(10);
+    Assert.assertTrue(timeout.isExpired());
+    Assert.assertFalse(timeout.cancel());
+    Assert.assertFalse(timeout.isCancelled());
+  }
+
+  @Test(description = "timeouts scheduled late in the wheel still wait for their full delay")
+  public void testScheduleAfterTicks() {
+    advanceTo(35);
+    timer.newTimeout(() -> fired.add("a"), 40, TimeUnit.NANOSECONDS);
+    advanceTo(70);
+    Assert.assertTrue(fired.isEmpty());
+    advanceTo(80);
+    Assert.assertEquals(fired, List.of("a"));
+  }
+
+  @Test(expectedExceptions = RejectedExecutionException.class)
+  public void testRejectWhenStopped() {
+    timer.stop();
+    timer.newTimeout(() -> fired.add("a"), 1, TimeUnit.NANOSECONDS);
+  }
+
+  @Test(description = "worker thread dispatches expired timeouts")
+  public void testWorker() throws InterruptedException {
+    HashedWheelTimer wheelTimer =
+        new HashedWheelTimer("worker", 5, 512, Executors.newSingleThreadExecutor());
+    wheelTimer.start();
+    try {
+      CountDownLatch latch = new CountDownLatch(100);
+      for (int i = 0; i < 1000; i++) {
+        wheelTimer.newTimeout(() -> {}, 1, TimeUnit.HOURS).cancel();
+      }
+      for (int i = 0; i < 100; i++) {
+        wheelTimer.newTimeout(latch::countDown, i, TimeUnit.MILLISECONDS);
+      }
+      Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+      Assert.assertEquals(wheelTimer.getPendingTimeouts(), 0);
+    } finally {
+      wheelTimer.stop();
+    }
+  }
+}
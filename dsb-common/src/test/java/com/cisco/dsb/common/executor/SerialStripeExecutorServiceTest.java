@@ -0,0 +1,392 @@
+package com.cisco.dsb.common.executor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class SerialStripeExecutorServiceTest {
+
+  private SerialStripeExecutorService executor;
+
+  @BeforeMethod
+  public void setup() {
+    executor = new SerialStripeExecutorService(Executors.newCachedThreadPool());
+  }
+
+  @AfterMethod
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  private static BaseHandler handler(String callId, Runnable task) {
+    return new BaseHandler() {
+      @Override
+      public void executeRun() {
+        task.run();
+      }
+
+      @Override
+      public String getCallId() {
+        return callId;
+      }
+    };
+  }
+
+  // like the handler of a response, queued beyond the bounds
+  private static BaseHandler unsheddableHandler(String callId, Runnable task) {
+    return new BaseHandler() {
+      @Override
+      public void executeRun() {
+        task.run();
+      }
+
+      @Override
+      public String getCallId() {
+        return callId;
+      }
+
+      @Override
+      public boolean isSheddable() {
+        return false;
+      }
+    };
+  }
+
+  // a task completes just before its stripe moves on, the counts follow shortly after
+  private static void awaitBacklog(SerialStripeExecutorService executor, int stripes, long tasks)
+      throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while ((executor.getActiveStripes() != stripes || executor.getQueuedTasks() != tasks)
+        && System.nanoTime() < deadline) {
+      Thread.sleep(1);
+    }
+  }
+
+  @Test(description = "tasks of a call run one at a time and in submission order")
+  public void testOrderPerStripe() throws Exception {
+    int calls = 50;
+    int eventsPerCall = 100;
+    Map<String, List<Integer>> processed = new ConcurrentHashMap<>();
+    AtomicInteger overlaps = new AtomicInteger();
+    List<Future<?>> futures = new ArrayList<>();
+    for (int event = 0; event < eventsPerCall; event++) {
+      for (int call = 0; call < calls; call++) {
+        String callId = "call-" + call;
+        int sequence = event;
+        futures.add(
+            executor.submit(
+                handler(
+                    callId,
+                    () -> {
+                      List<Integer> events =
+                          processed.computeIfAbsent(
+                              callId, k -> Collections.synchronizedList(new ArrayList<>()));
+                      // a second task of the same call running now would add out of order
+                      if (!events.isEmpty() && events.get(events.size() - 1) != sequence - 1) {
+                        overlaps.incrementAndGet();
+                      }
+                      events.add(sequence);
+                    })));
+      }
+    }
+    for (Future<?> future : futures) {
+      future.get(5, TimeUnit.SECONDS);
+    }
+    Assert.assertEquals(overlaps.get(), 0);
+    Assert.assertEquals(processed.size(), calls);
+    processed.values().forEach(events -> Assert.assertEquals(events.size(), eventsPerCall));
+    awaitBacklog(executor, 0, 0);
+    Assert.assertEquals(executor.getActiveStripes(), 0);
+    Assert.assertEquals(executor.getQueuedTasks(), 0);
+  }
+
+  @Test(description = "a blocked call does not hold up the other calls")
+  public void testStripesRunConcurrently() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch otherCallDone = new CountDownLatch(1);
+    AtomicInteger blockedCallEvents = new AtomicInteger();
+    executor.execute(
+        handler(
+            "blocked",
+            () -> {
+              try {
+                release.await();
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+              }
+              blockedCallEvents.incrementAndGet();
+            }));
+    executor.execute(handler("blocked", blockedCallEvents::incrementAndGet));
+    executor.execute(handler("other", otherCallDone::countDown));
+
+    Assert.assertTrue(otherCallDone.await(5, TimeUnit.SECONDS));
+    Assert.assertEquals(blockedCallEvents.get(), 0);
+    awaitBacklog(executor, 1, 2);
+    Assert.assertEquals(executor.getActiveStripes(), 1);
+    Assert.assertEquals(executor.getQueuedTasks(), 2);
+    release.countDown();
+    executor.submit(handler("blocked", () -> {})).get(5, TimeUnit.SECONDS);
+    Assert.assertEquals(blockedCallEvents.get(), 2);
+  }
+
+  @Test(description = "a failing task does not stop the stripe")
+  public void testFailureKeepsDraining() throws Exception {
+    executor.execute(
+        () -> {
+          throw new IllegalStateException("not striped");
+        });
+    Future<?> failed =
+        executor.submit(
+            handler(
+                "call",
+                () -> {
+                  throw new IllegalStateException("test");
+                }));
+    Future<?> next = executor.submit(handler("call", () -> {}));
+    next.get(5, TimeUnit.SECONDS);
+    Assert.assertTrue(failed.isDone());
+  }
+
+  @Test(expectedExceptions = RejectedExecutionException.class)
+  public void testRejectAfterShutdown() {
+    executor.shutdown();
+    Assert.assertTrue(executor.isShutdown());
+    executor.execute(handler("call", () -> {}));
+  }
+
+  @Test(description = "tasks beyond the stripe and the total bounds are rejected")
+  public void testBounds() throws Exception {
+    SerialStripeExecutorService bounded =
+        new SerialStripeExecutorService(Executors.newCachedThreadPool(), 2, 3, 3, 0);
+    CountDownLatch release = new CountDownLatch(1);
+    Runnable blocked = await(release);
+    try {
+      bounded.execute(handler("a", blocked));
+      bounded.execute(handler("a", () -> {}));
+      Assert.assertThrows(
+          RejectedExecutionException.class, () -> bounded.execute(handler("a", () -> {})));
+      bounded.execute(handler("b", blocked));
+      Assert.assertThrows(
+          RejectedExecutionException.class, () -> bounded.execute(handler("c", () -> {})));
+      Assert.assertEquals(bounded.getQueuedTasks(), 3);
+
+      release.countDown();
+      awaitBacklog(bounded, 0, 0);
+      Assert.assertEquals(bounded.getQueuedTasks(), 0);
+      bounded.submit(handler("c", () -> {})).get(5, TimeUnit.SECONDS);
+    } finally {
+      bounded.shutdownNow();
+    }
+  }
+
+  @Test(description = "tasks that are not sheddable are queued in order beyond the bounds")
+  public void testUnsheddableBeyondBounds() throws Exception {
+    SerialStripeExecutorService bounded =
+        new SerialStripeExecutorService(Executors.newCachedThreadPool(), 1, 1, 1, 0);
+    CountDownLatch release = new CountDownLatch(1);
+    List<Integer> processed = Collections.synchronizedList(new ArrayList<>());
+    try {
+      bounded.execute(handler("a", await(release)));
+      Assert.assertThrows(
+          RejectedExecutionException.class, () -> bounded.execute(handler("a", () -> {})));
+      bounded.execute(unsheddableHandler("a", () -> processed.add(1)));
+      Future<?> last = bounded.submit(unsheddableHandler("a", () -> processed.add(2)));
+      bounded.execute(unsheddableHandler("b", () -> processed.add(3)));
+      Assert.assertTrue(bounded.isOverloaded());
+
+      release.countDown();
+      last.get(5, TimeUnit.SECONDS);
+      awaitBacklog(bounded, 0, 0);
+      Assert.assertEquals(bounded.getQueuedTasks(), 0);
+      Assert.assertEquals(processed.size(), 3);
+      Assert.assertTrue(processed.indexOf(1) < processed.indexOf(2), processed.toString());
+    } finally {
+      bounded.shutdownNow();
+    }
+  }
+
+  private static Runnable await(CountDownLatch latch) {
+    return () -> {
+      try {
+        latch.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    };
+  }
+
+  @Test(description = "overloaded once the tasks queued reach the threshold")
+  public void testOverloadedByQueuedTasks() throws Exception {
+    SerialStripeExecutorService bounded =
+        new SerialStripeExecutorService(Executors.newCachedThreadPool(), 10, 10, 3, 0);
+    CountDownLatch release = new CountDownLatch(1);
+    try {
+      bounded.execute(handler("a", await(release)));
+      bounded.execute(handler("a", () -> {}));
+      Assert.assertFalse(bounded.isOverloaded());
+      bounded.execute(handler("a", () -> {}));
+      Assert.assertTrue(bounded.isOverloaded());
+
+      release.countDown();
+      bounded.submit(handler("a", () -> {})).get(5, TimeUnit.SECONDS);
+      Assert.assertFalse(bounded.isOverloaded());
+    } finally {
+      bounded.shutdownNow();
+    }
+  }
+
+  @Test(description = "overloaded while tasks waited in the queue beyond the threshold")
+  public void testOverloadedByQueueWait() throws Exception {
+    SerialStripeExecutorService bounded =
+        new SerialStripeExecutorService(Executors.newCachedThreadPool(), 10, 10, 10, 50);
+    CountDownLatch releaseFirst = new CountDownLatch(1);
+    CountDownLatch secondStarted = new CountDownLatch(1);
+    CountDownLatch releaseSecond = new CountDownLatch(1);
+    try {
+      bounded.execute(handler("a", await(releaseFirst)));
+      bounded.execute(
+          handler(
+              "a",
+              () -> {
+                secondStarted.countDown();
+                await(releaseSecond).run();
+              }));
+      Thread.sleep(100);
+      Assert.assertFalse(bounded.isOverloaded());
+
+      releaseFirst.countDown();
+      Assert.assertTrue(secondStarted.await(5, TimeUnit.SECONDS));
+      Assert.assertTrue(bounded.getQueueWaitMillis() >= 50);
+      Assert.assertTrue(bounded.isOverloaded());
+
+      releaseSecond.countDown();
+      bounded.submit(handler("a", () -> {})).get(5, TimeUnit.SECONDS);
+      Assert.assertFalse(bounded.isOverloaded());
+    } finally {
+      bounded.shutdownNow();
+    }
+  }
+
+  @Test(description = "backing executor is chosen by the runtime")
+  public void testBackingExecutor() throws Exception {
+    ExecutorService backingExecutor = SerialStripeExecutorService.newBackingExecutor("test");
+    try {
+      Assert.assertEquals(backingExecutor.submit(() -> 1).get(5, TimeUnit.SECONDS), (Integer) 1);
+    } finally {
+      backingExecutor.shutdown();
+    }
+  }
+
+  @Test(description = "a drain the backing executor rejects fails only the task that started it")
+  public void testBackingExecutorRejects() throws Exception {
+    ExecutorService backingExecutor = Executors.newSingleThreadExecutor();
+    AtomicBoolean rejecting = new AtomicBoolean(true);
+    SerialStripeExecutorService rejectingExecutor =
+        new SerialStripeExecutorService(
+            new AbstractExecutorService() {
+              @Override
+              public void execute(Runnable command) {
+                if (rejecting.get()) {
+                  throw new RejectedExecutionException("rejected");
+                }
+                backingExecutor.execute(command);
+              }
+
+              @Override
+              public void shutdown() {
+                backingExecutor.shutdown();
+              }
+
+              @Override
+              public List<Runnable> shutdownNow() {
+                return backingExecutor.shutdownNow();
+              }
+
+              @Override
+              public boolean isShutdown() {
+                return backingExecutor.isShutdown();
+              }
+
+              @Override
+              public boolean isTerminated() {
+                return backingExecutor.isTerminated();
+              }
+
+              @Override
+              public boolean awaitTermination(long timeout, TimeUnit unit)
+                  throws InterruptedException {
+                return backingExecutor.awaitTermination(timeout, unit);
+              }
+            });
+    try {
+      Assert.assertThrows(
+          RejectedExecutionException.class,
+          () -> rejectingExecutor.execute(handler("a", () -> {})));
+      Assert.assertEquals(rejectingExecutor.getActiveStripes(), 0);
+      Assert.assertEquals(rejectingExecutor.getQueuedTasks(), 0);
+
+      rejecting.set(false);
+      List<Integer> processed = Collections.synchronizedList(new ArrayList<>());
+      CountDownLatch release = new CountDownLatch(1);
+      rejectingExecutor.execute(handler("a", await(release)));
+      rejectingExecutor.execute(handler("a", () -> processed.add(1)));
+      rejecting.set(true);
+      // the stripe is draining, so queueing to it does not need the backing executor
+      rejectingExecutor.execute(handler("a", () -> processed.add(2)));
+      release.countDown();
+      awaitBacklog(rejectingExecutor, 0, 0);
+      Assert.assertEquals(processed, Arrays.asList(1, 2));
+    } finally {
+      rejectingExecutor.shutdownNow();
+    }
+  }
+
+  @Test(description = "shutdownNow hands back the tasks that never ran and clears the backlog")
+  public void testShutdownNow() throws Exception {
+    SerialStripeExecutorService bounded =
+        new SerialStripeExecutorService(Executors.newCachedThreadPool(), 10, 3, 2, 0);
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicInteger ran = new AtomicInteger();
+    bounded.execute(
+        handler(
+            "a",
+            () -> {
+              started.countDown();
+              // keeps running when shutdownNow interrupts it
+              while (release.getCount() > 0) {
+                await(release).run();
+              }
+            }));
+    Runnable second = handler("a", ran::incrementAndGet);
+    bounded.execute(second);
+    Assert.assertTrue(started.await(5, TimeUnit.SECONDS));
+    Assert.assertTrue(bounded.isOverloaded());
+
+    List<Runnable> notRun = bounded.shutdownNow();
+    Assert.assertEquals(notRun, Collections.singletonList(second));
+    Assert.assertEquals(bounded.getQueuedTasks(), 1);
+
+    release.countDown();
+    Assert.assertTrue(bounded.awaitTermination(5, TimeUnit.SECONDS));
+    Assert.assertEquals(bounded.getQueuedTasks(), 0);
+    Assert.assertFalse(bounded.isOverloaded());
+    Assert.assertEquals(ran.get(), 0);
+  }
+}
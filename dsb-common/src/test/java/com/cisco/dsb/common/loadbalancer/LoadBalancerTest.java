@@ -10,6 +10,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import org.mockito.MockitoAnnotations;
 import org.testng.Assert;
 import org.testng.annotations.BeforeTest;
@@ -34,10 +36,13 @@ public class LoadBalancerTest {
       {LBType.WEIGHT, serverGroupElements},
       {LBType.MS_ID, serverGroupElements},
       {LBType.ONCE, serverGroupElements},
+      {LBType.LEAST_OUTSTANDING, serverGroupElements},
+      {LBType.PEAK_EWMA, serverGroupElements},
       {LBType.HIGHEST_Q, serverGroupElements2},
       {LBType.HIGHEST_Q, serverGroupElements1},
       {LBType.WEIGHT, serverGroupElements1},
-      {LBType.ONCE, serverGroupElements1}
+      {LBType.ONCE, serverGroupElements1},
+      {LBType.PEAK_EWMA, serverGroupElements1}
     };
   }
 
@@ -75,6 +80,8 @@ public class LoadBalancerTest {
       case WEIGHT:
       case MS_ID:
       case HIGHEST_Q:
+      case LEAST_OUTSTANDING:
+      case PEAK_EWMA:
         if (treeSetInit.size() > 1) {
           Assert.assertFalse(Comparators.isInOrder(selectedElements, weightComparator()));
           Assert.assertNotEquals(selectedElements, treeSetInit);
@@ -172,6 +179,120 @@ public class LoadBalancerTest {
     Assert.assertTrue(firstElement <= lastElement);
   }
 
+  @Test(description = "LoadBalancers share a snapshot until the elements change")
+  public void testSnapshotReuse() {
+    List<ServerGroupElement> sgelements = getServerGroupElements(5, false);
+    LBSnapshot snapshot = LBSnapshot.of(sgelements);
+    Assert.assertSame(LBSnapshot.of(sgelements), snapshot);
+
+    sgelements.get(0).setWeight(sgelements.get(0).getWeight() + 1);
+    LBSnapshot reweighted = LBSnapshot.of(sgelements);
+    Assert.assertNotSame(reweighted, snapshot);
+
+    sgelements.remove(1);
+    LBSnapshot removed = LBSnapshot.of(sgelements);
+    Assert.assertNotSame(removed, reweighted);
+    Assert.assertEquals(removed.size(), 4);
+  }
+
+  @Test(description = "weighted selection skips tried elements and drains the tier first")
+  public void testWeightedSelectionHonorsTiers() {
+    List<ServerGroupElement> sgelements = getServerGroupElements(30, false);
+    ServerGroup serverGroup =
+        ServerGroup.builder().setElements(sgelements).setLbType(LBType.WEIGHT).build();
+    LoadBalancer loadBalancer = LoadBalancer.of(serverGroup);
+    List<LBElement> selected = new ArrayList<>();
+    LBElement element;
+    while ((element = loadBalancer.getNextElement()) != null) {
+      Assert.assertFalse(selected.contains(element));
+      if (!selected.isEmpty()) {
+        Assert.assertTrue(selected.get(selected.size() - 1).getPriority() <= element.getPriority());
+      }
+      selected.add(element);
+    }
+    Assert.assertTrue(loadBalancer.isEmpty());
+    Assert.assertEquals(selected.size(), loadBalancer.getElementsToTry().size() + 30);
+  }
+
+  @Test(description = "least outstanding picks the element with fewer requests in flight")
+  public void testLeastOutstanding() {
+    List<ServerGroupElement> sgelements = getServerGroupElements(2, true);
+    ServerGroup serverGroup =
+        ServerGroup.builder().setElements(sgelements).setLbType(LBType.LEAST_OUTSTANDING).build();
+    LBElementStats busy = LBElementStats.of(sgelements.get(0));
+    long[] starts = new long[5];
+    for (int i = 0; i < starts.length; i++) {
+      starts[i] = busy.start();
+    }
+    for (int i = 0; i < 100; i++) {
+      Assert.assertSame(LoadBalancer.of(serverGroup).getNextElement(), sgelements.get(1));
+    }
+    // failover still reaches the busy element
+    LoadBalancer loadBalancer = LoadBalancer.of(serverGroup);
+    loadBalancer.getNextElement();
+    Assert.assertSame(loadBalancer.getNextElement(), sgelements.get(0));
+    // a first, provisional response does not end the request
+    for (long start : starts) {
+      busy.sample(start);
+    }
+    Assert.assertEquals(busy.getOutstanding(), starts.length);
+    Assert.assertSame(LoadBalancer.of(serverGroup).getNextElement(), sgelements.get(1));
+    for (int i = 0; i < starts.length; i++) {
+      busy.end();
+    }
+    Assert.assertEquals(busy.getOutstanding(), 0);
+  }
+
+  @Test(description = "peak EWMA picks the element responding faster")
+  public void testPeakEwma() throws InterruptedException {
+    List<ServerGroupElement> sgelements = getServerGroupElements(2, true);
+    ServerGroup serverGroup =
+        ServerGroup.builder().setElements(sgelements).setLbType(LBType.PEAK_EWMA).build();
+    LBElementStats slow = LBElementStats.of(sgelements.get(0));
+    long start = slow.start();
+    Thread.sleep(20);
+    slow.sample(start);
+    slow.end();
+    Assert.assertTrue(slow.getEwmaNanos() >= TimeUnit.MILLISECONDS.toNanos(20));
+    for (int i = 0; i < 100; i++) {
+      Assert.assertSame(LoadBalancer.of(serverGroup).getNextElement(), sgelements.get(1));
+    }
+  }
+
+  @Test(description = "EWMA follows peaks at once and decays towards faster responses")
+  public void testPeakEwmaDecay() {
+    AtomicLong clock = new AtomicLong();
+    LBElementStats stats = new LBElementStats(clock::get);
+    long start = stats.start();
+    clock.addAndGet(1000);
+    stats.sample(start);
+    stats.end();
+    Assert.assertEquals(stats.getEwmaNanos(), 1000d);
+
+    // a faster response one decay period later moves the average ~63% of the way
+    clock.addAndGet(LBElementStats.DECAY_NANOS - 100);
+    start = stats.start();
+    // read in between, the average has decayed since the last response
+    double decayed =
+        1000 * Math.exp(-(LBElementStats.DECAY_NANOS - 100) / (double) LBElementStats.DECAY_NANOS);
+    Assert.assertEquals(stats.getCost(), 2 * decayed, 0.001);
+    clock.addAndGet(100);
+    stats.sample(start);
+    stats.end();
+    Assert.assertEquals(stats.getEwmaNanos(), 100 + 900 * Math.exp(-1), 0.001);
+
+    // slower again, jumps to the peak
+    start = stats.start();
+    clock.addAndGet(5000);
+    stats.sample(start);
+    stats.end();
+    Assert.assertEquals(stats.getEwmaNanos(), 5000d);
+
+    // no response for a decay period
+    clock.addAndGet(LBElementStats.DECAY_NANOS);
+    Assert.assertEquals(stats.getEwmaNanos(), 5000 * Math.exp(-1), 0.001);
+  }
+
   private List<ServerGroupElement> getServerGroupElements(int count, boolean sameQ) {
     List<ServerGroupElement> sgeList = new ArrayList<>();
     List<Transport> transports = Arrays.asList(Transport.TCP, Transport.UDP, Transport.TLS);
@@ -0,0 +1,142 @@
+package com.cisco.dsb.common.loadbalancer;
+
+import com.cisco.dsb.common.servergroup.ServerGroup;
+import com.cisco.dsb.common.servergroup.ServerGroupElement;
+import com.cisco.dsb.common.transport.Transport;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class RendezvousHashTest {
+  private static final int KEYS = 10_000;
+
+  private static List<ServerGroupElement> elements(int count, int weight) {
+    List<ServerGroupElement> elements = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      elements.add(element("10.1.1." + i, weight));
+    }
+    return elements;
+  }
+
+  private static ServerGroupElement element(String ip, int weight) {
+    return ServerGroupElement.builder()
+        .setIpAddress(ip)
+        .setPort(5060)
+        .setTransport(Transport.UDP)
+        .setPriority(10)
+        .setWeight(weight)
+        .build();
+  }
+
+  @Test(description = "removing one of N elements only moves the keys it owned")
+  public void testKeyMovementOnRemoval() {
+    List<ServerGroupElement> all = elements(10, 100);
+    List<ServerGroupElement> remaining = new ArrayList<>(all);
+    ServerGroupElement removed = remaining.remove(3);
+
+    int moved = 0;
+    int movedByModulo = 0;
+    for (int i = 0; i < KEYS; i++) {
+      String key = "call-" + i;
+      ServerGroupElement before = RendezvousHash.select(key, all);
+      ServerGroupElement after = RendezvousHash.select(key, remaining);
+      if (before != after) {
+        moved++;
+        Assert.assertSame(before, removed);
+      }
+      if (HashAlgorithm.selectIndex(key, all.size())
+          != HashAlgorithm.selectIndex(key, remaining.size())) {
+        movedByModulo++;
+      }
+    }
+    Assert.assertTrue(moved < KEYS * 0.15, "moved " + moved);
+    Assert.assertTrue(movedByModulo > KEYS / 2, "moved " + movedByModulo);
+  }
+
+  @Test(description = "an added element only takes keys, other keys stay where they were")
+  public void testKeyMovementOnAddition() {
+    List<ServerGroupElement> before = elements(10, 100);
+    List<ServerGroupElement> after = new ArrayList<>(before);
+    ServerGroupElement added = element("10.1.2.1", 100);
+    after.add(added);
+
+    int moved = 0;
+    for (int i = 0; i < KEYS; i++) {
+      String key = "call-" + i;
+      ServerGroupElement selected = RendezvousHash.select(key, after);
+      if (RendezvousHash.select(key, before) != selected) {
+        moved++;
+        Assert.assertSame(selected, added);
+      }
+    }
+    Assert.assertTrue(moved > 0 && moved < KEYS * 0.15, "moved " + moved);
+  }
+
+  @Test(description = "keys are shared in proportion to the weights")
+  public void testWeightedDistribution() {
+    List<ServerGroupElement> elements = List.of(element("10.1.1.1", 100), element("10.1.1.2", 300));
+    int heavy = 0;
+    for (int i = 0; i < KEYS; i++) {
+      if (RendezvousHash.select("call-" + i, elements) == elements.get(1)) {
+        heavy++;
+      }
+    }
+    Assert.assertTrue(heavy > KEYS * 0.70 && heavy < KEYS * 0.80, "heavy " + heavy);
+  }
+
+  @Test(description = "the same key walks the elements in the same order on every LoadBalancer")
+  public void testStickyFailoverOrder() {
+    ServerGroup serverGroup =
+        ServerGroup.builder()
+            .setElements(elements(5, 100))
+            .setLbType(LBType.CONSISTENT_HASH)
+            .build();
+    List<LBElement> firstOrder = new ArrayList<>();
+    LoadBalancer loadBalancer = LoadBalancer.of(serverGroup);
+    loadBalancer.setKey("testMSID");
+    LBElement element;
+    while ((element = loadBalancer.getNextElement()) != null) {
+      firstOrder.add(element);
+    }
+    Assert.assertEquals(firstOrder.size(), 5);
+
+    for (int i = 0; i < 10; i++) {
+      LoadBalancer other = LoadBalancer.of(serverGroup);
+      other.setKey("testMSID");
+      for (LBElement expected : firstOrder) {
+        Assert.assertSame(other.getNextElement(), expected);
+      }
+    }
+  }
+
+  @Test(description = "through the LoadBalancer, keys are spread evenly and reach every element")
+  public void testLoadBalancerSelection() {
+    ServerGroup serverGroup =
+        ServerGroup.builder()
+            .setElements(elements(20, 100))
+            .setLbType(LBType.CONSISTENT_HASH)
+            .build();
+    Map<LBElement, Integer> firstSelections = new HashMap<>();
+    for (int i = 0; i < KEYS; i++) {
+      LoadBalancer loadBalancer = LoadBalancer.of(serverGroup);
+      loadBalancer.setKey("call-" + i);
+      firstSelections.merge(loadBalancer.getNextElement(), 1, Integer::sum);
+      Set<LBElement> tried = new HashSet<>();
+      LBElement element;
+      while ((element = loadBalancer.getNextElement()) != null) {
+        Assert.assertTrue(tried.add(element), "element selected twice for call-" + i);
+      }
+      Assert.assertEquals(tried.size(), 19);
+    }
+    Assert.assertEquals(firstSelections.size(), 20);
+    firstSelections.forEach(
+        (element, count) ->
+            Assert.assertTrue(
+                count > KEYS / 20 / 2 && count < KEYS / 20 * 3 / 2, element + " " + count));
+  }
+}
@@ -0,0 +1,78 @@
+package com.cisco.dsb.common.metric;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.cisco.dsb.common.util.log.event.Event.DIRECTION;
+import gov.nist.core.Host;
+import gov.nist.core.HostPort;
+import gov.nist.javax.sip.stack.MessageChannel;
+import java.net.InetAddress;
+import java.util.List;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class ConnectionTrafficRegistryTest {
+
+  private static MessageChannel getChannel(String peer) throws Exception {
+    MessageChannel channel = mock(MessageChannel.class);
+    HostPort hostPort = new HostPort();
+    hostPort.setHost(new Host("10.1.1.1"));
+    hostPort.setPort(5060);
+    HostPort peerHostPort = new HostPort();
+    peerHostPort.setHost(new Host(peer));
+    peerHostPort.setPort(5070);
+    when(channel.getTransport()).thenReturn("udp");
+    when(channel.getHost()).thenReturn("10.1.1.1");
+    when(channel.getPort()).thenReturn(5060);
+    when(channel.getHostPort()).thenReturn(hostPort);
+    when(channel.getPeerHostPort()).thenReturn(peerHostPort);
+    when(channel.getPeerInetAddress()).thenReturn(InetAddress.getByName(peer));
+    when(channel.getPeerAddress()).thenReturn(peer);
+    when(channel.getPeerPort()).thenReturn(5070);
+    return channel;
+  }
+
+  @Test(description = "channels to the same peer share a slot, counted per direction")
+  public void testCount() throws Exception {
+    ConnectionTrafficRegistry registry = new ConnectionTrafficRegistry();
+    ConnectionTrafficRegistry.Slot slot = registry.slotOf(getChannel("10.2.2.2"));
+    Assert.assertSame(registry.slotOf(getChannel("10.2.2.2")), slot);
+    Assert.assertNotSame(registry.slotOf(getChannel("10.3.3.3")), slot);
+    Assert.assertTrue(slot.isFor(InetAddress.getByName("10.2.2.2"), 5070));
+    Assert.assertFalse(slot.isFor(InetAddress.getByName("10.2.2.2"), 5080));
+
+    slot.count(DIRECTION.IN, 500);
+    slot.count(DIRECTION.IN, 300);
+    slot.count(DIRECTION.OUT, 400);
+    List<ConnectionTrafficRegistry.Snapshot> snapshots = registry.snapshotAndReset();
+    Assert.assertEquals(snapshots.size(), 2);
+    for (ConnectionTrafficRegistry.Snapshot snapshot : snapshots) {
+      Assert.assertSame(snapshot.getSlot(), slot);
+      if (snapshot.getDirection() == DIRECTION.IN) {
+        Assert.assertEquals(snapshot.getPackets(), 2);
+        Assert.assertEquals(snapshot.getBytes(), 800);
+      } else {
+        Assert.assertEquals(snapshot.getPackets(), 1);
+        Assert.assertEquals(snapshot.getBytes(), 400);
+      }
+    }
+    Assert.assertEquals(slot.getTransport(), "UDP");
+    Assert.assertEquals(slot.getRemotePort(), 5070);
+    Assert.assertTrue(slot.getId(DIRECTION.OUT).startsWith("OUT-UDP-"));
+  }
+
+  @Test(description = "slots without traffic in an interval are retired and resolved anew")
+  public void testRetire() throws Exception {
+    ConnectionTrafficRegistry registry = new ConnectionTrafficRegistry();
+    MessageChannel channel = getChannel("10.2.2.2");
+    ConnectionTrafficRegistry.Slot slot = registry.slotOf(channel);
+    Assert.assertTrue(registry.snapshotAndReset().isEmpty());
+    Assert.assertFalse(slot.isFor(InetAddress.getByName("10.2.2.2"), 5070));
+
+    ConnectionTrafficRegistry.Slot next = registry.slotOf(channel);
+    Assert.assertNotSame(next, slot);
+    next.count(DIRECTION.OUT, 100);
+    Assert.assertEquals(registry.snapshotAndReset().size(), 1);
+  }
+}
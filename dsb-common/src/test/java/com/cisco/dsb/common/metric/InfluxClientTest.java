@@ -3,12 +3,14 @@ package com.cisco.dsb.common.metric;
 import static org.mockito.Mockito.*;
 
 import com.cisco.dsb.common.config.DhruvaProperties;
+import com.cisco.dsb.common.config.sip.CommonConfigurationProperties;
 import com.cisco.dsb.common.service.MetricService;
 import com.cisco.wx2.metrics.InfluxPoint;
 import com.cisco.wx2.server.InfluxDBClientHelper;
 import java.util.HashSet;
 import java.util.Set;
 import org.mockito.*;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.testng.Assert;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
@@ -138,6 +140,34 @@ public class InfluxClientTest {
     Assert.assertTrue(receivedMetric.contains((InfluxPoint) testMetric2.get()));
   }
 
+  @Test(description = "points are buffered and written in batches once batching is enabled")
+  public void influxClientBatchingTest() {
+    CommonConfigurationProperties commonConfigurationProperties =
+        new CommonConfigurationProperties();
+    commonConfigurationProperties.setMetricBatchingEnabled(true);
+    commonConfigurationProperties.setMetricFlushIntervalMillis(10);
+    InfluxClient batchingClient = new InfluxClient();
+    ReflectionTestUtils.setField(batchingClient, "influxDBClientHelper", influxDBClientHelper);
+    ReflectionTestUtils.setField(batchingClient, "dhruvaProperties", dhruvaProperties);
+    ReflectionTestUtils.setField(
+        batchingClient, "commonConfigurationProperties", commonConfigurationProperties);
+    when(dhruvaProperties.getServiceNameEnvVar()).thenReturn("dhruva-dev");
+
+    ArgumentCaptor<Set<InfluxPoint>> metricsCaptor = ArgumentCaptor.forClass(Set.class);
+    batchingClient.startBatchWriter();
+    batchingClient.sendMetric(testMetric1);
+    batchingClient.sendMetric(testMetric2);
+    ReflectionTestUtils.invokeMethod(batchingClient, "destroy");
+
+    verify(influxDBClientHelper, never()).writePointAsync(any());
+    verify(influxDBClientHelper, atLeastOnce()).writePoints(metricsCaptor.capture());
+    Set<InfluxPoint> written = new HashSet<>();
+    metricsCaptor.getAllValues().forEach(written::addAll);
+    Assert.assertTrue(written.contains((InfluxPoint) testMetric1.get()));
+    Assert.assertTrue(written.contains((InfluxPoint) testMetric2.get()));
+    verify(influxDBClientHelper).shutdown();
+  }
+
   @Test(description = "Tests for validating various scenarious of sipmetriccontext")
   public void sipMetricContextNegativeTest() {
     MetricService metricServiceMock = mock(MetricService.class);
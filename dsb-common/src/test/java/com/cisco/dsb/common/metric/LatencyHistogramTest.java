@@ -0,0 +1,81 @@
+package com.cisco.dsb.common.metric;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class LatencyHistogramTest {
+
+  @Test(description = "values map to the bucket holding them, within 1/16 of their value")
+  public void testBuckets() {
+    long[] values = {0, 1, 15, 16, 17, 31, 32, 33, 1000, 123_456, 1L << 36, Long.MAX_VALUE};
+    int previous = -1;
+    for (long value : values) {
+      int bucket = LatencyHistogram.bucketOf(value);
+      Assert.assertTrue(bucket >= previous, "buckets ordered by value " + value);
+      Assert.assertTrue(bucket < LatencyHistogram.BUCKETS);
+      previous = bucket;
+      if (value <= 1L << 36) {
+        long highest = LatencyHistogram.highestValueOf(bucket);
+        Assert.assertTrue(highest >= value, "bucket of " + value + " ends at " + highest);
+        Assert.assertTrue(highest - value <= value / 16, "bucket of " + value + " too wide");
+      }
+    }
+    Assert.assertEquals(LatencyHistogram.bucketOf(Long.MAX_VALUE), LatencyHistogram.BUCKETS - 1);
+  }
+
+  @Test(description = "percentiles of the values recorded since the previous snapshot")
+  public void testSnapshot() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (int i = 1000; i >= 1; i--) {
+      histogram.record(i, TimeUnit.MILLISECONDS);
+    }
+    LatencyHistogram.Snapshot snapshot = histogram.snapshotAndReset();
+    Assert.assertEquals(snapshot.getCount(), 1000);
+    Assert.assertEquals(snapshot.getP50(), 500_000, 500_000 / 16);
+    Assert.assertEquals(snapshot.getP90(), 900_000, 900_000 / 16);
+    Assert.assertEquals(snapshot.getP99(), 990_000, 990_000 / 16);
+    Assert.assertEquals(snapshot.getMax(), 1_000_000);
+
+    snapshot = histogram.snapshotAndReset();
+    Assert.assertEquals(snapshot.getCount(), 0);
+    Assert.assertEquals(snapshot.getMax(), 0);
+  }
+
+  @Test(description = "nothing is lost when recording from many threads")
+  public void testConcurrentRecord() throws InterruptedException {
+    LatencyHistogram histogram = new LatencyHistogram();
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    CountDownLatch done = new CountDownLatch(8);
+    for (int t = 0; t < 8; t++) {
+      executor.execute(
+          () -> {
+            for (int i = 0; i < 10_000; i++) {
+              histogram.record(i % 100, TimeUnit.MICROSECONDS);
+            }
+            done.countDown();
+          });
+    }
+    Assert.assertTrue(done.await(5, TimeUnit.SECONDS));
+    executor.shutdown();
+    LatencyHistogram.Snapshot snapshot = histogram.snapshotAndReset();
+    Assert.assertEquals(snapshot.getCount(), 80_000);
+    Assert.assertEquals(snapshot.getMax(), 99);
+  }
+
+  @Test(description = "latency is taken till the latest split and ends once")
+  public void testLatencyTimer() {
+    LatencyTimer latencyTimer = new LatencyTimer(1_000);
+    latencyTimer.split(5_000);
+    // out of order
+    latencyTimer.split(3_000);
+    Assert.assertEquals(latencyTimer.end(9_000), 4_000);
+    Assert.assertTrue(latencyTimer.isEnded());
+    Assert.assertEquals(latencyTimer.end(10_000), -1);
+
+    Assert.assertEquals(new LatencyTimer(1_000).end(9_000), 8_000);
+  }
+}
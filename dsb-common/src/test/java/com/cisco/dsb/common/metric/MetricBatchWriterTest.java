@@ -0,0 +1,96 @@
+package com.cisco.dsb.common.metric;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class MetricBatchWriterTest {
+
+  @Test(description = "points offered from many threads are written in batches, none lost")
+  public void testBatches() throws InterruptedException {
+    List<Set<Integer>> batches = new CopyOnWriteArrayList<>();
+    MetricBatchWriter<Integer> writer =
+        new MetricBatchWriter<>("test-batch-writer", batches::add, 100_000, 100, 10);
+    writer.start();
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    CountDownLatch done = new CountDownLatch(4);
+    for (int t = 0; t < 4; t++) {
+      int offset = t * 10_000;
+      executor.execute(
+          () -> {
+            for (int i = 0; i < 10_000; i++) {
+              writer.offer(offset + i);
+            }
+            done.countDown();
+          });
+    }
+    Assert.assertTrue(done.await(5, TimeUnit.SECONDS));
+    executor.shutdown();
+    writer.stop();
+
+    Set<Integer> written = new HashSet<>();
+    for (Set<Integer> batch : batches) {
+      Assert.assertTrue(batch.size() <= 100);
+      written.addAll(batch);
+    }
+    Assert.assertEquals(written.size(), 40_000);
+    Assert.assertEquals(writer.getWritten(), 40_000);
+    Assert.assertEquals(writer.getDropped(), 0);
+  }
+
+  @Test(description = "points are dropped and counted while the sink is stuck")
+  public void testDropWhenSinkIsSlow() throws InterruptedException {
+    CountDownLatch release = new CountDownLatch(1);
+    AtomicLong reported = new AtomicLong();
+    MetricBatchWriter<Integer> writer =
+        new MetricBatchWriter<>(
+            "test-batch-writer",
+            batch -> {
+              try {
+                release.await();
+              } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+              }
+            },
+            8,
+            1,
+            10,
+            reported::addAndGet);
+    writer.start();
+    int accepted = 0;
+    for (int i = 0; i < 100; i++) {
+      if (writer.offer(i)) {
+        accepted++;
+      }
+    }
+    // at most the buffer and the batch held by the stuck sink
+    Assert.assertTrue(accepted <= 9, "accepted " + accepted);
+    Assert.assertEquals(writer.getDropped(), 100 - accepted);
+    release.countDown();
+    writer.stop();
+    Assert.assertEquals(writer.getWritten(), accepted);
+    Assert.assertEquals(reported.get(), 100 - accepted);
+  }
+
+  @Test(description = "an idle writer is woken by the next point rather than by a timer")
+  public void testWakeOnOffer() throws InterruptedException {
+    CountDownLatch flushed = new CountDownLatch(1);
+    MetricBatchWriter<Integer> writer =
+        new MetricBatchWriter<>("test-batch-writer", batch -> flushed.countDown(), 8, 1, 60_000);
+    writer.start();
+    // let the writer park
+    Thread.sleep(50);
+    writer.offer(1);
+    Assert.assertTrue(flushed.await(1, TimeUnit.SECONDS));
+    writer.stop();
+    Assert.assertEquals(writer.getWritten(), 1);
+  }
+}
@@ -0,0 +1,80 @@
+package com.cisco.dsb.common.overload;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.cisco.dsb.common.config.sip.CommonConfigurationProperties;
+import com.cisco.dsb.common.executor.DhruvaExecutorService;
+import com.cisco.dsb.common.executor.ExecutorType;
+import com.cisco.dsb.common.executor.HashedWheelTimer;
+import java.util.concurrent.TimeUnit;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class LoadMonitorTest {
+
+  @Mock DhruvaExecutorService dhruvaExecutorService;
+
+  private LoadMonitor loadMonitor;
+
+  @BeforeMethod
+  public void setup() {
+    MockitoAnnotations.initMocks(this);
+    // disabled, so that nothing samples but the test
+    loadMonitor = new LoadMonitor(dhruvaExecutorService, new CommonConfigurationProperties());
+  }
+
+  @Test(description = "reduction rises at once with the load and recovers stepwise")
+  public void testReductionFollowsLoad() {
+    long sequence = loadMonitor.getSequence();
+
+    loadMonitor.update(0.8);
+    Assert.assertEquals(loadMonitor.getReduction(), 0);
+    Assert.assertEquals(loadMonitor.getSequence(), sequence);
+
+    loadMonitor.update(2);
+    Assert.assertEquals(loadMonitor.getReduction(), 50);
+    Assert.assertEquals(loadMonitor.getSequence(), sequence + 1);
+
+    // admitted traffic is at the threshold
+    loadMonitor.update(1);
+    Assert.assertEquals(loadMonitor.getReduction(), 50);
+    Assert.assertEquals(loadMonitor.getSequence(), sequence + 1);
+
+    loadMonitor.update(0.25);
+    Assert.assertEquals(loadMonitor.getReduction(), 50 - LoadMonitor.RECOVERY_STEP_PERCENT);
+    for (int i = 0; i < 5; i++) {
+      loadMonitor.update(0);
+    }
+    Assert.assertEquals(loadMonitor.getReduction(), 0);
+    Assert.assertEquals(loadMonitor.getSequence(), sequence + 6);
+  }
+
+  @Test(description = "reduction never exceeds 100 percent")
+  public void testFullReduction() {
+    loadMonitor.update(1000);
+    loadMonitor.update(1000);
+    Assert.assertEquals(loadMonitor.getReduction(), 100);
+  }
+
+  @Test(description = "load factor is the highest of the normalised signals")
+  public void testSample() {
+    when(dhruvaExecutorService.getQueueLoad(ExecutorType.PROXY_PROCESSOR_BOUNDED)).thenReturn(0.5);
+    loadMonitor.sample(TimeUnit.SECONDS.toNanos(1));
+    Assert.assertEquals(loadMonitor.getLoadFactor(), 0.5);
+
+    HashedWheelTimer timerC = mock(HashedWheelTimer.class);
+    when(timerC.getTickLagMillis()).thenReturn(2 * LoadMonitor.LAG_OVERLOAD_MILLIS);
+    when(dhruvaExecutorService.getTimer(ExecutorType.PROXY_CLIENT_TIMEOUT)).thenReturn(timerC);
+    loadMonitor.sample(TimeUnit.SECONDS.toNanos(1) + TimeUnit.MILLISECONDS.toNanos(500));
+    Assert.assertEquals(loadMonitor.getLoadFactor(), 2.0);
+
+    // 300ms later than the default interval of 500ms
+    when(timerC.getTickLagMillis()).thenReturn(0L);
+    loadMonitor.sample(TimeUnit.MILLISECONDS.toNanos(2300));
+    Assert.assertEquals(loadMonitor.getLoadFactor(), 3.0);
+  }
+}
@@ -0,0 +1,124 @@
+package com.cisco.dsb.common.overload;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.cisco.dsb.common.loadbalancer.LBElement;
+import com.cisco.dsb.common.loadbalancer.LBElementStats;
+import com.cisco.dsb.common.sip.jain.JainSipHelper;
+import gov.nist.javax.sip.header.Via;
+import gov.nist.javax.sip.message.SIPResponse;
+import java.text.ParseException;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class ViaOverloadControlTest {
+
+  private static SIPResponse getResponse(String viaParams) throws ParseException {
+    String response =
+        "SIP/2.0 200 OK\n"
+            + "Via: SIP/2.0/UDP 127.0.0.1:5070;branch=z9hG4bK-42753-1-0"
+            + viaParams
+            + "\n"
+            + "From: <sip:123@127.0.0.1:5070>;tag=42753SIPpTag001\n"
+            + "To: <sip:service@127.0.0.1:5060>;tag=42605SIPpTag011\n"
+            + "Call-ID: 1-42753@127.0.0.1\n"
+            + "CSeq: 1 INVITE\n"
+            + "Content-Length: 0\n\n";
+    return (SIPResponse) JainSipHelper.getMessageFactory().createResponse(response);
+  }
+
+  private static LoadMonitor getLoadMonitor(int reduction) {
+    LoadMonitor loadMonitor = mock(LoadMonitor.class);
+    when(loadMonitor.isEnabled()).thenReturn(true);
+    when(loadMonitor.getReduction()).thenReturn(reduction);
+    when(loadMonitor.getValidityMillis()).thenReturn(2000L);
+    when(loadMonitor.getSequence()).thenReturn(7L);
+    return loadMonitor;
+  }
+
+  private static LBElementStats getStats(String hashKey) {
+    LBElement lbElement = mock(LBElement.class);
+    when(lbElement.getHashKey()).thenReturn(hashKey);
+    return LBElementStats.of(lbElement);
+  }
+
+  @Test
+  public void testAddClientSupport() throws Exception {
+    Via via =
+        (Via) JainSipHelper.getHeaderFactory().createViaHeader("1.1.1.1", 5060, "udp", "z9hG4bK1");
+    ViaOverloadControl.addClientSupport(via);
+    Assert.assertEquals(via.getParameter(ViaOverloadControl.OC), "");
+    Assert.assertEquals(via.getParameter(ViaOverloadControl.OC_ALGO), ViaOverloadControl.ALGO_LOSS);
+    Assert.assertTrue(via.encode().contains(";oc;oc-algo=\"loss\""), via.encode());
+  }
+
+  @Test(description = "clients announcing the loss algorithm get the reduction advertised")
+  public void testAdvertise() throws Exception {
+    SIPResponse response = getResponse(";oc;oc-algo=\"loss,A\"");
+    ViaOverloadControl.advertise(response, getLoadMonitor(30));
+
+    Via via = response.getTopmostVia();
+    Assert.assertEquals(via.getParameter(ViaOverloadControl.OC), "30");
+    Assert.assertEquals(via.getParameter(ViaOverloadControl.OC_ALGO), ViaOverloadControl.ALGO_LOSS);
+    Assert.assertEquals(via.getParameter(ViaOverloadControl.OC_VALIDITY), "2000");
+    Assert.assertEquals(via.getParameter(ViaOverloadControl.OC_SEQ), "7");
+  }
+
+  @Test(description = "clients without overload control support get an untouched Via")
+  public void testAdvertiseWithoutClientSupport() throws Exception {
+    SIPResponse response = getResponse("");
+    ViaOverloadControl.advertise(response, getLoadMonitor(30));
+    Assert.assertNull(response.getTopmostVia().getParameter(ViaOverloadControl.OC));
+
+    response = getResponse(";oc;oc-algo=\"A\"");
+    ViaOverloadControl.advertise(response, getLoadMonitor(30));
+    Assert.assertEquals(response.getTopmostVia().getParameter(ViaOverloadControl.OC), "");
+  }
+
+  private static void apply(SIPResponse response, LBElementStats stats) {
+    ViaOverloadControl.apply(ViaOverloadControl.read(response.getTopmostVia()), stats);
+  }
+
+  @Test(description = "values advertised by the next hop are read from our Via")
+  public void testRead() throws Exception {
+    OverloadControl overloadControl =
+        ViaOverloadControl.read(getResponse(";oc=20;oc-validity=1000;oc-seq=4").getTopmostVia());
+    Assert.assertEquals(overloadControl.getReduction(), 20);
+    Assert.assertEquals(overloadControl.getValidityMillis(), 1000);
+    Assert.assertEquals(overloadControl.getSequence(), 4);
+
+    overloadControl = ViaOverloadControl.read(getResponse(";oc=20").getTopmostVia());
+    Assert.assertEquals(
+        overloadControl.getValidityMillis(), ViaOverloadControl.DEFAULT_VALIDITY_MILLIS);
+    Assert.assertEquals(overloadControl.getSequence(), 0);
+
+    Assert.assertNull(ViaOverloadControl.read(getResponse(";oc=many").getTopmostVia()));
+    Assert.assertNull(ViaOverloadControl.read(null));
+  }
+
+  @Test(description = "reduction advertised by the next hop throttles new requests towards it")
+  public void testApply() throws Exception {
+    LBElementStats stats = getStats("overloaded");
+    apply(getResponse(";oc=100;oc-validity=60000;oc-seq=2"), stats);
+    Assert.assertEquals(stats.getOverloadReduction(), 100);
+    Assert.assertTrue(stats.isThrottled());
+
+    // older values are ignored
+    apply(getResponse(";oc=10;oc-validity=60000;oc-seq=1"), stats);
+    Assert.assertEquals(stats.getOverloadReduction(), 100);
+
+    // validity of 0 ends overload control
+    apply(getResponse(";oc=100;oc-validity=0;oc-seq=3"), stats);
+    Assert.assertEquals(stats.getOverloadReduction(), 0);
+    Assert.assertFalse(stats.isThrottled());
+  }
+
+  @Test(description = "our own oc flag, echoed without a value, changes nothing")
+  public void testApplyWithoutServerSupport() throws Exception {
+    LBElementStats stats = getStats("not overloaded");
+    apply(getResponse(";oc;oc-algo=\"loss\""), stats);
+    Assert.assertEquals(stats.getOverloadReduction(), 0);
+    Assert.assertFalse(stats.isThrottled());
+  }
+}
@@ -6,6 +6,10 @@ import static com.cisco.dsb.common.ratelimiter.RateLimitConstants.POLICY_VALUE_D
 import static com.cisco.dsb.common.ratelimiter.RateLimitConstants.PROCESS;
 import static gov.nist.javax.sip.header.SIPHeaderNames.CALL_ID;
 import static java.util.Collections.singletonList;
+import static java.util.Collections.singletonMap;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -13,8 +17,10 @@ import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertTrue;
 
+import com.cisco.dsb.common.metric.Metric;
 import com.cisco.dsb.common.ratelimiter.RateLimitPolicy.RateLimit.ResponseOptions;
 import com.cisco.dsb.common.service.MetricService;
+import com.cisco.wx2.metrics.InfluxPoint;
 import com.cisco.wx2.ratelimit.policy.Policy;
 import com.cisco.wx2.ratelimit.policy.RateAction;
 import com.cisco.wx2.ratelimit.policy.UserMatcher;
@@ -31,6 +37,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import javax.sip.message.Response;
 import org.mockito.ArgumentCaptor;
@@ -66,7 +73,7 @@ public class DsbRateLimiterTest {
 
   @AfterMethod
   public void after() {
-    dsbRateLimiter.removePolicies();
+    dsbRateLimiter.setPolicies(null);
     Consumer<MessageMetaData> consumer =
         messageMetaData -> messageMetaData.setUserID(messageMetaData.getRemoteIP());
     dsbRateLimiter.setUserIdSetter(consumer);
@@ -87,7 +94,7 @@ public class DsbRateLimiterTest {
             .build();
     when(messageChannel.getHost()).thenReturn(localAddress);
     when(messageChannel.getPeerAddress()).thenReturn(remoteAddress);
-    dsbRateLimiter.addPolicies(singletonList(rateLimitNetworkPolicy));
+    dsbRateLimiter.setPolicies(singletonList(rateLimitNetworkPolicy));
     // testing request rate limit.
     boolean isRequestAllowed = dsbRateLimiterValve.processRequest(sipRequest, messageChannel);
     assertTrue(isRequestAllowed);
@@ -128,7 +135,7 @@ public class DsbRateLimiterTest {
             .build();
     when(messageChannel.getHost()).thenReturn(localAddress);
     when(messageChannel.getPeerAddress()).thenReturn(remoteAddress);
-    dsbRateLimiter.addPolicies(singletonList(rateLimitNetworkPolicy));
+    dsbRateLimiter.setPolicies(singletonList(rateLimitNetworkPolicy));
     Map<String, ResponseOptions> rateLimitPolicyToResponseMap = new HashMap<>();
     final ArgumentCaptor<SIPMessage> captor = ArgumentCaptor.forClass(SIPMessage.class);
 
@@ -196,7 +203,7 @@ public class DsbRateLimiterTest {
             .build();
     when(messageChannel.getHost()).thenReturn(localAddress);
     when(messageChannel.getPeerAddress()).thenReturn(remoteAddress);
-    dsbRateLimiter.addPolicies(Arrays.asList(rateLimitNetworkPolicy, rateLimitGlobalPolicy));
+    dsbRateLimiter.setPolicies(Arrays.asList(rateLimitNetworkPolicy, rateLimitGlobalPolicy));
     boolean isRequestAllowed = dsbRateLimiterValve.processRequest(sipRequest, messageChannel);
     assertTrue(isRequestAllowed);
     isRequestAllowed = dsbRateLimiterValve.processRequest(sipRequest, messageChannel);
@@ -245,7 +252,7 @@ public class DsbRateLimiterTest {
             .build();
     when(messageChannel.getHost()).thenReturn(localAddress);
     when(messageChannel.getPeerAddress()).thenReturn(remoteAddress);
-    dsbRateLimiter.addPolicies(
+    dsbRateLimiter.setPolicies(
         Arrays.asList(denyListPolicy, rateLimitNetworkPolicy, rateLimitGlobalPolicy));
     Boolean isRequestAllowed = dsbRateLimiterValve.processRequest(sipRequest, messageChannel);
     assertEquals(isRequestAllowed, false);
@@ -266,7 +273,7 @@ public class DsbRateLimiterTest {
             .build();
     when(messageChannel.getHost()).thenReturn(localAddress);
     when(messageChannel.getPeerAddress()).thenReturn(remoteAddress);
-    dsbRateLimiter.addPolicies(singletonList(rateLimitNetworkPolicy));
+    dsbRateLimiter.setPolicies(singletonList(rateLimitNetworkPolicy));
     boolean isRequestAllowed = dsbRateLimiterValve.processRequest(sipRequest, messageChannel);
     assertFalse(isRequestAllowed);
 
@@ -308,7 +315,7 @@ public class DsbRateLimiterTest {
             .build();
     when(messageChannel.getHost()).thenReturn(localAddress);
     when(messageChannel.getPeerAddress()).thenReturn(remoteAddress);
-    dsbRateLimiter.addPolicies(singletonList(rateLimitNetworkPolicy));
+    dsbRateLimiter.setPolicies(singletonList(rateLimitNetworkPolicy));
     boolean isRequestAllowed = dsbRateLimiterValve.processRequest(sipRequest, messageChannel);
     assertFalse(isRequestAllowed);
 
@@ -352,7 +359,7 @@ public class DsbRateLimiterTest {
             .build();
     when(messageChannel.getHost()).thenReturn(localAddress);
     when(messageChannel.getPeerAddress()).thenReturn(remoteAddress);
-    dsbRateLimiter.addPolicies(singletonList(rateLimitNetworkPolicy));
+    dsbRateLimiter.setPolicies(singletonList(rateLimitNetworkPolicy));
     boolean isRequestAllowed = dsbRateLimiterValve.processRequest(sipRequest, messageChannel);
     assertTrue(isRequestAllowed);
 
@@ -392,7 +399,7 @@ public class DsbRateLimiterTest {
             .build();
     when(messageChannel.getHost()).thenReturn(localAddress);
     when(messageChannel.getPeerAddress()).thenReturn(remoteAddress);
-    dsbRateLimiter.addPolicies(singletonList(rateLimitNetworkPolicy));
+    dsbRateLimiter.setPolicies(singletonList(rateLimitNetworkPolicy));
     boolean isRequestAllowed = dsbRateLimiterValve.processRequest(sipRequest, messageChannel);
     assertTrue(isRequestAllowed);
 
@@ -446,6 +453,43 @@ public class DsbRateLimiterTest {
     dsbRateLimiter.setPolicy(null); // Should have no effect
   }
 
+  @Test(description = "messages are evaluated against the policies last set")
+  public void testSetPolicyEnforced() {
+    String localAddress = "1.1.1.1", remoteAddress = "10.10.10.10";
+    AllowAndDenyList allowAndDenyList = new AllowAndDenyList();
+    allowAndDenyList.setDenyIPList(new HashSet<>(singletonList(remoteAddress)));
+    dsbRateLimiter.setAllowDenyListsMap(singletonMap("denyListPolicy", allowAndDenyList));
+    Policy denyListPolicy =
+        Policy.builder("denyListPolicy")
+            .matcher(
+                (new UserMatcher(Mode.MATCH_ALL))
+                    .addProperty(
+                        DsbRateLimitAttribute.DENY_IP.toString(),
+                        "denyListPolicy" + POLICY_VALUE_DELIMITER + localAddress))
+            .deny()
+            .build();
+    Policy otherAddressPolicy =
+        Policy.builder("denyListPolicy")
+            .matcher(
+                (new UserMatcher(Mode.MATCH_ALL))
+                    .addProperty(
+                        DsbRateLimitAttribute.DENY_IP.toString(),
+                        "denyListPolicy" + POLICY_VALUE_DELIMITER + "3.3.3.3"))
+            .deny()
+            .build();
+    when(messageChannel.getHost()).thenReturn(localAddress);
+    when(messageChannel.getPeerAddress()).thenReturn(remoteAddress);
+
+    dsbRateLimiter.setPolicy(denyListPolicy);
+    assertFalse(dsbRateLimiterValve.processRequest(sipRequest, messageChannel));
+    dsbRateLimiter.setPolicy(otherAddressPolicy);
+    assertTrue(dsbRateLimiterValve.processRequest(sipRequest, messageChannel));
+    dsbRateLimiter.setPolicies(singletonList(denyListPolicy));
+    assertFalse(dsbRateLimiterValve.processRequest(sipRequest, messageChannel));
+    dsbRateLimiter.setPolicies(null);
+    assertTrue(dsbRateLimiterValve.processRequest(sipRequest, messageChannel));
+  }
+
   @Test
   public void testSetPolicies() {
     String localAddress = "1.1.1.1";
@@ -491,7 +535,7 @@ public class DsbRateLimiterTest {
                     .addProperty(DsbRateLimitAttribute.NEW_CALL.toString(), ""))
             .action((new RateAction(2, "1s", null)))
             .build();
-    dsbRateLimiter.addPolicies(singletonList(rateLimitNetworkPolicy));
+    dsbRateLimiter.setPolicies(singletonList(rateLimitNetworkPolicy));
 
     boolean isRequestAllowed = dsbRateLimiterValve.processRequest(sipRequest, messageChannel);
     assertTrue(isRequestAllowed);
@@ -504,4 +548,34 @@ public class DsbRateLimiterTest {
     isRequestAllowed = dsbRateLimiterValve.processRequest(sipRequest, messageChannel);
     assertFalse(isRequestAllowed);
   }
+
+  @Test(description = "permit and counter store occupancy is reported per interval")
+  public void testStoreMetrics() {
+    String localAddress = "1.1.1.1", remoteAddress = "2.2.2.2";
+    Policy rateLimitNetworkPolicy =
+        Policy.builder("rateLimitNetworkPolicy")
+            .matcher(
+                (new UserMatcher(Mode.MATCH_ALL))
+                    .addProperty(
+                        DsbRateLimitAttribute.DHRUVA_NETWORK_RATE_LIMIT.toString(),
+                        "rateLimitNetworkPolicy" + POLICY_VALUE_DELIMITER + localAddress))
+            .action((new RateAction(2, "1s", null)))
+            .build();
+    when(messageChannel.getHost()).thenReturn(localAddress);
+    when(messageChannel.getPeerAddress()).thenReturn(remoteAddress);
+    dsbRateLimiter.setPolicies(singletonList(rateLimitNetworkPolicy));
+    dsbRateLimiterValve.processRequest(sipRequest, messageChannel);
+
+    verify(metricService, atLeastOnce())
+        .registerPeriodicMetric(
+            eq("ratelimiter.store"), any(), eq(60), eq(TimeUnit.SECONDS));
+    Set<Metric> metrics = dsbRateLimiter.storeMetricSupplier();
+    assertEquals(metrics.size(), 2);
+    metrics.forEach(
+        metric -> {
+          Map<String, Object> fields = ((InfluxPoint) metric.get()).getFields();
+          assertTrue((Long) fields.get("size") > 0);
+          assertEquals(fields.get("evictions"), 0L);
+        });
+  }
 }
@@ -0,0 +1,106 @@
+package com.cisco.dsb.common.ratelimiter;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class IpPrefixTrieTest {
+
+  @DataProvider
+  public Object[][] matchData() {
+    return new Object[][] {
+      {"10.10.10.10", "10.10.10.10", true},
+      {"10.10.10.10", "10.10.10.11", false},
+      {"192.168.0.15/24", "192.168.0.200", true},
+      {"192.168.0.15/24", "192.168.1.15", false},
+      {"0.0.0.0/0", "8.8.8.8", true},
+      {"0.0.0.0/0", "2001:db8::1", false},
+      {"2001:db8::/32", "2001:db8:ffff::1", true},
+      {"2001:db8::/32", "2001:db9::1", false},
+      {"2001:db8::1", "2001:db8:0:0:0:0:0:1", true},
+      {"2001:db8::1", "[2001:db8::1]", true},
+      {"fe80::1", "fe80::1%eth0", true},
+      {"::/0", "::1", true},
+      {"10.1.0.0/16", "::ffff:10.1.2.3", true},
+      {"10.1.0.0/16", "::ffff:a01:203", true},
+      {"::ffff:10.1.0.0/112", "10.1.2.3", true},
+      {"1:2:3:4:5:6:1.2.3.4", "1:2:3:4:5:6:102:304", true},
+      {"10.10.10.10", "10.10.10", false},
+      {"10.10.10.10", "10.10.10.256", false},
+      {"10.10.10.10", "some.host", false},
+      {"2001:db8::1", "2001:db8:::1", false},
+      {"2001:db8::1", "2001:db8::1::1", false},
+      {"2001:db8::1", "2001:db8:1", false},
+    };
+  }
+
+  @Test(dataProvider = "matchData")
+  public void testMatches(String prefix, String ip, boolean expected) {
+    IpPrefixTrie trie = IpPrefixTrie.builder().add(prefix).build();
+    assertEquals(trie.matches(ip), expected);
+  }
+
+  @Test
+  public void testMultiplePrefixes() {
+    IpPrefixTrie trie =
+        IpPrefixTrie.builder()
+            .add("8.8.8.8/24")
+            .add("9.9.9.0/24")
+            .add("2.2.2.2")
+            .add("2001:db8::/48")
+            .build();
+    assertTrue(trie.matches("8.8.8.1"));
+    assertTrue(trie.matches("9.9.9.255"));
+    assertTrue(trie.matches("2.2.2.2"));
+    assertTrue(trie.matches("2001:db8:0:1::5"));
+    assertFalse(trie.matches("2.2.2.3"));
+    assertFalse(trie.matches("9.9.8.1"));
+    assertFalse(trie.matches("2001:db8:1::5"));
+    assertFalse(trie.matches((String) null));
+  }
+
+  @Test
+  public void testMatchesInetAddress() throws Exception {
+    IpPrefixTrie trie = IpPrefixTrie.builder().add("10.1.0.0/16").add("2001:db8::/32").build();
+    assertTrue(trie.matches(InetAddress.getByName("10.1.2.3")));
+    assertTrue(trie.matches(InetAddress.getByName("2001:db8::1")));
+    assertFalse(trie.matches(InetAddress.getByName("10.2.2.3")));
+    assertFalse(trie.matches(InetAddress.getByName("2001:db9::1")));
+    assertFalse(trie.matches((InetAddress) null));
+  }
+
+  @Test
+  public void testEmpty() {
+    assertFalse(IpPrefixTrie.EMPTY.matches("1.1.1.1"));
+    assertFalse(IpPrefixTrie.EMPTY.matches("::1"));
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testInvalidPrefixLength() {
+    IpPrefixTrie.builder().add("10.0.0.0/33");
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testInvalidAddress() {
+    IpPrefixTrie.builder().add("10.0.0/8");
+  }
+
+  @Test
+  public void testIPv6ParsingMatchesInetAddress() throws Exception {
+    String[] addresses = {
+      "::", "::1", "1::", "2001:db8::ff00:42:8329", "fe80:0:0:0:202:b3ff:fe1e:8329", "1:2:3:4:5:6:7:8"
+    };
+    long[] parsed = new long[2];
+    for (String address : addresses) {
+      ByteBuffer expected = ByteBuffer.wrap(InetAddress.getByName(address).getAddress());
+      assertTrue(IpPrefixTrie.parseIPv6(address, 0, address.length(), parsed), address);
+      assertEquals(parsed[0], expected.getLong(), address);
+      assertEquals(parsed[1], expected.getLong(), address);
+    }
+  }
+}
@@ -0,0 +1,134 @@
+package com.cisco.dsb.common.ratelimiter;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import com.cisco.dsb.common.config.sip.CommonConfigurationProperties;
+import com.cisco.dsb.common.metric.Metric;
+import com.cisco.wx2.metrics.InfluxPoint;
+import java.net.InetAddress;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class PreParseAdmissionFilterTest {
+
+  private CommonConfigurationProperties commonConfigurationProperties;
+  private final AtomicLong clock = new AtomicLong();
+  private InetAddress source;
+  private InetAddress otherSource;
+
+  @BeforeMethod
+  public void setup() throws Exception {
+    commonConfigurationProperties = new CommonConfigurationProperties();
+    clock.set(0);
+    source = InetAddress.getByName("10.1.1.1");
+    otherSource = InetAddress.getByName("10.1.1.2");
+  }
+
+  private PreParseAdmissionFilter createFilter() {
+    return new PreParseAdmissionFilter(commonConfigurationProperties, clock::get);
+  }
+
+  @Test
+  public void testDisabledByDefault() {
+    PreParseAdmissionFilter filter = createFilter();
+    assertFalse(filter.isEnabled());
+    for (int i = 0; i < 100; i++) {
+      assertTrue(filter.admit(source, 100));
+    }
+  }
+
+  @Test
+  public void testDenyList() throws Exception {
+    commonConfigurationProperties.setPreParseDenyList(List.of("10.1.1.0/24", "2001:db8::/32"));
+    PreParseAdmissionFilter filter = createFilter();
+    assertTrue(filter.isEnabled());
+    assertFalse(filter.admit(source, 100));
+    assertFalse(filter.admit(InetAddress.getByName("2001:db8::1"), 50));
+    assertTrue(filter.admit(InetAddress.getByName("10.1.2.1"), 100));
+
+    Map<String, Object> denyFields = getFields(filter.dropMetricSupplier(), "deny");
+    assertEquals(denyFields.get("droppedPackets"), 2L);
+    assertEquals(denyFields.get("droppedBytes"), 150L);
+    // counters are reset on every report
+    assertEquals(getFields(filter.dropMetricSupplier(), "deny").get("droppedPackets"), 0L);
+  }
+
+  @Test
+  public void testSourceRate() {
+    commonConfigurationProperties.setPreParseSourceRatePerSecond(10);
+    commonConfigurationProperties.setPreParseSourceBurst(5);
+    PreParseAdmissionFilter filter = createFilter();
+
+    for (int i = 0; i < 5; i++) {
+      assertTrue(filter.admit(source, 100));
+    }
+    assertFalse(filter.admit(source, 100));
+    // buckets are per source
+    assertTrue(filter.admit(otherSource, 100));
+
+    // 100ms refills one permit at 10/s
+    clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+    assertTrue(filter.admit(source, 100));
+    assertFalse(filter.admit(source, 100));
+
+    // refill never exceeds the burst
+    clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+    for (int i = 0; i < 5; i++) {
+      assertTrue(filter.admit(source, 100));
+    }
+    assertFalse(filter.admit(source, 100));
+
+    Map<String, Object> rateFields = getFields(filter.dropMetricSupplier(), "rate");
+    assertEquals(rateFields.get("droppedPackets"), 3L);
+    assertEquals(rateFields.get("droppedBytes"), 300L);
+  }
+
+  @Test
+  public void testAllowListBypassesSourceRate() {
+    commonConfigurationProperties.setPreParseSourceRatePerSecond(1);
+    commonConfigurationProperties.setPreParseAllowList(List.of("10.1.1.1"));
+    PreParseAdmissionFilter filter = createFilter();
+    for (int i = 0; i < 10; i++) {
+      assertTrue(filter.admit(source, 100));
+    }
+    assertTrue(filter.admit(otherSource, 100));
+    assertFalse(filter.admit(otherSource, 100));
+  }
+
+  @Test
+  public void testRejectedConnectionsCounted() {
+    commonConfigurationProperties.setPreParseDenyList(List.of("10.1.1.1"));
+    PreParseAdmissionFilter filter = createFilter();
+    assertFalse(filter.admitConnection(source));
+    assertFalse(filter.admitConnection(source));
+    assertTrue(filter.admitConnection(otherSource));
+
+    Map<String, Object> denyFields = getFields(filter.dropMetricSupplier(), "deny");
+    assertEquals(denyFields.get("rejectedConnections"), 2L);
+    assertEquals(denyFields.get("droppedPackets"), 0L);
+  }
+
+  @Test
+  public void testInvalidEntriesIgnored() {
+    commonConfigurationProperties.setPreParseDenyList(List.of("not-an-ip", "10.1.1.1"));
+    PreParseAdmissionFilter filter = createFilter();
+    assertFalse(filter.admit(source, 0));
+    assertTrue(filter.admit(otherSource, 0));
+  }
+
+  private Map<String, Object> getFields(Set<Metric> metrics, String policy) {
+    return metrics.stream()
+        .map(metric -> (InfluxPoint) metric.get())
+        .filter(point -> policy.equals(point.getTags().get("policy")))
+        .findFirst()
+        .orElseThrow()
+        .getFields();
+  }
+}
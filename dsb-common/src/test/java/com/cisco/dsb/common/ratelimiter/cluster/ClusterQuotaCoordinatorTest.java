@@ -0,0 +1,206 @@
+package com.cisco.dsb.common.ratelimiter.cluster;
+
+import static com.cisco.dsb.common.ratelimiter.RateLimitConstants.PROCESS;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+
+import com.cisco.dsb.common.ratelimiter.DsbRateLimiter;
+import com.cisco.wx2.ratelimit.policy.Policy;
+import com.cisco.wx2.ratelimit.policy.RateAction;
+import com.cisco.wx2.ratelimit.policy.UserMatcher;
+import com.cisco.wx2.ratelimit.policy.UserMatcher.Mode;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class ClusterQuotaCoordinatorTest {
+
+  private DsbRateLimiter rateLimiterA;
+  private DsbRateLimiter rateLimiterB;
+  private ClusterQuotaCoordinator nodeA;
+  private ClusterQuotaCoordinator nodeB;
+  private final AtomicLong clock = new AtomicLong();
+  private List<Integer> appliedPermitsA;
+  private List<Integer> appliedPermitsB;
+
+  @BeforeMethod
+  public void setup() {
+    clock.set(0);
+    InProcessClusterTransport.Bus bus = new InProcessClusterTransport.Bus();
+    rateLimiterA = mock(DsbRateLimiter.class);
+    rateLimiterB = mock(DsbRateLimiter.class);
+    nodeA =
+        new ClusterQuotaCoordinator(
+            "A", new InProcessClusterTransport(bus), rateLimiterA, 5000, clock::get);
+    nodeB =
+        new ClusterQuotaCoordinator(
+            "B", new InProcessClusterTransport(bus), rateLimiterB, 5000, clock::get);
+    nodeA.start();
+    nodeB.start();
+    appliedPermitsA = new ArrayList<>();
+    appliedPermitsB = new ArrayList<>();
+  }
+
+  private IntFunction<Policy> policyFactory(List<Integer> appliedPermits) {
+    return permits -> {
+      appliedPermits.add(permits);
+      return Policy.builder("global")
+          .matcher(new UserMatcher(Mode.MATCH_ALL))
+          .action(new RateAction(permits, "1s", PROCESS))
+          .build();
+    };
+  }
+
+  private void recordUsage(ClusterQuotaCoordinator node, int count) {
+    recordUsage(node, "global", count);
+  }
+
+  private void recordUsage(ClusterQuotaCoordinator node, String quotaName, int count) {
+    for (int i = 0; i < count; i++) {
+      node.recordUsage(quotaName);
+    }
+  }
+
+  @Test(description = "quota is split between nodes in proportion to their demand")
+  public void testQuotaFollowsDemand() {
+    assertEquals(nodeA.register("global", 100, policyFactory(appliedPermitsA)), 100);
+    assertEquals(nodeB.register("global", 100, policyFactory(appliedPermitsB)), 100);
+
+    recordUsage(nodeA, 90);
+    recordUsage(nodeB, 10);
+    nodeA.sync();
+    nodeB.sync();
+    // B has seen A's usage: (10 + 1) / (100 + 2)
+    assertEquals(appliedPermitsB, List.of(11));
+    verify(rateLimiterB).setPolicy(any(Policy.class));
+
+    recordUsage(nodeA, 90);
+    nodeA.sync();
+    // (90 + 1) / (100 + 2)
+    assertEquals(appliedPermitsA, List.of(89));
+    assertEquals(nodeA.getPeerCount(), 1);
+  }
+
+  @Test(description = "without traffic every node gets an equal share")
+  public void testIdleClusterSplitsEvenly() {
+    nodeA.register("global", 10, policyFactory(appliedPermitsA));
+    nodeB.register("global", 10, policyFactory(appliedPermitsB));
+    nodeA.sync();
+    nodeB.sync();
+    nodeA.sync();
+    assertEquals(appliedPermitsA, List.of(5));
+    assertEquals(appliedPermitsB, List.of(5));
+  }
+
+  @Test(description = "a node that stops publishing gives back its share")
+  public void testPeerTimeout() {
+    nodeA.register("global", 10, policyFactory(appliedPermitsA));
+    nodeB.sync();
+    nodeA.sync();
+    assertEquals(appliedPermitsA, List.of(5));
+
+    clock.set(6000);
+    nodeA.sync();
+    assertEquals(nodeA.getPeerCount(), 0);
+    assertEquals(appliedPermitsA, List.of(5, 10));
+    verify(rateLimiterA, times(2)).setPolicy(any(Policy.class));
+  }
+
+  @Test(description = "unchanged shares do not re-apply the policy")
+  public void testNoChangeNoUpdate() {
+    nodeA.register("global", 10, policyFactory(appliedPermitsA));
+    nodeA.sync();
+    nodeA.sync();
+    verify(rateLimiterA, never()).setPolicy(any(Policy.class));
+    nodeA.clearQuotas();
+    nodeB.sync();
+    nodeA.sync();
+    verify(rateLimiterA, never()).setPolicy(any(Policy.class));
+  }
+
+  @Test(description = "each quota is split by the demand for its own policy")
+  public void testUsagePerQuota() {
+    List<Integer> appliedPermitsA2 = new ArrayList<>();
+    nodeA.register("global", 100, policyFactory(appliedPermitsA));
+    nodeA.register("other", 100, policyFactory(appliedPermitsA2));
+    nodeB.register("global", 100, policyFactory(appliedPermitsB));
+    nodeB.register("other", 100, policyFactory(new ArrayList<>()));
+
+    recordUsage(nodeA, "global", 98);
+    recordUsage(nodeB, "other", 98);
+    // usage of a policy without a quota is ignored
+    recordUsage(nodeA, "network", 1000);
+    nodeB.sync();
+    nodeA.sync();
+    // global: (98 + 1) / (98 + 2), other: (0 + 1) / (98 + 2)
+    assertEquals(appliedPermitsA, List.of(99));
+    assertEquals(appliedPermitsA2, List.of(1));
+  }
+
+  @Test
+  public void testLocalPermits() {
+    assertEquals(ClusterQuotaCoordinator.getLocalPermits(0, 0.5), 0);
+    assertEquals(ClusterQuotaCoordinator.getLocalPermits(10, 0.01), 1);
+    assertEquals(ClusterQuotaCoordinator.getLocalPermits(10, 0.25), 3);
+  }
+
+  @Test
+  public void testUdpEncoding() {
+    byte[] data =
+        UdpClusterTransport.encode(new NodeUsage("node-1", Map.of("global", 1234L, "other", 0L)));
+    NodeUsage decoded = UdpClusterTransport.decode(data, 0, data.length);
+    assertEquals(decoded.getNodeId(), "node-1");
+    assertEquals(decoded.getUsage(), Map.of("global", 1234L, "other", 0L));
+    assertNull(UdpClusterTransport.decode(new byte[] {9, 0}, 0, 2));
+  }
+
+  @Test(description = "usage is only accepted from the configured peers")
+  public void testUdpUnknownPeerDropped() throws Exception {
+    int port = getFreePort();
+    BlockingQueue<NodeUsage> received = new LinkedBlockingQueue<>();
+    UdpClusterTransport transport =
+        new UdpClusterTransport("127.0.0.1", port, List.of("127.0.0.2:" + port));
+    transport.start(received::add);
+    try (DatagramSocket sender = new DatagramSocket(0, InetAddress.getLoopbackAddress())) {
+      byte[] data = UdpClusterTransport.encode(new NodeUsage("node-1", Map.of("global", 1L)));
+      sender.send(new DatagramPacket(data, data.length, InetAddress.getLoopbackAddress(), port));
+      assertNull(received.poll(200, TimeUnit.MILLISECONDS));
+    } finally {
+      transport.stop();
+    }
+
+    transport = new UdpClusterTransport("127.0.0.1", port, List.of("127.0.0.1:" + port));
+    transport.start(received::add);
+    try (DatagramSocket sender = new DatagramSocket(0, InetAddress.getLoopbackAddress())) {
+      byte[] data = UdpClusterTransport.encode(new NodeUsage("node-1", Map.of("global", 1L)));
+      sender.send(new DatagramPacket(data, data.length, InetAddress.getLoopbackAddress(), port));
+      NodeUsage nodeUsage = received.poll(5, TimeUnit.SECONDS);
+      assertNotNull(nodeUsage);
+      assertEquals(nodeUsage.getNodeId(), "node-1");
+    } finally {
+      transport.stop();
+    }
+  }
+
+  private static int getFreePort() throws Exception {
+    try (DatagramSocket socket = new DatagramSocket(0, InetAddress.getLoopbackAddress())) {
+      return socket.getLocalPort();
+    }
+  }
+}
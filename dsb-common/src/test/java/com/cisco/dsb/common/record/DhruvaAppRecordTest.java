@@ -3,6 +3,7 @@ package com.cisco.dsb.common.record;
 import com.cisco.wx2.util.Utilities;
 import java.util.*;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
@@ -84,4 +85,17 @@ public class DhruvaAppRecordTest {
 
     Assert.assertNotNull(dhruvaAppRecord.toString());
   }
+
+  @Test(description = "a snapshot leaves out the records added after it")
+  public void testSnapshot() {
+    DhruvaAppRecord dhruvaAppRecord = DhruvaAppRecord.create();
+    dhruvaAppRecord.add(TestState.IN_SIP_EVENT1, null);
+    Supplier<String> snapshot = dhruvaAppRecord.snapshot();
+    dhruvaAppRecord.add(TestState.IN_SIP_EVENT2, null);
+
+    String record = snapshot.get();
+    Assert.assertTrue(record.contains(TestState.IN_SIP_EVENT1.toString()));
+    Assert.assertFalse(record.contains(TestState.IN_SIP_EVENT2.toString()));
+    Assert.assertTrue(dhruvaAppRecord.toString().contains(TestState.IN_SIP_EVENT2.toString()));
+  }
 }
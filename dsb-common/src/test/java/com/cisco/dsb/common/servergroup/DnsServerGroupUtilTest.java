@@ -3,7 +3,9 @@ package com.cisco.dsb.common.servergroup;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
 
+import com.cisco.dsb.common.config.sip.CommonConfigurationProperties;
 import com.cisco.dsb.common.dns.dto.DNSARecord;
 import com.cisco.dsb.common.exception.DhruvaException;
 import com.cisco.dsb.common.service.SipServerLocatorService;
@@ -17,6 +19,7 @@ import com.cisco.dsb.common.transport.Transport;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
@@ -147,4 +150,117 @@ public class DnsServerGroupUtilTest {
         .verifyComplete();
     verify(sipServerLocatorService, times(2)).locateDestinationAsync(any(), any());
   }
+
+  private ServerGroup udpServerGroup() {
+    return ServerGroup.builder()
+        .setName("sg2")
+        .setNetworkName("net1")
+        .setHostName("test.akg.com")
+        .setTransport(Transport.UDP)
+        .build();
+  }
+
+  private LocateSIPServersResponse locateResponse(String ip, int ttlSeconds) {
+    LocateSIPServersResponse response = mock(LocateSIPServersResponse.class);
+    when(response.getHops())
+        .thenReturn(
+            List.of(
+                new HopImpl(
+                    "test.akg.com", ip, Transport.UDP, 5060, 100, 100, DNSRecordSource.DNS)));
+    when(response.getDnsARecords())
+        .thenReturn(
+            List.of(new MatchedDNSARecord(new DNSARecord("test.akg.com", ttlSeconds, ip), null)));
+    return response;
+  }
+
+  @Test(description = "concurrent lookups of a server group share one DNS query")
+  public void testConcurrentLookupsCoalesced() {
+    SipServerLocatorService locatorService = mock(SipServerLocatorService.class);
+    CompletableFuture<LocateSIPServersResponse> pending = new CompletableFuture<>();
+    when(locatorService.locateDestinationAsync(any(), any())).thenReturn(pending);
+    DnsServerGroupUtil dnsServerGroupUtil = new DnsServerGroupUtil(locatorService);
+    ServerGroup sg = udpServerGroup();
+
+    Mono<ServerGroup> first = dnsServerGroupUtil.createDNSServerGroup(sg, null);
+    Mono<ServerGroup> second = dnsServerGroupUtil.createDNSServerGroup(sg, null);
+    verify(locatorService, times(1)).locateDestinationAsync(any(), any());
+
+    pending.complete(locateResponse("1.1.1.1", 60));
+    StepVerifier.create(first)
+        .assertNext(rsg -> assertEquals(rsg.getElements().get(0).getIpAddress(), "1.1.1.1"))
+        .verifyComplete();
+    StepVerifier.create(second)
+        .assertNext(rsg -> assertEquals(rsg.getElements().get(0).getIpAddress(), "1.1.1.1"))
+        .verifyComplete();
+
+    // subsequent lookups are served from the cache
+    assertEquals(dnsServerGroupUtil.createDNSServerGroup(sg, null).block().getName(), "sg2");
+    verify(locatorService, times(1)).locateDestinationAsync(any(), any());
+  }
+
+  @Test(description = "failed lookup is not cached and every waiter sees the error")
+  public void testCoalescedLookupFailure() {
+    SipServerLocatorService locatorService = mock(SipServerLocatorService.class);
+    CompletableFuture<LocateSIPServersResponse> pending = new CompletableFuture<>();
+    when(locatorService.locateDestinationAsync(any(), any())).thenReturn(pending);
+    DnsServerGroupUtil dnsServerGroupUtil = new DnsServerGroupUtil(locatorService);
+    ServerGroup sg = udpServerGroup();
+
+    Mono<ServerGroup> first = dnsServerGroupUtil.createDNSServerGroup(sg, null);
+    Mono<ServerGroup> second = dnsServerGroupUtil.createDNSServerGroup(sg, null);
+    LocateSIPServersResponse noHops = mock(LocateSIPServersResponse.class);
+    when(noHops.getHops()).thenReturn(Collections.emptyList());
+    pending.complete(noHops);
+    StepVerifier.create(first).expectError(DhruvaException.class).verify();
+    StepVerifier.create(second).expectError(DhruvaException.class).verify();
+
+    when(locatorService.locateDestinationAsync(any(), any()))
+        .thenReturn(CompletableFuture.completedFuture(locateResponse("2.2.2.2", 60)));
+    StepVerifier.create(dnsServerGroupUtil.createDNSServerGroup(sg, null))
+        .assertNext(rsg -> assertEquals(rsg.getElements().get(0).getIpAddress(), "2.2.2.2"))
+        .verifyComplete();
+  }
+
+  @Test(description = "entries are refreshed ahead of expiry and served stale while refreshing")
+  public void testRefreshAheadAndServeStale() {
+    SipServerLocatorService locatorService = mock(SipServerLocatorService.class);
+    CommonConfigurationProperties commonConfigurationProperties =
+        new CommonConfigurationProperties();
+    commonConfigurationProperties.setDnsServerGroupRefreshAheadPercent(50);
+    commonConfigurationProperties.setDnsServerGroupServeStaleMillis(5000);
+    AtomicLong clock = new AtomicLong(0);
+    DnsServerGroupUtil dnsServerGroupUtil =
+        new DnsServerGroupUtil(locatorService, commonConfigurationProperties, clock::get);
+    ServerGroup sg = udpServerGroup();
+
+    when(locatorService.locateDestinationAsync(any(), any()))
+        .thenReturn(CompletableFuture.completedFuture(locateResponse("1.1.1.1", 10)));
+    ServerGroup resolved = dnsServerGroupUtil.createDNSServerGroup(sg, null).block();
+
+    // fresh
+    clock.set(4000);
+    assertSame(dnsServerGroupUtil.createDNSServerGroup(sg, null).block(), resolved);
+    verify(locatorService, times(1)).locateDestinationAsync(any(), any());
+
+    // past half the ttl: cached entry served, one background refresh for all callers
+    CompletableFuture<LocateSIPServersResponse> refresh = new CompletableFuture<>();
+    when(locatorService.locateDestinationAsync(any(), any())).thenReturn(refresh);
+    clock.set(6000);
+    assertSame(dnsServerGroupUtil.createDNSServerGroup(sg, null).block(), resolved);
+    clock.set(12000);
+    assertSame(dnsServerGroupUtil.createDNSServerGroup(sg, null).block(), resolved);
+    verify(locatorService, times(2)).locateDestinationAsync(any(), any());
+
+    refresh.complete(locateResponse("2.2.2.2", 10));
+    ServerGroup refreshed = dnsServerGroupUtil.createDNSServerGroup(sg, null).block();
+    assertEquals(refreshed.getElements().get(0).getIpAddress(), "2.2.2.2");
+
+    // beyond the stale window the caller waits for the lookup
+    when(locatorService.locateDestinationAsync(any(), any()))
+        .thenReturn(CompletableFuture.completedFuture(locateResponse("3.3.3.3", 10)));
+    clock.set(12000 + 10000 + 5000);
+    ServerGroup reResolved = dnsServerGroupUtil.createDNSServerGroup(sg, null).block();
+    assertEquals(reResolved.getElements().get(0).getIpAddress(), "3.3.3.3");
+    verify(locatorService, times(3)).locateDestinationAsync(any(), any());
+  }
 }
@@ -4,7 +4,6 @@ import static com.cisco.dsb.common.service.MetricService.FIELD_STATUS;
 import static com.cisco.dsb.common.service.MetricService.TAG_NETWORK_NAME;
 import static com.cisco.dsb.common.service.MetricService.TAG_SGE_NAME;
 import static com.cisco.dsb.common.service.MetricService.TAG_SG_NAME;
-import static com.cisco.dsb.common.service.MetricService.joiner;
 import static org.awaitility.Awaitility.with;
 import static org.mockito.Mockito.*;
 import static org.testng.Assert.assertEquals;
@@ -12,6 +11,7 @@ import static org.testng.Assert.assertTrue;
 
 import com.cisco.dsb.common.executor.DhruvaExecutorService;
 import com.cisco.dsb.common.executor.ExecutorType;
+import com.cisco.dsb.common.metric.LatencyTimer;
 import com.cisco.dsb.common.metric.Metric;
 import com.cisco.dsb.common.metric.MetricClient;
 import com.cisco.dsb.common.metric.SipMetricsContext;
@@ -25,13 +25,11 @@ import com.cisco.wx2.dto.health.ServiceHealth;
 import com.cisco.wx2.dto.health.ServiceState;
 import com.cisco.wx2.dto.health.ServiceType;
 import com.cisco.wx2.metrics.InfluxPoint;
-import com.google.common.cache.Cache;
 import gov.nist.core.Host;
 import gov.nist.core.HostPort;
 import gov.nist.javax.sip.stack.ConnectionOrientedMessageChannel;
 import java.util.*;
 import java.util.concurrent.*;
-import org.apache.commons.lang3.time.StopWatch;
 import org.mockito.*;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.test.util.ReflectionTestUtils;
@@ -507,138 +505,149 @@ public class MetricServiceTest {
   }
 
   @Test(timeOut = 2000, description = "tests latency metric in different call states")
-  public void latencyMetricTest() throws InterruptedException {
+  public void latencyMetricTest() {
+    metricService.getLatencyHistograms().clear();
+    LatencyTimer latencyTimer = new LatencyTimer(System.nanoTime() - 5_000_000);
 
-    SipMetricsContext contextAtStart =
-        new SipMetricsContext(
-            metricService, SipMetricsContext.State.proxyNewRequestReceived, callId, true);
-
-    with()
-        .pollInSameThread()
-        .await()
-        .atMost(100, TimeUnit.MILLISECONDS)
-        .pollInterval(10, TimeUnit.MILLISECONDS)
-        .until(() -> metricService.getStopWatchTimers().get(callId + "." + "call.latency") != null);
-    with()
-        .pollInSameThread()
-        .await()
-        .atMost(100, TimeUnit.MILLISECONDS)
-        .pollInterval(10, TimeUnit.MILLISECONDS)
-        .until(
-            () ->
-                metricService.getStopWatchTimers().get(callId + "." + "call.latency").isStarted());
-
-    SipMetricsContext contextInBetween =
-        new SipMetricsContext(
-            metricService, SipMetricsContext.State.proxyNewRequestSendSuccess, callId, true);
-
-    with()
-        .pollInSameThread()
-        .await()
-        .atMost(100, TimeUnit.MILLISECONDS)
-        .pollInterval(10, TimeUnit.MILLISECONDS)
-        .until(
-            () ->
-                metricService.getStopWatchTimers().get(callId + "." + "call.latency").getSplitTime()
-                    > 0);
-
-    SipMetricsContext contextAtEnd =
-        new SipMetricsContext(
-            metricService,
-            SipMetricsContext.State.proxyNewRequestFinalResponseProcessed,
-            callId,
-            true);
-
-    with()
-        .pollInSameThread()
-        .await()
-        .atMost(100, TimeUnit.MILLISECONDS)
-        .pollInterval(10, TimeUnit.MILLISECONDS)
-        .until(() -> metricService.getStopWatchTimers().get(callId + "." + "call.latency") == null);
-
-    SipMetricsContext contextAtStart2 =
-        new SipMetricsContext(
-            metricService, SipMetricsContext.State.proxyNewRequestReceived, callId, true);
-    with()
-        .pollInSameThread()
-        .await()
-        .atMost(100, TimeUnit.MILLISECONDS)
-        .pollInterval(10, TimeUnit.MILLISECONDS)
-        .until(
-            () ->
-                metricService.getStopWatchTimers().get(callId + "." + "call.latency").isStarted());
-
-    SipMetricsContext contextInBetween2 =
-        new SipMetricsContext(
-            metricService, SipMetricsContext.State.proxyNewRequestSendFailure, callId, true);
-
-    with()
-        .pollInSameThread()
-        .await()
-        .atMost(100, TimeUnit.MILLISECONDS)
-        .pollInterval(10, TimeUnit.MILLISECONDS)
-        .until(
-            () ->
-                metricService.getStopWatchTimers().get(callId + "." + "call.latency").getSplitTime()
-                    > 0);
-
-    long t1 = metricService.getStopWatchTimers().get(callId + "." + "call.latency").getSplitTime();
-
-    SipMetricsContext contextRetry2 =
-        new SipMetricsContext(
-            metricService, SipMetricsContext.State.proxyNewRequestRetryNextElement, callId, true);
+    new SipMetricsContext(
+        metricService,
+        SipMetricsContext.State.proxyNewRequestSendFailure,
+        callId,
+        CALLTYPE_TEST,
+        latencyTimer,
+        true);
+    new SipMetricsContext(
+        metricService,
+        SipMetricsContext.State.proxyNewRequestRetryNextElement,
+        callId,
+        CALLTYPE_TEST,
+        latencyTimer,
+        true);
+    new SipMetricsContext(
+        metricService,
+        SipMetricsContext.State.proxyNewRequestFinalResponseProcessed,
+        callId,
+        CALLTYPE_TEST,
+        latencyTimer,
+        true);
+    // ends only once
+    new SipMetricsContext(
+        metricService,
+        SipMetricsContext.State.proxyRequestCancelReceived,
+        callId,
+        CALLTYPE_TEST,
+        latencyTimer,
+        true);
+    // not timed
+    new SipMetricsContext(
+        metricService,
+        SipMetricsContext.State.proxyNewRequestFinalResponseProcessed,
+        callId,
+        CALLTYPE_TEST,
+        true);
 
     with()
         .pollInSameThread()
         .await()
-        .atMost(100, TimeUnit.MILLISECONDS)
+        .atMost(1000, TimeUnit.MILLISECONDS)
         .pollInterval(10, TimeUnit.MILLISECONDS)
-        .until(
-            () ->
-                metricService.getStopWatchTimers().get(callId + "." + "call.latency").getSplitTime()
-                    > t1);
+        .until(latencyTimer::isEnded);
+
+    Set<Metric> metrics = metricService.latencyMetricSupplier().get();
+    assertEquals(metrics.size(), 1);
+    InfluxPoint capturedMetricPoint = (InfluxPoint) metrics.iterator().next().get();
+    assertEquals(capturedMetricPoint.getMeasurement(), "dhruva.call.latency");
+    assertEquals(capturedMetricPoint.getTags().get("callType"), CALLTYPE_TEST);
+    assertEquals(((Number) capturedMetricPoint.getFields().get("count")).longValue(), 1L);
+    // split when retried, 5ms after the start at least
+    double max = (double) capturedMetricPoint.getFields().get("max");
+    assertTrue(max >= 5, "max " + max);
+    assertEquals(capturedMetricPoint.getFields().get("p99"), max);
+
+    // flushed
+    assertTrue(metricService.latencyMetricSupplier().get().isEmpty());
+    // no point per call
+    verify(metricClientMock, never()).sendMetric(any());
+  }
 
-    long t2 = metricService.getStopWatchTimers().get(callId + "." + "call.latency").getSplitTime();
+  @Test(description = "latencies are aggregated per metric and call type")
+  public void recordLatencyTest() {
+    metricService.getLatencyHistograms().clear();
+    for (int i = 1; i <= 100; i++) {
+      metricService.recordLatency("test.latency", CALLTYPE_TEST, i, TimeUnit.MILLISECONDS);
+    }
+    metricService.recordLatency("test.latency", null, 1, TimeUnit.SECONDS);
 
-    SipMetricsContext contextInBetween22 =
-        new SipMetricsContext(
-            metricService, SipMetricsContext.State.proxyNewRequestSendSuccess, callId, true);
+    Map<String, InfluxPoint> points = new HashMap<>();
+    for (Metric metric : metricService.latencyMetricSupplier().get()) {
+      InfluxPoint point = (InfluxPoint) metric.get();
+      points.put(point.getTags().getOrDefault("callType", ""), point);
+    }
+    assertEquals(points.size(), 2);
+
+    Map<String, Object> fields = points.get(CALLTYPE_TEST).getFields();
+    assertEquals(((Number) fields.get("count")).longValue(), 100L);
+    assertEquals((double) fields.get("p50"), 50, 50 / 16.0);
+    assertEquals((double) fields.get("p90"), 90, 90 / 16.0);
+    assertEquals((double) fields.get("max"), 100.0);
+    assertEquals(points.get("").getFields().get("max"), 1000.0);
+  }
 
-    with()
-        .pollInSameThread()
-        .await()
-        .atMost(100, TimeUnit.MILLISECONDS)
-        .pollInterval(10, TimeUnit.MILLISECONDS)
-        .until(
-            () ->
-                metricService.getStopWatchTimers().get(callId + "." + "call.latency").getSplitTime()
-                    > t2);
-
-    SipMetricsContext contextAtEnd2 =
-        new SipMetricsContext(
-            metricService,
-            SipMetricsContext.State.proxyNewRequestFinalResponseProcessed,
+  @Test(description = "sip messages are counted in memory once emitted per interval")
+  public void sipMessageMetricAggregatedTest() {
+    metricService.emitSipMessageMetricPerInterval(60, TimeUnit.SECONDS);
+    try {
+      for (int i = 0; i < 3; i++) {
+        metricService.sendSipMessageMetric(
+            method,
             callId,
+            cseq,
+            REQUEST_EVENT,
+            TCP_TRANSPORT,
+            DIRECTION_IN,
+            IS_MID_CALL_FALSE,
+            INTERALLY_GENERATED_FALSE,
+            0L,
+            reqURI,
             CALLTYPE_TEST,
-            true);
-    with()
-        .pollInSameThread()
-        .await()
-        .atMost(100, TimeUnit.MILLISECONDS)
-        .pollInterval(10, TimeUnit.MILLISECONDS)
-        .until(() -> metricService.getStopWatchTimers().get(callId + "." + "call.latency") == null);
-
-    // verify metrics is emitted for latency
-    Mockito.verify(metricClientMock, times(2)).sendMetric(metricArgumentCaptor.capture());
-
-    Metric capturedMetric = metricArgumentCaptor.getValue();
-    InfluxPoint capturedMetricPoint = (InfluxPoint) capturedMetric.get();
-
-    assertTrue(capturedMetricPoint.getFields().containsKey("count"));
-    assertTrue(capturedMetricPoint.getFields().containsKey("duration"));
-    Assert.assertFalse(capturedMetricPoint.getFields().containsKey("durationExpected"));
-    assertTrue(capturedMetricPoint.getFields().containsKey("eventSuccess"));
-    assertTrue(capturedMetricPoint.getTags().containsKey("callType"));
+            null);
+      }
+      metricService.sendSipMessageMetric(
+          "200",
+          callId,
+          cseq,
+          RESPONSE_EVENT,
+          TCP_TRANSPORT,
+          DIRECTION_OUT,
+          IS_MID_CALL_FALSE,
+          INTERALLY_GENERATED_TRUE,
+          0L,
+          "OK",
+          null,
+          null);
+      verify(metricClientMock, never()).sendMetric(any());
+
+      Map<String, InfluxPoint> points = new HashMap<>();
+      for (Metric metric : metricService.getSipMessageCounters().drain("sipMessage")) {
+        InfluxPoint point = (InfluxPoint) metric.get();
+        points.put(point.getTags().get("method"), point);
+      }
+      assertEquals(points.size(), 2);
+      InfluxPoint invites = points.get(method);
+      assertEquals(invites.getTags().get("direction"), "IN");
+      assertEquals(invites.getTags().get("transport"), "TCP");
+      assertEquals(invites.getTags().get("callType"), CALLTYPE_TEST);
+      assertEquals(((Number) invites.getFields().get("count")).longValue(), 3L);
+      InfluxPoint responses = points.get("200");
+      assertEquals(responses.getTags().get("messageType"), "RESPONSE");
+      assertEquals(responses.getTags().get("isInternallyGenerated"), "true");
+      Assert.assertFalse(responses.getTags().containsKey("callType"));
+
+      // counts are cleared once drained
+      assertTrue(metricService.getSipMessageCounters().drain("sipMessage").isEmpty());
+    } finally {
+      ReflectionTestUtils.setField(metricService, "sipMessageCounters", null);
+    }
   }
 
   @Test(description = "test case to check various negative scenarios for emitting latency metric")
@@ -711,50 +720,6 @@ public class MetricServiceTest {
     assertTrue(capturedTags.containsValue(CALLTYPE_TEST));
   }
 
-  public void startTimerTest() {
-
-    String testCallId = null;
-    String testMetricName = null;
-
-    // negative case, null values
-    metricService.getTimers().invalidateAll();
-    metricService.startTimer(testCallId, testMetricName);
-    Cache<String, Long> timers = metricService.getTimers();
-    assertEquals(timers.size(), 0);
-
-    // negative scenario 2
-    testMetricName = "test.metrics";
-
-    metricService.getTimers().invalidateAll();
-
-    metricService.startTimer(testCallId, testMetricName);
-    timers = metricService.getTimers();
-    String key = joiner.join(testCallId, testMetricName);
-    Assert.assertNull(timers.getIfPresent(key));
-
-    // negative scenario 3
-    testCallId = "1-test@192.168.0.1";
-    testMetricName = null;
-
-    metricService.getTimers().invalidateAll();
-
-    metricService.startTimer(testCallId, testMetricName);
-    timers = metricService.getTimers();
-    key = joiner.join(testCallId, testMetricName);
-    Assert.assertNull(timers.getIfPresent(key));
-
-    // positive case
-    testCallId = "1-test@192.168.0.1";
-    testMetricName = "test.latency";
-
-    metricService.getTimers().invalidateAll();
-
-    metricService.startTimer(testCallId, testMetricName);
-    timers = metricService.getTimers();
-    key = joiner.join(testCallId, testMetricName);
-    Assert.assertNotNull(timers.getIfPresent(key));
-  }
-
   public void emitServiceMetricTest() {
 
     when(serviceHealthMock.isOnline()).thenReturn(true);
@@ -879,56 +844,4 @@ public class MetricServiceTest {
       assertEquals(capturedMetricPoint.getField("availability"), 0.0);
     }
   }
-
-  @Test(description = "test various scenarios of metricService using stopWatch")
-  public void testStopWatch() {
-    String callId = "ABCDWebEx123";
-    String metric = "dhruva.latency";
-    String key = joiner.join(callId, metric);
-
-    // Start the stop watch timer for given callID
-    metricService.startStopWatch(callId, metric);
-    HashMap<String, StopWatch> timers = metricService.getStopWatchTimers();
-    Assert.assertNotNull(timers.get(key));
-    StopWatch stopWatch = timers.get(key);
-    assertTrue(stopWatch.isStarted());
-
-    // Pause
-    metricService.pauseStopWatch(callId, metric);
-    assertTrue(stopWatch.isSuspended());
-
-    // Resume
-    metricService.resumeStopWatch(callId, metric);
-    assertTrue(stopWatch.isStarted());
-
-    // split
-    metricService.splitStopWatch(callId, metric);
-
-    TimeUnit timeUnit = TimeUnit.MILLISECONDS;
-    long splitTime1 = timeUnit.convert(stopWatch.getSplitNanoTime(), TimeUnit.NANOSECONDS);
-    assertTrue(splitTime1 >= 0);
-
-    long splitTime2 = metricService.getSplitTimeStopWatch(callId, metric);
-    assertEquals(splitTime2, splitTime1);
-
-    // End
-    metricService.endStopWatch(callId, metric);
-    assertTrue(stopWatch.isStopped());
-
-    // Make sure key is removed
-    Assert.assertNull(timers.get(key));
-
-    metricService.startStopWatch(callId, metric);
-    doSomeTask(100);
-
-    assertTrue(metricService.getSplitTimeStopWatch(callId, metric) < 0);
-  }
-
-  private void doSomeTask(long sleep) {
-    try {
-      Thread.sleep(sleep);
-    } catch (InterruptedException e) {
-      e.printStackTrace();
-    }
-  }
 }
@@ -0,0 +1,84 @@
+package com.cisco.dsb.common.sip.jain.channelCache;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import com.cisco.dsb.common.config.sip.CommonConfigurationProperties;
+import com.cisco.dsb.common.executor.DhruvaExecutorService;
+import com.cisco.dsb.common.executor.ExecutorType;
+import com.cisco.dsb.common.ratelimiter.PreParseAdmissionFilter;
+import com.cisco.dsb.common.service.MetricService;
+import gov.nist.javax.sip.SipStackImpl;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class DsbNioTCPMessageProcessorTest {
+
+  private SipStackImpl sipStack;
+  private DsbNioTCPMessageProcessor processor;
+  private InetAddress loopback;
+  private int port;
+
+  @BeforeMethod
+  public void setup() throws Exception {
+    Properties properties = new Properties();
+    properties.setProperty("javax.sip.STACK_NAME", "nio-tcp-test");
+    sipStack = new SipStackImpl(properties);
+    CommonConfigurationProperties sipProperties = new CommonConfigurationProperties();
+    sipProperties.setKeepAlivePeriod(-1);
+    DhruvaExecutorService executorService = mock(DhruvaExecutorService.class);
+    when(executorService.getScheduledExecutorThreadPool(ExecutorType.METRIC_SERVICE))
+        .thenReturn(Executors.newSingleThreadScheduledExecutor());
+
+    loopback = InetAddress.getByName("127.0.0.1");
+    try (ServerSocket free = new ServerSocket(0, 1, loopback)) {
+      port = free.getLocalPort();
+    }
+    processor =
+        new DsbNioTCPMessageProcessor(
+            loopback, sipStack, port, sipProperties, executorService, mock(MetricService.class));
+    PreParseAdmissionFilter admissionFilter = mock(PreParseAdmissionFilter.class);
+    when(admissionFilter.admitConnection(any(InetAddress.class))).thenReturn(false);
+    processor.setPreParseAdmissionFilter(admissionFilter);
+    processor.start();
+  }
+
+  @AfterMethod
+  public void tearDown() {
+    processor.stop();
+    sipStack.stop();
+  }
+
+  @Test(description = "a rejected peer sees its connection closed without a message being parsed")
+  public void testRejectedConnectionClosed() throws Exception {
+    try (Socket client = new Socket()) {
+      client.connect(new InetSocketAddress(loopback, port), 2000);
+      client.setSoTimeout(2000);
+      client
+          .getOutputStream()
+          .write("OPTIONS sip:test SIP/2.0\r\n\r\n".getBytes(StandardCharsets.UTF_8));
+      InputStream in = client.getInputStream();
+      int read;
+      try {
+        read = in.read();
+      } catch (SocketException e) {
+        // reset by the processor
+        read = -1;
+      }
+      Assert.assertEquals(read, -1);
+    }
+    verify(processor.getPreParseAdmissionFilter()).admitConnection(loopback);
+    Assert.assertTrue(processor.getIncomingMessageChannels().isEmpty());
+  }
+}
@@ -0,0 +1,157 @@
+package com.cisco.dsb.common.sip.jain.channelCache;
+
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import com.cisco.dsb.common.config.sip.CommonConfigurationProperties;
+import com.cisco.dsb.common.executor.DhruvaExecutorService;
+import com.cisco.dsb.common.ratelimiter.PreParseAdmissionFilter;
+import com.cisco.dsb.common.sip.tls.DsbNetworkLayer;
+import gov.nist.javax.sip.SipStackImpl;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.DatagramChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class DsbSipUdpChannelMessageProcessorTest {
+
+  private static final AtomicInteger STACKS = new AtomicInteger();
+
+  private String stackName;
+  private SipStackImpl sipStack;
+  private InetAddress loopback;
+  private InetAddress blocked;
+  private DsbSipUdpChannelMessageProcessor processor;
+  private int port;
+  private final List<InetAddress> dispatched = new CopyOnWriteArrayList<>();
+  private final Set<Thread> receivers = ConcurrentHashMap.newKeySet();
+
+  @BeforeMethod
+  public void setup() throws Exception {
+    stackName = "udp-channel-test-" + STACKS.incrementAndGet();
+    Properties properties = new Properties();
+    properties.setProperty("javax.sip.STACK_NAME", stackName);
+    properties.setProperty("gov.nist.javax.sip.NETWORK_LAYER", DsbNetworkLayer.class.getName());
+    sipStack = new SipStackImpl(properties);
+    CommonConfigurationProperties sipProperties = new CommonConfigurationProperties();
+    sipProperties.setUdpChannelEnabled(true);
+    sipProperties.setUdpChannelReceiverCount(2);
+    ((DsbNetworkLayer) sipStack.getNetworkLayer()).init(null, null, sipProperties);
+
+    DsbJainSipMessageProcessorFactory factory = new DsbJainSipMessageProcessorFactory();
+    factory.initFromApplication(sipProperties, mock(DhruvaExecutorService.class), null);
+    loopback = InetAddress.getByName("127.0.0.1");
+    blocked = InetAddress.getByName("127.0.0.2");
+    DsbSipUdpChannelMessageProcessor created =
+        (DsbSipUdpChannelMessageProcessor)
+            factory.createMessageProcessor(sipStack, loopback, 0, "udp");
+    DatagramChannel[] channels =
+        (DatagramChannel[]) ReflectionTestUtils.getField(created, "channels");
+    Assert.assertEquals(channels.length, 2);
+    port = ((InetSocketAddress) channels[0].getLocalAddress()).getPort();
+
+    // observes the datagrams handed over for parsing and the threads receiving them
+    processor = spy(created);
+    dispatched.clear();
+    receivers.clear();
+    doAnswer(
+            invocation -> {
+              dispatched.add(((DatagramPacket) invocation.getArgument(0)).getAddress());
+              return null;
+            })
+        .when(processor)
+        .dispatch(any(DatagramPacket.class), anyInt());
+    doAnswer(
+            invocation -> {
+              receivers.add(Thread.currentThread());
+              return invocation.callRealMethod();
+            })
+        .when(processor)
+        .startMessageChannels();
+    PreParseAdmissionFilter admissionFilter = mock(PreParseAdmissionFilter.class);
+    when(admissionFilter.admit(any(InetAddress.class), anyInt()))
+        .thenAnswer(invocation -> !blocked.equals(invocation.getArgument(0)));
+    processor.setPreParseAdmissionFilter(admissionFilter);
+    processor.start();
+    await()
+        .atMost(Duration.ofSeconds(2))
+        .until(
+            () ->
+                !receivers.isEmpty()
+                    && receivers.addAll(
+                        Thread.getAllStackTraces().keySet().stream()
+                            .filter(
+                                thread ->
+                                    thread.getName().startsWith(stackName + "-UDPReceiverThread-"))
+                            .collect(Collectors.toSet())));
+  }
+
+  @AfterMethod
+  public void tearDown() {
+    processor.stop();
+    sipStack.stop();
+  }
+
+  @Test(description = "datagrams are dispatched, those of blocked sources dropped before")
+  public void testReceive() throws Exception {
+    PreParseAdmissionFilter admissionFilter = processor.getPreParseAdmissionFilter();
+    try (DatagramSocket blockedClient = new DatagramSocket(0, blocked);
+        DatagramSocket client = new DatagramSocket(0, loopback)) {
+      send(blockedClient);
+      await()
+          .atMost(Duration.ofSeconds(2))
+          .untilAsserted(() -> verify(admissionFilter).admit(eq(blocked), anyInt()));
+      send(client);
+      await().atMost(Duration.ofSeconds(2)).until(() -> dispatched.contains(loopback));
+    }
+    Assert.assertFalse(dispatched.contains(blocked));
+  }
+
+  @Test(description = "messages are sent from the port the channels are bound to")
+  public void testReplyFromBoundPort() throws Exception {
+    try (DatagramSocket client = new DatagramSocket(0, loopback)) {
+      client.setSoTimeout(2000);
+      DsbUdpMessageChannel channel =
+          (DsbUdpMessageChannel) processor.createMessageChannel(loopback, client.getLocalPort());
+      byte[] message = "SIP/2.0 200 OK\r\n\r\n".getBytes(StandardCharsets.UTF_8);
+      channel.sendMessage(message, loopback, client.getLocalPort(), false);
+
+      DatagramPacket reply = new DatagramPacket(new byte[1024], 1024);
+      client.receive(reply);
+      Assert.assertEquals(reply.getPort(), port);
+    }
+  }
+
+  @Test(description = "stopping the processor ends every receiver thread")
+  public void testStop() {
+    // the thread running the processor and one more receiving on the second channel
+    Assert.assertEquals(receivers.size(), 2);
+    processor.stop();
+    await()
+        .atMost(Duration.ofSeconds(2))
+        .until(() -> receivers.stream().noneMatch(Thread::isAlive));
+  }
+
+  private void send(DatagramSocket socket) throws Exception {
+    byte[] message = "OPTIONS sip:test SIP/2.0\r\n\r\n".getBytes(StandardCharsets.UTF_8);
+    socket.send(new DatagramPacket(message, message.length, loopback, port));
+  }
+}
@@ -512,9 +512,8 @@ public class SipServerLocatorTest {
     }
 
     @Override
-    public List<DNSARecord> lookupAAsync(String lookup)
-        throws InterruptedException, ExecutionException {
-      return Collections.emptyList();
+    public CompletableFuture<List<DNSARecord>> lookupAAAA(String lookup) {
+      return CompletableFuture.completedFuture(Collections.emptyList());
     }
   }
 
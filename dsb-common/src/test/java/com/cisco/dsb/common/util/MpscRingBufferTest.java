@@ -0,0 +1,29 @@
+package com.cisco.dsb.common.util;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class MpscRingBufferTest {
+
+  @Test(description = "elements are polled in order until the buffer is full")
+  public void testRingBuffer() {
+    MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(3);
+    Assert.assertEquals(buffer.capacity(), 4);
+    Assert.assertTrue(buffer.isEmpty());
+    Assert.assertNull(buffer.poll());
+    // a few laps around the buffer
+    for (int lap = 0; lap < 3; lap++) {
+      for (int i = 0; i < 4; i++) {
+        Assert.assertFalse(buffer.isFull());
+        Assert.assertTrue(buffer.offer(i));
+      }
+      Assert.assertTrue(buffer.isFull());
+      Assert.assertFalse(buffer.offer(4));
+      for (int i = 0; i < 4; i++) {
+        Assert.assertEquals(buffer.poll(), Integer.valueOf(i));
+        Assert.assertFalse(buffer.isFull());
+      }
+      Assert.assertTrue(buffer.isEmpty());
+    }
+  }
+}
@@ -1,11 +1,21 @@
 package com.cisco.dsb.common.util.log.event;
 
+import static org.awaitility.Awaitility.await;
 import static org.mockito.Mockito.*;
 
+import com.cisco.dsb.common.util.LMAUtil;
+import com.cisco.dsb.common.util.RequestHelper;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import gov.nist.javax.sip.message.SIPMessage;
+import gov.nist.javax.sip.message.SIPRequest;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.testng.Assert;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.Test;
 
@@ -94,4 +104,146 @@ public class EventingServiceTest {
     eventingService.publishEvents(events);
     verify(mockLogConsumer).handleEvent(loggingEvent);
   }
+
+  @Test(description = "events of a type sampled at 0% are counted, not published")
+  public void testSampling() {
+    EventingService eventingService =
+        new EventingService(false, 0, ImmutableMap.of("SIPMESSAGE", 0, "UNKNOWN", 10));
+    eventingService.register(ImmutableList.of(LoggingEvent.class));
+    ConsumerFactory mockConsumerFactory = mock(ConsumerFactory.class);
+    ConsumerFactory.setConsumerFactory(mockConsumerFactory);
+    LoggerConsumer mockLogConsumer = mock(LoggerConsumer.class);
+    when(mockConsumerFactory.getLoggerConsumer(false)).thenReturn(mockLogConsumer);
+
+    Assert.assertFalse(eventingService.sample(Event.EventType.SIPMESSAGE));
+    Assert.assertTrue(eventingService.sample(Event.EventType.CIRCUIT_BREAKER));
+    LoggingEvent sipMessageEvent =
+        new LoggingEvent.LoggingEventBuilder().eventType(Event.EventType.SIPMESSAGE).build();
+    LoggingEvent connectionEvent =
+        new LoggingEvent.LoggingEventBuilder().eventType(Event.EventType.CONNECTION).build();
+    eventingService.publishEvents(ImmutableList.of(sipMessageEvent, connectionEvent));
+
+    verify(mockLogConsumer, never()).handleEvent(sipMessageEvent);
+    verify(mockLogConsumer).handleEvent(connectionEvent);
+    Assert.assertEquals(eventingService.getSampledOutEvents(), 2);
+  }
+
+  @Test(description = "events of SIP messages are formatted and published in the background")
+  public void testMessageEventPublishedInBackground() throws Exception {
+    EventingService eventingService = new EventingService(false, 16, Collections.emptyMap());
+    eventingService.register(ImmutableList.of(LoggingEvent.class));
+    ConsumerFactory mockConsumerFactory = mock(ConsumerFactory.class);
+    ConsumerFactory.setConsumerFactory(mockConsumerFactory);
+    LoggerConsumer mockLogConsumer = mock(LoggerConsumer.class);
+    when(mockConsumerFactory.getLoggerConsumer(false)).thenReturn(mockLogConsumer);
+
+    SIPMessage invite = (SIPMessage) RequestHelper.getInviteRequest();
+    eventingService.publishMessageEvent(
+        new MessageEvent(
+            LMAUtil.populateBindingInfo(invite),
+            invite,
+            Event.DIRECTION.IN,
+            Event.MESSAGE_TYPE.REQUEST,
+            false,
+            false,
+            false,
+            "net_in",
+            null,
+            null,
+            true));
+
+    ArgumentCaptor<DhruvaEvent> published = ArgumentCaptor.forClass(DhruvaEvent.class);
+    await()
+        .atMost(Duration.ofSeconds(2))
+        .untilAsserted(() -> verify(mockLogConsumer).handleEvent(published.capture()));
+    LoggingEvent loggingEvent = (LoggingEvent) published.getValue();
+    Assert.assertEquals(loggingEvent.getEventType(), Event.EventType.SIPMESSAGE);
+    Assert.assertEquals(loggingEvent.getSipMsgPayload().toString(), invite.toString());
+    Assert.assertEquals(loggingEvent.getEventInfoMap().get("sipMethod"), "INVITE");
+    Assert.assertEquals(loggingEvent.getEventInfoMap().get(Event.INBOUND_NETWORK), "net_in");
+    Assert.assertEquals(eventingService.getDroppedEvents(), 0);
+    eventingService.shutdown();
+  }
+
+  @Test(description = "the event holds the message as it was, not as the proxy changes it after")
+  public void testMessageEventIsSnapshot() throws Exception {
+    SIPMessage invite = (SIPMessage) RequestHelper.getInviteRequest();
+    String encoded = invite.encode();
+    String callId = invite.getCallId().getCallId();
+    MessageEvent messageEvent =
+        new MessageEvent(
+            LMAUtil.populateBindingInfo(invite),
+            invite,
+            Event.DIRECTION.IN,
+            Event.MESSAGE_TYPE.REQUEST,
+            false,
+            false,
+            false,
+            "net_in",
+            null,
+            null,
+            true);
+
+    invite.setCallId("changed-by-the-proxy");
+    ((SIPRequest) invite).setMethod("BYE");
+
+    LoggingEvent loggingEvent = Event.toLoggingEvent(messageEvent);
+    Assert.assertEquals(loggingEvent.getEventInfoMap().get(Event.CALL_ID), callId);
+    Assert.assertEquals(loggingEvent.getEventInfoMap().get("sipMethod"), "INVITE");
+    Assert.assertEquals(loggingEvent.getSipMsgPayload().toString(), encoded);
+  }
+
+  @Test(description = "an event published right away holds the message itself, not a copy")
+  public void testMessageEventNotSnapshot() throws Exception {
+    SIPMessage invite = (SIPMessage) RequestHelper.getInviteRequest();
+    MessageEvent messageEvent =
+        new MessageEvent(
+            LMAUtil.populateBindingInfo(invite),
+            invite,
+            Event.DIRECTION.IN,
+            Event.MESSAGE_TYPE.REQUEST,
+            false,
+            false,
+            false,
+            "net_in",
+            null,
+            null,
+            false);
+
+    Assert.assertSame(messageEvent.getMessage(), invite);
+    Assert.assertNull(messageEvent.getLoggingContext());
+    Assert.assertSame(Event.toLoggingEvent(messageEvent).getSipMsgPayload(), invite);
+  }
+
+  @Test(description = "shutdown publishes the queued events and ends the publisher thread")
+  public void testShutdown() throws Exception {
+    EventingService eventingService = new EventingService(false, 16, Collections.emptyMap());
+    eventingService.register(ImmutableList.of(LoggingEvent.class));
+    ConsumerFactory mockConsumerFactory = mock(ConsumerFactory.class);
+    ConsumerFactory.setConsumerFactory(mockConsumerFactory);
+    LoggerConsumer mockLogConsumer = mock(LoggerConsumer.class);
+    when(mockConsumerFactory.getLoggerConsumer(false)).thenReturn(mockLogConsumer);
+
+    SIPMessage invite = (SIPMessage) RequestHelper.getInviteRequest();
+    for (int i = 0; i < 3; i++) {
+      eventingService.publishMessageEvent(
+          new MessageEvent(
+              LMAUtil.populateBindingInfo(invite),
+              invite,
+              Event.DIRECTION.IN,
+              Event.MESSAGE_TYPE.REQUEST,
+              false,
+              false,
+              false,
+              null,
+              null,
+              null,
+              true));
+    }
+    eventingService.shutdown();
+
+    verify(mockLogConsumer, times(3)).handleEvent(any(DhruvaEvent.class));
+    Thread publisher = (Thread) ReflectionTestUtils.getField(eventingService, "publisher");
+    Assert.assertFalse(publisher.isAlive());
+  }
 }
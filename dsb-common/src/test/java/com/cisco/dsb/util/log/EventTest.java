@@ -16,6 +16,7 @@ import com.cisco.dsb.common.util.log.event.Event.DIRECTION;
 import com.cisco.dsb.common.util.log.event.Event.MESSAGE_TYPE;
 import com.cisco.dsb.common.util.log.event.EventingService;
 import com.cisco.dsb.common.util.log.event.LoggingEvent;
+import com.cisco.dsb.common.util.log.event.MessageEvent;
 import gov.nist.javax.sip.header.HeaderFactoryImpl;
 import gov.nist.javax.sip.message.SIPMessage;
 import gov.nist.javax.sip.message.SIPRequest;
@@ -43,6 +44,7 @@ public class EventTest {
       throws UnknownHostException, ParseException {
     MockitoAnnotations.openMocks(this);
     Event.setEventingService(eventingService);
+    when(eventingService.sample(Event.EventType.SIPMESSAGE)).thenReturn(true);
     SIPMessage sipMessage = new SIPRequest();
     sipMessage.setLocalAddress(InetAddress.getLocalHost());
     sipMessage.setLocalPort(5080);
@@ -78,24 +80,13 @@ public class EventTest {
         null,
         null);
 
-    Class<ArrayList<DhruvaEvent>> listClass =
-        (Class<ArrayList<DhruvaEvent>>) (Class) ArrayList.class;
-    ArgumentCaptor<ArrayList<DhruvaEvent>> argument = ArgumentCaptor.forClass(listClass);
+    ArgumentCaptor<MessageEvent> argument = ArgumentCaptor.forClass(MessageEvent.class);
 
-    Mockito.verify(eventingService, Mockito.times(1)).publishEvents(argument.capture());
-    argument.getValue().stream()
-        .forEach(
-            dhruvaEvent -> {
-              if (dhruvaEvent instanceof LoggingEvent) {
-                System.out.println(((LoggingEvent) dhruvaEvent).getEventInfoMap());
-                assertEquals(
-                    ((LoggingEvent) dhruvaEvent).getEventInfoMap().get("localSessionId"),
-                    localSessionId);
-                assertEquals(
-                    ((LoggingEvent) dhruvaEvent).getEventInfoMap().get("remoteSessionId"),
-                    remoteSessionId);
-              }
-            });
+    Mockito.verify(eventingService, Mockito.times(1)).publishMessageEvent(argument.capture());
+    LoggingEvent loggingEvent = Event.toLoggingEvent(argument.getValue());
+    System.out.println(loggingEvent.getEventInfoMap());
+    assertEquals(loggingEvent.getEventInfoMap().get("localSessionId"), localSessionId);
+    assertEquals(loggingEvent.getEventInfoMap().get("remoteSessionId"), remoteSessionId);
   }
 
   @Test
@@ -103,6 +94,7 @@ public class EventTest {
       throws UnknownHostException, ParseException {
     MockitoAnnotations.openMocks(this);
     Event.setEventingService(eventingService);
+    when(eventingService.sample(Event.EventType.SIPMESSAGE)).thenReturn(true);
     SIPMessage sipMessage = new SIPRequest();
     sipMessage.setLocalAddress(InetAddress.getLocalHost());
     sipMessage.setLocalPort(5080);
@@ -130,21 +122,13 @@ public class EventTest {
         null,
         null);
 
-    Class<ArrayList<DhruvaEvent>> listClass =
-        (Class<ArrayList<DhruvaEvent>>) (Class) ArrayList.class;
-    ArgumentCaptor<ArrayList<DhruvaEvent>> argument = ArgumentCaptor.forClass(listClass);
+    ArgumentCaptor<MessageEvent> argument = ArgumentCaptor.forClass(MessageEvent.class);
 
-    Mockito.verify(eventingService, Mockito.times(1)).publishEvents(argument.capture());
-    argument
-        .getValue()
-        .forEach(
-            dhruvaEvent -> {
-              if (dhruvaEvent instanceof LoggingEvent) {
-                System.out.println(((LoggingEvent) dhruvaEvent).getEventInfoMap());
-                assertNull(((LoggingEvent) dhruvaEvent).getEventInfoMap().get("localSessionId"));
-                assertNull(((LoggingEvent) dhruvaEvent).getEventInfoMap().get("remoteSessionId"));
-              }
-            });
+    Mockito.verify(eventingService, Mockito.times(1)).publishMessageEvent(argument.capture());
+    LoggingEvent loggingEvent = Event.toLoggingEvent(argument.getValue());
+    System.out.println(loggingEvent.getEventInfoMap());
+    assertNull(loggingEvent.getEventInfoMap().get("localSessionId"));
+    assertNull(loggingEvent.getEventInfoMap().get("remoteSessionId"));
   }
 
   @Test
@@ -160,5 +160,7 @@ public interface ControllerInterface {
 
   DhruvaExecutorService getDhruvaExecutorService();
 
+  ProxyRuntime getRuntime();
+
   ProxyFactoryInterface getProxyFactory();
 }
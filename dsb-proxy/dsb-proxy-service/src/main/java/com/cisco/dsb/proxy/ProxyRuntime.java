@@ -0,0 +1,50 @@
+package com.cisco.dsb.proxy;
+
+import com.cisco.dsb.common.executor.DhruvaExecutorService;
+import com.cisco.dsb.common.executor.ExecutorType;
+import com.cisco.dsb.common.executor.HashedWheelTimer;
+import com.cisco.dsb.common.service.MetricService;
+import com.cisco.dsb.common.service.SipServerLocatorService;
+import lombok.Getter;
+import lombok.NonNull;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Services the proxy needs while processing a message, created once at startup and handed to the
+ * controllers, which pass it on to their transactions. Objects created per request or per branch
+ * get their dependencies from here rather than looking them up in the application context.
+ */
+@Component
+public class ProxyRuntime {
+
+  @Getter private final DhruvaExecutorService dhruvaExecutorService;
+  @Getter private final MetricService metricService;
+  @Getter private final SipServerLocatorService locatorService;
+  @Getter private final ProxyConfigurationProperties proxyConfigurationProperties;
+
+  // Timer C wheel, only started once the proxy stack is up
+  private volatile HashedWheelTimer proxyClientTimer;
+
+  @Autowired
+  public ProxyRuntime(
+      @NonNull DhruvaExecutorService dhruvaExecutorService,
+      MetricService metricService,
+      @NonNull SipServerLocatorService locatorService,
+      @NonNull ProxyConfigurationProperties proxyConfigurationProperties) {
+    this.dhruvaExecutorService = dhruvaExecutorService;
+    this.metricService = metricService;
+    this.locatorService = locatorService;
+    this.proxyConfigurationProperties = proxyConfigurationProperties;
+  }
+
+  /** @return timer of the client transactions, null if the timer service has not started yet */
+  public HashedWheelTimer getProxyClientTimer() {
+    HashedWheelTimer timer = proxyClientTimer;
+    if (timer == null) {
+      timer = dhruvaExecutorService.getTimer(ExecutorType.PROXY_CLIENT_TIMEOUT);
+      proxyClientTimer = timer;
+    }
+    return timer;
+  }
+}
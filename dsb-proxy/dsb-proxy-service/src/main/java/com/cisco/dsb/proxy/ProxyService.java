@@ -16,6 +16,7 @@ import com.cisco.dsb.common.record.DhruvaAppRecord;
 import com.cisco.dsb.common.service.MetricService;
 import com.cisco.dsb.common.service.SipServerLocatorService;
 import com.cisco.dsb.common.sip.bean.SIPListenPoint;
+import com.cisco.dsb.common.sip.jain.JainSipHelper;
 import com.cisco.dsb.common.sip.stack.dto.DhruvaNetwork;
 import com.cisco.dsb.common.sip.tls.DsbTrustManager;
 import com.cisco.dsb.common.sip.tls.DsbTrustManagerFactory;
@@ -41,6 +42,7 @@ import java.util.function.Consumer;
 import java.util.function.Function;
 import javax.annotation.PreDestroy;
 import javax.sip.*;
+import javax.sip.message.Request;
 import javax.sip.message.Response;
 import lombok.CustomLog;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -149,14 +151,22 @@ public class ProxyService {
     }
 
     listenPointFutures.forEach(CompletableFuture::join);
-    // Start the Executor Service, while initialising the ProxyService, that is used for Timer C.
+    // Start the Timer Service, while initialising the ProxyService, that is used for Timer C.
     // However, tasks will be scheduled in ProxyClientTransaction
-    dhruvaExecutorService.startScheduledExecutorService(ExecutorType.PROXY_CLIENT_TIMEOUT);
+    dhruvaExecutorService.startTimerService(ExecutorType.PROXY_CLIENT_TIMEOUT);
     // dhruvaExecutorService.startExecutorService(ExecutorType.PROXY_SEND_MESSAGE, 20);
 
     // initializing periodic metric for counting call per second
     metricService.emitCPSMetricPerInterval(
         commonConfigurationProperties.getCpsMetricInterval(), TimeUnit.SECONDS);
+    // initializing periodic metric for request processing latency percentiles
+    metricService.emitLatencyMetricPerInterval(
+        commonConfigurationProperties.getLatencyMetricInterval(), TimeUnit.SECONDS);
+    // counts of SIP messages per interval in place of a point per message, if enabled
+    if (commonConfigurationProperties.isSipMessageMetricAggregated()) {
+      metricService.emitSipMessageMetricPerInterval(
+          commonConfigurationProperties.getSipMessageMetricInterval(), TimeUnit.SECONDS);
+    }
     // initializing metric for connection info for udp transports 30sec window
     metricService.emitConnectionInfoMetricPerInterval(
         commonConfigurationProperties.getUdpConnectionMetricInterval(), TimeUnit.SECONDS);
@@ -213,6 +223,56 @@ public class ProxyService {
                 err -> logger.error("Unable to process incoming request {}", err));
   }
 
+  /**
+   * @return true if the executor processing the SIP events is too backed up to take on new calls
+   */
+  public boolean isOverloaded() {
+    return dhruvaExecutorService.isOverloaded(ExecutorType.PROXY_PROCESSOR)
+        || dhruvaExecutorService.isOverloaded(ExecutorType.PROXY_PROCESSOR_BOUNDED)
+        || dhruvaExecutorService.isOverloaded(ExecutorType.PROXY_PROCESSOR_VIRTUAL);
+  }
+
+  /**
+   * Rejects the request if it starts a new call while the proxy is overloaded. Requests of calls
+   * in progress are always let through, they are what brings the load down. Called on the stack
+   * thread, before the request is queued for the executor.
+   *
+   * @return true if the request was rejected
+   */
+  public boolean shedIfOverloaded(RequestEvent requestEvent) {
+    return isOverloaded() && rejectNewCall(requestEvent);
+  }
+
+  /**
+   * Rejects the request with a 503 and Retry-After if it is an initial INVITE, statelessly so that
+   * no transaction is created for it.
+   *
+   * @return true if the request was rejected, false if it is not an initial INVITE
+   */
+  public boolean rejectNewCall(RequestEvent requestEvent) {
+    SIPRequest sipRequest = (SIPRequest) requestEvent.getRequest();
+    if (!Request.INVITE.equals(sipRequest.getMethod()) || SipUtils.isMidDialogRequest(sipRequest)) {
+      return false;
+    }
+    try {
+      Response response =
+          JainSipHelper.getMessageFactory()
+              .createResponse(Response.SERVICE_UNAVAILABLE, sipRequest);
+      int retryAfter = commonConfigurationProperties.getOverloadRetryAfterSeconds();
+      response.addHeader(JainSipHelper.getHeaderFactory().createRetryAfterHeader(retryAfter));
+      ProxySendMessage.sendResponse(
+          response,
+          null,
+          (SipProvider) requestEvent.getSource(),
+          true,
+          null,
+          "Overloaded, rejecting new call");
+    } catch (Exception e) {
+      logger.error("Unable to send {} for new call", Response.SERVICE_UNAVAILABLE, e);
+    }
+    return true;
+  }
+
   public Mono<ProxySIPRequest> requestPipeline(Mono<RequestEvent> requestEventMono) {
 
     return requestEventMono
@@ -307,14 +367,11 @@ public class ProxyService {
             logger.error("Unable to send err response {}", Response.SERVER_INTERNAL_ERROR, ex);
           }
         }
-        // Emit latency metric for non mid-dialog requests
-        if (metricService != null && !SipUtils.isMidDialogRequest(sipRequest)) {
-          new SipMetricsContext(
-              metricService,
-              SipMetricsContext.State.proxyNewRequestFinalResponseProcessed,
-              sipRequest.getCallId() != null ? sipRequest.getCallId().getCallId() : null,
-              callType,
-              true);
+        // Emit latency metric, only timed once the request made it to a ProxySIPRequest
+        if (o instanceof ProxySIPRequest) {
+          ((ProxySIPRequest) o)
+              .handleProxyEvent(
+                  metricService, SipMetricsContext.State.proxyNewRequestFinalResponseProcessed);
         }
       } catch (Exception exception) {
         logger.error("Unable to gracefully handle the exception in request pipeline!", exception);
@@ -11,6 +11,7 @@ import com.cisco.dsb.common.sip.bean.SIPListenPoint;
 import com.cisco.dsb.common.sip.jain.JainSipHelper;
 import com.cisco.dsb.common.sip.jain.JainStackInitializer;
 import com.cisco.dsb.common.sip.jain.channelCache.DsbJainSipMessageProcessorFactory;
+import com.cisco.dsb.common.sip.jain.channelCache.PreParseAdmissionControlled;
 import com.cisco.dsb.common.sip.tls.DsbNetworkLayer;
 import com.cisco.dsb.common.sip.tls.DsbTrustManager;
 import com.cisco.dsb.common.transport.Transport;
@@ -20,6 +21,7 @@ import com.cisco.dsb.proxy.bootstrap.Server;
 import com.cisco.dsb.proxy.sip.ProxyStackFactory;
 import gov.nist.core.net.AddressResolver;
 import gov.nist.javax.sip.SipStackImpl;
+import gov.nist.javax.sip.stack.MessageProcessor;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.Properties;
@@ -89,6 +91,14 @@ public class SipServer implements Server {
                   ((DsbRateLimiterValve) sipMessageValve).initFromApplication(dsbRateLimiter);
                 }
               });
+          if (dsbRateLimiter != null) {
+            for (MessageProcessor messageProcessor : sipStackImpl.getMessageProcessors()) {
+              if (messageProcessor instanceof PreParseAdmissionControlled) {
+                ((PreParseAdmissionControlled) messageProcessor)
+                    .setPreParseAdmissionFilter(dsbRateLimiter.getPreParseAdmissionFilter());
+              }
+            }
+          }
           sipStackImpl.setAddressResolver(addressResolver);
         }
         serverStartFuture.complete(sipStack);
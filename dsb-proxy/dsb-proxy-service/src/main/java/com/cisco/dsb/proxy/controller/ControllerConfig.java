@@ -4,6 +4,8 @@
 
 package com.cisco.dsb.proxy.controller;
 
+import com.cisco.dsb.common.overload.LoadMonitor;
+import com.cisco.dsb.common.overload.ViaOverloadControl;
 import com.cisco.dsb.common.service.SipServerLocatorService;
 import com.cisco.dsb.common.sip.bean.SIPListenPoint;
 import com.cisco.dsb.common.sip.dto.HopImpl;
@@ -52,6 +54,7 @@ public class ControllerConfig implements ProxyParamsInterface, SipRouteFixInterf
 
   private final HashMap<String, ListenIfHeader> listenIfHeaders = new HashMap<>();
   private Environment environment;
+  private LoadMonitor loadMonitor;
   protected boolean doRecordRoute = true;
   protected boolean dnsEnabled = false;
 
@@ -68,6 +71,11 @@ public class ControllerConfig implements ProxyParamsInterface, SipRouteFixInterf
     this.environment = environment;
   }
 
+  @Autowired(required = false)
+  public void setLoadMonitor(LoadMonitor loadMonitor) {
+    this.loadMonitor = loadMonitor;
+  }
+
   public ListenIfHeader getListenInterface(String network) {
     return listenIfHeaders.get(network);
   }
@@ -126,8 +134,15 @@ public class ControllerConfig implements ProxyParamsInterface, SipRouteFixInterf
     SipUri sipUri;
     if (hostnameType != null) sipUri = listenIfHeaders.get(direction).getSipUri(hostnameType);
     else sipUri = listenIfHeaders.get(direction).getSipUri();
-    return JainSipHelper.getHeaderFactory()
-        .createViaHeader(sipUri.getHost(), sipUri.getPort(), sipUri.getTransportParam(), branch);
+    ViaHeader via =
+        JainSipHelper.getHeaderFactory()
+            .createViaHeader(
+                sipUri.getHost(), sipUri.getPort(), sipUri.getTransportParam(), branch);
+    // next hops supporting overload control answer in this Via how much to shed towards them
+    if (loadMonitor != null && loadMonitor.isEnabled()) {
+      ViaOverloadControl.addClientSupport(via);
+    }
+    return via;
   }
 
   @Override
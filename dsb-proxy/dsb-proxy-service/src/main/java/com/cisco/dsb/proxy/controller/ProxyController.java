@@ -9,16 +9,15 @@ import com.cisco.dsb.common.exception.DhruvaRuntimeException;
 import com.cisco.dsb.common.exception.ErrorCode;
 import com.cisco.dsb.common.executor.DhruvaExecutorService;
 import com.cisco.dsb.common.metric.SipMetricsContext;
-import com.cisco.dsb.common.service.MetricService;
 import com.cisco.dsb.common.service.SipServerLocatorService;
 import com.cisco.dsb.common.sip.header.ListenIfHeader;
 import com.cisco.dsb.common.sip.jain.JainSipHelper;
 import com.cisco.dsb.common.sip.stack.dto.DhruvaNetwork;
 import com.cisco.dsb.common.sip.util.*;
 import com.cisco.dsb.common.transport.Transport;
-import com.cisco.dsb.common.util.SpringApplicationContext;
 import com.cisco.dsb.proxy.ControllerInterface;
 import com.cisco.dsb.proxy.ProxyConfigurationProperties;
+import com.cisco.dsb.proxy.ProxyRuntime;
 import com.cisco.dsb.proxy.ProxyState;
 import com.cisco.dsb.proxy.controller.util.ParseProxyParamUtil;
 import com.cisco.dsb.proxy.dto.ProxyAppConfig;
@@ -67,12 +66,10 @@ public class ProxyController implements ControllerInterface, ProxyInterface {
 
   @Getter private final ServerTransaction serverTransaction;
   private final SipProvider sipProvider;
-  @Getter private final ProxyConfigurationProperties proxyConfigurationProperties;
   @Getter private final ProxyFactory proxyFactory;
   @Getter @Setter private ControllerConfig controllerConfig;
 
-  @Getter @Setter private DhruvaExecutorService dhruvaExecutorService;
-  @Getter @Setter private SipServerLocatorService locatorService;
+  @Getter private final ProxyRuntime runtime;
 
   @Getter @Setter private ProxyStatelessTransaction proxyTransaction;
   /* Stores the request for this controller. Do not work on this directly, always work on the clone. */
@@ -101,28 +98,32 @@ public class ProxyController implements ControllerInterface, ProxyInterface {
 
   private ProxyAppConfig proxyAppConfig;
 
-  private static MetricService metricService =
-      SpringApplicationContext.getAppContext() == null
-          ? null
-          : SpringApplicationContext.getAppContext().getBean(MetricService.class);
-
   public ProxyController(
       ServerTransaction serverTransaction,
       @NonNull SipProvider sipProvider,
       @NonNull ProxyAppConfig proxyAppConfig,
-      @NonNull ProxyConfigurationProperties proxyConfigurationProperties,
       @NonNull ProxyFactory proxyFactory,
       @NonNull ControllerConfig controllerConfig,
-      @NonNull DhruvaExecutorService dhruvaExecutorService,
-      @NonNull SipServerLocatorService locatorService) {
+      @NonNull ProxyRuntime runtime) {
     this.serverTransaction = serverTransaction;
     this.sipProvider = sipProvider;
     this.proxyAppConfig = proxyAppConfig;
-    this.proxyConfigurationProperties = proxyConfigurationProperties;
     this.proxyFactory = proxyFactory;
     this.controllerConfig = controllerConfig;
-    this.dhruvaExecutorService = dhruvaExecutorService;
-    this.locatorService = locatorService;
+    this.runtime = runtime;
+  }
+
+  public ProxyConfigurationProperties getProxyConfigurationProperties() {
+    return runtime.getProxyConfigurationProperties();
+  }
+
+  @Override
+  public DhruvaExecutorService getDhruvaExecutorService() {
+    return runtime.getDhruvaExecutorService();
+  }
+
+  public SipServerLocatorService getLocatorService() {
+    return runtime.getLocatorService();
   }
 
   public void setController(@NonNull ProxySIPRequest request) {
@@ -360,7 +361,9 @@ public class ProxyController implements ControllerInterface, ProxyInterface {
         logger.warn("Invalid Transport detected while getting hostPort, setting to default UDP");
         transport = ListeningPoint.UDP;
     }
-    return locatorService.resolveAddress(new HopImpl(uri.getHost(), uri.getPort(), transport));
+    return runtime
+        .getLocatorService()
+        .resolveAddress(new HopImpl(uri.getHost(), uri.getPort(), transport));
   }
 
   public ProxyParams getProxyParams(ProxySIPRequest proxySIPRequest)
@@ -775,7 +778,7 @@ public class ProxyController implements ControllerInterface, ProxyInterface {
                 e);
           } finally {
             proxySIPRequest.handleProxyEvent(
-                metricService, SipMetricsContext.State.proxyRequestCancelReceived);
+                runtime.getMetricService(), SipMetricsContext.State.proxyRequestCancelReceived);
           }
           return null;
 
@@ -898,7 +901,7 @@ public class ProxyController implements ControllerInterface, ProxyInterface {
   public void onProxySuccess(ProxySIPRequest proxySIPRequest) {
     logger.debug("sent out the request successfully");
     proxySIPRequest.handleProxyEvent(
-        metricService, SipMetricsContext.State.proxyNewRequestSendSuccess);
+        runtime.getMetricService(), SipMetricsContext.State.proxyNewRequestSendSuccess);
   }
 
   @Override
@@ -908,7 +911,7 @@ public class ProxyController implements ControllerInterface, ProxyInterface {
     if (proxyClientTransaction != null) {
       ProxySIPRequest proxySIPRequest = proxyClientTransaction.getProxySIPRequest();
       proxySIPRequest.handleProxyEvent(
-          metricService, SipMetricsContext.State.proxyNewRequestSendFailure);
+          runtime.getMetricService(), SipMetricsContext.State.proxyNewRequestSendFailure);
     }
     logger.error("Error occurred while forwarding request", err);
 
@@ -955,13 +958,27 @@ public class ProxyController implements ControllerInterface, ProxyInterface {
         ((ProxyTransaction) proxyTransaction).cancel();
       }
     }
+    notifyFirstResponse(cookie);
     ((ProxyCookieImpl) cookie).getResponseCF().complete(proxySIPResponse);
     logger.debug("Leaving onFinalResponse, notified the listener");
   }
 
+  private static void notifyFirstResponse(ProxyCookie cookie) {
+    if (!(cookie instanceof ProxyCookieImpl)) {
+      return;
+    }
+    ProxyCookieImpl proxyCookie = (ProxyCookieImpl) cookie;
+    Runnable firstResponseListener = proxyCookie.getFirstResponseListener();
+    if (firstResponseListener != null) {
+      proxyCookie.setFirstResponseListener(null);
+      firstResponseListener.run();
+    }
+  }
+
   @Override
   public void onProvisionalResponse(ProxyCookie cookie, ProxySIPResponse proxySIPResponse) {
     logger.debug("Inside onProvisionalResponse()");
+    notifyFirstResponse(cookie);
 
     if (proxySIPResponse.getResponse().getStatusCode() == 100) return;
     // sending out all the provisional response except 100 Trying
@@ -1,9 +1,7 @@
 package com.cisco.dsb.proxy.controller;
 
-import com.cisco.dsb.common.executor.DhruvaExecutorService;
-import com.cisco.dsb.common.service.SipServerLocatorService;
 import com.cisco.dsb.common.util.TriFunction;
-import com.cisco.dsb.proxy.ProxyConfigurationProperties;
+import com.cisco.dsb.proxy.ProxyRuntime;
 import com.cisco.dsb.proxy.dto.ProxyAppConfig;
 import com.cisco.dsb.proxy.sip.ProxyFactory;
 import javax.sip.ServerTransaction;
@@ -15,28 +13,18 @@ import org.springframework.stereotype.Component;
 @Component
 public class ProxyControllerFactory {
 
-  ProxyConfigurationProperties proxyConfigurationProperties;
-
   ControllerConfig controllerConfig;
 
   ProxyFactory proxyFactory;
 
-  DhruvaExecutorService dhruvaExecutorService;
-
-  SipServerLocatorService locatorService;
+  ProxyRuntime proxyRuntime;
 
   @Autowired
   public ProxyControllerFactory(
-      ProxyConfigurationProperties proxyConfigurationProperties,
-      ControllerConfig controllerConfig,
-      ProxyFactory proxyFactory,
-      DhruvaExecutorService dhruvaExecutorService,
-      SipServerLocatorService locatorService) {
-    this.proxyConfigurationProperties = proxyConfigurationProperties;
+      ControllerConfig controllerConfig, ProxyFactory proxyFactory, ProxyRuntime proxyRuntime) {
     this.controllerConfig = controllerConfig;
     this.proxyFactory = proxyFactory;
-    this.dhruvaExecutorService = dhruvaExecutorService;
-    this.locatorService = locatorService;
+    this.proxyRuntime = proxyRuntime;
   }
 
   @Bean
@@ -51,10 +39,8 @@ public class ProxyControllerFactory {
         serverTransaction,
         sipProvider,
         proxyAppConfig,
-        proxyConfigurationProperties,
         proxyFactory,
         controllerConfig,
-        dhruvaExecutorService,
-        locatorService);
+        proxyRuntime);
   }
 }
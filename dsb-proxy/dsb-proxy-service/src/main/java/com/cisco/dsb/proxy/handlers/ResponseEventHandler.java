@@ -25,4 +25,10 @@ public abstract class ResponseEventHandler extends ProxyEventHandler {
     this.response = (SIPResponse) responseEvent.getResponse();
     cSeq = ProxyUtils.getCseqNumber(response);
   }
+
+  // responses complete calls in progress and are not retransmitted, so they are never shed
+  @Override
+  public boolean isSheddable() {
+    return false;
+  }
 }
@@ -1,6 +1,5 @@
 package com.cisco.dsb.proxy.handlers;
 
-import com.cisco.dsb.common.util.SpringApplicationContext;
 import com.cisco.dsb.proxy.ProxyService;
 import javax.sip.RequestEvent;
 import reactor.core.publisher.Mono;
@@ -13,10 +12,6 @@ public class SipRequestHandler extends RequestEventHandler {
 
   @Override
   public void executeRun() {
-
-    SpringApplicationContext.getAppContext()
-        .getBean(ProxyService.class)
-        .proxyRequestHandler()
-        .accept(Mono.just(requestEvent));
+    proxyStack.proxyRequestHandler().accept(Mono.just(requestEvent));
   }
 }
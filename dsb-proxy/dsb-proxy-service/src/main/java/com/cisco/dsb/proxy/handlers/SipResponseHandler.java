@@ -1,6 +1,5 @@
 package com.cisco.dsb.proxy.handlers;
 
-import com.cisco.dsb.common.util.SpringApplicationContext;
 import com.cisco.dsb.proxy.ProxyService;
 import javax.sip.ResponseEvent;
 import reactor.core.publisher.Mono;
@@ -13,9 +12,6 @@ public class SipResponseHandler extends ResponseEventHandler {
 
   @Override
   public void executeRun() {
-    SpringApplicationContext.getAppContext()
-        .getBean(ProxyService.class)
-        .proxyResponseHandler()
-        .accept(Mono.just(responseEvent));
+    proxyStack.proxyResponseHandler().accept(Mono.just(responseEvent));
   }
 }
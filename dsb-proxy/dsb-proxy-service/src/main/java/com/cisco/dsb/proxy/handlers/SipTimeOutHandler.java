@@ -1,6 +1,5 @@
 package com.cisco.dsb.proxy.handlers;
 
-import com.cisco.dsb.common.util.SpringApplicationContext;
 import com.cisco.dsb.proxy.ProxyService;
 import javax.sip.TimeoutEvent;
 import reactor.core.publisher.Mono;
@@ -13,9 +12,6 @@ public class SipTimeOutHandler extends TimeOutEventHandler {
 
   @Override
   public void executeRun() {
-    SpringApplicationContext.getAppContext()
-        .getBean(ProxyService.class)
-        .proxyTimeOutHandler()
-        .accept(Mono.just(timeoutEvent));
+    proxyStack.proxyTimeOutHandler().accept(Mono.just(timeoutEvent));
   }
 }
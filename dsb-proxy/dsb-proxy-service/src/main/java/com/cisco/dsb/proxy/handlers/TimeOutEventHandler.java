@@ -13,4 +13,10 @@ public abstract class TimeOutEventHandler extends ProxyEventHandler {
     super(proxyStack, null, (SipProvider) timeoutEvent.getSource());
     this.timeoutEvent = timeoutEvent;
   }
+
+  // timeouts complete calls in progress, so they are never shed
+  @Override
+  public boolean isSheddable() {
+    return false;
+  }
 }
@@ -3,6 +3,7 @@ package com.cisco.dsb.proxy.messaging;
 import com.cisco.dsb.common.context.ExecutionContext;
 import com.cisco.dsb.common.exception.DhruvaException;
 import com.cisco.dsb.common.messaging.models.AbstractSipRequest;
+import com.cisco.dsb.common.metric.LatencyTimer;
 import com.cisco.dsb.common.metric.SipMetricsContext;
 import com.cisco.dsb.common.record.DhruvaAppRecord;
 import com.cisco.dsb.common.service.MetricService;
@@ -13,7 +14,6 @@ import com.cisco.dsb.common.sip.util.SipUtils;
 import com.cisco.dsb.proxy.sip.*;
 import gov.nist.javax.sip.message.SIPMessage;
 import java.text.ParseException;
-import java.util.HashMap;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.BiConsumer;
 import javax.sip.ServerTransaction;
@@ -41,10 +41,11 @@ public class ProxySIPRequest extends AbstractSipRequest implements Cloneable {
   @Getter @Setter private URI m_routeTo = null;
   @Getter @Setter private boolean m_escaped = false;
   @Getter @Setter private EndPoint downstreamElement;
-  @Getter HashMap<Object, Object> cache = new HashMap<>();
   @Getter @Setter private DhruvaAppRecord appRecord;
   @Getter @Setter private ListenIfHeader.HostnameType viaHostName;
   @Getter @Setter private ListenIfHeader.HostnameType rrHostName;
+  // processing latency of the request, shared with its clones
+  @Getter private final LatencyTimer latencyTimer;
 
   public ProxySIPRequest(
       ExecutionContext executionContext,
@@ -53,6 +54,7 @@ public class ProxySIPRequest extends AbstractSipRequest implements Cloneable {
       ServerTransaction transaction) {
     super(executionContext, provider, transaction, request);
     this.cookie = new ProxyCookieImpl();
+    this.latencyTimer = new LatencyTimer();
   }
 
   public ProxySIPRequest(ProxySIPRequest proxySIPRequest) {
@@ -69,13 +71,13 @@ public class ProxySIPRequest extends AbstractSipRequest implements Cloneable {
     this.m_routeTo =
         proxySIPRequest.m_routeTo == null ? null : (URI) proxySIPRequest.m_routeTo.clone();
     this.m_escaped = proxySIPRequest.m_escaped;
-    this.cache = proxySIPRequest.cache;
     // We are not cloning appRecord , so it will point to same memory having initial states added.
     // Generally while sending out the message is cloned.
     // TBD
     this.appRecord = proxySIPRequest.appRecord;
     this.viaHostName = proxySIPRequest.viaHostName;
     this.rrHostName = proxySIPRequest.rrHostName;
+    this.latencyTimer = proxySIPRequest.latencyTimer;
   }
 
   public CompletableFuture<ProxySIPResponse> proxy(EndPoint endPoint) {
@@ -193,10 +195,15 @@ public class ProxySIPRequest extends AbstractSipRequest implements Cloneable {
 
   public final BiConsumer<MetricService, SipMetricsContext.State> manageLatencyMetrics =
       (metricService, state) -> {
-        // Emit latency metric for non mid-dialog requests
+        // Emit latency metric for non mid-dialog requests, only INVITEs are timed
         if (metricService != null && !SipUtils.isMidDialogRequest(this.getRequest()))
           new SipMetricsContext(
-              metricService, state, this.getCallId(), this.getCallTypeName(), true);
+              metricService,
+              state,
+              this.getCallId(),
+              this.getCallTypeName(),
+              Request.INVITE.equals(this.getRequest().getMethod()) ? getLatencyTimer() : null,
+              true);
       };
 
   public ProxySIPResponse createResponse(int respCode, String details)
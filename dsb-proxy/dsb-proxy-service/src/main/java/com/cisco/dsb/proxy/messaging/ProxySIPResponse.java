@@ -2,6 +2,7 @@ package com.cisco.dsb.proxy.messaging;
 
 import com.cisco.dsb.common.context.ExecutionContext;
 import com.cisco.dsb.common.messaging.models.AbstractSipResponse;
+import com.cisco.dsb.common.overload.OverloadControl;
 import com.cisco.dsb.proxy.sip.ProxyCookie;
 import com.cisco.dsb.proxy.sip.ProxyInterface;
 import com.cisco.dsb.proxy.sip.ProxyTransaction;
@@ -23,6 +24,8 @@ public class ProxySIPResponse extends AbstractSipResponse {
   @Getter @Setter private boolean toApplication;
   @Getter @Setter private String network;
   @Getter @Setter private ProxyInterface proxyInterface;
+  // advertised by the next hop in our Via, which is gone once the response is processed
+  @Getter @Setter private OverloadControl overloadControl;
 
   public ProxySIPResponse(
       ExecutionContext executionContext,
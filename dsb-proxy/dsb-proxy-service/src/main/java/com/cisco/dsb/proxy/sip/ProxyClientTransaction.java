@@ -2,10 +2,8 @@ package com.cisco.dsb.proxy.sip;
 
 import com.cisco.dsb.common.exception.DhruvaRuntimeException;
 import com.cisco.dsb.common.exception.ErrorCode;
-import com.cisco.dsb.common.executor.DhruvaExecutorService;
-import com.cisco.dsb.common.executor.ExecutorType;
+import com.cisco.dsb.common.executor.HashedWheelTimer;
 import com.cisco.dsb.common.sip.stack.dto.DhruvaNetwork;
-import com.cisco.dsb.common.util.SpringApplicationContext;
 import com.cisco.dsb.proxy.messaging.ProxySIPRequest;
 import com.cisco.dsb.proxy.messaging.ProxySIPResponse;
 import gov.nist.javax.sip.header.Via;
@@ -13,8 +11,6 @@ import gov.nist.javax.sip.message.SIPRequest;
 import gov.nist.javax.sip.message.SIPResponse;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import javax.sip.ClientTransaction;
 import javax.sip.SipProvider;
@@ -62,14 +58,13 @@ public class ProxyClientTransaction {
 
   @Getter @Setter private boolean isTimedOut = false;
 
-  // holds the (max-request-timeout)timer inserted into the DsScheduler
+  // holds the (max-request-timeout)timer inserted into the timer wheel
   // Once it fires, we send CANCEL if the transaction is not terminated yet
   // We also need to remove this timer if the transaction completes in some
   // other way so that we don't hold the references unnecessarily (this
   // will enable garbage collection)
-  private ScheduledFuture timerC = null;
-  private final ScheduledExecutorService scheduledExecutor;
-  private final DhruvaExecutorService dhruvaExecutorService;
+  private HashedWheelTimer.Timeout timerC = null;
+  private final HashedWheelTimer timer;
   @Getter private final ProxySIPRequest proxySIPRequest;
 
   protected ProxyClientTransaction(
@@ -86,10 +81,7 @@ public class ProxyClientTransaction {
     state = STATE_REQUEST_SENT;
     this.cookie = cookie;
 
-    dhruvaExecutorService =
-        SpringApplicationContext.getAppContext().getBean(DhruvaExecutorService.class);
-    scheduledExecutor =
-        dhruvaExecutorService.getScheduledExecutorThreadPool(ExecutorType.PROXY_CLIENT_TIMEOUT);
+    timer = proxy.getController().getRuntime().getProxyClientTimer();
 
     // end
     if (proxy.isProcessVia()) {
@@ -200,12 +192,12 @@ public class ProxyClientTransaction {
    * @param milliSec delay time before firing the task
    */
   protected void scheduleTimerC(long milliSec) {
-    if (Objects.isNull(scheduledExecutor)) {
-      logger.error("'PROXY_CLIENT_TIMEOUT' Scheduled Executor Service has not started");
+    if (Objects.isNull(timer)) {
+      logger.error("'PROXY_CLIENT_TIMEOUT' Timer Service has not started");
       return;
     }
     Runnable task = () -> proxy.timeOut(branch, sipProvider);
-    timerC = scheduledExecutor.schedule(task, milliSec, TimeUnit.MILLISECONDS);
+    timerC = timer.newTimeout(task, milliSec, TimeUnit.MILLISECONDS);
     logger.info("Set Timer C for {} milliseconds", milliSec);
   }
 
@@ -231,7 +223,7 @@ public class ProxyClientTransaction {
     logger.debug("Entering isTimerCRemoved()");
     boolean success = false;
     if (timerC != null) {
-      timerC.cancel(false);
+      timerC.cancel();
       timerC = null;
       success = true;
     }
@@ -21,6 +21,10 @@ public class ProxyCookieImpl implements ProxyCookie {
   private CompletableFuture<ProxySIPResponse> responseCF;
   private Consumer<ProxySIPResponse> responseNormConsumer;
   private DhruvaNetwork requestIncomingNetwork;
+  // run once, on the first response (provisional or final) to the request. Not cloned, it belongs
+  // to a single attempt. Set by the trunk, possibly after an async DNS lookup, and read on the
+  // thread handling the response
+  private volatile Runnable firstResponseListener;
 
   public ProxyCookieImpl() {}
 
@@ -5,8 +5,10 @@ import com.cisco.dsb.proxy.handlers.ProxyEventHandler;
 import com.cisco.dsb.proxy.handlers.SipRequestHandler;
 import com.cisco.dsb.proxy.handlers.SipResponseHandler;
 import com.cisco.dsb.proxy.handlers.SipTimeOutHandler;
-import com.cisco.wx2.util.stripedexecutor.StripedExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import javax.inject.Inject;
+import javax.inject.Named;
 import javax.sip.*;
 import lombok.CustomLog;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -18,9 +20,12 @@ public class ProxyEventManager implements ProxyEventListener {
 
   /**
    * Thread pool executor for executing the request/response events. By processing in a thread, jain
-   * sip stack thread get unblocked.
+   * sip stack thread get unblocked. Events of a call are processed in order, either by the striped
+   * executor or by the serial stripe executor.
    */
-  @Inject private StripedExecutorService executor;
+  @Inject
+  @Named("proxyProcessorExecutor")
+  private ExecutorService executor;
 
   @Autowired ProxyService proxyService;
 
@@ -29,19 +34,30 @@ public class ProxyEventManager implements ProxyEventListener {
   @Override
   public void request(RequestEvent requestMessage) {
     logger.debug("received request event, start processing the request in stripped executor");
-    startProcessing(new SipRequestHandler(proxyService, requestMessage));
+    // new calls are shed before they take a place in the executor queue
+    if (proxyService.shedIfOverloaded(requestMessage)) {
+      return;
+    }
+    try {
+      startProcessing(new SipRequestHandler(proxyService, requestMessage));
+    } catch (RejectedExecutionException e) {
+      // queues are full: new calls get a 503, anything else is left to retransmissions
+      if (!proxyService.rejectNewCall(requestMessage)) {
+        logger.warn("Dropping request, executor queue limit reached: {}", e.getMessage());
+      }
+    }
   }
 
   @Override
   public void response(ResponseEvent responseMessage) {
     logger.debug("received response event, start processing the request in stripped executor");
-    startProcessing(new SipResponseHandler(proxyService, responseMessage));
+    startProcessingAdmitted(new SipResponseHandler(proxyService, responseMessage));
   }
 
   @Override
   public void timeOut(TimeoutEvent timeoutEvent) {
     logger.debug("received time out event, start processing the request in stripped executor");
-    startProcessing(new SipTimeOutHandler(proxyService, timeoutEvent));
+    startProcessingAdmitted(new SipTimeOutHandler(proxyService, timeoutEvent));
   }
 
   @Override
@@ -60,4 +76,21 @@ public class ProxyEventManager implements ProxyEventListener {
   private void startProcessing(ProxyEventHandler proxyEventHandler) {
     executor.submit(proxyEventHandler);
   }
+
+  /**
+   * Responses and timeouts move calls in progress to completion. They are not sheddable, so the
+   * executor queues them behind the other events of their call even when its queues are full, and
+   * only rejects them once it is shut down.
+   */
+  private void startProcessingAdmitted(ProxyEventHandler proxyEventHandler) {
+    try {
+      startProcessing(proxyEventHandler);
+    } catch (RejectedExecutionException e) {
+      logger.warn(
+          "Dropping {} of call {}, executor rejected it: {}",
+          proxyEventHandler.getClass().getSimpleName(),
+          proxyEventHandler.getCallId(),
+          e.getMessage());
+    }
+  }
 }
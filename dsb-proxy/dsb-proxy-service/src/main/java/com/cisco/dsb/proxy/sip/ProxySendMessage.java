@@ -1,6 +1,8 @@
 package com.cisco.dsb.proxy.sip;
 
 import com.cisco.dsb.common.exception.DhruvaException;
+import com.cisco.dsb.common.overload.LoadMonitor;
+import com.cisco.dsb.common.overload.ViaOverloadControl;
 import com.cisco.dsb.common.record.DhruvaAppRecord;
 import com.cisco.dsb.common.service.MetricService;
 import com.cisco.dsb.common.sip.dto.EventMetaData;
@@ -40,6 +42,11 @@ public class ProxySendMessage {
           ? null
           : SpringApplicationContext.getAppContext().getBean(MetricService.class);
 
+  private static LoadMonitor loadMonitorBean =
+      SpringApplicationContext.getAppContext() == null
+          ? null
+          : SpringApplicationContext.getAppContext().getBean(LoadMonitor.class);
+
   public static Mono<Void> sendResponseAsync(
       int responseID,
       SipProvider sipProvider,
@@ -115,6 +122,9 @@ public class ProxySendMessage {
           MsgApplicationData.builder()
               .eventMetaData(EventMetaData.builder().isInternallyGenerated(internal).build())
               .build());
+      // every response, forwarded or generated, tells an upstream client supporting overload
+      // control how much traffic to shed
+      ViaOverloadControl.advertise(sipResponse, loadMonitorBean);
 
       if (serverTransaction != null) {
         serverTransaction.sendResponse(response);
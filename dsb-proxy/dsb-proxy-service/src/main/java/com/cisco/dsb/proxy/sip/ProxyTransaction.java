@@ -3,6 +3,7 @@ package com.cisco.dsb.proxy.sip;
 import com.cisco.dsb.common.exception.DhruvaException;
 import com.cisco.dsb.common.exception.DhruvaRuntimeException;
 import com.cisco.dsb.common.exception.ErrorCode;
+import com.cisco.dsb.common.overload.ViaOverloadControl;
 import com.cisco.dsb.common.sip.stack.dto.DhruvaNetwork;
 import com.cisco.dsb.proxy.ControllerInterface;
 import com.cisco.dsb.proxy.ProxyState;
@@ -619,6 +620,7 @@ public class ProxyTransaction extends ProxyStatelessTransaction {
     }
 
     if (proxyClientTransaction != null) {
+      readOverloadControl(proxySIPResponse);
       if (!processVia(response)) {
         controller.onResponseFailure(
             this,
@@ -656,6 +658,7 @@ public class ProxyTransaction extends ProxyStatelessTransaction {
 
     if (proxyClientTransaction != null) {
 
+      readOverloadControl(proxySIPResponse);
       if (!processVia(response)) {
         controller.onResponseFailure(
             this,
@@ -689,6 +692,12 @@ public class ProxyTransaction extends ProxyStatelessTransaction {
     logger.debug("Leaving finalResponse()");
   }
 
+  /** Keeps the overload control of the next hop, processVia removes the Via it is in */
+  private void readOverloadControl(ProxySIPResponse proxySIPResponse) {
+    proxySIPResponse.setOverloadControl(
+        ViaOverloadControl.read(proxySIPResponse.getResponse().getTopmostVia()));
+  }
+
   protected boolean areAllBranchesDone() {
     return branchesOutstanding == 0;
   }
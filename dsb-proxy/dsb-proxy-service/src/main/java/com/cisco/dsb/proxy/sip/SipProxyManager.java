@@ -5,8 +5,6 @@ import com.cisco.dsb.common.context.ExecutionContext;
 import com.cisco.dsb.common.exception.DhruvaException;
 import com.cisco.dsb.common.exception.DhruvaRuntimeException;
 import com.cisco.dsb.common.exception.ErrorCode;
-import com.cisco.dsb.common.metric.SipMetricsContext;
-import com.cisco.dsb.common.metric.SipMetricsContext.State;
 import com.cisco.dsb.common.service.MetricService;
 import com.cisco.dsb.common.sip.dto.MsgApplicationData;
 import com.cisco.dsb.common.sip.jain.JainSipHelper;
@@ -533,15 +531,7 @@ public class SipProxyManager {
          *
          * */
 
-        // Capture the start time for new incoming request for latency metrics
-        if (Objects.equals(sipRequest.getMethod(), Request.INVITE)
-            && !SipUtils.isMidDialogRequest(sipRequest)) {
-          new SipMetricsContext(
-              metricService,
-              State.proxyNewRequestReceived,
-              sipRequest.getCallId().getCallId(),
-              true);
-        }
+        // latency of new incoming requests is timed by the ProxySIPRequest created for them
 
         Transport transportType = LMAUtil.getTransportType(sipProvider);
 
@@ -8,6 +8,7 @@ import com.cisco.dsb.common.config.TruststoreConfigurationProperties;
 import com.cisco.dsb.common.config.sip.CommonConfigurationProperties;
 import com.cisco.dsb.common.context.ExecutionContext;
 import com.cisco.dsb.common.executor.DhruvaExecutorService;
+import com.cisco.dsb.common.executor.ExecutorType;
 import com.cisco.dsb.common.maintanence.Maintenance;
 import com.cisco.dsb.common.service.MetricService;
 import com.cisco.dsb.common.service.SipServerLocatorService;
@@ -41,6 +42,8 @@ import java.util.function.Function;
 import java.util.function.Supplier;
 import javax.net.ssl.KeyManager;
 import javax.sip.*;
+import javax.sip.header.RetryAfterHeader;
+import javax.sip.message.Response;
 import org.mockito.*;
 import org.testng.Assert;
 import org.testng.annotations.*;
@@ -321,4 +324,40 @@ public class ProxyServiceTest {
         .assertNext(proxyResponse -> Assert.assertEquals(proxyResponse, proxySIPResponse))
         .verifyComplete();
   }
+
+  @Test(description = "new calls get a 503 while overloaded, calls in progress are let through")
+  public void testShedIfOverloaded() throws Exception {
+    SipProvider sipProvider = mock(SipProvider.class);
+    SIPRequest invite = (SIPRequest) RequestHelper.getInviteRequest();
+    SIPRequest reInvite = (SIPRequest) RequestHelper.getInviteRequest();
+    reInvite.getToHeader().setTag("toTag");
+    SIPRequest options = (SIPRequest) RequestHelper.getOptionsRequest();
+    RequestEvent inviteEvent = new RequestEvent(sipProvider, null, null, invite);
+    RequestEvent reInviteEvent = new RequestEvent(sipProvider, null, null, reInvite);
+    RequestEvent optionsEvent = new RequestEvent(sipProvider, null, null, options);
+    when(commonConfigurationProperties.getOverloadRetryAfterSeconds()).thenReturn(5);
+
+    Assert.assertFalse(proxyService.shedIfOverloaded(inviteEvent));
+    verify(sipProvider, never()).sendResponse(any(Response.class));
+
+    when(dhruvaExecutorService.isOverloaded(ExecutorType.PROXY_PROCESSOR_BOUNDED))
+        .thenReturn(true);
+    try {
+      Assert.assertFalse(proxyService.shedIfOverloaded(reInviteEvent));
+      Assert.assertFalse(proxyService.shedIfOverloaded(optionsEvent));
+      verify(sipProvider, never()).sendResponse(any(Response.class));
+
+      Assert.assertTrue(proxyService.shedIfOverloaded(inviteEvent));
+      ArgumentCaptor<Response> response = ArgumentCaptor.forClass(Response.class);
+      verify(sipProvider).sendResponse(response.capture());
+      Assert.assertEquals(response.getValue().getStatusCode(), Response.SERVICE_UNAVAILABLE);
+      Assert.assertEquals(
+          ((RetryAfterHeader) response.getValue().getHeader(RetryAfterHeader.NAME))
+              .getRetryAfter(),
+          5);
+    } finally {
+      when(dhruvaExecutorService.isOverloaded(ExecutorType.PROXY_PROCESSOR_BOUNDED))
+          .thenReturn(false);
+    }
+  }
 }
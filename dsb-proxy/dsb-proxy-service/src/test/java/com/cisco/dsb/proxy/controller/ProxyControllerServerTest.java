@@ -8,6 +8,7 @@ import com.cisco.dsb.common.service.SipServerLocatorService;
 import com.cisco.dsb.common.sip.bean.SIPListenPoint;
 import com.cisco.dsb.common.sip.stack.dto.DhruvaNetwork;
 import com.cisco.dsb.proxy.ProxyConfigurationProperties;
+import com.cisco.dsb.proxy.ProxyRuntime;
 import com.cisco.dsb.proxy.dto.ProxyAppConfig;
 import com.cisco.dsb.proxy.messaging.ProxySIPRequest;
 import com.cisco.dsb.proxy.messaging.ProxySIPResponse;
@@ -61,11 +62,13 @@ public class ProxyControllerServerTest {
             serverTransaction,
             sipProvider,
             proxyAppConfig,
-            proxyConfigurationProperties,
             proxyFactory,
             controllerConfig,
-            dhruvaExecutorService,
-            sipServerLocatorService);
+            new ProxyRuntime(
+                dhruvaExecutorService,
+                null,
+                sipServerLocatorService,
+                proxyConfigurationProperties));
     proxyController = spy(proxyController);
   }
 
@@ -11,6 +11,7 @@ import com.cisco.dsb.common.exception.DhruvaRuntimeException;
 import com.cisco.dsb.common.exception.ErrorCode;
 import com.cisco.dsb.common.executor.DhruvaExecutorService;
 import com.cisco.dsb.common.executor.ExecutorType;
+import com.cisco.dsb.common.executor.HashedWheelTimer;
 import com.cisco.dsb.common.maintanence.Maintenance;
 import com.cisco.dsb.common.record.DhruvaAppRecord;
 import com.cisco.dsb.common.service.SipServerLocatorService;
@@ -25,6 +26,7 @@ import com.cisco.dsb.common.transport.Transport;
 import com.cisco.dsb.common.util.SpringApplicationContext;
 import com.cisco.dsb.proxy.ControllerInterface;
 import com.cisco.dsb.proxy.ProxyConfigurationProperties;
+import com.cisco.dsb.proxy.ProxyRuntime;
 import com.cisco.dsb.proxy.dto.ProxyAppConfig;
 import com.cisco.dsb.proxy.errors.InternalProxyErrorException;
 import com.cisco.dsb.proxy.messaging.DhruvaSipRequestMessage;
@@ -47,6 +49,7 @@ import java.text.ParseException;
 import java.util.Collections;
 import java.util.ListIterator;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
 import javax.sip.*;
 import javax.sip.address.Hop;
@@ -107,7 +110,7 @@ public class ProxyControllerTest {
   SIPListenPoint sipListenPointTlsOutgoing;
 
   SpringApplicationContext springApplicationContext;
-  ScheduledThreadPoolExecutor scheduledExecutor;
+  HashedWheelTimer timer;
   //    @BeforeEach
   //    public void beforeEach(){
   //        ReflectionTestUtils.setField(proxyControllerFactory,"controllerConfig", new
@@ -133,7 +136,7 @@ public class ProxyControllerTest {
     controllerConfig = new ControllerConfig(sipServerLocatorService, proxyConfigurationProperties);
     // dhruvaSIPConfigProperties = new DhruvaSIPConfigProperties();
     dhruvaExecutorService = mock(DhruvaExecutorService.class);
-    scheduledExecutor = mock(ScheduledThreadPoolExecutor.class);
+    timer = mock(HashedWheelTimer.class);
 
     controllerConfig.addListenInterface(sipListenPoint1);
 
@@ -143,11 +146,13 @@ public class ProxyControllerTest {
 
     proxyControllerFactory =
         new ProxyControllerFactory(
-            proxyConfigurationProperties,
             controllerConfig,
             proxyFactory,
-            dhruvaExecutorService,
-            sipServerLocatorService);
+            new ProxyRuntime(
+                dhruvaExecutorService,
+                null,
+                sipServerLocatorService,
+                proxyConfigurationProperties));
 
     // Dont add 3rd network
     incomingSipProvider = mock(SipProvider.class);
@@ -164,9 +169,7 @@ public class ProxyControllerTest {
     ApplicationContext context = mock(ApplicationContext.class);
     springApplicationContext.setApplicationContext(context);
 
-    when(context.getBean(DhruvaExecutorService.class)).thenReturn(dhruvaExecutorService);
-    when(dhruvaExecutorService.getScheduledExecutorThreadPool(ExecutorType.PROXY_CLIENT_TIMEOUT))
-        .thenReturn(scheduledExecutor);
+    when(dhruvaExecutorService.getTimer(ExecutorType.PROXY_CLIENT_TIMEOUT)).thenReturn(timer);
   }
 
   //    @BeforeEach
@@ -1289,11 +1292,13 @@ public class ProxyControllerTest {
     // Get our own controller factory with mocked proxy factory
     ProxyControllerFactory proxyControllerFactoryMock =
         new ProxyControllerFactory(
-            proxyConfigurationProperties,
             controllerConfig,
             proxyFactoryMock,
-            dhruvaExecutorService,
-            sipServerLocatorService);
+            new ProxyRuntime(
+                dhruvaExecutorService,
+                null,
+                sipServerLocatorService,
+                proxyConfigurationProperties));
 
     ProxyController proxyController =
         proxyControllerFactoryMock
@@ -1399,4 +1404,28 @@ public class ProxyControllerTest {
     ProxyController proxyController = getProxyController(proxySIPRequest);
     proxyController.createResponse(respCode, proxySIPRequest, details);
   }
+
+  @Test(description = "the first response listener runs once, on the first provisional response")
+  public void testFirstResponseListener() throws ParseException {
+    ServerTransaction serverTransaction = mock(ServerTransaction.class);
+    ProxySIPRequest proxySIPRequest =
+        getProxySipRequest(SIPRequestBuilder.RequestMethod.INVITE, serverTransaction);
+    ProxyController proxyController = getProxyController(proxySIPRequest);
+    ProxyCookieImpl cookie = new ProxyCookieImpl();
+    CompletableFuture<ProxySIPResponse> responseCF = new CompletableFuture<>();
+    cookie.setResponseCF(responseCF);
+    AtomicInteger notified = new AtomicInteger();
+    cookie.setFirstResponseListener(notified::incrementAndGet);
+
+    ProxySIPResponse trying = mock(ProxySIPResponse.class, RETURNS_DEEP_STUBS);
+    when(trying.getResponse().getStatusCode()).thenReturn(Response.TRYING);
+    proxyController.onProvisionalResponse(cookie, trying);
+    Assert.assertEquals(notified.get(), 1);
+
+    ProxySIPResponse busy = mock(ProxySIPResponse.class);
+    when(busy.getResponseClass()).thenReturn(4);
+    proxyController.onFinalResponse(cookie, busy);
+    Assert.assertEquals(notified.get(), 1);
+    Assert.assertSame(responseCF.getNow(null), busy);
+  }
 }
@@ -7,10 +7,14 @@ import com.cisco.dsb.common.context.ExecutionContext;
 import com.cisco.dsb.common.exception.DhruvaException;
 import com.cisco.dsb.common.executor.DhruvaExecutorService;
 import com.cisco.dsb.common.executor.ExecutorType;
+import com.cisco.dsb.common.executor.HashedWheelTimer;
+import com.cisco.dsb.common.service.SipServerLocatorService;
 import com.cisco.dsb.common.sip.bean.SIPListenPoint;
 import com.cisco.dsb.common.sip.stack.dto.DhruvaNetwork;
 import com.cisco.dsb.common.transport.Transport;
-import com.cisco.dsb.common.util.SpringApplicationContext;
+import com.cisco.dsb.proxy.ControllerInterface;
+import com.cisco.dsb.proxy.ProxyConfigurationProperties;
+import com.cisco.dsb.proxy.ProxyRuntime;
 import com.cisco.dsb.proxy.messaging.MessageConvertor;
 import com.cisco.dsb.proxy.messaging.ProxySIPRequest;
 import com.cisco.dsb.proxy.messaging.ProxySIPResponse;
@@ -19,15 +23,12 @@ import com.cisco.dsb.proxy.util.ResponseHelper;
 import gov.nist.javax.sip.message.SIPRequest;
 import gov.nist.javax.sip.message.SIPResponse;
 import java.text.ParseException;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import javax.sip.*;
 import javax.sip.message.Request;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
-import org.springframework.context.ApplicationContext;
 import org.testng.Assert;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
@@ -53,9 +54,9 @@ public class ProxyClientTransactionTest {
 
   @Mock DhruvaExecutorService dhruvaExecutorService;
 
-  DhruvaNetwork testNetwork1, testNetwork2;
+  @Mock ControllerInterface controller;
 
-  SpringApplicationContext springApplicationContext;
+  DhruvaNetwork testNetwork1, testNetwork2;
 
   @BeforeMethod
   public void setup() {
@@ -65,7 +66,17 @@ public class ProxyClientTransactionTest {
     reset(sipProvider);
     reset(serverTransaction);
     reset(executionContext);
+    reset(controller);
     when(clientTransaction.getDialog()).thenReturn(dialog);
+    // runtime of each test resolves the timer stubbed by the test
+    ProxyRuntime runtime =
+        new ProxyRuntime(
+            dhruvaExecutorService,
+            null,
+            mock(SipServerLocatorService.class),
+            mock(ProxyConfigurationProperties.class));
+    when(proxyTransaction.getController()).thenReturn(controller);
+    when(controller.getRuntime()).thenReturn(runtime);
   }
 
   @DataProvider
@@ -98,18 +109,11 @@ public class ProxyClientTransactionTest {
   @BeforeClass
   void init() {
     MockitoAnnotations.openMocks(this);
-
-    springApplicationContext = new SpringApplicationContext();
-    ApplicationContext context = mock(ApplicationContext.class);
-    springApplicationContext.setApplicationContext(context);
-
-    when(context.getBean(DhruvaExecutorService.class)).thenReturn(dhruvaExecutorService);
   }
 
   @AfterClass
   void cleanUp() {
     DhruvaNetwork.removeSipProvider(testNetwork1.getName());
-    springApplicationContext.setApplicationContext(null);
   }
 
   // For error responses, Jain Sip stack sends an ACK
@@ -188,13 +192,11 @@ public class ProxyClientTransactionTest {
   public void testTimerCSchedulingAndRemovalWhenTxTimesOut() {
 
     ProxySIPRequest proxyRequest = mock(ProxySIPRequest.class);
-    ScheduledThreadPoolExecutor scheduledExecutor = mock(ScheduledThreadPoolExecutor.class);
-    ScheduledFuture timerC = mock(ScheduledFuture.class);
+    HashedWheelTimer timer = mock(HashedWheelTimer.class);
+    HashedWheelTimer.Timeout timerC = mock(HashedWheelTimer.Timeout.class);
 
-    when(dhruvaExecutorService.getScheduledExecutorThreadPool(ExecutorType.PROXY_CLIENT_TIMEOUT))
-        .thenReturn(scheduledExecutor);
-    when(scheduledExecutor.schedule(any(Runnable.class), anyLong(), any(TimeUnit.class)))
-        .thenReturn(timerC);
+    when(dhruvaExecutorService.getTimer(ExecutorType.PROXY_CLIENT_TIMEOUT)).thenReturn(timer);
+    when(timer.newTimeout(any(Runnable.class), anyLong(), any(TimeUnit.class))).thenReturn(timerC);
     when(proxyRequest.getOutgoingNetwork()).thenReturn(testNetwork1.getName());
 
     ProxyClientTransaction proxyClientTransaction =
@@ -207,8 +209,9 @@ public class ProxyClientTransactionTest {
 
     proxyClientTransaction.scheduleTimerC(2);
 
-    verify(scheduledExecutor)
-        .schedule(argumentCaptor1.capture(), argumentCaptor2.capture(), argumentCaptor3.capture());
+    verify(timer)
+        .newTimeout(
+            argumentCaptor1.capture(), argumentCaptor2.capture(), argumentCaptor3.capture());
     Assert.assertNotNull(argumentCaptor1.getValue());
     Assert.assertEquals((long) argumentCaptor2.getValue(), 2L);
     Assert.assertEquals(argumentCaptor3.getValue(), TimeUnit.MILLISECONDS);
@@ -216,14 +219,14 @@ public class ProxyClientTransactionTest {
     // Transaction timed out, so remove Timer C
     proxyClientTransaction.timedOut();
     Assert.assertTrue(proxyClientTransaction.isTimedOut());
-    verify(timerC).cancel(false);
+    verify(timerC).cancel();
 
     // Calling a 2nd invocation
     proxyClientTransaction.timedOut();
     Assert.assertTrue(proxyClientTransaction.isTimedOut());
     // when timedOut() is called for 2nd time - the cancel() is not invoked. So, totally only 1 call
     // to cancel() is done overall
-    verify(timerC).cancel(false);
+    verify(timerC).cancel();
   }
 
   @Test(
@@ -235,13 +238,11 @@ public class ProxyClientTransactionTest {
     SIPResponse latestResponseInTx = mock(SIPResponse.class);
     ProxySIPResponse proxySIPResponse = mock(ProxySIPResponse.class);
     ProxySIPRequest proxyRequest = mock(ProxySIPRequest.class);
-    ScheduledThreadPoolExecutor scheduledExecutor = mock(ScheduledThreadPoolExecutor.class);
-    ScheduledFuture timerC = mock(ScheduledFuture.class);
+    HashedWheelTimer timer = mock(HashedWheelTimer.class);
+    HashedWheelTimer.Timeout timerC = mock(HashedWheelTimer.Timeout.class);
 
-    when(dhruvaExecutorService.getScheduledExecutorThreadPool(ExecutorType.PROXY_CLIENT_TIMEOUT))
-        .thenReturn(scheduledExecutor);
-    when(scheduledExecutor.schedule(any(Runnable.class), anyLong(), any(TimeUnit.class)))
-        .thenReturn(timerC);
+    when(dhruvaExecutorService.getTimer(ExecutorType.PROXY_CLIENT_TIMEOUT)).thenReturn(timer);
+    when(timer.newTimeout(any(Runnable.class), anyLong(), any(TimeUnit.class))).thenReturn(timerC);
     when(proxyRequest.getOutgoingNetwork()).thenReturn(testNetwork1.getName());
 
     ProxyClientTransaction proxyClientTransaction =
@@ -259,18 +260,17 @@ public class ProxyClientTransactionTest {
     // call
     proxyClientTransaction.gotResponse(proxySIPResponse);
 
-    verify(timerC).cancel(false);
+    verify(timerC).cancel();
   }
 
   @Test(
       description =
-          "If ScheduledExecutorService 'PROXY_CLIENT_TIMEOUT' (which is used for Timeer C) is not started properly, then we cannot scchedule a  task on it")
+          "If Timer Service 'PROXY_CLIENT_TIMEOUT' (which is used for Timeer C) is not started properly, then we cannot scchedule a  task on it")
   public void testTimerCExecutorService() {
 
     ProxySIPRequest proxyRequest = mock(ProxySIPRequest.class);
 
-    when(dhruvaExecutorService.getScheduledExecutorThreadPool(ExecutorType.PROXY_CLIENT_TIMEOUT))
-        .thenReturn(null);
+    when(dhruvaExecutorService.getTimer(ExecutorType.PROXY_CLIENT_TIMEOUT)).thenReturn(null);
     when(proxyRequest.getOutgoingNetwork()).thenReturn(testNetwork1.getName());
 
     ProxyClientTransaction proxyClientTransaction =
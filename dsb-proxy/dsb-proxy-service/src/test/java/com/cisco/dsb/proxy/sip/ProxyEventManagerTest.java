@@ -15,6 +15,8 @@ import gov.nist.javax.sip.message.SIPRequest;
 import gov.nist.javax.sip.message.SIPResponse;
 import java.text.ParseException;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
 import javax.sip.*;
 import javax.sip.message.Request;
 import org.mockito.*;
@@ -22,6 +24,7 @@ import org.testng.Assert;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
+import reactor.core.publisher.Mono;
 
 public class ProxyEventManagerTest {
   @Mock private StripedExecutorService executor;
@@ -97,6 +100,103 @@ public class ProxyEventManagerTest {
     Assert.assertEquals(sipRequestHandler.getCallId(), request.getCallId().getCallId());
   }
 
+  @Test(description = "handlers hand the event to the proxy service they were created with")
+  @SuppressWarnings("unchecked")
+  public void testRequestEventHandlerDispatch() throws Exception {
+    Consumer<Mono<RequestEvent>> requestConsumer = mock(Consumer.class);
+    when(proxyService.proxyRequestHandler()).thenReturn(requestConsumer);
+    SIPRequest request =
+        SIPRequestBuilder.createRequest(
+            new SIPRequestBuilder().getRequestAsString(SIPRequestBuilder.RequestMethod.INVITE));
+    RequestEvent requestEvent =
+        new RequestEvent(mock(SipProvider.class), null, mock(Dialog.class), request);
+
+    new SipRequestHandler(proxyService, requestEvent).executeRun();
+
+    verify(proxyService).proxyRequestHandler();
+    verify(requestConsumer).accept(any());
+  }
+
+  @Test(description = "requests rejected by the executor are handed over for a 503")
+  public void testRequestRejected() throws Exception {
+    when(executor.submit(any(ProxyEventHandler.class)))
+        .thenThrow(new RejectedExecutionException("queue full"));
+    SIPRequest request =
+        SIPRequestBuilder.createRequest(
+            new SIPRequestBuilder().getRequestAsString(SIPRequestBuilder.RequestMethod.INVITE));
+    RequestEvent requestEvent =
+        new RequestEvent(mock(SipProvider.class), null, mock(Dialog.class), request);
+
+    proxyEventManager.request(requestEvent);
+
+    verify(proxyService).rejectNewCall(requestEvent);
+  }
+
+  @Test(description = "new calls are shed before they are queued while overloaded")
+  public void testRequestShedBeforeSubmit() throws Exception {
+    SIPRequest request =
+        SIPRequestBuilder.createRequest(
+            new SIPRequestBuilder().getRequestAsString(SIPRequestBuilder.RequestMethod.INVITE));
+    RequestEvent requestEvent =
+        new RequestEvent(mock(SipProvider.class), null, mock(Dialog.class), request);
+    when(proxyService.shedIfOverloaded(requestEvent)).thenReturn(true);
+
+    proxyEventManager.request(requestEvent);
+
+    verify(executor, never()).submit(any(ProxyEventHandler.class));
+  }
+
+  @Test(description = "responses rejected by the executor are not processed on the stack thread")
+  @SuppressWarnings("unchecked")
+  public void testResponseRejected() throws Exception {
+    when(executor.submit(any(ProxyEventHandler.class)))
+        .thenThrow(new RejectedExecutionException("shut down"));
+    Consumer<Mono<ResponseEvent>> responseConsumer = mock(Consumer.class);
+    when(proxyService.proxyResponseHandler()).thenReturn(responseConsumer);
+    SipProvider sipProvider = mock(SipProvider.class);
+    when(sipProvider.getListeningPoints())
+        .thenReturn(new ListeningPoint[] {getTestListeningPoint()});
+    ResponseEvent responseEvent =
+        new ResponseEvent(
+            sipProvider,
+            mock(ClientTransaction.class),
+            mock(Dialog.class),
+            ResponseHelper.getSipResponse());
+
+    proxyEventManager.response(responseEvent);
+
+    verify(responseConsumer, never()).accept(any());
+  }
+
+  @Test(description = "responses and timeouts are never shed by a bounded executor")
+  public void testResponseAndTimeoutNotSheddable() throws Exception {
+    SipProvider sipProvider = mock(SipProvider.class);
+    when(sipProvider.getListeningPoints())
+        .thenReturn(new ListeningPoint[] {getTestListeningPoint()});
+    SIPRequest request =
+        SIPRequestBuilder.createRequest(
+            new SIPRequestBuilder().getRequestAsString(SIPRequestBuilder.RequestMethod.INVITE));
+
+    Assert.assertTrue(
+        new SipRequestHandler(
+                proxyService, new RequestEvent(sipProvider, null, mock(Dialog.class), request))
+            .isSheddable());
+    Assert.assertFalse(
+        new SipResponseHandler(
+                proxyService,
+                new ResponseEvent(
+                    sipProvider,
+                    mock(ClientTransaction.class),
+                    mock(Dialog.class),
+                    ResponseHelper.getSipResponse()))
+            .isSheddable());
+    Assert.assertFalse(
+        new SipTimeOutHandler(
+                proxyService,
+                new TimeoutEvent(sipProvider, mock(ServerTransaction.class), Timeout.TRANSACTION))
+            .isSheddable());
+  }
+
   @Test(description = "test response handler for proxy")
   public void testResponseEventHandler() throws Exception {
     Future f = mock(Future.class);
@@ -4,6 +4,9 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 import com.cisco.dsb.common.exception.ErrorCode;
+import com.cisco.dsb.common.overload.OverloadControl;
+import com.cisco.dsb.common.overload.ViaOverloadControl;
+import com.cisco.dsb.common.sip.jain.JainSipHelper;
 import com.cisco.dsb.common.util.TriFunction;
 import com.cisco.dsb.proxy.controller.ProxyController;
 import com.cisco.dsb.proxy.errors.DestinationUnreachableException;
@@ -22,6 +25,7 @@ import javax.sip.message.Response;
 import org.mockito.ArgumentMatchers;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.testng.Assert;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.BeforeTest;
 import org.testng.annotations.DataProvider;
@@ -190,6 +194,40 @@ public class ProxyTransactionTest {
     verify(controllerInterface).onFinalResponse(any(ProxyCookie.class), eq(proxySIPResponse));
   }
 
+  @Test(description = "overload control of the next hop is kept before our Via is removed")
+  public void testFinalResponseKeepsOverloadControl() throws Exception {
+    // setup
+    proxyTransaction.setM_originalProxyClientTrans(proxyClientTransaction);
+    when(proxyClientTransaction.getCookie()).thenReturn(mock(ProxyCookie.class));
+    SIPResponse response =
+        (SIPResponse)
+            JainSipHelper.getMessageFactory()
+                .createResponse(
+                    "SIP/2.0 503 Service Unavailable\r\n"
+                        + "Via: SIP/2.0/UDP 10.0.0.2:5060;branch=z9hG4bK-2;oc=40;oc-algo=\"loss\""
+                        + ";oc-validity=1000;oc-seq=3\r\n"
+                        + "Via: SIP/2.0/UDP 10.0.0.1:5060;branch=z9hG4bK-1\r\n"
+                        + "From: <sip:123@10.0.0.1>;tag=1\r\n"
+                        + "To: <sip:456@10.0.0.3>;tag=2\r\n"
+                        + "Call-ID: 1@10.0.0.1\r\n"
+                        + "CSeq: 1 INVITE\r\n"
+                        + "Content-Length: 0\r\n\r\n");
+    ProxySIPResponse realResponse =
+        new ProxySIPResponse(null, null, response, mock(ClientTransaction.class));
+    // call
+    proxyTransaction.finalResponse(realResponse);
+
+    // verify
+    verify(controllerInterface).onFinalResponse(any(ProxyCookie.class), eq(realResponse));
+    Assert.assertEquals(response.getViaHeaders().size(), 1);
+    Assert.assertNull(response.getTopmostVia().getParameter(ViaOverloadControl.OC));
+    OverloadControl overloadControl = realResponse.getOverloadControl();
+    Assert.assertNotNull(overloadControl);
+    Assert.assertEquals(overloadControl.getReduction(), 40);
+    Assert.assertEquals(overloadControl.getValidityMillis(), 1000);
+    Assert.assertEquals(overloadControl.getSequence(), 3);
+  }
+
   @Test(description = "test to send out SIPResponse for NOT_STRAY request")
   public void testRespondNotStray() throws DestinationUnreachableException {
     // setup
@@ -62,6 +62,8 @@ public class TrunkConfigurationProperties {
   @Getter private Map<String, Collection<ServerGroup>> trunkServerGroupHashMap = new HashMap<>();
   @Getter private Map<ServerGroup, Set<String>> serverToTrunkMap = new HashMap<>();
   @Getter private Map<String, MaintenancePolicy> trunkToMaintenancePolicyMap = new HashMap<>();
+  // PSTN trunks by lower case dtg, replaced as a whole whenever the PSTN trunks are set
+  @Getter private volatile Map<String, PSTNTrunk> pstnTrunkDtgMap = Collections.emptyMap();
 
   private void configureTrunkToMaintenancePolicyMap(String trunkName, AbstractTrunk trunk) {
     if (Objects.nonNull(trunk.getIngress())
@@ -80,6 +82,29 @@ public class TrunkConfigurationProperties {
     this.pstnTrunkMap.put(
         SipParamConstants.DEFAULT_DTG_VALUE_FOR_MIDCALL, getDefaultPSTNTrunkForMidCall());
     this.pstnTrunkMap.forEach(this::configureTrunkToMaintenancePolicyMap);
+    this.pstnTrunkDtgMap = indexByDtg(this.pstnTrunkMap);
+  }
+
+  static Map<String, PSTNTrunk> indexByDtg(Map<String, PSTNTrunk> pstnTrunkMap) {
+    Map<String, PSTNTrunk> dtgMap = new HashMap<>();
+    pstnTrunkMap.forEach(
+        (name, trunk) -> {
+          Map<String, String> selector = trunk.getEgress().getSelector();
+          String dtg = selector == null ? null : selector.get(SipParamConstants.DTG);
+          if (dtg == null) {
+            logger.error("DTG key is not present in the selector of PSTN trunk {}", name);
+            return;
+          }
+          PSTNTrunk existing = dtgMap.putIfAbsent(dtg.toLowerCase(Locale.ROOT), trunk);
+          if (existing != null) {
+            logger.warn(
+                "PSTN trunk {} has the same dtg {} as trunk {}, it is not used for egress",
+                name,
+                dtg,
+                existing.getName());
+          }
+        });
+    return Collections.unmodifiableMap(dtgMap);
   }
 
   public void setB2B(Map<String, B2BTrunk> b2BTrunkMap) {
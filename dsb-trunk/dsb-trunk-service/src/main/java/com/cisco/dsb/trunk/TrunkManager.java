@@ -13,9 +13,7 @@ import com.cisco.dsb.trunk.trunks.AbstractTrunk;
 import com.cisco.dsb.trunk.trunks.TrunkPluginInterface;
 import com.cisco.dsb.trunk.trunks.TrunkPlugins;
 import com.cisco.dsb.trunk.trunks.TrunkType;
-import com.cisco.dsb.trunk.util.SipParamConstants;
 import java.util.HashSet;
-import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
@@ -136,38 +134,12 @@ public class TrunkManager {
       TrunkType type, ProxySIPRequest proxySIPRequest, String key, Normalization normalization) {
     try {
 
-      AbstractTrunk trunk = null;
-      Map<String, AbstractTrunk> maps =
-          (Map<String, AbstractTrunk>)
-              this.registry
-                  .getPluginFor(
-                      type,
-                      () ->
-                          new DhruvaRuntimeException("Trunk Type \"" + type + "\" not registered"))
-                  .getTrunkMap();
-
-      switch (type) {
-        case PSTN:
-          for (Map.Entry<String, AbstractTrunk> map : maps.entrySet()) {
-            Map<String, String> selector = map.getValue().getEgress().getSelector();
-            if (selector == null || selector.isEmpty()) {
-              logger.error("No selector provided for PSTN trunk, dtg cannot be fetched");
-              break;
-            }
-            String dtgValue = selector.get(SipParamConstants.DTG);
-            if (dtgValue == null) {
-              logger.error("DTG key is not present in the selector");
-              break;
-            }
-            if (dtgValue.equalsIgnoreCase(key)) {
-              trunk = map.getValue();
-              break;
-            }
-          }
-          break;
-        default:
-          trunk = maps.get(key);
-      }
+      AbstractTrunk trunk =
+          this.registry
+              .getPluginFor(
+                  type,
+                  () -> new DhruvaRuntimeException("Trunk Type \"" + type + "\" not registered"))
+              .getTrunk(key);
 
       if (trunk == null)
         throw new DhruvaRuntimeException(
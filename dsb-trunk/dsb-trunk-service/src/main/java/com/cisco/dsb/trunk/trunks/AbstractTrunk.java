@@ -7,12 +7,14 @@ import com.cisco.dsb.common.exception.DhruvaException;
 import com.cisco.dsb.common.exception.DhruvaRuntimeException;
 import com.cisco.dsb.common.exception.ErrorCode;
 import com.cisco.dsb.common.loadbalancer.LBElement;
+import com.cisco.dsb.common.loadbalancer.LBElementStats;
 import com.cisco.dsb.common.loadbalancer.LBType;
 import com.cisco.dsb.common.loadbalancer.LoadBalancable;
 import com.cisco.dsb.common.loadbalancer.LoadBalancer;
 import com.cisco.dsb.common.maintanence.Maintenance;
 import com.cisco.dsb.common.metric.SipMetricsContext;
 import com.cisco.dsb.common.normalization.Normalization;
+import com.cisco.dsb.common.overload.ViaOverloadControl;
 import com.cisco.dsb.common.servergroup.*;
 import com.cisco.dsb.common.service.MetricService;
 import com.cisco.dsb.common.sip.util.EndPoint;
@@ -21,6 +23,7 @@ import com.cisco.dsb.connectivity.monitor.service.OptionsPingController;
 import com.cisco.dsb.proxy.ProxyState;
 import com.cisco.dsb.proxy.messaging.ProxySIPRequest;
 import com.cisco.dsb.proxy.messaging.ProxySIPResponse;
+import com.cisco.dsb.proxy.sip.ProxyCookieImpl;
 import com.cisco.dsb.trunk.MaintenanceMode;
 import com.cisco.dsb.trunk.MaintenanceModeImpl;
 import com.cisco.dsb.trunk.TrunkConfigurationProperties;
@@ -36,11 +39,13 @@ import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
+import javax.sip.message.Request;
 import lombok.*;
 import org.apache.commons.lang3.builder.EqualsBuilder;
 import org.apache.commons.lang3.builder.HashCodeBuilder;
@@ -149,6 +154,7 @@ public abstract class AbstractTrunk implements LoadBalancable {
       // if best response received or no more elements to try, onNext(bestResponse)
       logger.debug("Received Response {}", proxySIPResponse.getStatusCode());
       ProxySIPRequest proxySIPRequest = cookie.getOriginalRequest();
+      ViaOverloadControl.apply(proxySIPResponse.getOverloadControl(), cookie.getElementStats());
 
       if (shouldFailover(proxySIPResponse, cookie)) {
         logger.info(
@@ -253,8 +259,11 @@ public abstract class AbstractTrunk implements LoadBalancable {
         .doBeforeRetry((s) -> logger.debug("Retrying after retryTrunkOnException", s.failure()))
         .filter(
             err -> {
-              if (err instanceof DhruvaRuntimeException
-                  && ((DhruvaRuntimeException) err).getErrCode() == ErrorCode.TRUNK_RETRY_NEXT)
+              ErrorCode errCode =
+                  err instanceof DhruvaRuntimeException
+                      ? ((DhruvaRuntimeException) err).getErrCode()
+                      : null;
+              if (errCode == ErrorCode.TRUNK_RETRY_NEXT || errCode == ErrorCode.NEXT_HOP_OVERLOADED)
                 return true;
               else if (DsbCircuitBreakerUtil.isCircuitBreakerException(err)) return true;
               return failOverException().test(err);
@@ -375,7 +384,8 @@ public abstract class AbstractTrunk implements LoadBalancable {
     if (cookie.rsgLoadBalancer != null) {
       ServerGroupElement activeSGE =
           ((ServerGroupElement) getActiveLBElement(cookie.rsgLoadBalancer));
-      if (activeSGE != null) return Mono.just(getEndPointFromSge(cookie.redirectionSG, activeSGE));
+      if (activeSGE != null)
+        return Mono.just(getEndPointFromSge(cookie, cookie.redirectionSG, activeSGE));
     }
     cookie.rsgLoadBalancer = null;
     cookie.redirectionSG = null;
@@ -403,7 +413,7 @@ public abstract class AbstractTrunk implements LoadBalancable {
               if (activeSGE == null)
                 throw new DhruvaRuntimeException(
                     ErrorCode.TRUNK_RETRY_NEXT, "None of the SGEs are up ");
-              return getEndPointFromSge(resolvedSG, activeSGE);
+              return getEndPointFromSge(cookie, resolvedSG, activeSGE);
             });
   }
 
@@ -413,7 +423,7 @@ public abstract class AbstractTrunk implements LoadBalancable {
       ServerGroupElement activeSGE =
           (ServerGroupElement) getActiveLBElement(cookie.sgeLoadBalancer);
       if (activeSGE != null) {
-        return Mono.just(getEndPointFromSge(currentSG, activeSGE));
+        return Mono.just(getEndPointFromSge(cookie, currentSG, activeSGE));
       }
       currentSG =
           checkFailOverSG(cookie) ? (ServerGroup) getActiveLBElement(cookie.sgLoadBalancer) : null;
@@ -462,14 +472,16 @@ public abstract class AbstractTrunk implements LoadBalancable {
                 throw new DhruvaRuntimeException(
                     ErrorCode.TRUNK_RETRY_NEXT, "None of the SGEs are up ");
               cookie.setSgeLoadBalancer(sgeLBTemp);
-              return getEndPointFromSge(dsg, activeSge);
+              return getEndPointFromSge(cookie, dsg, activeSge);
             });
   }
 
   private EndPoint getEndPointFromSge(
-      ServerGroup serverGroup, ServerGroupElement serverGroupElement) {
+      TrunkCookie cookie, ServerGroup serverGroup, ServerGroupElement serverGroupElement) {
 
     EndPoint ep = new EndPoint(serverGroup, serverGroupElement);
+    // live load of the element, for the adaptive LB types
+    cookie.setElementStats(LBElementStats.of(serverGroupElement));
 
     // increment counter of SGE of this trunk
     this.addLBMetric(serverGroup);
@@ -540,6 +552,7 @@ public abstract class AbstractTrunk implements LoadBalancable {
     LoadBalancer sgLoadBalancer;
     LoadBalancer rsgLoadBalancer; // Resolved SG from 3xx
     ServerGroup redirectionSG;
+    LBElementStats elementStats; // of the element the request is currently sent to
     final ProxySIPRequest originalRequest;
     final RedirectionSet redirectionSet;
     final String userId;
@@ -573,7 +586,40 @@ public abstract class AbstractTrunk implements LoadBalancable {
     Predicate<Object> cbRecordResult = getCircuitBreakerRecordResult(cookie);
     ProxySIPRequest clonedRequest = cookie.getClonedRequest();
     setListenIfHeaders(cookie, clonedRequest);
-    return Mono.defer(() -> Mono.fromFuture(cookie.getClonedRequest().proxy(endPoint)))
+    LBElementStats elementStats = cookie.getElementStats();
+    if (isThrottled(cookie)) {
+      // not sent, so not recorded by the circuit breaker either
+      return Mono.error(
+          new DhruvaRuntimeException(
+              ErrorCode.NEXT_HOP_OVERLOADED,
+              "Next hop " + endPoint + " asked to reduce new calls, trying next element"));
+    }
+    return Mono.defer(
+            () -> {
+              if (elementStats == null) {
+                return Mono.fromFuture(cookie.getClonedRequest().proxy(endPoint));
+              }
+              // outstanding until the final response, failure or overall timeout of this attempt.
+              // Latency is sampled on the first response instead (a provisional one for an INVITE,
+              // so that ringing is not taken for latency), or on the failure if none came
+              long start = elementStats.start();
+              AtomicBoolean sampled = new AtomicBoolean();
+              Runnable sample =
+                  () -> {
+                    if (sampled.compareAndSet(false, true)) {
+                      elementStats.sample(start);
+                    }
+                  };
+              if (clonedRequest.getCookie() instanceof ProxyCookieImpl) {
+                ((ProxyCookieImpl) clonedRequest.getCookie()).setFirstResponseListener(sample);
+              }
+              return Mono.fromFuture(clonedRequest.proxy(endPoint))
+                  .doFinally(
+                      signalType -> {
+                        sample.run();
+                        elementStats.end();
+                      });
+            })
         .transformDeferred(
             ConditionalTransformer.of(
                 dsbCircuitBreaker,
@@ -583,6 +629,14 @@ public abstract class AbstractTrunk implements LoadBalancable {
                 getEgress().getRoutePolicy().getCircuitBreakConfig()));
   }
 
+  /** Drops new calls towards the next hop in the share it asked for through overload control */
+  private boolean isThrottled(TrunkCookie cookie) {
+    LBElementStats elementStats = cookie.getElementStats();
+    return elementStats != null
+        && Request.INVITE.equals(cookie.getOriginalRequest().getRequest().getMethod())
+        && elementStats.isThrottled();
+  }
+
   private Mono<ProxySIPResponse> sendMidCallRequestToProxy(
       ProxySIPRequest proxySIPRequest, Normalization normalization) {
     normalization.egressMidCallPostNormalize().accept(proxySIPRequest);
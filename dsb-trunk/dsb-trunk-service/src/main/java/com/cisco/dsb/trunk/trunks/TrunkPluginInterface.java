@@ -5,4 +5,9 @@ import org.springframework.plugin.core.Plugin;
 
 public interface TrunkPluginInterface extends Plugin<TrunkType> {
   Map<String, ? extends AbstractTrunk> getTrunkMap();
+
+  /** @return trunk chosen for egress by the given key, by default the name of the trunk */
+  default AbstractTrunk getTrunk(String key) {
+    return getTrunkMap().get(key);
+  }
 }
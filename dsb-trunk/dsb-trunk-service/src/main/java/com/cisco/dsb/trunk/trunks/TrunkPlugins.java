@@ -1,6 +1,7 @@
 package com.cisco.dsb.trunk.trunks;
 
 import com.cisco.dsb.trunk.TrunkConfigurationProperties;
+import java.util.Locale;
 import java.util.Map;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -21,6 +22,15 @@ public class TrunkPlugins {
         return configurationProperties.getPstnTrunkMap();
       }
 
+      // chosen by the dtg in their selector, ignoring case
+      @Override
+      public AbstractTrunk getTrunk(String key) {
+        if (key == null) {
+          return null;
+        }
+        return configurationProperties.getPstnTrunkDtgMap().get(key.toLowerCase(Locale.ROOT));
+      }
+
       @Override
       public boolean supports(TrunkType type) {
         return type == TrunkType.PSTN;
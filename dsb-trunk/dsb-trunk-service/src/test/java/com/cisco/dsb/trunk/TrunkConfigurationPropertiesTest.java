@@ -143,6 +143,14 @@ public class TrunkConfigurationPropertiesTest {
     Assert.assertEquals(
         b2bTrunkMap.get("Antares"), configurationProperties.getB2BTrunkMap().get("Antares"));
     Assert.assertEquals(ccTrunkMap, configurationProperties.getCallingTrunkMap());
+    // PSTN trunks are found by dtg ignoring case, UsPoolA has no dtg
+    Assert.assertEquals(configurationProperties.getPstnTrunkDtgMap().size(), 2);
+    Assert.assertSame(configurationProperties.getPstnTrunkDtgMap().get("ccpfusionin"), pstnTrunk2);
+    Assert.assertSame(
+        configurationProperties
+            .getPstnTrunkDtgMap()
+            .get(SipParamConstants.DEFAULT_DTG_VALUE_FOR_MIDCALL.toLowerCase()),
+        pstnTrunkMap.get(SipParamConstants.DEFAULT_DTG_VALUE_FOR_MIDCALL));
     ServerGroups sgs3 = ServerGroups.builder().setSg("SG3").setWeight(80).setPriority(5).build();
 
     egress1.setServerGroups(Collections.singletonList(sgs3));
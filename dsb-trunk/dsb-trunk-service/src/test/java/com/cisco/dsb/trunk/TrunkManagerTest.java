@@ -108,6 +108,8 @@ public class TrunkManagerTest {
     defaultTrunkMap.put("default1", defaultTrunk1);
     defaultTrunkMap.put("default2", defaultTrunk2);
     when(trunkConfigurationProperties.getPstnTrunkMap()).thenReturn(pstnTrunkMap);
+    when(trunkConfigurationProperties.getPstnTrunkDtgMap())
+        .thenReturn(TrunkConfigurationProperties.indexByDtg(pstnTrunkMap));
     when(trunkConfigurationProperties.getB2BTrunkMap()).thenReturn(b2BTrunkMap);
     when(trunkConfigurationProperties.getCallingTrunkMap()).thenReturn(callingTrunkMap);
     when(trunkConfigurationProperties.getDefaultTrunkMap()).thenReturn(defaultTrunkMap);